@@ -0,0 +1,53 @@
+package ch.thn.util.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler (allocation rates) and writes the results as JSON, so
+ * that the results of different versions can be compared.<br />
+ * <br />
+ * All the usual JMH command line options can be given, e.g. a benchmark name pattern to run only
+ * some of the benchmarks: <code>java -jar benchmarks.jar StringUtilBenchmark</code>. The results
+ * are written to <code>jmh-result.json</code> unless <code>-rff</code> is given.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public class BenchmarkRunner {
+
+  /** The default result file. */
+  public static final String RESULT_FILE = "jmh-result.json";
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args JMH command line options
+   * @throws RunnerException If running the benchmarks fails
+   * @throws CommandLineOptionException If the command line options are invalid
+   */
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+
+    OptionsBuilder options = new OptionsBuilder();
+    options.parent(commandLine);
+    options.addProfiler(GCProfiler.class);
+
+    if (!commandLine.getResultFormat().hasValue()) {
+      options.resultFormat(ResultFormatType.JSON);
+    }
+
+    if (!commandLine.getResult().hasValue()) {
+      options.result(RESULT_FILE);
+    }
+
+    new Runner(options.build()).run();
+  }
+
+}
@@ -0,0 +1,97 @@
+package ch.thn.util.benchmarks.number;
+
+import ch.thn.util.number.Decimal;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of summing up prices times quantities (an invoice total) with {@link Decimal} and
+ * its {@link Decimal.Accumulator}, compared to {@link BigDecimal}.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecimalBenchmark {
+
+  private static final int SIZE = 10_000;
+
+  private Decimal[] prices;
+  private Decimal[] quantities;
+  private BigDecimal[] bigPrices;
+  private BigDecimal[] bigQuantities;
+
+  /**
+   * Creates random prices with two decimals and quantities with three decimals.
+   */
+  @Setup
+  public void setup() {
+    SplittableRandom random = new SplittableRandom(42);
+    prices = new Decimal[SIZE];
+    quantities = new Decimal[SIZE];
+    bigPrices = new BigDecimal[SIZE];
+    bigQuantities = new BigDecimal[SIZE];
+
+    for (int i = 0; i < SIZE; i++) {
+      prices[i] = Decimal.of(random.nextLong(1, 100_000), 2);
+      quantities[i] = Decimal.of(random.nextLong(1, 10_000), 3);
+      bigPrices[i] = prices[i].toBigDecimal();
+      bigQuantities[i] = quantities[i].toBigDecimal();
+    }
+  }
+
+  /**
+   * Sums up the rounded products with BigDecimal.
+   */
+  @Benchmark
+  public BigDecimal bigDecimal() {
+    BigDecimal sum = BigDecimal.ZERO;
+    for (int i = 0; i < SIZE; i++) {
+      sum = sum.add(bigPrices[i].multiply(bigQuantities[i]).setScale(2, RoundingMode.HALF_EVEN));
+    }
+    return sum;
+  }
+
+  /**
+   * Sums up the rounded products with immutable decimals.
+   */
+  @Benchmark
+  public Decimal decimal() {
+    Decimal sum = Decimal.ZERO;
+    for (int i = 0; i < SIZE; i++) {
+      sum = sum.add(prices[i].multiply(quantities[i], 2, RoundingMode.HALF_EVEN));
+    }
+    return sum;
+  }
+
+  /**
+   * Sums up the rounded products with an accumulator.
+   */
+  @Benchmark
+  public long accumulator() {
+    Decimal.Accumulator sum = new Decimal.Accumulator(2, RoundingMode.HALF_EVEN);
+    for (int i = 0; i < SIZE; i++) {
+      sum.addProduct(prices[i], quantities[i]);
+    }
+    return sum.getUnscaled();
+  }
+
+}
@@ -0,0 +1,131 @@
+package ch.thn.util.benchmarks.number;
+
+import ch.thn.util.number.NumberAdder;
+import ch.thn.util.number.NumberUtil;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Benchmarks of adding numbers to one sum from many threads with {@link NumberAdder}, compared to
+ * {@link NumberUtil#add(Number, Number)} in a synchronized block and a plain
+ * {@link LongAdder}.<br />
+ * <br />
+ * The mixed benchmarks add <code>Integer</code>, <code>Long</code> or <code>Double</code> values
+ * depending on the thread, so that the sum widens while the threads add to it and both the
+ * <code>long</code> and the <code>double</code> cells are contended. The sums are reset before each
+ * iteration, so that every iteration widens them again.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class NumberAdderBenchmark {
+
+  private static final Number VALUE = 3L;
+
+  private final Object lock = new Object();
+  private final NumberAdder adder = new NumberAdder();
+  private final LongAdder longAdder = new LongAdder();
+
+  private Number sum = 0;
+
+  /**
+   * Resets the sums, so that they widen again in the next iteration.
+   */
+  @Setup(Level.Iteration)
+  public void reset() {
+    adder.reset();
+    sum = 0;
+  }
+
+  /**
+   * Adds the value to the shared sum while holding a lock.
+   */
+  @Benchmark
+  public void synchronizedNumberUtil() {
+    synchronized (lock) {
+      sum = NumberUtil.add(sum, VALUE);
+    }
+  }
+
+  @Benchmark
+  public void numberAdder() {
+    adder.add(VALUE);
+  }
+
+  @Benchmark
+  public void numberAdderLong() {
+    adder.add(3L);
+  }
+
+  @Benchmark
+  public void longAdder() {
+    longAdder.add(3L);
+  }
+
+  /**
+   * Adds the mixed value of the thread to the shared sum while holding a lock.
+   *
+   * @param value The value of the thread
+   */
+  @Benchmark
+  public void synchronizedNumberUtilMixed(MixedValue value) {
+    synchronized (lock) {
+      sum = NumberUtil.add(sum, value.value);
+    }
+  }
+
+  @Benchmark
+  public void numberAdderMixed(MixedValue value) {
+    adder.add(value.value);
+  }
+
+
+  /************************************************************************************
+   * The value a thread adds in the mixed benchmarks: an <code>Integer</code>, a
+   * <code>Long</code> or a <code>Double</code>, depending on the index of the thread.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  @State(Scope.Thread)
+  public static class MixedValue {
+
+    private static final Number[] VALUES = {3, 3L, 3.5};
+
+    private Number value;
+
+    /**
+     * Selects the value of the thread.
+     *
+     * @param params The parameters of the thread
+     */
+    @Setup
+    public void setup(ThreadParams params) {
+      value = VALUES[params.getThreadIndex() % VALUES.length];
+    }
+
+  }
+
+}
@@ -0,0 +1,125 @@
+package ch.thn.util.benchmarks.number;
+
+import ch.thn.util.number.NumberArrayUtil;
+import ch.thn.util.number.NumberUtil;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the {@link NumberArrayUtil} operations, compared to loops over boxed values with
+ * {@link NumberUtil#add(Number, Number)} etc.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NumberArrayBenchmark {
+
+  /** The number of array elements. */
+  @Param({"1000", "100000", "10000000"})
+  private int size;
+
+  private long[] longs;
+  private double[] doubles;
+  private Number[] boxedLongs;
+  private Number[] boxedDoubles;
+
+  /**
+   * Fills the arrays with random values.
+   */
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+
+    longs = new long[size];
+    doubles = new double[size];
+    boxedLongs = new Number[size];
+    boxedDoubles = new Number[size];
+
+    for (int i = 0; i < size; i++) {
+      longs[i] = random.nextInt(1000);
+      doubles[i] = random.nextDouble();
+      boxedLongs[i] = longs[i];
+      boxedDoubles[i] = doubles[i];
+    }
+  }
+
+  /**
+   * The sum with a loop of boxed {@link NumberUtil#add(Number, Number)} calls.
+   */
+  @Benchmark
+  public Number sumBoxedLoop() {
+    Number sum = 0L;
+    for (Number value : boxedLongs) {
+      sum = NumberUtil.add(sum, value);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public Number sumNumberArray() {
+    return NumberArrayUtil.sum(boxedLongs);
+  }
+
+  @Benchmark
+  public long sumLongArray() {
+    return NumberArrayUtil.sum(longs);
+  }
+
+  /**
+   * The element-wise sum with a loop of boxed {@link NumberUtil#add(Number, Number)} calls.
+   */
+  @Benchmark
+  public Number[] addBoxedLoop() {
+    Number[] result = new Number[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = NumberUtil.add(boxedDoubles[i], boxedLongs[i]);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public double[] addDoubleArray() {
+    return NumberArrayUtil.add(doubles, doubles);
+  }
+
+  /**
+   * The dot product with a loop of boxed {@link NumberUtil} calls.
+   */
+  @Benchmark
+  public Number dotBoxedLoop() {
+    Number sum = 0.0;
+    for (int i = 0; i < size; i++) {
+      sum = NumberUtil.add(sum, NumberUtil.multiply(boxedDoubles[i], boxedDoubles[i]));
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double dotDoubleArray() {
+    return NumberArrayUtil.dot(doubles, doubles);
+  }
+
+  @Benchmark
+  public long[] prefixSumLongArray() {
+    return NumberArrayUtil.prefixSum(longs);
+  }
+
+}
@@ -0,0 +1,97 @@
+package ch.thn.util.benchmarks.number;
+
+import ch.thn.util.number.NumberExpression;
+import ch.thn.util.number.NumberUtil;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of evaluating <code>(a + b) * c / 100</code> for a column of values with a compiled
+ * {@link NumberExpression}, compared to nested {@link NumberUtil} calls.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NumberExpressionBenchmark {
+
+  private static final int COUNT = 10000;
+
+  private final NumberExpression expression =
+      NumberExpression.compile("(a + b) * c / 100", Long.class, "a", "b", "c");
+
+  private long[][] columns;
+  private Long[][] boxedColumns;
+  private long[] row;
+  private long[] result;
+  private Number[] boxedResult;
+
+  /**
+   * Creates the columns with random values.
+   */
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    columns = new long[3][COUNT];
+    boxedColumns = new Long[3][COUNT];
+    row = new long[3];
+    result = new long[COUNT];
+    boxedResult = new Number[COUNT];
+
+    for (int i = 0; i < 3; i++) {
+      for (int j = 0; j < COUNT; j++) {
+        columns[i][j] = random.nextInt(100000);
+        boxedColumns[i][j] = columns[i][j];
+      }
+    }
+  }
+
+  /**
+   * Evaluates each row with nested calls.
+   */
+  @Benchmark
+  public Number[] numberUtil() {
+    for (int i = 0; i < COUNT; i++) {
+      boxedResult[i] = NumberUtil.divide(NumberUtil.multiply(
+          NumberUtil.add(boxedColumns[0][i], boxedColumns[1][i]), boxedColumns[2][i]), 100);
+    }
+    return boxedResult;
+  }
+
+  /**
+   * Evaluates each row with the compiled expression.
+   */
+  @Benchmark
+  public long[] expressionRow() {
+    for (int i = 0; i < COUNT; i++) {
+      row[0] = columns[0][i];
+      row[1] = columns[1][i];
+      row[2] = columns[2][i];
+      result[i] = expression.evaluateLong(row);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public long[] expressionColumns() {
+    expression.evaluate(columns, result);
+    return result;
+  }
+
+}
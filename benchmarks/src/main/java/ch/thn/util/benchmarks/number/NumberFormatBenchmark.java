@@ -0,0 +1,90 @@
+package ch.thn.util.benchmarks.number;
+
+import ch.thn.util.number.NumberFormatSpec;
+import ch.thn.util.number.NumberFormatter;
+import ch.thn.util.number.NumberUtil;
+import java.text.DecimalFormat;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of formatting numbers with {@link NumberFormatter}, compared to
+ * {@link NumberUtil#formatNumber(Number, NumberFormatSpec)} and a new {@link DecimalFormat} for
+ * each number.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NumberFormatBenchmark {
+
+  private static final int COUNT = 1024;
+
+  private static final NumberFormatSpec SPEC =
+      new NumberFormatSpec(4, 2, false, false, false, false, true);
+
+  private final NumberFormatter formatter = new NumberFormatter(SPEC);
+  private final StringBuilder sb = new StringBuilder(64);
+
+  private double[] values;
+  private int index;
+
+  /**
+   * Creates the values to format.
+   */
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    values = new double[COUNT];
+
+    for (int i = 0; i < COUNT; i++) {
+      values[i] = random.nextDouble() * 1000000;
+    }
+  }
+
+  private double next() {
+    index = (index + 1) & (COUNT - 1);
+    return values[index];
+  }
+
+  @Benchmark
+  public String newDecimalFormat() {
+    return new DecimalFormat(SPEC.toPattern()).format(next());
+  }
+
+  @Benchmark
+  public String cachedDecimalFormat() {
+    return NumberUtil.formatNumber(next(), SPEC);
+  }
+
+  @Benchmark
+  public String formatterString() {
+    return formatter.format(next());
+  }
+
+  /**
+   * Appends to a reused string builder, which does not allocate at all.
+   */
+  @Benchmark
+  public StringBuilder formatterStringBuilder() {
+    sb.setLength(0);
+    return formatter.format(next(), sb);
+  }
+
+}
@@ -0,0 +1,105 @@
+package ch.thn.util.benchmarks.number;
+
+import ch.thn.util.number.NumberFormatSpec;
+import ch.thn.util.number.NumberFormatter;
+import ch.thn.util.number.NumberParser;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.text.ParseException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of parsing a column of formatted numbers with {@link NumberParser}, compared to
+ * {@link DecimalFormat#parse(String)}.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NumberParseBenchmark {
+
+  private static final int COUNT = 10000;
+
+  private static final NumberFormatSpec SPEC =
+      new NumberFormatSpec(4, 2, false, false, false, false, true);
+
+  private final NumberParser parser = new NumberParser(SPEC);
+  private final DecimalFormat format = new DecimalFormat(SPEC.toPattern());
+
+  private String[] values;
+  private String column;
+  private byte[] columnBytes;
+  private double[] result;
+
+  /**
+   * Formats random values, one per line.
+   */
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    NumberFormatter formatter = new NumberFormatter(SPEC);
+    StringBuilder sb = new StringBuilder();
+    values = new String[COUNT];
+    result = new double[COUNT];
+
+    for (int i = 0; i < COUNT; i++) {
+      values[i] = formatter.format(random.nextDouble() * 1000000);
+      sb.append(values[i]).append('\n');
+    }
+
+    column = sb.toString();
+    columnBytes = column.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Parses each value with the decimal format.
+   */
+  @Benchmark
+  public double[] decimalFormat() throws ParseException {
+    for (int i = 0; i < COUNT; i++) {
+      result[i] = format.parse(values[i]).doubleValue();
+    }
+    return result;
+  }
+
+  /**
+   * Parses each value with the parser.
+   */
+  @Benchmark
+  public double[] parser() {
+    for (int i = 0; i < COUNT; i++) {
+      result[i] = parser.parseDouble(values[i]);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public double[] parserColumn() {
+    parser.parseDoubles(column, '\n', result, 0);
+    return result;
+  }
+
+  @Benchmark
+  public double[] parserColumnBytes() {
+    parser.parseDoubles(columnBytes, 0, columnBytes.length, (byte) '\n', result, 0);
+    return result;
+  }
+
+}
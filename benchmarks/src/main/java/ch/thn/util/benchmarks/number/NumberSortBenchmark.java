@@ -0,0 +1,112 @@
+package ch.thn.util.benchmarks.number;
+
+import ch.thn.util.number.NumberComparator;
+import ch.thn.util.number.NumberSort;
+import ch.thn.util.number.NumberUtil;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of sorting a column of numbers with {@link NumberSort}, compared to
+ * {@link Arrays#sort} with a comparator based on {@link NumberUtil#gt(Number, Number)} and
+ * {@link NumberUtil#lt(Number, Number)}, and with {@link NumberComparator}.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NumberSortBenchmark {
+
+  @Param({"1000000"})
+  private int size;
+
+  private long[] longValues;
+  private Number[] numberValues;
+
+  private long[] longs;
+  private Number[] numbers;
+
+  /**
+   * Creates random long values, and a column of mixed integer, long and double values.
+   */
+  @Setup
+  public void setup() {
+    SplittableRandom random = new SplittableRandom(42);
+    longValues = random.longs(size).toArray();
+    numberValues = new Number[size];
+
+    for (int i = 0; i < size; i++) {
+      switch (i % 3) {
+        case 0:
+          numberValues[i] = random.nextInt();
+          break;
+        case 1:
+          numberValues[i] = random.nextLong(1L << 40);
+          break;
+        default:
+          numberValues[i] = random.nextDouble() * 1e9;
+          break;
+      }
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void copy() {
+    longs = longValues.clone();
+    numbers = numberValues.clone();
+  }
+
+  @Benchmark
+  public long[] arraysSortLongs() {
+    Arrays.sort(longs);
+    return longs;
+  }
+
+  @Benchmark
+  public long[] radixSortLongs() {
+    NumberSort.sort(longs);
+    return longs;
+  }
+
+  /**
+   * Sorts the numbers with a comparator on the existing number comparisons.
+   */
+  @Benchmark
+  public Number[] numberUtilComparator() {
+    Arrays.sort(numbers, (num1, num2) -> NumberUtil.lt(num1, num2) ? -1
+        : NumberUtil.gt(num1, num2) ? 1 : 0);
+    return numbers;
+  }
+
+  @Benchmark
+  public Number[] numberComparator() {
+    Arrays.sort(numbers, NumberComparator.INSTANCE);
+    return numbers;
+  }
+
+  @Benchmark
+  public Number[] radixSortNumbers() {
+    NumberSort.sort(numbers);
+    return numbers;
+  }
+
+}
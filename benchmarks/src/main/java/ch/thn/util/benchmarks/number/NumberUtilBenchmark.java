@@ -0,0 +1,187 @@
+package ch.thn.util.benchmarks.number;
+
+import ch.thn.util.number.NumberFormatSpec;
+import ch.thn.util.number.NumberUtil;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the single value operations of {@link NumberUtil}: the type dispatch of the
+ * arithmetic operations and comparisons for the same and for mixed types, rounding, the
+ * <code>formatNumber</code> variants and the generation of random numbers. Run with the
+ * {@link ch.thn.util.benchmarks.BenchmarkRunner}, which also reports the allocations per
+ * operation.<br />
+ * <br />
+ * {@link ch.thn.util.number.NumberUtilFuzzer} checks that the same operations give the correct
+ * results.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NumberUtilBenchmark {
+
+  private static final int COUNT = 1024;
+
+  private static final NumberFormatSpec SPEC =
+      new NumberFormatSpec(4, 2, false, false, false, false, true);
+
+  private Integer[] ints;
+  private Long[] longs;
+  private Double[] doubles;
+  private double[] primitiveDoubles;
+  private int index;
+
+  /**
+   * Creates the values for the operations.
+   */
+  @Setup
+  public void setup() {
+    SplittableRandom random = new SplittableRandom(42);
+    ints = new Integer[COUNT];
+    longs = new Long[COUNT];
+    doubles = new Double[COUNT];
+    primitiveDoubles = new double[COUNT];
+
+    for (int i = 0; i < COUNT; i++) {
+      ints[i] = random.nextInt(1, 1000000);
+      longs[i] = random.nextLong(1, 1L << 40);
+      primitiveDoubles[i] = random.nextDouble() * 1000000;
+      doubles[i] = primitiveDoubles[i];
+    }
+  }
+
+  private int next() {
+    index = (index + 1) & (COUNT - 1);
+    return index;
+  }
+
+  @Benchmark
+  public Number addIntInt() {
+    int i = next();
+    return NumberUtil.add(ints[i], ints[COUNT - 1 - i]);
+  }
+
+  @Benchmark
+  public Number addIntDouble() {
+    int i = next();
+    return NumberUtil.add(ints[i], doubles[i]);
+  }
+
+  @Benchmark
+  public Number addLongDouble() {
+    int i = next();
+    return NumberUtil.add(longs[i], doubles[i]);
+  }
+
+  @Benchmark
+  public Number multiplyLongLong() {
+    int i = next();
+    return NumberUtil.multiply(longs[i], longs[COUNT - 1 - i]);
+  }
+
+  @Benchmark
+  public Number multiplyIntDouble() {
+    int i = next();
+    return NumberUtil.multiply(ints[i], doubles[i]);
+  }
+
+  @Benchmark
+  public boolean gtIntLong() {
+    int i = next();
+    return NumberUtil.gt(ints[i], longs[i]);
+  }
+
+  @Benchmark
+  public boolean gtLongDouble() {
+    int i = next();
+    return NumberUtil.gt(longs[i], doubles[i]);
+  }
+
+  @Benchmark
+  public int compareLongDouble() {
+    int i = next();
+    return NumberUtil.compare(longs[i], doubles[i]);
+  }
+
+  @Benchmark
+  public double roundDecimals() {
+    return NumberUtil.roundDecimals(primitiveDoubles[next()], 2);
+  }
+
+  @Benchmark
+  public double roundDecimalsHalfUp() {
+    return NumberUtil.roundDecimals(primitiveDoubles[next()], 4, RoundingMode.HALF_UP);
+  }
+
+  @Benchmark
+  public String formatNumberSpec() {
+    return NumberUtil.formatNumber(doubles[next()], SPEC);
+  }
+
+  @Benchmark
+  public String formatNumberGrouping() {
+    return NumberUtil.formatNumber(longs[next()], true);
+  }
+
+  @Benchmark
+  public String formatNumberDigits() {
+    return NumberUtil.formatNumber(doubles[next()], 6, 3, true, false);
+  }
+
+  @Benchmark
+  public String formatNumberCurrency() {
+    return NumberUtil.formatNumber(doubles[next()], true, false, false, true);
+  }
+
+  @Benchmark
+  public List<Number> generateRandomInts(RandomState state) {
+    return NumberUtil.generateRandomNumbers(state.count, 0, 1000);
+  }
+
+  @Benchmark
+  public List<Number> generateRandomLongs(RandomState state) {
+    return NumberUtil.generateRandomNumbers(state.count, 0L, 1L << 40);
+  }
+
+  @Benchmark
+  public List<Number> generateRandomDoubles(RandomState state) {
+    return NumberUtil.generateRandomNumbers(state.count, 0.0, 1.0);
+  }
+
+
+  /************************************************************************************
+   * The number of random numbers to generate.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  @State(Scope.Benchmark)
+  public static class RandomState {
+
+    @Param({"16", "1024", "65536"})
+    private int count;
+
+  }
+
+}
@@ -0,0 +1,127 @@
+package ch.thn.util.benchmarks.string;
+
+import ch.thn.util.string.StringUtil;
+import ch.thn.util.string.StringUtil.ClippingMode;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the {@link StringUtil} methods, with different input sizes.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringUtilBenchmark {
+
+  /** The number of characters of the input strings. */
+  @Param({"16", "256", "4096"})
+  private int size;
+
+  private final Pattern wordPattern = Pattern.compile("[a-z]+");
+  private final Pattern digitsPattern = Pattern.compile("\\d{3}");
+
+  private String text;
+  private String ranges;
+
+  /**
+   * Builds the input text for the current size.
+   */
+  @Setup
+  public void setup() {
+    StringBuilder sb = new StringBuilder(size);
+
+    while (sb.length() < size) {
+      sb.append("abc 123 def-456 ");
+    }
+
+    text = sb.substring(0, size);
+
+    sb.setLength(0);
+
+    while (sb.length() < size) {
+      sb.append("id-[a-f][0-9]-");
+    }
+
+    ranges = sb.toString();
+  }
+
+  @Benchmark
+  public String clipStringLeft() {
+    return StringUtil.clipString(text, size / 2, ClippingMode.LEFT);
+  }
+
+  @Benchmark
+  public String clipStringRight() {
+    return StringUtil.clipString(text, size / 2, ClippingMode.RIGHT);
+  }
+
+  @Benchmark
+  public String clipStringCenter() {
+    return StringUtil.clipStringCenter(text, size / 2);
+  }
+
+  @Benchmark
+  public String clipStringCenterLeft() {
+    return StringUtil.clipStringCenterLeft(text, size / 2, 1, 4);
+  }
+
+  @Benchmark
+  public boolean contains() {
+    return StringUtil.contains(digitsPattern, text);
+  }
+
+  @Benchmark
+  public int matchesCount() {
+    return StringUtil.matchesCount(wordPattern, text);
+  }
+
+  @Benchmark
+  public List<String> getMatching() {
+    return StringUtil.getMatching(wordPattern, text);
+  }
+
+  @Benchmark
+  public String replaceAllPattern() {
+    return StringUtil.replaceAll(digitsPattern, text, "xyz");
+  }
+
+  /**
+   * Replaces in a copy of the text, in place in the builder.
+   */
+  @Benchmark
+  public StringBuilder replaceAllStringBuilder() {
+    StringBuilder sb = new StringBuilder(text);
+    StringUtil.replaceAll(sb, "def", "uvwxyz");
+    return sb;
+  }
+
+  @Benchmark
+  public String rangesReplace() {
+    return StringUtil.rangesReplace(ranges);
+  }
+
+  @Benchmark
+  public String randomString() {
+    return StringUtil.randomString(size, true);
+  }
+
+}
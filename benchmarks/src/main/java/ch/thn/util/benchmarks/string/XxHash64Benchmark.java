@@ -0,0 +1,95 @@
+package ch.thn.util.benchmarks.string;
+
+import ch.thn.util.string.XxHash64;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link XxHash64} for the different input types, compared to
+ * {@link String#hashCode()} on a new string (which can not use the cached hash).
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XxHash64Benchmark {
+
+  /** The number of characters (and bytes) of the input. */
+  @Param({"16", "256", "65536"})
+  private int size;
+
+  private String text;
+  private byte[] bytes;
+  private ByteBuffer directBuffer;
+  private XxHash64 incremental;
+
+  /**
+   * Builds the input data for the current size.
+   */
+  @Setup
+  public void setup() {
+    StringBuilder sb = new StringBuilder(size);
+
+    for (int i = 0; i < size; i++) {
+      sb.append((char) ('a' + i % 26));
+    }
+
+    text = sb.toString();
+    bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+    directBuffer = ByteBuffer.allocateDirect(size);
+    directBuffer.put(bytes);
+    directBuffer.flip();
+    incremental = new XxHash64();
+  }
+
+  @Benchmark
+  public int stringHashCode() {
+    return new String(bytes, StandardCharsets.ISO_8859_1).hashCode();
+  }
+
+  @Benchmark
+  public long hashCharSequence() {
+    return XxHash64.hash(text);
+  }
+
+  @Benchmark
+  public long hashBytes() {
+    return XxHash64.hash(bytes);
+  }
+
+  @Benchmark
+  public long hashDirectBuffer() {
+    return XxHash64.hash(directBuffer);
+  }
+
+  /**
+   * Hashes the data in two parts with the incremental API.
+   */
+  @Benchmark
+  public long hashIncremental() {
+    incremental.reset();
+    int half = size / 2;
+    incremental.update(bytes, 0, half);
+    incremental.update(bytes, half, size - half);
+    return incremental.getValue();
+  }
+
+}
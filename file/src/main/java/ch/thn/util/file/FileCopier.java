@@ -0,0 +1,211 @@
+package ch.thn.util.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Copies the content of files with {@link FileChannel#transferTo(long, long,
+ * java.nio.channels.WritableByteChannel)}, which lets the operating system copy the data without
+ * passing it through the JVM (e.g. with <code>copy_file_range</code> or <code>sendfile</code> on
+ * Linux). Unlike {@link Files#copy(Path, Path, java.nio.file.CopyOption...)}, the file is copied
+ * in chunks of a configurable size, and a {@link FileCopyListener} is informed about the progress
+ * after each chunk. The copy can be forced to the storage device at the end.<br />
+ * <br />
+ * Only regular files are copied. Like {@link Files#copy(Path, Path, java.nio.file.CopyOption...)}
+ * without {@link java.nio.file.StandardCopyOption#COPY_ATTRIBUTES}, the copy is created with the
+ * POSIX permissions of the file (where the file system supports them), but the other attributes,
+ * e.g. the modification time, are not copied. If copying fails, the incomplete copy is
+ * deleted.<br />
+ * <br />
+ * A copier can be passed to
+ * {@link FileUtil#copyAll(java.io.File, java.io.File, boolean, int, FileCopier)}, which uses it for
+ * all regular files with at least {@link #getThreshold()} bytes. A copier has no state and can
+ * copy several files at the same time.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public class FileCopier {
+
+  /** The default chunk size, 8 MiB. */
+  public static final long DEFAULT_CHUNK_SIZE = 8L * 1024 * 1024;
+
+  /** The default threshold, 1 MiB. */
+  public static final long DEFAULT_THRESHOLD = 1024L * 1024;
+
+  private static final Set<OpenOption> OPEN_OPTIONS = Collections.unmodifiableSet(
+      EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW));
+
+  private final long chunkSize;
+  private final long threshold;
+  private final boolean sync;
+  private final boolean preallocate;
+  private final FileCopyListener listener;
+
+  /**
+   * A new copier with the default chunk size and threshold, which does not force the copies to
+   * the storage device and has no listener.
+   */
+  public FileCopier() {
+    this(DEFAULT_CHUNK_SIZE, DEFAULT_THRESHOLD, false, false, null);
+  }
+
+  /**
+   * A new copier.
+   *
+   * @param chunkSize The maximum number of bytes to copy at once, between the progress updates
+   * @param threshold The minimum size of the files which
+   *        {@link FileUtil#copyAll(java.io.File, java.io.File, boolean, int, FileCopier)} copies
+   *        with this copier. Smaller files are copied with {@link Files#copy}
+   * @param sync If set to <code>true</code>, the content of each copy is forced to the storage
+   *        device before the copy returns
+   * @param preallocate If set to <code>true</code>, the copy is extended to the size of the file
+   *        before the content is copied, so that the file system knows the final size. Java can
+   *        not reserve the space of a file, on file systems with sparse files this is only a hint
+   * @param listener The listener which is informed after each chunk, or <code>null</code>
+   */
+  public FileCopier(long chunkSize, long threshold, boolean sync, boolean preallocate,
+      FileCopyListener listener) {
+    if (chunkSize < 1) {
+      throw new FileUtilError("Chunk size has to be at least 1, was "
+          + chunkSize);
+    }
+
+    this.chunkSize = chunkSize;
+    this.threshold = threshold;
+    this.sync = sync;
+    this.preallocate = preallocate;
+    this.listener = listener;
+  }
+
+  public long getChunkSize() {
+    return chunkSize;
+  }
+
+  public long getThreshold() {
+    return threshold;
+  }
+
+  public boolean isSync() {
+    return sync;
+  }
+
+  public boolean isPreallocate() {
+    return preallocate;
+  }
+
+  public FileCopyListener getListener() {
+    return listener;
+  }
+
+  /**
+   * Copies the content of a file. An existing target is deleted first if it is replaced, like
+   * {@link Files#copy} does with {@link java.nio.file.StandardCopyOption#REPLACE_EXISTING}.
+   *
+   * @param source The file to copy
+   * @param target The copy
+   * @param replaceExisting If set to <code>true</code>, an existing target is replaced
+   * @return The number of bytes copied
+   * @throws IOException If copying fails, e.g. with a
+   *         {@link java.nio.file.FileAlreadyExistsException} if the target exists and is not
+   *         replaced
+   */
+  public long copy(Path source, Path target, boolean replaceExisting) throws IOException {
+    try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+      if (replaceExisting) {
+        Files.deleteIfExists(target);
+      }
+
+      FileChannel out = FileChannel.open(target, OPEN_OPTIONS, permissions(source));
+      try {
+        long copied = transfer(source, in, target, out);
+
+        if (sync) {
+          out.force(true);
+        }
+
+        out.close();
+        return copied;
+      } catch (IOException | RuntimeException e) {
+        out.close();
+
+        try {
+          Files.deleteIfExists(target);
+        } catch (IOException e2) {
+          e.addSuppressed(e2);
+        }
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * The attributes to create the copy of a file with: the POSIX permissions of the file, like
+   * {@link Files#copy} creates the copy.
+   *
+   * @param source The file to copy
+   * @return The attributes, empty if the file system does not support POSIX permissions
+   * @throws IOException If reading the permissions fails
+   */
+  private static FileAttribute<?>[] permissions(Path source) throws IOException {
+    if (Files.getFileAttributeView(source, PosixFileAttributeView.class) == null) {
+      return new FileAttribute<?>[0];
+    }
+
+    return new FileAttribute<?>[] {
+        PosixFilePermissions.asFileAttribute(Files.getPosixFilePermissions(source))};
+  }
+
+  /**
+   * Copies the content of the source channel to the target channel in chunks.
+   *
+   * @param source The file to copy
+   * @param in The channel of the file
+   * @param target The copy
+   * @param out The channel of the copy
+   * @return The number of bytes copied
+   * @throws IOException If copying fails
+   */
+  private long transfer(Path source, FileChannel in, Path target, FileChannel out)
+      throws IOException {
+    long size = in.size();
+
+    if (preallocate && size > 0) {
+      out.write(ByteBuffer.allocate(1), size - 1);
+    }
+
+    long position = 0;
+    while (position < size) {
+      long transferred = in.transferTo(position, Math.min(chunkSize, size - position), out);
+      if (transferred <= 0) {
+        // The file has been truncated while copying
+        break;
+      }
+
+      position += transferred;
+
+      if (listener != null) {
+        listener.progress(source, target, position, size);
+      }
+    }
+
+    if (position < size) {
+      out.truncate(position);
+    }
+
+    return position;
+  }
+
+}
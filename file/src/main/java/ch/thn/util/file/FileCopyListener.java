@@ -0,0 +1,25 @@
+package ch.thn.util.file;
+
+import java.nio.file.Path;
+
+/**
+ * Receives the progress of the files copied by a {@link FileCopier}. The copier calls the
+ * listener after each chunk, and when copying the files of a tree in parallel from several
+ * threads at the same time.
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public interface FileCopyListener {
+
+  /**
+   * A chunk of a file has been copied.
+   *
+   * @param source The file which is copied
+   * @param target The copy of the file
+   * @param copied The number of bytes copied so far
+   * @param size The size of the file when the copy started
+   */
+  public void progress(Path source, Path target, long copied, long size);
+
+}
@@ -0,0 +1,59 @@
+package ch.thn.util.file;
+
+import java.nio.file.Path;
+
+/**
+ * Emits JDK Flight Recorder events for the operations watched by a {@link FileOperationMonitor}.
+ * <br />
+ * <br />
+ * This is the Java 8 version, which does not emit any events. The multi-release jar contains a
+ * Java 21 version of this class (in <code>src/main/java21</code>) which emits a
+ * <code>ch.thn.util.file.FileOperation</code> event for each operation and, if enabled, a
+ * <code>ch.thn.util.file.FileOperationFile</code> event for each file.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+final class FileOperationEvents {
+
+  private FileOperationEvents() {}
+
+  /**
+   * Begins the event of an operation.
+   *
+   * @param operation The name of the operation
+   * @param path The path the operation works on
+   * @return The event, or <code>null</code> if it is not recorded
+   */
+  static Object beginOperation(String operation, Path path) {
+    return null;
+  }
+
+  /**
+   * Commits the event of an operation.
+   *
+   * @param event The event from {@link #beginOperation(String, Path)}, or <code>null</code>
+   * @param files The number of processed files
+   * @param bytes The number of processed bytes
+   * @param errors The number of failures
+   */
+  static void commitOperation(Object event, long files, long bytes, long errors) {
+    // No events on Java 8
+  }
+
+  /**
+   * Commits the event of a processed file.
+   *
+   * @param operation The name of the operation
+   * @param path The file
+   * @param bytes The size of the file
+   * @param latencyNanos The time it took to process the file
+   * @param failed Whether processing the file failed
+   */
+  static void commitFile(String operation, Path path, long bytes, long latencyNanos,
+      boolean failed) {
+    // No events on Java 8
+  }
+
+}
@@ -0,0 +1,47 @@
+package ch.thn.util.file;
+
+import java.nio.file.Path;
+
+/**
+ * Receives the progress of a file operation which is watched by a {@link FileOperationMonitor}.
+ * The files of a tree are processed in parallel, so the methods for the files can be called from
+ * several threads at the same time.
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public interface FileOperationListener {
+
+  /**
+   * The operation started. With a pre-scan, the totals of the monitor are known.
+   *
+   * @param monitor The monitor of the operation
+   */
+  public void started(FileOperationMonitor monitor);
+
+  /**
+   * A file has been processed.
+   *
+   * @param monitor The monitor of the operation
+   * @param file The file
+   * @param bytes The size of the file
+   */
+  public void fileProcessed(FileOperationMonitor monitor, Path file, long bytes);
+
+  /**
+   * Processing a file or directory failed.
+   *
+   * @param monitor The monitor of the operation
+   * @param path The file or directory
+   * @param failure The failure
+   */
+  public void fileFailed(FileOperationMonitor monitor, Path path, Throwable failure);
+
+  /**
+   * The operation finished, successfully or not.
+   *
+   * @param monitor The monitor of the operation
+   */
+  public void finished(FileOperationMonitor monitor);
+
+}
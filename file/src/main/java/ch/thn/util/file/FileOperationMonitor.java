@@ -0,0 +1,355 @@
+package ch.thn.util.file;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Watches a file operation ({@link FileUtil#copyAll(java.io.File, java.io.File, boolean, int,
+ * FileCopier, FileOperationMonitor)}, {@link FileUtil#deleteAll(java.io.File, boolean, int,
+ * boolean, FileOperationMonitor)} or {@link ZipArchive#create(java.io.File, FileOperationMonitor)})
+ * and measures its throughput. The numbers can be read from any thread while the operation runs,
+ * e.g. to show its progress, and an optional {@link FileOperationListener} is informed about each
+ * file.<br />
+ * <br />
+ * The monitor counts the processed files and bytes and the failures, and records the time it took
+ * to process each file in a histogram with power of two buckets. With a pre-scan, the tree is
+ * walked once before the operation to count its files and bytes, so that the remaining bytes are
+ * known. On Java 21, the operations are also recorded as JDK Flight Recorder events (see
+ * {@link FileOperationEvents}).<br />
+ * <br />
+ * A monitor can watch one operation at a time. Starting another operation resets it.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public class FileOperationMonitor {
+
+  private static final int LATENCY_BUCKETS = 64;
+
+  private final FileOperationListener listener;
+  private final boolean preScan;
+
+  private final AtomicLong files = new AtomicLong();
+  private final AtomicLong bytes = new AtomicLong();
+  private final AtomicLong errors = new AtomicLong();
+  private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_BUCKETS);
+
+  private volatile String operation = null;
+  private volatile Path path = null;
+  private volatile long totalFiles = -1;
+  private volatile long totalBytes = -1;
+  private volatile long startNanos = 0;
+  private volatile long endNanos = 0;
+  private volatile boolean finished = false;
+  private volatile Object event = null;
+
+  /**
+   * A new monitor without a listener and without a pre-scan.
+   */
+  public FileOperationMonitor() {
+    this(null, false);
+  }
+
+  /**
+   * A new monitor.
+   *
+   * @param listener The listener to inform about the progress, or <code>null</code>
+   * @param preScan If set to <code>true</code>, the files and bytes of the tree are counted before
+   *        the operation starts
+   */
+  public FileOperationMonitor(FileOperationListener listener, boolean preScan) {
+    this.listener = listener;
+    this.preScan = preScan;
+  }
+
+  public FileOperationListener getListener() {
+    return listener;
+  }
+
+  public boolean isPreScan() {
+    return preScan;
+  }
+
+  /**
+   * The name of the operation: <code>copy</code>, <code>delete</code> or <code>zip</code>.
+   *
+   * @return The name, or <code>null</code> if no operation has been started
+   */
+  public String getOperation() {
+    return operation;
+  }
+
+  /**
+   * The path the operation works on, e.g. the source of a copy or the created zip archive.
+   *
+   * @return The path, or <code>null</code> if no operation has been started
+   */
+  public Path getPath() {
+    return path;
+  }
+
+  public boolean isFinished() {
+    return finished;
+  }
+
+  public long getFiles() {
+    return files.get();
+  }
+
+  public long getBytes() {
+    return bytes.get();
+  }
+
+  /**
+   * The number of files and directories which failed.
+   *
+   * @return The number of failures
+   */
+  public long getErrors() {
+    return errors.get();
+  }
+
+  /**
+   * The number of files found by the pre-scan.
+   *
+   * @return The number of files, or <code>-1</code> without a pre-scan
+   */
+  public long getTotalFiles() {
+    return totalFiles;
+  }
+
+  /**
+   * The number of bytes found by the pre-scan.
+   *
+   * @return The number of bytes, or <code>-1</code> without a pre-scan
+   */
+  public long getTotalBytes() {
+    return totalBytes;
+  }
+
+  /**
+   * The number of bytes which still have to be processed.
+   *
+   * @return The number of remaining bytes, or <code>-1</code> without a pre-scan
+   */
+  public long getBytesRemaining() {
+    long total = totalBytes;
+    return total < 0 ? -1 : Math.max(0, total - bytes.get());
+  }
+
+  /**
+   * The time since the operation started, or the duration of the operation if it finished.
+   *
+   * @return The time in nanoseconds
+   */
+  public long getElapsedNanos() {
+    if (operation == null) {
+      return 0;
+    }
+    return (finished ? endNanos : System.nanoTime()) - startNanos;
+  }
+
+  /**
+   * The number of files processed per second since the operation started.
+   *
+   * @return The files per second
+   */
+  public double getFilesPerSecond() {
+    return perSecond(files.get());
+  }
+
+  /**
+   * The number of bytes processed per second since the operation started.
+   *
+   * @return The bytes per second
+   */
+  public double getBytesPerSecond() {
+    return perSecond(bytes.get());
+  }
+
+  private double perSecond(long count) {
+    long elapsed = getElapsedNanos();
+    return elapsed <= 0 ? 0 : count * 1e9 / elapsed;
+  }
+
+  /**
+   * The histogram of the times it took to process the files. The count at index <code>i</code> is
+   * the number of files which took at least 2^i and less than 2^(i+1) nanoseconds (index 0 also
+   * counts the files which took less than a nanosecond).
+   *
+   * @return A copy of the histogram
+   */
+  public long[] getLatencyHistogram() {
+    long[] histogram = new long[LATENCY_BUCKETS];
+    for (int i = 0; i < LATENCY_BUCKETS; i++) {
+      histogram[i] = latencies.get(i);
+    }
+    return histogram;
+  }
+
+  /**
+   * Estimates a quantile of the times it took to process the files from the histogram.
+   *
+   * @param quantile The quantile, between 0 and 1 (e.g. 0.99 for the 99th percentile)
+   * @return The upper bound of the histogram bucket which contains the quantile, in nanoseconds,
+   *         or <code>0</code> if no file has been processed
+   */
+  public long getLatencyQuantile(double quantile) {
+    if (quantile < 0 || quantile > 1) {
+      throw new FileUtilError("Quantile has to be between 0 and 1, was "
+          + quantile);
+    }
+
+    long[] histogram = getLatencyHistogram();
+    long count = 0;
+    for (long bucket : histogram) {
+      count += bucket;
+    }
+
+    if (count == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(quantile * count));
+    for (int i = 0; i < LATENCY_BUCKETS; i++) {
+      rank -= histogram[i];
+      if (rank <= 0) {
+        return i == LATENCY_BUCKETS - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+
+  /**
+   * Starts watching an operation. Pre-scans the paths if requested.
+   *
+   * @param operation The name of the operation
+   * @param path The path the operation works on
+   * @param scanPaths The files and directories to pre-scan
+   */
+  void start(String operation, Path path, Iterable<Path> scanPaths) {
+    files.set(0);
+    bytes.set(0);
+    errors.set(0);
+    for (int i = 0; i < LATENCY_BUCKETS; i++) {
+      latencies.set(i, 0);
+    }
+
+    totalFiles = -1;
+    totalBytes = -1;
+    if (preScan) {
+      scan(scanPaths);
+    }
+
+    this.operation = operation;
+    this.path = path;
+    this.finished = false;
+    this.startNanos = System.nanoTime();
+    this.event = FileOperationEvents.beginOperation(operation, path);
+
+    if (listener != null) {
+      listener.started(this);
+    }
+  }
+
+  /**
+   * The start of processing a file.
+   *
+   * @return The start time for {@link #fileProcessed(Path, long, long)}
+   */
+  long fileStarted() {
+    return System.nanoTime();
+  }
+
+  /**
+   * A file has been processed.
+   *
+   * @param file The file
+   * @param size The size of the file
+   * @param fileStartNanos The start time from {@link #fileStarted()}
+   */
+  void fileProcessed(Path file, long size, long fileStartNanos) {
+    long latency = System.nanoTime() - fileStartNanos;
+    latencies.incrementAndGet(latency <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(latency));
+    files.incrementAndGet();
+    bytes.addAndGet(size);
+
+    FileOperationEvents.commitFile(operation, file, size, latency, false);
+
+    if (listener != null) {
+      listener.fileProcessed(this, file, size);
+    }
+  }
+
+  /**
+   * Processing a file or directory failed.
+   *
+   * @param failedPath The file or directory
+   * @param failure The failure
+   */
+  void fileFailed(Path failedPath, Throwable failure) {
+    errors.incrementAndGet();
+
+    FileOperationEvents.commitFile(operation, failedPath, 0, 0, true);
+
+    if (listener != null) {
+      listener.fileFailed(this, failedPath, failure);
+    }
+  }
+
+  /**
+   * The operation finished.
+   */
+  void finish() {
+    endNanos = System.nanoTime();
+    finished = true;
+
+    FileOperationEvents.commitOperation(event, files.get(), bytes.get(), errors.get());
+    event = null;
+
+    if (listener != null) {
+      listener.finished(this);
+    }
+  }
+
+  /**
+   * Counts the files and bytes of the trees. Entries which can not be read are not counted.
+   *
+   * @param scanPaths The files and directories to count
+   */
+  private void scan(Iterable<Path> scanPaths) {
+    final long[] counts = new long[2];
+
+    for (Path scanPath : scanPaths) {
+      try {
+        Files.walkFileTree(scanPath, new SimpleFileVisitor<Path>() {
+
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            counts[0]++;
+            counts[1] += attrs.isRegularFile() ? attrs.size() : 0;
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFileFailed(Path file, IOException exc) {
+            return FileVisitResult.CONTINUE;
+          }
+        });
+      } catch (IOException e) {
+        // Not counted, the operation reports the failure
+      }
+    }
+
+    totalFiles = counts[0];
+    totalBytes = counts[1];
+  }
+
+}
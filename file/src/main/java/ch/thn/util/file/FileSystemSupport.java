@@ -0,0 +1,113 @@
+package ch.thn.util.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File system helpers which have better implementations in newer Java versions.<br />
+ * <br />
+ * This is the Java 8 version. The multi-release jar contains a Java 21 version of this class (in
+ * <code>src/main/java21</code>) which uses virtual threads and {@code Files.mismatch}.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+final class FileSystemSupport {
+
+  private static final int COMPARE_BUFFER_SIZE = 64 * 1024;
+
+  private FileSystemSupport() {}
+
+  /**
+   * Creates an executor for blocking file operations which runs at most
+   * <code>parallelism</code> tasks at the same time. The threads of the executor do not keep the
+   * JVM alive.<br />
+   * <br />
+   * The Java 21 version runs each task on a new virtual thread and does not limit the tasks, so
+   * callers have to limit the number of tasks which run at the same time themselves.
+   *
+   * @param parallelism The maximum number of tasks to run at the same time
+   * @return The executor. It has to be shut down by the caller
+   */
+  static ExecutorService newExecutor(int parallelism) {
+    final AtomicInteger threadNumber = new AtomicInteger();
+
+    return Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "file-util-"
+            + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Finds the position of the first mismatched byte in the content of two files.
+   *
+   * @param path1 The first file
+   * @param path2 The second file
+   * @return The position of the first mismatch, or <code>-1</code> if the files are equal. If one
+   *         file is a prefix of the other, the size of the smaller file is returned
+   * @throws IOException If reading any of the files fails
+   */
+  static long mismatch(Path path1, Path path2) throws IOException {
+    try (FileChannel channel1 = FileChannel.open(path1, StandardOpenOption.READ);
+        FileChannel channel2 = FileChannel.open(path2, StandardOpenOption.READ)) {
+      ByteBuffer buffer1 = ByteBuffer.allocate(COMPARE_BUFFER_SIZE);
+      ByteBuffer buffer2 = ByteBuffer.allocate(COMPARE_BUFFER_SIZE);
+      long position = 0;
+
+      while (true) {
+        int read1 = fill(channel1, buffer1);
+        int read2 = fill(channel2, buffer2);
+        int common = Math.min(read1, read2);
+
+        for (int i = 0; i < common; i++) {
+          if (buffer1.get(i) != buffer2.get(i)) {
+            return position + i;
+          }
+        }
+
+        if (read1 != read2) {
+          return position + common;
+        }
+
+        if (read1 < COMPARE_BUFFER_SIZE) {
+          return -1;
+        }
+
+        position += common;
+      }
+    }
+  }
+
+  /**
+   * Reads from the channel until the buffer is full or the end of the file is reached.
+   *
+   * @param channel The channel to read from
+   * @param buffer The buffer to fill. It is cleared first
+   * @return The number of bytes in the buffer
+   * @throws IOException If reading fails
+   */
+  private static int fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.clear();
+
+    while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+      // Keep reading
+    }
+
+    return buffer.position();
+  }
+
+}
@@ -4,9 +4,12 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
@@ -14,7 +17,10 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * File utility methods.
@@ -137,15 +143,65 @@ public class FileUtil {
    */
   public static void deleteAll(File path, boolean includePath) throws IOException {
 
-    Files.walkFileTree(path.toPath(), new FileTreeWalker(FileTreeWalker.Action.DELETE));
+    Files.walkFileTree(path.toPath(), new FileTreeWalker(FileTreeWalker.Action.DELETE,
+        path.toPath(), null, false));
 
-    if (includePath && path.exists() && !path.delete()) {
-      throw new IOException("Failed to delete directory or file "
-          + path);
+    if (includePath && path.exists()) {
+      Files.delete(path.toPath());
     }
 
   }
 
+  /**
+   * Deletes all files and sub-directories on the given path like
+   * {@link #deleteAll(File, boolean)}, but deletes up to <code>parallelism</code> files at the
+   * same time. Each directory is deleted after all its files and sub-directories have been
+   * deleted.<br />
+   * <br />
+   * The failures are reported with the exceptions of {@link Files#delete(Path)}, the failure of
+   * the first failed path in walk order is thrown with the failures of the other paths added as
+   * suppressed exceptions. Without <code>bestEffort</code>, no more files are deleted after the
+   * first failure. With <code>bestEffort</code>, all files and directories which can be deleted
+   * are deleted (the directories which contain a file which can not be deleted are kept).
+   *
+   * @param path The path and all its sub-directories/files to delete
+   * @param includePath If set to <code>true</code>, the directory the given path points to is
+   *        deleted as well. If set to <code>false</code>, only files/directories within the path
+   *        are deleted
+   * @param parallelism The maximum number of files to delete at the same time
+   * @param bestEffort If set to <code>true</code>, the deletion continues after a failure
+   * @throws IOException When deleting of any directory or file on the path fails
+   */
+  public static void deleteAll(File path, boolean includePath, int parallelism,
+      boolean bestEffort) throws IOException {
+
+    deleteAll(path, includePath, parallelism, bestEffort, null);
+
+  }
+
+  /**
+   * Deletes all files and sub-directories on the given path like
+   * {@link #deleteAll(File, boolean, int, boolean)}, watched by the given monitor.
+   *
+   * @param path The path and all its sub-directories/files to delete
+   * @param includePath If set to <code>true</code>, the directory the given path points to is
+   *        deleted as well. If set to <code>false</code>, only files/directories within the path
+   *        are deleted
+   * @param parallelism The maximum number of files to delete at the same time
+   * @param bestEffort If set to <code>true</code>, the deletion continues after a failure
+   * @param monitor The monitor which measures the progress of the deletion, or <code>null</code>
+   * @throws IOException When deleting of any directory or file on the path fails
+   */
+  public static void deleteAll(File path, boolean includePath, int parallelism,
+      boolean bestEffort, FileOperationMonitor monitor) throws IOException {
+
+    ParallelDeleteWalker walker =
+        new ParallelDeleteWalker(path.toPath(), includePath, parallelism, bestEffort);
+    walker.setMonitor(monitor, "delete");
+    walker.walk(path.toPath());
+
+  }
+
   /**
    * Copies all files and sub-directories on the given path, including the <code>path</code>
    * parameter directory. If <code>path</code> is just a file, only the file is copied.
@@ -162,6 +218,219 @@ public class FileUtil {
 
   }
 
+  /**
+   * Copies all files and sub-directories on the given path like
+   * {@link #copyAll(File, File, boolean)}, but copies up to <code>parallelism</code> files at the
+   * same time. The directories are created in walk order before their content is copied, and the
+   * modification time of each directory is set after all its files and sub-directories have been
+   * copied.<br />
+   * <br />
+   * A file which fails to copy does not stop the copy of the other files. When done, the failure
+   * of the first failed path in walk order is thrown, with the failures of all other paths added
+   * as suppressed exceptions.
+   *
+   * @param source The source directory
+   * @param dest The destination directory
+   * @param replaceExisting If set to <code>true</code>, existing files/directories are replaced
+   * @param parallelism The maximum number of files to copy at the same time. With
+   *        <code>1</code>, the tree is copied on the calling thread
+   * @throws IOException When copying of any directory or file on the path fails
+   */
+  public static void copyAll(File source, File dest, boolean replaceExisting, int parallelism)
+      throws IOException {
+
+    if (parallelism == 1) {
+      copyAll(source, dest, replaceExisting);
+      return;
+    }
+
+    copyAll(source, dest, replaceExisting, parallelism, null);
+
+  }
+
+  /**
+   * Copies all files and sub-directories on the given path like
+   * {@link #copyAll(File, File, boolean, int)}, and copies the regular files with at least
+   * {@link FileCopier#getThreshold()} bytes with the given copier. The other files are copied
+   * with {@link Files#copy(Path, Path, CopyOption...)}.
+   *
+   * @param source The source directory
+   * @param dest The destination directory
+   * @param replaceExisting If set to <code>true</code>, existing files/directories are replaced
+   * @param parallelism The maximum number of files to copy at the same time
+   * @param copier The copier for large files, or <code>null</code> to copy all files with
+   *        {@link Files#copy(Path, Path, CopyOption...)}
+   * @throws IOException When copying of any directory or file on the path fails
+   */
+  public static void copyAll(File source, File dest, boolean replaceExisting, int parallelism,
+      FileCopier copier) throws IOException {
+
+    copyAll(source, dest, replaceExisting, parallelism, copier, null);
+
+  }
+
+  /**
+   * Copies all files and sub-directories on the given path like
+   * {@link #copyAll(File, File, boolean, int, FileCopier)}, watched by the given monitor.
+   *
+   * @param source The source directory
+   * @param dest The destination directory
+   * @param replaceExisting If set to <code>true</code>, existing files/directories are replaced
+   * @param parallelism The maximum number of files to copy at the same time
+   * @param copier The copier for large files, or <code>null</code> to copy all files with
+   *        {@link Files#copy(Path, Path, CopyOption...)}
+   * @param monitor The monitor which measures the progress of the copy, or <code>null</code>
+   * @throws IOException When copying of any directory or file on the path fails
+   */
+  public static void copyAll(File source, File dest, boolean replaceExisting, int parallelism,
+      FileCopier copier, FileOperationMonitor monitor) throws IOException {
+
+    ParallelCopyWalker walker = new ParallelCopyWalker(source.toPath(), dest.toPath(),
+        replaceExisting, parallelism, copier, false);
+    walker.setMonitor(monitor, "copy");
+    walker.walk(source.toPath());
+
+  }
+
+  /**
+   * Moves the given path with all its files and sub-directories to the destination. The path is
+   * first moved with a single atomic rename, which on the same file system takes the same time
+   * for any number of files. If that is not possible (e.g. if the destination is on another file
+   * system, or is an existing directory which is not empty), the files are copied with their
+   * attributes like with {@link #copyAll(File, File, boolean, int)} and then deleted like with
+   * {@link #deleteAll(File, boolean, int, boolean)}. The source is only deleted if all files have
+   * been copied.
+   *
+   * @param source The source file or directory
+   * @param dest The destination
+   * @param replaceExisting If set to <code>true</code>, existing files/directories are replaced.
+   *        If not, the move fails if the destination exists
+   * @param parallelism The maximum number of files to copy or delete at the same time if the path
+   *        can not be renamed
+   * @throws IOException When moving of any directory or file on the path fails
+   */
+  public static void moveAll(File source, File dest, boolean replaceExisting, int parallelism)
+      throws IOException {
+    Path sourcePath = source.toPath();
+    Path destPath = dest.toPath();
+    boolean exists = Files.exists(destPath, LinkOption.NOFOLLOW_LINKS);
+
+    if (exists && !replaceExisting) {
+      throw new FileAlreadyExistsException(destPath.toString());
+    }
+
+    try {
+      Files.move(sourcePath, destPath, StandardCopyOption.ATOMIC_MOVE);
+      return;
+    } catch (AtomicMoveNotSupportedException e) {
+      // Another file system, copy and delete
+    } catch (IOException e) {
+      if (!exists) {
+        throw e;
+      }
+      // The existing destination can not be replaced by renaming, merge into it
+    }
+
+    new ParallelCopyWalker(sourcePath, destPath, replaceExisting, parallelism, null, true)
+        .walk(sourcePath);
+    deleteAll(source, true, parallelism, false);
+
+  }
+
+  /**
+   * Synchronizes the destination with the source: copies the files and sub-directories on the
+   * given path which are new or have changed, and keeps the files which are the same in the
+   * destination. Only the differences are copied, a file which is the same only costs reading its
+   * attributes (and its content, if the content is compared).<br />
+   * <br />
+   * A file is the same if it has the same size and modification time (in milliseconds) in the
+   * destination, or, if <code>compareContent</code> is set, if it has the same size and content
+   * (then only the modification time is updated if it differs). A link is the same if it points
+   * to the same path. Changed files are copied with their attributes, so that the next sync can
+   * compare their modification times. The modification times of the directories are set like with
+   * {@link #copyAll(File, File, boolean)}.<br />
+   * <br />
+   * The files are synchronized in parallel like with {@link #copyAll(File, File, boolean, int)},
+   * with the same reporting of failures.
+   *
+   * @param source The source directory
+   * @param dest The destination directory
+   * @param compareContent If set to <code>true</code>, files with the same size are compared by
+   *        their content instead of their modification time
+   * @param deleteExtraneous If set to <code>true</code>, files and directories in the destination
+   *        which do not exist in the source are deleted
+   * @param parallelism The maximum number of files to synchronize at the same time
+   * @return The summary of the changes
+   * @throws IOException When synchronizing of any directory or file on the path fails
+   */
+  public static SyncSummary syncAll(File source, File dest, boolean compareContent,
+      boolean deleteExtraneous, int parallelism) throws IOException {
+
+    ParallelSyncWalker walker = new ParallelSyncWalker(source.toPath(), dest.toPath(),
+        compareContent, deleteExtraneous, parallelism);
+    walker.walk(source.toPath());
+
+    return walker.getSummary();
+  }
+
+  /**
+   * The options for copying a file or directory.
+   *
+   * @param replaceExisting If set to <code>true</code>, existing files/directories are replaced
+   * @param copyAttributes If set to <code>true</code>, the attributes of files are copied
+   * @return The copy options
+   */
+  private static CopyOption[] copyOptions(boolean replaceExisting, boolean copyAttributes) {
+    List<CopyOption> options = new ArrayList<CopyOption>(3);
+    options.add(LinkOption.NOFOLLOW_LINKS);
+
+    if (replaceExisting) {
+      options.add(StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    if (copyAttributes) {
+      options.add(StandardCopyOption.COPY_ATTRIBUTES);
+    }
+
+    return options.toArray(new CopyOption[options.size()]);
+  }
+
+  /**
+   * Copies a directory without its content. An existing directory is kept if existing
+   * files/directories are replaced, since it can not be replaced if it is not empty.
+   *
+   * @param dir The directory to copy
+   * @param target The new directory
+   * @param options The copy options
+   * @throws IOException If copying fails
+   */
+  private static void copyDirectory(Path dir, Path target, CopyOption... options)
+      throws IOException {
+    if (Arrays.asList(options).contains(StandardCopyOption.REPLACE_EXISTING)
+        && Files.isDirectory(target, LinkOption.NOFOLLOW_LINKS)) {
+      return;
+    }
+
+    Files.copy(dir, target, options);
+  }
+
+  /**
+   * Sets the modification time of the copy of a directory to the time of the directory.
+   *
+   * @param dir The directory
+   * @param target The copy of the directory
+   * @throws IOException If setting the modification time fails
+   */
+  private static void copyModifiedTime(Path dir, Path target) throws IOException {
+    try {
+      FileTime time = Files.getLastModifiedTime(dir);
+      Files.setLastModifiedTime(target, time);
+    } catch (IOException e) {
+      throw new IOException("Unable to copy all attributes to "
+          + target, e);
+    }
+  }
+
   /************************************************************************************
    * Some code from the copy example in:
    * https://docs.oracle.com/javase/tutorial/essential/io/walk.html
@@ -184,20 +453,11 @@ public class FileUtil {
     private CopyOption[] copyMoveOptions = null;
 
     /**
-     * A new file tree walker for deleting.
-     *
-     * @param action The {@link Action} to use this walker for
-     */
-    public FileTreeWalker(Action action) {
-      this(action, null, null, false);
-    }
-
-    /**
-     * A new file tree walker for copying or moving.
+     * A new file tree walker.
      *
      * @param action The {@link Action} to use this walker for
-     * @param source The source directory
-     * @param target The target directory
+     * @param source The source directory, or the directory to delete
+     * @param target The target directory, or <code>null</code> for deleting
      * @param replaceExisting If set to <code>true</code>, existing files/directories are replaced
      */
     public FileTreeWalker(Action action, Path source, Path target, boolean replaceExisting) {
@@ -208,7 +468,11 @@ public class FileUtil {
       if (action == Action.COPY || action == Action.MOVE) {
         List<CopyOption> copyMoveOptionsTemp = new ArrayList<CopyOption>();
         copyMoveOptionsTemp.add(LinkOption.NOFOLLOW_LINKS);
-        copyMoveOptionsTemp.add(StandardCopyOption.ATOMIC_MOVE);
+
+        // Copying does not support atomic operations
+        if (action == Action.MOVE) {
+          copyMoveOptionsTemp.add(StandardCopyOption.ATOMIC_MOVE);
+        }
 
         if (replaceExisting) {
           copyMoveOptionsTemp.add(StandardCopyOption.REPLACE_EXISTING);
@@ -234,9 +498,9 @@ public class FileUtil {
     public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
 
       if (action == Action.DELETE) {
-        if (!file.toFile().delete()) {
-          throw new IOException("Failed to delete directory or file "
-              + file);
+        // The path itself is deleted afterwards if requested
+        if (!file.equals(source)) {
+          Files.delete(file);
         }
 
         return FileVisitResult.CONTINUE;
@@ -256,21 +520,14 @@ public class FileUtil {
       if (action == Action.COPY || action == Action.MOVE) {
         // fix up modification time of directory when done
         if (exc == null) {
-          Path newdir = target.resolve(source.relativize(dir));
-          try {
-            FileTime time = Files.getLastModifiedTime(dir);
-            Files.setLastModifiedTime(newdir, time);
-          } catch (IOException e) {
-            throw new IOException("Unable to copy all attributes to "
-                + newdir, e);
-          }
+          copyModifiedTime(dir, target.resolve(source.relativize(dir)));
         }
       } else if (action == Action.DELETE) {
-        // Delete visited directory
-
-        if (!dir.toFile().delete()) {
-          throw new IOException("Failed to delete directory "
-              + dir);
+        // Delete visited directory, the path itself is deleted afterwards if requested
+        if (exc != null) {
+          throw exc;
+        } else if (!dir.equals(source)) {
+          Files.delete(dir);
         }
       }
 
@@ -290,14 +547,18 @@ public class FileUtil {
       try {
         if (action == Action.COPY) {
           Path newdir = target.resolve(source.relativize(dir));
-          Files.copy(dir, newdir, copyMoveOptions);
+          if (Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) {
+            copyDirectory(dir, newdir, copyMoveOptions);
+          } else {
+            Files.copy(dir, newdir, copyMoveOptions);
+          }
         } else if (action == Action.MOVE) {
           Path newdir = target.resolve(source.relativize(dir));
           Files.move(dir, newdir, copyMoveOptions);
         }
       } catch (AtomicMoveNotSupportedException e) {
         // Remove the atomic move from the list and try again
-        List<CopyOption> optionsTemp = Arrays.asList(copyMoveOptions);
+        List<CopyOption> optionsTemp = new ArrayList<CopyOption>(Arrays.asList(copyMoveOptions));
         optionsTemp.remove(StandardCopyOption.ATOMIC_MOVE);
         copyMoveOptions = optionsTemp.toArray(new CopyOption[optionsTemp.size()]);
 
@@ -308,4 +569,295 @@ public class FileUtil {
 
   }
 
+  /************************************************************************************
+   * Copies a file tree with a {@link ParallelFileTreeWalker}.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static class ParallelCopyWalker extends ParallelFileTreeWalker {
+
+    private final Path source;
+    private final Path target;
+    private final boolean replaceExisting;
+    private final CopyOption[] copyOptions;
+    private final FileCopier copier;
+
+    /**
+     * A new parallel copy walker.
+     *
+     * @param source The source directory
+     * @param target The target directory
+     * @param replaceExisting If set to <code>true</code>, existing files/directories are replaced
+     * @param parallelism The maximum number of files to copy at the same time
+     * @param copier The copier for large files, or <code>null</code>
+     * @param copyAttributes If set to <code>true</code>, the attributes of files are copied
+     */
+    public ParallelCopyWalker(Path source, Path target, boolean replaceExisting,
+        int parallelism, FileCopier copier, boolean copyAttributes) {
+      super(parallelism);
+      this.source = source;
+      this.target = target;
+      this.replaceExisting = replaceExisting;
+      this.copyOptions = copyOptions(replaceExisting, copyAttributes);
+      this.copier = copier;
+    }
+
+    @Override
+    protected void visitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+      copyDirectory(dir, target.resolve(source.relativize(dir)), copyOptions);
+    }
+
+    @Override
+    protected void processFile(Path file, BasicFileAttributes attrs) throws IOException {
+      Path newfile = target.resolve(source.relativize(file));
+
+      if (copier != null && attrs.isRegularFile() && attrs.size() >= copier.getThreshold()) {
+        copier.copy(file, newfile, replaceExisting);
+      } else {
+        Files.copy(file, newfile, copyOptions);
+      }
+    }
+
+    @Override
+    protected void finishDirectory(Path dir) throws IOException {
+      copyModifiedTime(dir, target.resolve(source.relativize(dir)));
+    }
+
+  }
+
+
+  /************************************************************************************
+   * Deletes a file tree with a {@link ParallelFileTreeWalker}.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static class ParallelDeleteWalker extends ParallelFileTreeWalker {
+
+    private final Path path;
+    private final boolean includePath;
+
+    /**
+     * A new parallel delete walker.
+     *
+     * @param path The path to delete
+     * @param includePath If set to <code>true</code>, the path itself is deleted as well
+     * @param parallelism The maximum number of files to delete at the same time
+     * @param bestEffort If set to <code>true</code>, the deletion continues after a failure
+     */
+    public ParallelDeleteWalker(Path path, boolean includePath, int parallelism,
+        boolean bestEffort) {
+      super(parallelism, !bestEffort);
+      this.path = path;
+      this.includePath = includePath;
+    }
+
+    @Override
+    protected void visitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+      // Deleted when its content is deleted
+    }
+
+    @Override
+    protected void processFile(Path file, BasicFileAttributes attrs) throws IOException {
+      if (includePath || !file.equals(path)) {
+        Files.delete(file);
+      }
+    }
+
+    @Override
+    protected void finishDirectory(Path dir) throws IOException {
+      if (includePath || !dir.equals(path)) {
+        Files.delete(dir);
+      }
+    }
+
+  }
+
+
+  /************************************************************************************
+   * Synchronizes a file tree with a {@link ParallelFileTreeWalker}.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static class ParallelSyncWalker extends ParallelFileTreeWalker {
+
+    private static final CopyOption[] SYNC_OPTIONS = {LinkOption.NOFOLLOW_LINKS,
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES};
+
+    private final Path source;
+    private final Path target;
+    private final boolean compareContent;
+    private final boolean deleteExtraneous;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong updated = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicLong copiedBytes = new AtomicLong();
+
+    /**
+     * A new parallel sync walker.
+     *
+     * @param source The source directory
+     * @param target The target directory
+     * @param compareContent If set to <code>true</code>, the content of files is compared
+     * @param deleteExtraneous If set to <code>true</code>, extraneous files are deleted
+     * @param parallelism The maximum number of files to synchronize at the same time
+     */
+    public ParallelSyncWalker(Path source, Path target, boolean compareContent,
+        boolean deleteExtraneous, int parallelism) {
+      super(parallelism);
+      this.source = source;
+      this.target = target;
+      this.compareContent = compareContent;
+      this.deleteExtraneous = deleteExtraneous;
+    }
+
+    /**
+     * The summary of the changes.
+     *
+     * @return The summary
+     */
+    public SyncSummary getSummary() {
+      return new SyncSummary(created.get(), updated.get(), unchanged.get(), deleted.get(),
+          copiedBytes.get());
+    }
+
+    @Override
+    protected void visitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+      Path newdir = target.resolve(source.relativize(dir));
+
+      if (!Files.isDirectory(newdir, LinkOption.NOFOLLOW_LINKS)) {
+        // Replace a file with the same name
+        Files.deleteIfExists(newdir);
+        Files.createDirectory(newdir);
+      }
+    }
+
+    @Override
+    protected void processFile(Path file, BasicFileAttributes attrs) throws IOException {
+      Path newfile = target.resolve(source.relativize(file));
+
+      BasicFileAttributes newattrs = null;
+      try {
+        newattrs = Files.readAttributes(newfile, BasicFileAttributes.class,
+            LinkOption.NOFOLLOW_LINKS);
+      } catch (NoSuchFileException e) {
+        // A new file
+      }
+
+      if (newattrs != null && isSame(file, attrs, newfile, newattrs)) {
+        unchanged.incrementAndGet();
+        return;
+      }
+
+      if (newattrs != null && newattrs.isDirectory()) {
+        // Replace a directory with the same name
+        deleteAll(newfile.toFile(), true);
+      }
+
+      Files.copy(file, newfile, SYNC_OPTIONS);
+
+      if (newattrs == null) {
+        created.incrementAndGet();
+      } else {
+        updated.incrementAndGet();
+      }
+
+      if (attrs.isRegularFile()) {
+        copiedBytes.addAndGet(attrs.size());
+      }
+    }
+
+    @Override
+    protected void finishDirectory(Path dir) throws IOException {
+      Path newdir = target.resolve(source.relativize(dir));
+
+      if (deleteExtraneous) {
+        deleteExtraneous(dir, newdir);
+      }
+
+      copyModifiedTime(dir, newdir);
+    }
+
+    /**
+     * Checks whether the copy of a file is the same as the file.
+     *
+     * @param file The file
+     * @param attrs The attributes of the file
+     * @param newfile The copy of the file
+     * @param newattrs The attributes of the copy
+     * @return <code>true</code> if the copy does not need to be updated
+     * @throws IOException If reading the files fails
+     */
+    private boolean isSame(Path file, BasicFileAttributes attrs, Path newfile,
+        BasicFileAttributes newattrs) throws IOException {
+      if (attrs.isSymbolicLink()) {
+        return newattrs.isSymbolicLink()
+            && Files.readSymbolicLink(file).equals(Files.readSymbolicLink(newfile));
+      }
+
+      if (!attrs.isRegularFile() || !newattrs.isRegularFile() || attrs.size() != newattrs.size()) {
+        return false;
+      }
+
+      boolean sameTime =
+          attrs.lastModifiedTime().toMillis() == newattrs.lastModifiedTime().toMillis();
+
+      if (!compareContent) {
+        return sameTime;
+      }
+
+      if (FileSystemSupport.mismatch(file, newfile) != -1) {
+        return false;
+      }
+
+      if (!sameTime) {
+        Files.setLastModifiedTime(newfile, attrs.lastModifiedTime());
+      }
+      return true;
+    }
+
+    /**
+     * Deletes the files and directories in the copy of a directory which do not exist in the
+     * directory.
+     *
+     * @param dir The directory
+     * @param newdir The copy of the directory
+     * @throws IOException If listing the directories or deleting fails
+     */
+    private void deleteExtraneous(Path dir, Path newdir) throws IOException {
+      Set<Path> names = new HashSet<Path>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+        for (Path path : stream) {
+          names.add(path.getFileName());
+        }
+      }
+
+      List<Path> extraneous = new ArrayList<Path>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(newdir)) {
+        for (Path path : stream) {
+          if (!names.contains(path.getFileName())) {
+            extraneous.add(path);
+          }
+        }
+      }
+
+      for (Path path : extraneous) {
+        if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+          deleteAll(path.toFile(), true);
+        } else {
+          Files.delete(path);
+        }
+        deleted.incrementAndGet();
+      }
+    }
+
+  }
+
 }
@@ -0,0 +1,426 @@
+package ch.thn.util.file;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Walks a file tree and processes its files in parallel. The tree is walked on the calling thread,
+ * so that directories are visited in walk order (parents before their children). The files are
+ * processed on an executor from {@link FileSystemSupport#newExecutor(int)}, and each directory is
+ * finished after all its files and sub-directories are finished, which makes it possible to e.g.
+ * fix up the modification time of a directory after its content has been copied.<br />
+ * <br />
+ * At most <code>parallelism</code> files are processed at the same time, also on Java 21 where the
+ * executor starts a virtual thread for each task, and at most a few tasks per processed file are
+ * queued, the walk waits if the executor falls behind. The directories which contain a failed file
+ * or directory are not finished. By default, a failure does not stop the walk and all other files
+ * are processed. Then the failures are thrown after the walk, the failure of the first path in walk
+ * order with the failures of all other paths added as suppressed exceptions. Which exception is
+ * thrown therefore does not depend on the order in which the tasks happen to run. Errors, e.g. an
+ * {@link OutOfMemoryError}, which are thrown while processing a file or finishing a directory are
+ * failures as well, and are thrown as they are. If the walker stops on the first failure, the files
+ * which have not been processed yet are skipped, and only the failures which happened until then
+ * are thrown.
+ * <br />
+ * <br />
+ * A {@link FileOperationMonitor} can be set to watch the walk.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+abstract class ParallelFileTreeWalker extends SimpleFileVisitor<Path> {
+
+  private static final int QUEUED_TASKS_PER_THREAD = 4;
+
+  private final int parallelism;
+  private final boolean stopOnFailure;
+  // The queued tasks, and the tasks which are processing a file
+  private final Semaphore permits;
+  private final Semaphore running;
+  private final CountDownLatch finished = new CountDownLatch(1);
+
+  // The failures by the walk index of their path
+  private final Map<Long, Throwable> failures = new TreeMap<Long, Throwable>();
+  private volatile boolean stopped = false;
+
+  private FileOperationMonitor monitor = null;
+  private String operation = null;
+
+  // Only used by the walking thread
+  private ExecutorService executor = null;
+  private Directory current = null;
+  private boolean startIsDirectory = false;
+  private long index = 0;
+
+  /**
+   * A new parallel walker which processes all files, also after a failure.
+   *
+   * @param parallelism The number of files to process at the same time
+   */
+  protected ParallelFileTreeWalker(int parallelism) {
+    this(parallelism, false);
+  }
+
+  /**
+   * A new parallel walker.
+   *
+   * @param parallelism The number of files to process at the same time
+   * @param stopOnFailure If set to <code>true</code>, the walk stops on the first failure
+   */
+  protected ParallelFileTreeWalker(int parallelism, boolean stopOnFailure) {
+    if (parallelism < 1) {
+      throw new FileUtilError("Parallelism has to be at least 1, was "
+          + parallelism);
+    }
+
+    this.parallelism = parallelism;
+    this.stopOnFailure = stopOnFailure;
+    this.permits = new Semaphore(parallelism * QUEUED_TASKS_PER_THREAD);
+    this.running = new Semaphore(parallelism);
+  }
+
+  /**
+   * Sets the monitor which watches the walk.
+   *
+   * @param monitor The monitor, or <code>null</code>
+   * @param operation The name of the operation for the monitor
+   */
+  void setMonitor(FileOperationMonitor monitor, String operation) {
+    this.monitor = monitor;
+    this.operation = operation;
+  }
+
+  /**
+   * Called on the walking thread before the content of a directory is walked.
+   *
+   * @param dir The directory
+   * @param attrs The attributes of the directory
+   * @throws IOException If processing the directory fails. Its content is skipped
+   */
+  protected abstract void visitDirectory(Path dir, BasicFileAttributes attrs) throws IOException;
+
+  /**
+   * Called on a thread of the executor for each file (and each link or other entry which is not a
+   * directory).
+   *
+   * @param file The file
+   * @param attrs The attributes of the file
+   * @throws IOException If processing the file fails
+   */
+  protected abstract void processFile(Path file, BasicFileAttributes attrs) throws IOException;
+
+  /**
+   * Called after all files and sub-directories of the directory have been processed without a
+   * failure. This is called on the thread which finished the last of them, which can be the
+   * walking thread or a thread of the executor.
+   *
+   * @param dir The directory
+   * @throws IOException If finishing the directory fails
+   */
+  protected abstract void finishDirectory(Path dir) throws IOException;
+
+  /**
+   * Walks the file tree and waits until all files and directories are processed.
+   *
+   * @param start The file or directory to start with
+   * @throws IOException The failure of the first path in walk order, with all other failures
+   *         suppressed. If the first failure is a runtime exception or an error, it is thrown
+   *         instead
+   */
+  public void walk(Path start) throws IOException {
+    if (monitor != null) {
+      monitor.start(operation, start, Collections.singletonList(start));
+    }
+
+    try {
+      walkAndWait(start);
+      throwFailures();
+    } finally {
+      if (monitor != null) {
+        monitor.finish();
+      }
+    }
+  }
+
+  /**
+   * Walks the file tree and waits until all files and directories are processed.
+   *
+   * @param start The file or directory to start with
+   * @throws IOException If the walk is interrupted
+   */
+  private void walkAndWait(Path start) throws IOException {
+    executor = FileSystemSupport.newExecutor(parallelism);
+
+    try {
+      Files.walkFileTree(start, this);
+
+      // Close the directories which are still open if the walk stopped
+      while (current != null) {
+        Directory directory = current;
+        current = directory.parent;
+        directory.failed = true;
+        complete(directory);
+      }
+
+      // Nothing to wait for if the start is a file or the start directory failed
+      if (startIsDirectory) {
+        finished.await();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while walking "
+          + start);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Override
+  public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+      throws IOException {
+    if (stopped) {
+      return FileVisitResult.TERMINATE;
+    }
+
+    long dirIndex = index++;
+
+    try {
+      visitDirectory(dir, attrs);
+    } catch (IOException | RuntimeException e) {
+      fail(dirIndex, dir, e, current);
+      return FileVisitResult.SKIP_SUBTREE;
+    }
+
+    if (current != null) {
+      current.pending.incrementAndGet();
+    } else {
+      startIsDirectory = true;
+    }
+
+    current = new Directory(dir, current, dirIndex);
+    return FileVisitResult.CONTINUE;
+  }
+
+  @Override
+  public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs)
+      throws IOException {
+    if (stopped) {
+      return FileVisitResult.TERMINATE;
+    }
+
+    final long fileIndex = index++;
+    final Directory dir = current;
+
+    if (dir == null) {
+      // The start of the walk is a file
+      try {
+        process(file, attrs);
+      } catch (IOException | RuntimeException e) {
+        fail(fileIndex, file, e, null);
+      }
+      return FileVisitResult.CONTINUE;
+    }
+
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while walking "
+          + file);
+    }
+
+    dir.pending.incrementAndGet();
+    executor.execute(new Runnable() {
+
+      @Override
+      public void run() {
+        running.acquireUninterruptibly();
+        try {
+          if (stopped) {
+            // Skipped, the directory is not complete
+            dir.failed = true;
+          } else {
+            process(file, attrs);
+          }
+        } catch (Throwable e) {
+          // Also errors, which would otherwise only reach the uncaught exception handler
+          fail(fileIndex, file, e, dir);
+        } finally {
+          permits.release();
+          complete(dir);
+          running.release();
+        }
+      }
+    });
+
+    return FileVisitResult.CONTINUE;
+  }
+
+  @Override
+  public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+    fail(index++, file, exc, current);
+    return stopped ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+  }
+
+  @Override
+  public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+    Directory directory = current;
+    current = directory.parent;
+
+    if (exc != null) {
+      fail(directory.index, dir, exc, directory);
+    }
+
+    // The content has been walked
+    complete(directory);
+    return stopped ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+  }
+
+  /**
+   * Processes a file and informs the monitor.
+   *
+   * @param file The file
+   * @param attrs The attributes of the file
+   * @throws IOException If processing the file fails
+   */
+  private void process(Path file, BasicFileAttributes attrs) throws IOException {
+    if (monitor == null) {
+      processFile(file, attrs);
+      return;
+    }
+
+    long fileStart = monitor.fileStarted();
+    processFile(file, attrs);
+    monitor.fileProcessed(file, attrs.isRegularFile() ? attrs.size() : 0, fileStart);
+  }
+
+  /**
+   * Records a failure.
+   *
+   * @param pathIndex The walk index of the failed path
+   * @param path The failed path
+   * @param failure The failure
+   * @param dir The directory which contains the failed path, or <code>null</code>
+   */
+  private void fail(long pathIndex, Path path, Throwable failure, Directory dir) {
+    synchronized (failures) {
+      failures.put(pathIndex, failure);
+    }
+
+    if (monitor != null) {
+      monitor.fileFailed(path, failure);
+    }
+
+    if (stopOnFailure) {
+      stopped = true;
+    }
+
+    if (dir != null) {
+      dir.failed = true;
+    }
+  }
+
+  /**
+   * Completes one of the pending tasks of a directory. The directory is finished if this is its
+   * last task, and then completes a task of its parent.
+   *
+   * @param dir The directory
+   */
+  private void complete(Directory dir) {
+    while (dir != null && dir.pending.decrementAndGet() == 0) {
+      if (!dir.failed && !stopped) {
+        try {
+          finishDirectory(dir.path);
+        } catch (Throwable e) {
+          fail(dir.index, dir.path, e, dir);
+        }
+      }
+
+      if (dir.failed && dir.parent != null) {
+        dir.parent.failed = true;
+      }
+
+      if (dir.parent == null) {
+        finished.countDown();
+      }
+
+      dir = dir.parent;
+    }
+  }
+
+  /**
+   * Throws the failure of the first path in walk order, with all other failures suppressed.
+   *
+   * @throws IOException The first failure
+   */
+  private void throwFailures() throws IOException {
+    Iterator<Throwable> iterator;
+    synchronized (failures) {
+      if (failures.isEmpty()) {
+        return;
+      }
+      iterator = failures.values().iterator();
+    }
+
+    Throwable first = iterator.next();
+    while (iterator.hasNext()) {
+      first.addSuppressed(iterator.next());
+    }
+
+    if (first instanceof IOException) {
+      throw (IOException) first;
+    } else if (first instanceof Error) {
+      throw (Error) first;
+    }
+    throw (RuntimeException) first;
+  }
+
+
+  /************************************************************************************
+   * A directory which is walked or whose content is processed.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static class Directory {
+
+    private final Path path;
+    private final Directory parent;
+    private final long index;
+
+    // The walk of the content and the unfinished files and sub-directories
+    private final AtomicInteger pending = new AtomicInteger(1);
+    private volatile boolean failed = false;
+
+    /**
+     * A new directory.
+     *
+     * @param path The directory
+     * @param parent The parent directory, or <code>null</code> if this is the start of the walk
+     * @param index The walk index of the directory
+     */
+    Directory(Path path, Directory parent, long index) {
+      this.path = path;
+      this.parent = parent;
+      this.index = index;
+    }
+
+  }
+
+}
@@ -0,0 +1,82 @@
+package ch.thn.util.file;
+
+/**
+ * The changes made by {@link FileUtil#syncAll(java.io.File, java.io.File, boolean, boolean, int)}.
+ * The numbers of created, updated and unchanged files count files and links, not directories. The
+ * number of deleted files counts the extraneous files and directories in the destination, where a
+ * deleted directory counts once, including its content.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public final class SyncSummary {
+
+  private final long created;
+  private final long updated;
+  private final long unchanged;
+  private final long deleted;
+  private final long copiedBytes;
+
+  /**
+   * A new summary.
+   *
+   * @param created The number of files which did not exist in the destination
+   * @param updated The number of files which were different in the destination
+   * @param unchanged The number of files which were the same in the destination
+   * @param deleted The number of extraneous files and directories deleted from the destination
+   * @param copiedBytes The number of bytes of the created and updated files
+   */
+  public SyncSummary(long created, long updated, long unchanged, long deleted, long copiedBytes) {
+    this.created = created;
+    this.updated = updated;
+    this.unchanged = unchanged;
+    this.deleted = deleted;
+    this.copiedBytes = copiedBytes;
+  }
+
+  public long getCreated() {
+    return created;
+  }
+
+  public long getUpdated() {
+    return updated;
+  }
+
+  public long getUnchanged() {
+    return unchanged;
+  }
+
+  public long getDeleted() {
+    return deleted;
+  }
+
+  public long getCopiedBytes() {
+    return copiedBytes;
+  }
+
+  /**
+   * Whether the sync changed anything in the destination.
+   *
+   * @return <code>true</code> if any file was created, updated or deleted
+   */
+  public boolean hasChanges() {
+    return created > 0 || updated > 0 || deleted > 0;
+  }
+
+  @Override
+  public String toString() {
+    return "SyncSummary[created="
+        + created
+        + ", updated="
+        + updated
+        + ", unchanged="
+        + unchanged
+        + ", deleted="
+        + deleted
+        + ", copiedBytes="
+        + copiedBytes
+        + "]";
+  }
+
+}
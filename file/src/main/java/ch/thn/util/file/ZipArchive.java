@@ -5,6 +5,7 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.zip.ZipEntry;
@@ -72,11 +73,37 @@ public class ZipArchive {
    * @return The output stream which was used to create the zip file
    */
   public OutputStream create(File zipArchive) throws IOException {
+    return create(zipArchive, null);
+  }
 
-    OutputStream out = new FileOutputStream(zipArchive);
-    zip(out);
+  /**
+   * Zips all the files into the archive defined by the given zip archive, watched by the given
+   * monitor. The monitor counts the files added to the archive and their uncompressed bytes.
+   *
+   * @param zipArchive The zip file to create
+   * @param monitor The monitor which measures the progress, or <code>null</code>
+   * @return The output stream which was used to create the zip file
+   */
+  public OutputStream create(File zipArchive, FileOperationMonitor monitor) throws IOException {
 
-    return out;
+    if (monitor != null) {
+      List<Path> paths = new ArrayList<Path>(files.size());
+      for (File f : files) {
+        paths.add(f.toPath());
+      }
+      monitor.start("zip", zipArchive.toPath(), paths);
+    }
+
+    try {
+      OutputStream out = new FileOutputStream(zipArchive);
+      zip(out, monitor);
+
+      return out;
+    } finally {
+      if (monitor != null) {
+        monitor.finish();
+      }
+    }
 
   }
 
@@ -84,16 +111,17 @@ public class ZipArchive {
    * Zips all the files into the archive defined by the given output stream.
    *
    * @param zipDestination The streeam of the zip file to create
+   * @param monitor The monitor which measures the progress, or <code>null</code>
    * @throws IOException Throws this exception if creating the zip file fails
    */
-  private void zip(OutputStream zipDestination) throws IOException {
+  private void zip(OutputStream zipDestination, FileOperationMonitor monitor) throws IOException {
     ZipOutputStream out = null;
 
     try {
       out = new ZipOutputStream(zipDestination);
 
       for (File f : files) {
-        zipIt(out, "", f);
+        zipIt(out, monitor, "", f);
       }
 
     } finally {
@@ -109,12 +137,13 @@ public class ZipArchive {
    * under the sub directory <code>zipSubdir</code>.
    *
    * @param zout The zip archive to write to
+   * @param monitor The monitor which measures the progress, or <code>null</code>
    * @param zipSubdir The files/directories are added under this sub director
    * @param filesOrDirectories Files or directories to add. Directories are added recursively
    * @throws IOException If writing any of the files fails
    */
-  private void zipIt(ZipOutputStream zout, String zipSubdir, File... filesOrDirectories)
-      throws IOException, RuntimeException {
+  private void zipIt(ZipOutputStream zout, FileOperationMonitor monitor, String zipSubdir,
+      File... filesOrDirectories) throws IOException, RuntimeException {
 
     if (zipSubdir != null && zipSubdir.length() > 0 && !zipSubdir.endsWith("/")
         && !zipSubdir.endsWith("\\")) {
@@ -126,15 +155,30 @@ public class ZipArchive {
     for (File f : filesOrDirectories) {
 
       if (f.isFile()) {
-        addFileToZip(zout, zipSubdir, f);
+        if (monitor == null) {
+          addFileToZip(zout, zipSubdir, f);
+        } else {
+          long fileStart = monitor.fileStarted();
+          try {
+            addFileToZip(zout, zipSubdir, f);
+          } catch (IOException e) {
+            monitor.fileFailed(f.toPath(), e);
+            throw e;
+          }
+          monitor.fileProcessed(f.toPath(), f.length(), fileStart);
+        }
       } else if (f.isDirectory()) {
         addDirectoryToZip(zout, zipSubdir, f);
-        zipIt(zout, zipSubdir
+        zipIt(zout, monitor, zipSubdir
             + f.getName()
             + "/", f.listFiles());
       } else {
-        throw new IOException(f.getPath()
+        IOException e = new IOException(f.getPath()
             + " is not a file or a directory");
+        if (monitor != null) {
+          monitor.fileFailed(f.toPath(), e);
+        }
+        throw e;
       }
 
     }
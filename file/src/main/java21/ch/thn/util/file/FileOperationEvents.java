@@ -0,0 +1,155 @@
+package ch.thn.util.file;
+
+import java.nio.file.Path;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Emits JDK Flight Recorder events for the operations watched by a {@link FileOperationMonitor}.
+ * <br />
+ * <br />
+ * Java 21 version of this class for the multi-release jar. Each operation is recorded as a
+ * <code>ch.thn.util.file.FileOperation</code> event with its duration. The
+ * <code>ch.thn.util.file.FileOperationFile</code> event for each file is disabled by default,
+ * since a tree can have millions of files. It can be enabled in the recording settings.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+final class FileOperationEvents {
+
+  private FileOperationEvents() {}
+
+  /**
+   * Begins the event of an operation.
+   *
+   * @param operation The name of the operation
+   * @param path The path the operation works on
+   * @return The event, or <code>null</code> if it is not recorded
+   */
+  static Object beginOperation(String operation, Path path) {
+    OperationEvent event = new OperationEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+
+    event.operation = operation;
+    event.path = path.toString();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Commits the event of an operation.
+   *
+   * @param event The event from {@link #beginOperation(String, Path)}, or <code>null</code>
+   * @param files The number of processed files
+   * @param bytes The number of processed bytes
+   * @param errors The number of failures
+   */
+  static void commitOperation(Object event, long files, long bytes, long errors) {
+    if (event instanceof OperationEvent operationEvent) {
+      operationEvent.files = files;
+      operationEvent.bytes = bytes;
+      operationEvent.errors = errors;
+      operationEvent.commit();
+    }
+  }
+
+  /**
+   * Commits the event of a processed file.
+   *
+   * @param operation The name of the operation
+   * @param path The file
+   * @param bytes The size of the file
+   * @param latencyNanos The time it took to process the file
+   * @param failed Whether processing the file failed
+   */
+  static void commitFile(String operation, Path path, long bytes, long latencyNanos,
+      boolean failed) {
+    FileEvent event = new FileEvent();
+    if (event.isEnabled()) {
+      event.operation = operation;
+      event.path = path.toString();
+      event.bytes = bytes;
+      event.latency = latencyNanos;
+      event.failed = failed;
+      event.commit();
+    }
+  }
+
+
+  /************************************************************************************
+   * A copy, delete or zip operation on a file tree.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  @Name("ch.thn.util.file.FileOperation")
+  @Label("File Operation")
+  @Category({"ch.thn.util", "File"})
+  @Description("A copy, delete or zip operation on a file tree")
+  private static final class OperationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Path")
+    String path;
+
+    @Label("Files")
+    long files;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Errors")
+    long errors;
+
+  }
+
+  /************************************************************************************
+   * A file processed by a file operation.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  @Name("ch.thn.util.file.FileOperationFile")
+  @Label("File Operation File")
+  @Category({"ch.thn.util", "File"})
+  @Description("A file processed by a copy, delete or zip operation")
+  @Enabled(false)
+  @StackTrace(false)
+  private static final class FileEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Path")
+    String path;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+
+    @Label("Failed")
+    boolean failed;
+
+  }
+
+}
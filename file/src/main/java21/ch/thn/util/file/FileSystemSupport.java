@@ -0,0 +1,50 @@
+package ch.thn.util.file;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * File system helpers which have better implementations in newer Java versions.<br />
+ * <br />
+ * Java 21 version of this class for the multi-release jar. Blocking file operations run on
+ * virtual threads and file contents are compared with {@link Files#mismatch(Path, Path)}.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+final class FileSystemSupport {
+
+  private FileSystemSupport() {}
+
+  /**
+   * Creates an executor for blocking file operations which runs each task on a new virtual
+   * thread. Virtual threads are not pooled, so the executor does not limit how many tasks run at
+   * the same time: the caller has to limit them to <code>parallelism</code> (e.g. with a
+   * semaphore), like {@link ParallelFileTreeWalker} does.
+   *
+   * @param parallelism The maximum number of tasks the caller runs at the same time. Not used by
+   *        this version
+   * @return The executor. It has to be shut down by the caller
+   */
+  static ExecutorService newExecutor(int parallelism) {
+    return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("file-util-", 1).factory());
+  }
+
+  /**
+   * Finds the position of the first mismatched byte in the content of two files.
+   *
+   * @param path1 The first file
+   * @param path2 The second file
+   * @return The position of the first mismatch, or <code>-1</code> if the files are equal. If one
+   *         file is a prefix of the other, the size of the smaller file is returned
+   * @throws IOException If reading any of the files fails
+   */
+  static long mismatch(Path path1, Path path2) throws IOException {
+    return Files.mismatch(path1, path2);
+  }
+
+}
@@ -0,0 +1,158 @@
+package ch.thn.util.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks {@link FileSystemSupport} and {@link FileOperationEvents} in the packaged multi-release
+ * jar. The same checks run on Java 8, where the base versions of the classes are loaded, and on
+ * Java 21, where their Java 21 versions are loaded (see the failsafe configuration in the master
+ * pom).
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public class FileSystemSupportIT {
+
+  private final SplittableRandom random = new SplittableRandom(42);
+
+  private Path dir = null;
+
+
+  @Before
+  public void createDirectory() throws IOException {
+    dir = Files.createTempDirectory("file-support-it");
+  }
+
+  @After
+  public void deleteDirectory() throws IOException {
+    FileUtil.deleteAll(dir.toFile(), true);
+  }
+
+  @Test
+  public void loadsTheVersionOfTheRunningJava() throws IOException {
+    assertTrue("Not running against the packaged jar",
+        FileSystemSupport.class.getProtectionDomain().getCodeSource().getLocation().getPath()
+            .endsWith(".jar"));
+    assertEquals(expectedClassVersion(FileSystemSupport.class),
+        classVersion(FileSystemSupport.class));
+    assertEquals(expectedClassVersion(FileOperationEvents.class),
+        classVersion(FileOperationEvents.class));
+  }
+
+  @Test
+  public void mismatch() throws IOException {
+    // Around the compare buffer size of the Java 8 version
+    for (int size : new int[] {0, 1, 100, 64 * 1024 - 1, 64 * 1024, 64 * 1024 + 1, 200000}) {
+      byte[] content = new byte[size];
+      for (int i = 0; i < size; i++) {
+        content[i] = (byte) random.nextInt(256);
+      }
+      Path file = write("file", content);
+
+      assertEquals(-1, FileSystemSupport.mismatch(file, write("same", content)));
+
+      if (size > 0) {
+        for (int position : new int[] {0, size / 2, size - 1}) {
+          byte[] changed = content.clone();
+          changed[position]++;
+          assertEquals(position, FileSystemSupport.mismatch(file, write("changed", changed)));
+        }
+
+        Path prefix = write("prefix", Arrays.copyOf(content, size - 1));
+        assertEquals(size - 1, FileSystemSupport.mismatch(file, prefix));
+        assertEquals(size - 1, FileSystemSupport.mismatch(prefix, file));
+      }
+    }
+  }
+
+  @Test
+  public void executorRunsAllTasks() throws InterruptedException {
+    ExecutorService executor = FileSystemSupport.newExecutor(4);
+    final AtomicInteger count = new AtomicInteger();
+
+    for (int i = 0; i < 1000; i++) {
+      executor.execute(new Runnable() {
+
+        @Override
+        public void run() {
+          if (Thread.currentThread().getName().startsWith("file-util-")) {
+            count.incrementAndGet();
+          }
+        }
+      });
+    }
+
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    assertEquals(1000, count.get());
+  }
+
+  @Test
+  public void monitoredOperationsEmitEvents() throws IOException {
+    Path source = dir.resolve("source");
+    Files.createDirectories(source.resolve("sub"));
+    write("source/sub/file", new byte[100]);
+
+    FileOperationMonitor monitor = new FileOperationMonitor(null, true);
+    FileUtil.copyAll(source.toFile(), dir.resolve("copy").toFile(), false, 2, null, monitor);
+
+    assertEquals(1, monitor.getFiles());
+    assertEquals(100, monitor.getBytes());
+    assertEquals(0, monitor.getBytesRemaining());
+  }
+
+  private Path write(String name, byte[] content) throws IOException {
+    return Files.write(dir.resolve(name), content);
+  }
+
+  /**
+   * The class file version which has to be loaded: the Java 21 version if the class has one and
+   * the tests run on Java 21 or newer, otherwise the Java 8 version.
+   *
+   * @param type The class
+   * @return The expected major class file version
+   */
+  static int expectedClassVersion(Class<?> type) {
+    String spec = System.getProperty("java.specification.version");
+    int java = Integer.parseInt(spec.startsWith("1.") ? spec.substring(2) : spec);
+    String overlay = "META-INF/versions/21/"
+        + type.getName().replace('.', '/')
+        + ".class";
+
+    return java >= 21 && type.getClassLoader().getResource(overlay) != null ? 65 : 52;
+  }
+
+  /**
+   * Reads the major class file version of the loaded class.
+   *
+   * @param type The class
+   * @return The major class file version
+   * @throws IOException If reading the class file fails
+   */
+  static int classVersion(Class<?> type) throws IOException {
+    try (InputStream in = type.getResourceAsStream(type.getSimpleName()
+        + ".class")) {
+      DataInputStream data = new DataInputStream(in);
+      data.readInt();
+      data.readUnsignedShort();
+      return data.readUnsignedShort();
+    }
+  }
+
+}
@@ -0,0 +1,764 @@
+package ch.thn.util.number;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * A decimal number with a fixed number of decimals, stored as <code>long</code> value (e.g. 12.34
+ * is stored as 1234 with the scale 2). This is meant for amounts of money and other values which
+ * have to be calculated exactly in decimal, but do not need the range of {@link BigDecimal}: the
+ * calculations work on <code>long</code> values and are many times faster.<br />
+ * <br />
+ * Additions and subtractions are exact, with the larger scale of the two values. Multiplications
+ * and divisions are rounded to a given scale with a given {@link RoundingMode}. Each scale can be
+ * used from 0 to {@link #MAX_SCALE}. Results which do not fit into a <code>long</code> throw an
+ * {@link ArithmeticException}, like {@link Math#addExact(long, long)} does. Comparisons are exact,
+ * and values with a different scale are equal if their values are equal (unlike
+ * {@link BigDecimal#equals(Object)}, 1.50 equals 1.5).<br />
+ * <br />
+ * Decimals are immutable. For sums in tight loops, {@link Accumulator} adds up values without
+ * creating intermediate objects. {@link NumberUtil} supports decimals in all operations: a decimal
+ * combined with an integer type results in a decimal, combined with a floating point type in a
+ * {@link BigDecimal}. They are formatted exactly by {@link NumberUtil#formatNumber} and
+ * {@link NumberFormatter}.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ */
+public final class Decimal extends Number implements Comparable<Decimal> {
+  private static final long serialVersionUID = 2471063949378925372L;
+
+  /** The largest supported scale. */
+  public static final int MAX_SCALE = 18;
+
+  public static final Decimal ZERO = new Decimal(0, 0);
+  public static final Decimal ONE = new Decimal(1, 0);
+
+  private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+  // The largest and smallest values which can be multiplied by each power of ten
+  private static final long[] MAX_SHIFTABLE = new long[MAX_SCALE + 1];
+  private static final long[] MIN_SHIFTABLE = new long[MAX_SCALE + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+      MAX_SHIFTABLE[i] = Long.MAX_VALUE / POWERS_OF_TEN[i];
+      MIN_SHIFTABLE[i] = Long.MIN_VALUE / POWERS_OF_TEN[i];
+    }
+  }
+
+  private final long unscaled;
+  private final int scale;
+
+
+  private Decimal(long unscaled, int scale) {
+    this.unscaled = unscaled;
+    this.scale = scale;
+  }
+
+  /**
+   * Creates a decimal from its unscaled value, e.g. <code>of(1234, 2)</code> for 12.34.
+   *
+   * @param unscaled The unscaled value
+   * @param scale The number of decimals, from 0 to {@link #MAX_SCALE}
+   * @return The decimal
+   */
+  public static Decimal of(long unscaled, int scale) {
+    checkScale(scale);
+    return new Decimal(unscaled, scale);
+  }
+
+  /**
+   * Creates a decimal with the scale 0.
+   *
+   * @param value The value
+   * @return The decimal
+   */
+  public static Decimal valueOf(long value) {
+    return new Decimal(value, 0);
+  }
+
+  /**
+   * Creates a decimal with the given value and scale, e.g. <code>valueOf(12, 2)</code> for 12.00.
+   *
+   * @param value The value
+   * @param scale The number of decimals, from 0 to {@link #MAX_SCALE}
+   * @return The decimal
+   */
+  public static Decimal valueOf(long value, int scale) {
+    checkScale(scale);
+    return new Decimal(Math.multiplyExact(value, POWERS_OF_TEN[scale]), scale);
+  }
+
+  /**
+   * Creates a decimal from a double value, rounded to the given scale. The exact binary value of
+   * the double is rounded, like {@link NumberUtil#roundDecimals(double, int, RoundingMode)} does.
+   *
+   * @param value The value
+   * @param scale The number of decimals, from 0 to {@link #MAX_SCALE}
+   * @param mode The rounding mode
+   * @return The decimal
+   */
+  public static Decimal valueOf(double value, int scale, RoundingMode mode) {
+    checkScale(scale);
+
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      throw new NumberUtilError("No decimal value for "
+          + value);
+    }
+
+    double scaled = DecimalRounding.roundScaled(value, scale, mode);
+
+    if (Double.isNaN(scaled)) {
+      return valueOf(new BigDecimal(value).setScale(scale, mode));
+    }
+
+    return new Decimal(value < 0 ? -(long) scaled : (long) scaled, scale);
+  }
+
+  /**
+   * Creates a decimal from a {@link BigDecimal} with the same value and scale. A negative scale is
+   * changed to 0.
+   *
+   * @param value The value, with a scale of at most {@link #MAX_SCALE}
+   * @return The decimal
+   */
+  public static Decimal valueOf(BigDecimal value) {
+    if (value.scale() > MAX_SCALE) {
+      throw new ArithmeticException("Scale of "
+          + value
+          + " is larger than "
+          + MAX_SCALE);
+    }
+
+    if (value.scale() < 0) {
+      value = value.setScale(0);
+    }
+
+    return new Decimal(value.unscaledValue().longValueExact(), value.scale());
+  }
+
+  /**
+   * Parses a decimal, e.g. <code>"-12.340"</code> (with the scale 3).
+   *
+   * @param value The value
+   * @return The decimal
+   */
+  public static Decimal valueOf(String value) {
+    return valueOf(new BigDecimal(value));
+  }
+
+  public long getUnscaled() {
+    return unscaled;
+  }
+
+  public int getScale() {
+    return scale;
+  }
+
+  /**
+   * Adds this + other. The result has the larger scale of the two values.
+   *
+   * @param other The value to add
+   * @return The exact sum
+   */
+  public Decimal add(Decimal other) {
+    int resultScale = Math.max(scale, other.scale);
+    return new Decimal(addUnscaled(unscaled, scale, other.unscaled, other.scale, resultScale),
+        resultScale);
+  }
+
+  /**
+   * Subtracts this - other. The result has the larger scale of the two values.
+   *
+   * @param other The value to subtract
+   * @return The exact difference
+   */
+  public Decimal subtract(Decimal other) {
+    int resultScale = Math.max(scale, other.scale);
+    long result = subtractUnscaled(unscaled, scale, other.unscaled, other.scale, resultScale);
+    return new Decimal(result, resultScale);
+  }
+
+  /**
+   * Multiplies this * other exactly. The result has the sum of the two scales, which has to be
+   * {@link #MAX_SCALE} at most.
+   *
+   * @param other The value to multiply with
+   * @return The exact product
+   */
+  public Decimal multiply(Decimal other) {
+    int resultScale = scale + other.scale;
+
+    if (resultScale > MAX_SCALE) {
+      throw new ArithmeticException("Scale of the product of "
+          + this
+          + " and "
+          + other
+          + " is larger than "
+          + MAX_SCALE);
+    }
+
+    return new Decimal(Math.multiplyExact(unscaled, other.unscaled), resultScale);
+  }
+
+  /**
+   * Multiplies this * other and rounds the product to the given scale.
+   *
+   * @param other The value to multiply with
+   * @param resultScale The scale of the result
+   * @param mode The rounding mode
+   * @return The rounded product
+   */
+  public Decimal multiply(Decimal other, int resultScale, RoundingMode mode) {
+    checkScale(resultScale);
+    long result = multiplyUnscaled(unscaled, scale, other.unscaled, other.scale, resultScale, mode);
+    return new Decimal(result, resultScale);
+  }
+
+  /**
+   * Divides this / other and rounds the quotient to the given scale.
+   *
+   * @param other The divisor
+   * @param resultScale The scale of the result
+   * @param mode The rounding mode
+   * @return The rounded quotient
+   */
+  public Decimal divide(Decimal other, int resultScale, RoundingMode mode) {
+    checkScale(resultScale);
+    long result = divideUnscaled(unscaled, scale, other.unscaled, other.scale, resultScale, mode);
+    return new Decimal(result, resultScale);
+  }
+
+  /**
+   * Calculates the remainder of this / other, with the quotient truncated to an integer (like
+   * {@link BigDecimal#remainder(BigDecimal)}). The result has the larger scale of the two values.
+   *
+   * @param other The divisor
+   * @return The exact remainder
+   */
+  public Decimal remainder(Decimal other) {
+    int resultScale = Math.max(scale, other.scale);
+
+    if (fitsShifted(unscaled, resultScale - scale)
+        && fitsShifted(other.unscaled, resultScale - other.scale)) {
+      return new Decimal(rescale(unscaled, scale, resultScale)
+          % rescale(other.unscaled, other.scale, resultScale), resultScale);
+    }
+
+    // The remainder fits, but the values with the larger scale do not
+    return new Decimal(toBigDecimal().remainder(other.toBigDecimal()).setScale(resultScale)
+        .unscaledValue().longValueExact(), resultScale);
+  }
+
+  /**
+   * Returns this value with a different scale, rounded if the new scale is smaller.
+   *
+   * @param newScale The new scale
+   * @param mode The rounding mode
+   * @return The value with the new scale
+   */
+  public Decimal setScale(int newScale, RoundingMode mode) {
+    checkScale(newScale);
+    if (newScale == scale) {
+      return this;
+    }
+    return new Decimal(rescale(unscaled, scale, newScale, mode), newScale);
+  }
+
+  public Decimal negate() {
+    return new Decimal(Math.negateExact(unscaled), scale);
+  }
+
+  public Decimal abs() {
+    return unscaled < 0 ? negate() : this;
+  }
+
+  public int signum() {
+    return Long.signum(unscaled);
+  }
+
+  /**
+   * Converts this value to a {@link BigDecimal} with the same scale.
+   *
+   * @return The value
+   */
+  public BigDecimal toBigDecimal() {
+    return BigDecimal.valueOf(unscaled, scale);
+  }
+
+  @Override
+  public int compareTo(Decimal other) {
+    if (scale == other.scale) {
+      return Long.compare(unscaled, other.unscaled);
+    } else if (scale < other.scale) {
+      return compare(unscaled, other.scale - scale, other.unscaled);
+    }
+    return -compare(other.unscaled, scale - other.scale, unscaled);
+  }
+
+  /**
+   * Compares <code>value1 * 10^shift</code> with <code>value2</code>.
+   *
+   * @param value1 The first value
+   * @param shift The power of ten of the first value
+   * @param value2 The second value
+   * @return The comparison result
+   */
+  private static int compare(long value1, int shift, long value2) {
+    if (!fitsShifted(value1, shift)) {
+      // The scaled first value is larger in magnitude than any long value
+      return Long.signum(value1);
+    }
+    return Long.compare(value1 * POWERS_OF_TEN[shift], value2);
+  }
+
+  /**
+   * Checks if <code>value * 10^shift</code> fits into a <code>long</code>.
+   *
+   * @param value The value
+   * @param shift The power of ten, from 0 to {@link #MAX_SCALE}
+   * @return True if it fits
+   */
+  private static boolean fitsShifted(long value, int shift) {
+    return value <= MAX_SHIFTABLE[shift] && value >= MIN_SHIFTABLE[shift];
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof Decimal && compareTo((Decimal) obj) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    // The same hash for the same value with different scales
+    long value = unscaled;
+    int valueScale = scale;
+    while (valueScale > 0 && value % 10 == 0) {
+      value /= 10;
+      valueScale--;
+    }
+    return Long.hashCode(value) * 31 + valueScale;
+  }
+
+  @Override
+  public int intValue() {
+    return (int) longValue();
+  }
+
+  @Override
+  public long longValue() {
+    return unscaled / POWERS_OF_TEN[scale];
+  }
+
+  @Override
+  public float floatValue() {
+    if (scale == 0) {
+      return unscaled;
+    } else if (Math.abs(unscaled) < 1L << 24 && scale <= 10) {
+      // Both are exact floats, so the division is rounded correctly
+      return (float) unscaled / POWERS_OF_TEN[scale];
+    }
+    return Float.parseFloat(toString());
+  }
+
+  @Override
+  public double doubleValue() {
+    if (scale == 0) {
+      return unscaled;
+    } else if (Math.abs(unscaled) < 1L << 53) {
+      // Both are exact doubles, so the division is rounded correctly
+      return (double) unscaled / POWERS_OF_TEN[scale];
+    }
+    return Double.parseDouble(toString());
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(21);
+    sb.append(unscaled);
+
+    if (scale > 0) {
+      int digitsStart = unscaled < 0 ? 1 : 0;
+      // At least one integer digit
+      while (sb.length() - digitsStart <= scale) {
+        sb.insert(digitsStart, '0');
+      }
+      sb.insert(sb.length() - scale, '.');
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * Changes the scale of an unscaled value to a larger or the same scale, which is exact.
+   *
+   * @param value The unscaled value
+   * @param from The scale of the value
+   * @param to The new scale, at least <code>from</code>
+   * @return The unscaled value with the new scale
+   */
+  static long rescale(long value, int from, int to) {
+    return from == to ? value : Math.multiplyExact(value, POWERS_OF_TEN[to - from]);
+  }
+
+  /**
+   * Changes the scale of an unscaled value, rounded if the new scale is smaller.
+   *
+   * @param value The unscaled value
+   * @param from The scale of the value
+   * @param to The new scale
+   * @param mode The rounding mode
+   * @return The unscaled value with the new scale
+   */
+  static long rescale(long value, int from, int to, RoundingMode mode) {
+    if (to >= from) {
+      return rescale(value, from, to);
+    }
+    return divideRounded(value, POWERS_OF_TEN[from - to], mode);
+  }
+
+  /**
+   * Adds two unscaled values.
+   *
+   * @param value1 The first unscaled value
+   * @param scale1 The scale of the first value
+   * @param value2 The second unscaled value
+   * @param scale2 The scale of the second value
+   * @param resultScale The scale of the result, at least the scale of each value
+   * @return The exact unscaled sum
+   */
+  static long addUnscaled(long value1, int scale1, long value2, int scale2, int resultScale) {
+    if (fitsShifted(value1, resultScale - scale1) && fitsShifted(value2, resultScale - scale2)) {
+      return Math.addExact(rescale(value1, scale1, resultScale),
+          rescale(value2, scale2, resultScale));
+    }
+
+    // The sum may fit even if one of the values with the result scale does not
+    return BigDecimal.valueOf(value1, scale1).add(BigDecimal.valueOf(value2, scale2))
+        .setScale(resultScale).unscaledValue().longValueExact();
+  }
+
+  /**
+   * Subtracts two unscaled values.
+   *
+   * @param value1 The first unscaled value
+   * @param scale1 The scale of the first value
+   * @param value2 The second unscaled value
+   * @param scale2 The scale of the second value
+   * @param resultScale The scale of the result, at least the scale of each value
+   * @return The exact unscaled difference
+   */
+  static long subtractUnscaled(long value1, int scale1, long value2, int scale2,
+      int resultScale) {
+    if (fitsShifted(value1, resultScale - scale1) && fitsShifted(value2, resultScale - scale2)) {
+      return Math.subtractExact(rescale(value1, scale1, resultScale),
+          rescale(value2, scale2, resultScale));
+    }
+
+    return BigDecimal.valueOf(value1, scale1).subtract(BigDecimal.valueOf(value2, scale2))
+        .setScale(resultScale).unscaledValue().longValueExact();
+  }
+
+  /**
+   * Multiplies two unscaled values and rounds the product to the given scale.
+   *
+   * @param value1 The first unscaled value
+   * @param scale1 The scale of the first value
+   * @param value2 The second unscaled value
+   * @param scale2 The scale of the second value
+   * @param resultScale The scale of the result
+   * @param mode The rounding mode
+   * @return The unscaled product
+   */
+  static long multiplyUnscaled(long value1, int scale1, long value2, int scale2, int resultScale,
+      RoundingMode mode) {
+    long product = value1 * value2;
+    int productScale = scale1 + scale2;
+
+    // The product of two values below 2^31 always fits
+    boolean fits = ((Math.abs(value1) | Math.abs(value2)) >>> 31) == 0
+        || MathOps.multiplyHigh(value1, value2) == (product >> 63);
+
+    if (fits && productScale - resultScale <= MAX_SCALE) {
+      return rescale(product, productScale, resultScale, mode);
+    }
+
+    // The product does not fit into a long, but the rounded product may
+    return BigDecimal.valueOf(value1, scale1).multiply(BigDecimal.valueOf(value2, scale2))
+        .setScale(resultScale, mode).unscaledValue().longValueExact();
+  }
+
+  /**
+   * Divides two unscaled values and rounds the quotient to the given scale.
+   *
+   * @param value1 The unscaled dividend
+   * @param scale1 The scale of the dividend
+   * @param value2 The unscaled divisor
+   * @param scale2 The scale of the divisor
+   * @param resultScale The scale of the result
+   * @param mode The rounding mode
+   * @return The unscaled quotient
+   */
+  static long divideUnscaled(long value1, int scale1, long value2, int scale2, int resultScale,
+      RoundingMode mode) {
+    if (value2 == 0) {
+      throw new ArithmeticException("Division by zero");
+    }
+
+    // value1 / value2 has the scale scale1 - scale2
+    int shift = resultScale - scale1 + scale2;
+
+    if (shift >= 0 && shift <= MAX_SCALE) {
+      if (fitsShifted(value1, shift)) {
+        return divideRounded(value1 * POWERS_OF_TEN[shift], value2, mode);
+      }
+    } else if (shift < 0 && shift >= -MAX_SCALE) {
+      if (fitsShifted(value2, -shift)) {
+        return divideRounded(value1, value2 * POWERS_OF_TEN[-shift], mode);
+      }
+    }
+
+    return BigDecimal.valueOf(value1, scale1)
+        .divide(BigDecimal.valueOf(value2, scale2), resultScale, mode).unscaledValue()
+        .longValueExact();
+  }
+
+  /**
+   * Divides two values and rounds the quotient to an integer.
+   *
+   * @param dividend The dividend
+   * @param divisor The divisor, not zero
+   * @param mode The rounding mode
+   * @return The rounded quotient
+   */
+  static long divideRounded(long dividend, long divisor, RoundingMode mode) {
+    if (dividend == Long.MIN_VALUE && divisor == -1) {
+      throw new ArithmeticException("long overflow");
+    }
+
+    long quotient = dividend / divisor;
+    long remainder = dividend % divisor;
+
+    if (remainder == 0) {
+      return quotient;
+    }
+
+    // The sign of the exact quotient
+    int sign = (dividend ^ divisor) < 0 ? -1 : 1;
+    // Compares the remainder with half of the divisor, as unsigned values (the absolute value of
+    // Long.MIN_VALUE is 2^63 as unsigned value)
+    long absRemainder = Math.abs(remainder);
+    int half = Long.compareUnsigned(absRemainder, Math.abs(divisor) - absRemainder);
+
+    boolean up;
+    switch (mode) {
+      case UP:
+        up = true;
+        break;
+      case DOWN:
+        up = false;
+        break;
+      case CEILING:
+        up = sign > 0;
+        break;
+      case FLOOR:
+        up = sign < 0;
+        break;
+      case HALF_UP:
+        up = half >= 0;
+        break;
+      case HALF_DOWN:
+        up = half > 0;
+        break;
+      case HALF_EVEN:
+        up = half > 0 || (half == 0 && (quotient & 1) != 0);
+        break;
+      default:
+        throw new ArithmeticException("Rounding necessary");
+    }
+
+    // Away from zero
+    return up ? quotient + sign : quotient;
+  }
+
+  private static void checkScale(int scale) {
+    if (scale < 0 || scale > MAX_SCALE) {
+      throw new NumberUtilError("Scale has to be between 0 and "
+          + MAX_SCALE
+          + ", got "
+          + scale);
+    }
+  }
+
+
+  /************************************************************************************
+   * A mutable decimal with a fixed scale, to add up decimals in tight loops without creating an
+   * object for each intermediate result. Values with a larger scale are rounded to the scale of
+   * the accumulator. An accumulator is not thread safe.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  public static final class Accumulator {
+
+    private final int scale;
+    private final RoundingMode mode;
+    private long unscaled = 0;
+
+    /**
+     * Creates an accumulator with the value 0.
+     *
+     * @param scale The scale of the accumulated value
+     * @param mode The rounding mode for values with a larger scale, and for products and
+     *        quotients
+     */
+    public Accumulator(int scale, RoundingMode mode) {
+      checkScale(scale);
+      this.scale = scale;
+      this.mode = mode;
+    }
+
+    /**
+     * Adds the value.
+     *
+     * @param value The value to add
+     * @return This accumulator
+     */
+    public Accumulator add(Decimal value) {
+      return add(value.unscaled, value.scale);
+    }
+
+    /**
+     * Adds the value given by its unscaled value and scale.
+     *
+     * @param value The unscaled value to add
+     * @param valueScale The scale of the value
+     * @return This accumulator
+     */
+    public Accumulator add(long value, int valueScale) {
+      checkScale(valueScale);
+      if (valueScale <= scale) {
+        unscaled = addUnscaled(unscaled, scale, value, valueScale, scale);
+      } else {
+        unscaled = Math.addExact(unscaled, rescale(value, valueScale, scale, mode));
+      }
+      return this;
+    }
+
+    /**
+     * Subtracts the value.
+     *
+     * @param value The value to subtract
+     * @return This accumulator
+     */
+    public Accumulator subtract(Decimal value) {
+      return subtract(value.unscaled, value.scale);
+    }
+
+    /**
+     * Subtracts the value given by its unscaled value and scale.
+     *
+     * @param value The unscaled value to subtract
+     * @param valueScale The scale of the value
+     * @return This accumulator
+     */
+    public Accumulator subtract(long value, int valueScale) {
+      checkScale(valueScale);
+      if (valueScale <= scale) {
+        unscaled = subtractUnscaled(unscaled, scale, value, valueScale, scale);
+      } else {
+        unscaled = Math.subtractExact(unscaled, rescale(value, valueScale, scale, mode));
+      }
+      return this;
+    }
+
+    /**
+     * Adds the product of the two values, rounded to the scale of the accumulator (e.g. price *
+     * quantity).
+     *
+     * @param value1 The first value
+     * @param value2 The second value
+     * @return This accumulator
+     */
+    public Accumulator addProduct(Decimal value1, Decimal value2) {
+      try {
+        unscaled = Math.addExact(unscaled, multiplyUnscaled(value1.unscaled, value1.scale,
+            value2.unscaled, value2.scale, scale, mode));
+      } catch (ArithmeticException e) {
+        // The product alone may not fit, even if the sum does
+        unscaled = BigDecimal.valueOf(unscaled, scale)
+            .add(value1.toBigDecimal().multiply(value2.toBigDecimal()).setScale(scale, mode))
+            .unscaledValue().longValueExact();
+      }
+      return this;
+    }
+
+    /**
+     * Multiplies the accumulated value by the factor.
+     *
+     * @param factor The factor
+     * @return This accumulator
+     */
+    public Accumulator multiply(Decimal factor) {
+      unscaled = multiplyUnscaled(unscaled, scale, factor.unscaled, factor.scale, scale, mode);
+      return this;
+    }
+
+    /**
+     * Divides the accumulated value by the divisor.
+     *
+     * @param divisor The divisor
+     * @return This accumulator
+     */
+    public Accumulator divide(Decimal divisor) {
+      unscaled = divideUnscaled(unscaled, scale, divisor.unscaled, divisor.scale, scale, mode);
+      return this;
+    }
+
+    /**
+     * Sets the accumulated value.
+     *
+     * @param value The new value
+     * @return This accumulator
+     */
+    public Accumulator set(Decimal value) {
+      unscaled = rescale(value.unscaled, value.scale, scale, mode);
+      return this;
+    }
+
+    public void reset() {
+      unscaled = 0;
+    }
+
+    public long getUnscaled() {
+      return unscaled;
+    }
+
+    public int getScale() {
+      return scale;
+    }
+
+    /**
+     * Returns the accumulated value.
+     *
+     * @return The value
+     */
+    public Decimal get() {
+      return new Decimal(unscaled, scale);
+    }
+
+    @Override
+    public String toString() {
+      return get().toString();
+    }
+
+  }
+
+}
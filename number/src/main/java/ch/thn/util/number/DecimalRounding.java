@@ -0,0 +1,190 @@
+package ch.thn.util.number;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Rounds floating point values to a number of decimals, with plain arithmetic instead of
+ * formatting and parsing them.<br />
+ * <br />
+ * The value is scaled by a power of ten. Since the scaled value is rounded itself, the exact
+ * rounding error of the scaling is calculated as well (see {@link MathOps#productError}). This
+ * error decides the cases where the scaled value seems to lie exactly between two integers, or
+ * exactly on an integer. The result is therefore the same as rounding the exact binary value of
+ * the double, which is what {@link java.text.DecimalFormat} and {@link BigDecimal} do.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+final class DecimalRounding {
+
+  /** The highest power of ten which is exactly representable as double. */
+  static final int MAX_EXACT_DECIMALS = 22;
+
+  /** From 2^52 on, doubles do not have a fractional part any more. */
+  private static final double TWO_POW_52 = 0x1p52;
+
+  /** From 2^24 on, floats do not have a fractional part any more. */
+  private static final double TWO_POW_24 = 0x1p24;
+
+  /** The highest power of ten which is exactly representable as float. */
+  private static final int MAX_EXACT_FLOAT_DECIMALS = 10;
+
+  private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_DECIMALS + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private DecimalRounding() {}
+
+  /**
+   * Rounds the value to the given number of decimals.
+   *
+   * @param num The value to round
+   * @param numberOfDecimals The number of decimals, >= 0
+   * @param mode The rounding mode
+   * @return The rounded value. NaN and infinite values are returned unchanged
+   */
+  static double round(double num, int numberOfDecimals, RoundingMode mode) {
+    checkDecimals(numberOfDecimals);
+
+    if (num == 0 || Double.isNaN(num) || Double.isInfinite(num)) {
+      return num;
+    }
+
+    if (Math.abs(num) >= TWO_POW_52) {
+      // No fractional part
+      return num;
+    }
+
+    double scaled = numberOfDecimals > MAX_EXACT_DECIMALS ? Double.NaN
+        : roundScaled(num, numberOfDecimals, mode);
+
+    if (Double.isNaN(scaled)) {
+      return roundExact(num, numberOfDecimals, mode);
+    }
+
+    return Math.copySign(scaled / POWERS_OF_TEN[numberOfDecimals], num);
+  }
+
+  /**
+   * Rounds the value to the given number of decimals.
+   *
+   * @param num The value to round
+   * @param numberOfDecimals The number of decimals, >= 0
+   * @param mode The rounding mode
+   * @return The rounded value. NaN and infinite values are returned unchanged
+   */
+  static float round(float num, int numberOfDecimals, RoundingMode mode) {
+    checkDecimals(numberOfDecimals);
+
+    if (num == 0 || Float.isNaN(num) || Float.isInfinite(num)
+        || numberOfDecimals > MAX_EXACT_FLOAT_DECIMALS) {
+      return (float) round((double) num, numberOfDecimals, mode);
+    }
+
+    double scaled = roundScaled(num, numberOfDecimals, mode);
+
+    if (Double.isNaN(scaled)) {
+      return (float) roundExact(num, numberOfDecimals, mode);
+    }
+
+    if (scaled < TWO_POW_24) {
+      // Both are exact floats, so the float division rounds the exact decimal result correctly
+      return Math.copySign((float) scaled / (float) POWERS_OF_TEN[numberOfDecimals], num);
+    }
+
+    return Math.copySign((float) (scaled / POWERS_OF_TEN[numberOfDecimals]), num);
+  }
+
+  /**
+   * Rounds the absolute value of <code>num * 10^numberOfDecimals</code> to an integer.
+   *
+   * @param num The value to round, not NaN or infinite
+   * @param numberOfDecimals The number of decimals, from 0 to {@link #MAX_EXACT_DECIMALS}
+   * @param mode The rounding mode, applied to the signed value
+   * @return The rounded, scaled absolute value (an integer value), or NaN if the scaled value is
+   *         2^52 or more. Then the scaled value can not be rounded with double arithmetic
+   */
+  static double roundScaled(double num, int numberOfDecimals, RoundingMode mode) {
+    double abs = Math.abs(num);
+    double power = POWERS_OF_TEN[numberOfDecimals];
+    double scaled = abs * power;
+
+    if (scaled >= TWO_POW_52) {
+      return Double.NaN;
+    }
+
+    // The exact scaled value is scaled + error
+    double error = MathOps.productError(abs, power, scaled);
+    double floor = Math.floor(scaled);
+    boolean exact = scaled == floor && error == 0;
+
+    if (scaled == floor && error < 0) {
+      // The exact value is slightly below the integer
+      floor -= 1;
+    }
+
+    // Compare the exact value with floor + 0.5. The difference to scaled is exact, and if it is
+    // not zero it is at least one ulp of scaled, which is more than the error can be.
+    double difference = scaled - (floor + 0.5);
+    int half = difference != 0 ? (difference > 0 ? 1 : -1) : (error > 0 ? 1 : error < 0 ? -1 : 0);
+
+    switch (mode) {
+      case UP:
+        return exact ? floor : floor + 1;
+      case DOWN:
+        return floor;
+      case CEILING:
+        return num < 0 || exact ? floor : floor + 1;
+      case FLOOR:
+        return num > 0 || exact ? floor : floor + 1;
+      case HALF_UP:
+        return half >= 0 ? floor + 1 : floor;
+      case HALF_DOWN:
+        return half > 0 ? floor + 1 : floor;
+      case HALF_EVEN:
+        if (half == 0) {
+          return floor % 2 == 0 ? floor : floor + 1;
+        }
+        return half > 0 ? floor + 1 : floor;
+      case UNNECESSARY:
+        if (!exact) {
+          throw new ArithmeticException("Rounding necessary for "
+              + num
+              + " with "
+              + numberOfDecimals
+              + " decimals");
+        }
+        return floor;
+      default:
+        throw new NumberUtilError("Unknown rounding mode "
+            + mode);
+    }
+  }
+
+  /**
+   * Rounds the value with {@link BigDecimal}, for the values which are too large for the
+   * arithmetic rounding.
+   *
+   * @param num The value to round
+   * @param numberOfDecimals The number of decimals
+   * @param mode The rounding mode
+   * @return The rounded value
+   */
+  private static double roundExact(double num, int numberOfDecimals, RoundingMode mode) {
+    return Math.copySign(new BigDecimal(num).setScale(numberOfDecimals, mode).doubleValue(), num);
+  }
+
+  private static void checkDecimals(int numberOfDecimals) {
+    if (numberOfDecimals < 0) {
+      throw new NumberUtilError("Maximum number of decimals has to be >= 0");
+    }
+  }
+
+}
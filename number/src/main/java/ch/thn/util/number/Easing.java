@@ -0,0 +1,98 @@
+package ch.thn.util.number;
+
+/**
+ * Easing functions, which map the progress of a transition (from 0 to 1) to the eased progress
+ * (also from 0 to 1). <code>IN</code> functions start slowly, <code>OUT</code> functions end
+ * slowly and <code>IN_OUT</code> functions do both.
+ *
+ * @see ValueGradient
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ */
+public enum Easing {
+
+  LINEAR {
+    @Override
+    public double apply(double t) {
+      return t;
+    }
+  },
+
+  QUAD_IN {
+    @Override
+    public double apply(double t) {
+      return t * t;
+    }
+  },
+
+  QUAD_OUT {
+    @Override
+    public double apply(double t) {
+      return t * (2 - t);
+    }
+  },
+
+  QUAD_IN_OUT {
+    @Override
+    public double apply(double t) {
+      return t < 0.5 ? 2 * t * t : -1 + (4 - 2 * t) * t;
+    }
+  },
+
+  CUBIC_IN {
+    @Override
+    public double apply(double t) {
+      return t * t * t;
+    }
+  },
+
+  CUBIC_OUT {
+    @Override
+    public double apply(double t) {
+      double u = t - 1;
+      return u * u * u + 1;
+    }
+  },
+
+  CUBIC_IN_OUT {
+    @Override
+    public double apply(double t) {
+      if (t < 0.5) {
+        return 4 * t * t * t;
+      }
+      double u = 2 * t - 2;
+      return u * u * u / 2 + 1;
+    }
+  },
+
+  SINE_IN {
+    @Override
+    public double apply(double t) {
+      return 1 - Math.cos(t * Math.PI / 2);
+    }
+  },
+
+  SINE_OUT {
+    @Override
+    public double apply(double t) {
+      return Math.sin(t * Math.PI / 2);
+    }
+  },
+
+  SINE_IN_OUT {
+    @Override
+    public double apply(double t) {
+      return (1 - Math.cos(t * Math.PI)) / 2;
+    }
+  };
+
+
+  /**
+   * Applies the easing function.
+   *
+   * @param t The progress, from 0 to 1
+   * @return The eased progress, 0 for 0 and 1 for 1
+   */
+  public abstract double apply(double t);
+
+}
@@ -0,0 +1,79 @@
+package ch.thn.util.number;
+
+/**
+ * Low level arithmetic helpers which have faster implementations in newer Java versions.<br />
+ * <br />
+ * This is the Java 8 version. The multi-release jar contains a Java 21 version of this class (in
+ * <code>src/main/java21</code>) which uses the intrinsics of {@link Math} instead.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+final class MathOps {
+
+  /** 2^27 + 1, splits a double into two halves with at most 26 significant bits each. */
+  private static final double SPLITTER = 134217729.0;
+
+  private MathOps() {}
+
+  /**
+   * Returns the upper 64 bits of the signed 128 bit product of the two values.
+   *
+   * @param x The first value
+   * @param y The second value
+   * @return The upper 64 bits of the product
+   */
+  static long multiplyHigh(long x, long y) {
+    long x1 = x >> 32;
+    long x2 = x & 0xFFFFFFFFL;
+    long y1 = y >> 32;
+    long y2 = y & 0xFFFFFFFFL;
+
+    long z2 = x2 * y2;
+    long t = x1 * y2 + (z2 >>> 32);
+    long z1 = t & 0xFFFFFFFFL;
+    long z0 = t >> 32;
+    z1 += x2 * y1;
+
+    return x1 * y1 + z0 + (z1 >> 32);
+  }
+
+  /**
+   * Returns the upper 64 bits of the unsigned 128 bit product of the two values.
+   *
+   * @param x The first value, interpreted as unsigned
+   * @param y The second value, interpreted as unsigned
+   * @return The upper 64 bits of the product
+   */
+  static long unsignedMultiplyHigh(long x, long y) {
+    return multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+  }
+
+  /**
+   * Returns the rounding error of a floating point multiplication, which is
+   * <code>a * b - product</code> calculated exactly (with <code>product</code> being the rounded
+   * result of <code>a * b</code>). Together with the product, this represents the exact product of
+   * two doubles.<br />
+   * <br />
+   * This version splits the factors into halves (Dekker's algorithm). The result is exact as long
+   * as the factors are not close to the overflow or underflow limits.
+   *
+   * @param a The first factor
+   * @param b The second factor
+   * @param product The rounded product <code>a * b</code>
+   * @return The exact error of the product
+   */
+  static double productError(double a, double b, double product) {
+    double c = SPLITTER * a;
+    double highA = c - (c - a);
+    double lowA = a - highA;
+
+    c = SPLITTER * b;
+    double highB = c - (c - b);
+    double lowB = b - highB;
+
+    return ((highA * highB - product) + highA * lowB + lowA * highB) + lowA * lowB;
+  }
+
+}
@@ -0,0 +1,221 @@
+package ch.thn.util.number;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A sum of numbers which is updated concurrently by many threads, without locks and with little
+ * contention (the values are added to striped cells like {@link LongAdder} does).<br />
+ * <br />
+ * The type of the sum follows the same rules as {@link NumberUtil#add(Number, Number)}: it is the
+ * type with the highest "precision" of all the added numbers (int -> long -> float -> double), and
+ * it widens as soon as a number of a wider type is added. An empty adder has the type
+ * <code>Integer</code>. The type never narrows again, except with {@link #reset()}.<br />
+ * <br />
+ * Integer numbers are summed as <code>long</code> values and floating point numbers as
+ * <code>double</code> values, the two parts are combined when the sum is read. A floating point
+ * sum may therefore differ in the last bits from adding the same numbers one by one. Like
+ * {@link LongAdder#sum()}, the sum is not an atomic snapshot if the adder is updated at the same
+ * time.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ */
+public final class NumberAdder extends Number {
+  private static final long serialVersionUID = -4416281807364938264L;
+
+  private static final int INTEGER = 0;
+  private static final int LONG = 1;
+  private static final int FLOAT = 2;
+  private static final int DOUBLE = 3;
+
+  private static final AtomicIntegerFieldUpdater<NumberAdder> TYPE =
+      AtomicIntegerFieldUpdater.newUpdater(NumberAdder.class, "type");
+
+  private final LongAdder longs = new LongAdder();
+  private final DoubleAdder doubles = new DoubleAdder();
+  private volatile int type = INTEGER;
+
+
+  /**
+   * Adds an <code>int</code> value.
+   *
+   * @param value The value
+   */
+  public void add(int value) {
+    longs.add(value);
+  }
+
+  /**
+   * Adds a <code>long</code> value. The sum is at least of type <code>Long</code> afterwards.
+   *
+   * @param value The value
+   */
+  public void add(long value) {
+    widen(LONG);
+    longs.add(value);
+  }
+
+  /**
+   * Adds a <code>float</code> value. The sum is at least of type <code>Float</code> afterwards.
+   *
+   * @param value The value
+   */
+  public void add(float value) {
+    widen(FLOAT);
+    doubles.add(value);
+  }
+
+  /**
+   * Adds a <code>double</code> value. The sum is of type <code>Double</code> afterwards.
+   *
+   * @param value The value
+   */
+  public void add(double value) {
+    widen(DOUBLE);
+    doubles.add(value);
+  }
+
+  /**
+   * Adds a number of any type which is supported by {@link NumberUtil#add(Number, Number)}, except
+   * {@link Decimal}, <code>BigInteger</code> and <code>BigDecimal</code>. Their sums can not be
+   * kept in the <code>long</code> and <code>double</code> cells without losing precision.
+   * <code>Decimal</code> values can be summed with a {@link Decimal.Accumulator} per thread
+   * instead.
+   *
+   * @param num The number to add
+   * @throws NumberUtilError If the number is a <code>Decimal</code>, <code>BigInteger</code> or
+   *         <code>BigDecimal</code>
+   */
+  public void add(Number num) {
+    NumberOps<?> ops = NumberUtil.ops(num.getClass());
+
+    if (ops == NumberOps.INTEGER) {
+      add(num.intValue());
+    } else if (ops == NumberOps.LONG) {
+      add(num.longValue());
+    } else if (ops == NumberOps.FLOAT) {
+      add(num.floatValue());
+    } else if (ops == NumberOps.DOUBLE) {
+      add(num.doubleValue());
+    } else {
+      throw new NumberUtilError("Can not add "
+          + num.getClass().getSimpleName()
+          + " values");
+    }
+  }
+
+  /**
+   * Adds 1.
+   *
+   */
+  public void increment() {
+    longs.increment();
+  }
+
+  /**
+   * Returns the sum, as an instance of the type of the sum.
+   *
+   * @return The sum
+   */
+  public Number sum() {
+    // The cells are read before the type: a value is added to a cell after its type has been
+    // widened, so the type which is read afterwards includes the types of all the values read
+    long longSum = longs.sum();
+    double doubleSum = doubles.sum();
+    return toType(type, longSum, doubleSum);
+  }
+
+  /**
+   * Returns the sum and resets it to zero, e.g. to report the sum of each period. The type of the
+   * sum is kept. Like {@link LongAdder#sumThenReset()}, this is only an atomic snapshot if the
+   * adder is not updated at the same time. Concurrent updates are counted either in this sum or
+   * in the next one.
+   *
+   * @return The sum
+   */
+  public Number sumThenReset() {
+    // The cells are read before the type, see sum()
+    long longSum = longs.sumThenReset();
+    double doubleSum = doubles.sumThenReset();
+    return toType(type, longSum, doubleSum);
+  }
+
+  /**
+   * Resets the sum to zero and its type to <code>Integer</code>. This should only be used when
+   * there are no concurrent updates.
+   *
+   */
+  public void reset() {
+    longs.reset();
+    doubles.reset();
+    type = INTEGER;
+  }
+
+  /**
+   * Returns the type of the sum.
+   *
+   * @return The type, <code>Integer.class</code>, <code>Long.class</code>,
+   *         <code>Float.class</code> or <code>Double.class</code>
+   */
+  public Class<? extends Number> getType() {
+    switch (type) {
+      case INTEGER:
+        return Integer.class;
+      case LONG:
+        return Long.class;
+      case FLOAT:
+        return Float.class;
+      default:
+        return Double.class;
+    }
+  }
+
+  private void widen(int newType) {
+    // Only the first number of a wider type has to update the type
+    int currentType = type;
+    while (currentType < newType && !TYPE.compareAndSet(this, currentType, newType)) {
+      currentType = type;
+    }
+  }
+
+  private static Number toType(int type, long longSum, double doubleSum) {
+    switch (type) {
+      case INTEGER:
+        return (int) longSum;
+      case LONG:
+        return longSum;
+      case FLOAT:
+        return (float) (longSum + doubleSum);
+      default:
+        return longSum + doubleSum;
+    }
+  }
+
+  @Override
+  public int intValue() {
+    return sum().intValue();
+  }
+
+  @Override
+  public long longValue() {
+    return sum().longValue();
+  }
+
+  @Override
+  public float floatValue() {
+    return sum().floatValue();
+  }
+
+  @Override
+  public double doubleValue() {
+    return sum().doubleValue();
+  }
+
+  @Override
+  public String toString() {
+    return sum().toString();
+  }
+
+}
@@ -0,0 +1,928 @@
+package ch.thn.util.number;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Operations on whole arrays of numbers: element-wise arithmetic, reductions (sum, min, max,
+ * mean, dot product) and prefix sums.<br />
+ * <br />
+ * The operations on <code>Number[]</code> arrays follow the same type rules as
+ * {@link NumberUtil#add(Number, Number)} etc. (short -> int -> long -> float -> double). Sums of
+ * <code>int[]</code> arrays are calculated as <code>long</code> values, so that they do not
+ * overflow.<br />
+ * <br />
+ * Arrays with at least {@link #getParallelThreshold()} elements are split up and processed in
+ * parallel on the common fork-join pool. Parallel sums of floating point values may differ in the
+ * last bits from sequential sums, since the values are added in a different order.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ */
+public class NumberArrayUtil {
+
+  /** The default array length from which on the operations run in parallel. */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+
+  private static volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+
+  /**
+   * Returns the array length from which on the operations are run in parallel.
+   *
+   * @return The parallel threshold
+   */
+  public static int getParallelThreshold() {
+    return parallelThreshold;
+  }
+
+  /**
+   * Sets the array length from which on the operations are run in parallel. Set it to
+   * {@link Integer#MAX_VALUE} to never run in parallel.
+   *
+   * @param threshold The parallel threshold, has to be > 0
+   */
+  public static void setParallelThreshold(int threshold) {
+    if (threshold <= 0) {
+      throw new NumberUtilError("Parallel threshold has to be > 0");
+    }
+
+    parallelThreshold = threshold;
+  }
+
+  /**
+   * Adds a[i] + b[i] for all elements.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return A new array with the results
+   */
+  public static int[] add(int[] a, int[] b) {
+    int[] result = new int[checkLength(a.length, b.length)];
+
+    if (isParallel(result.length)) {
+      Arrays.parallelSetAll(result, i -> a[i] + b[i]);
+    } else {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = a[i] + b[i];
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Adds a[i] + b[i] for all elements.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return A new array with the results
+   */
+  public static long[] add(long[] a, long[] b) {
+    long[] result = new long[checkLength(a.length, b.length)];
+
+    if (isParallel(result.length)) {
+      Arrays.parallelSetAll(result, i -> a[i] + b[i]);
+    } else {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = a[i] + b[i];
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Adds a[i] + b[i] for all elements.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return A new array with the results
+   */
+  public static double[] add(double[] a, double[] b) {
+    double[] result = new double[checkLength(a.length, b.length)];
+
+    if (isParallel(result.length)) {
+      Arrays.parallelSetAll(result, i -> a[i] + b[i]);
+    } else {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = a[i] + b[i];
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Adds a[i] + b[i] for all elements, see {@link NumberUtil#add(Number, Number)}.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return A new array with the results
+   */
+  public static Number[] add(Number[] a, Number[] b) {
+    Number[] result = new Number[checkLength(a.length, b.length)];
+
+    if (isParallel(result.length)) {
+      Arrays.parallelSetAll(result, i -> NumberUtil.add(a[i], b[i]));
+    } else {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = NumberUtil.add(a[i], b[i]);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Subtracts a[i] - b[i] for all elements.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return A new array with the results
+   */
+  public static int[] subtract(int[] a, int[] b) {
+    int[] result = new int[checkLength(a.length, b.length)];
+
+    if (isParallel(result.length)) {
+      Arrays.parallelSetAll(result, i -> a[i] - b[i]);
+    } else {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = a[i] - b[i];
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Subtracts a[i] - b[i] for all elements.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return A new array with the results
+   */
+  public static long[] subtract(long[] a, long[] b) {
+    long[] result = new long[checkLength(a.length, b.length)];
+
+    if (isParallel(result.length)) {
+      Arrays.parallelSetAll(result, i -> a[i] - b[i]);
+    } else {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = a[i] - b[i];
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Subtracts a[i] - b[i] for all elements.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return A new array with the results
+   */
+  public static double[] subtract(double[] a, double[] b) {
+    double[] result = new double[checkLength(a.length, b.length)];
+
+    if (isParallel(result.length)) {
+      Arrays.parallelSetAll(result, i -> a[i] - b[i]);
+    } else {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = a[i] - b[i];
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Subtracts a[i] - b[i] for all elements, see {@link NumberUtil#subtract(Number, Number)}.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return A new array with the results
+   */
+  public static Number[] subtract(Number[] a, Number[] b) {
+    Number[] result = new Number[checkLength(a.length, b.length)];
+
+    if (isParallel(result.length)) {
+      Arrays.parallelSetAll(result, i -> NumberUtil.subtract(a[i], b[i]));
+    } else {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = NumberUtil.subtract(a[i], b[i]);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Multiplies a[i] * b[i] for all elements.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return A new array with the results
+   */
+  public static int[] multiply(int[] a, int[] b) {
+    int[] result = new int[checkLength(a.length, b.length)];
+
+    if (isParallel(result.length)) {
+      Arrays.parallelSetAll(result, i -> a[i] * b[i]);
+    } else {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = a[i] * b[i];
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Multiplies a[i] * b[i] for all elements.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return A new array with the results
+   */
+  public static long[] multiply(long[] a, long[] b) {
+    long[] result = new long[checkLength(a.length, b.length)];
+
+    if (isParallel(result.length)) {
+      Arrays.parallelSetAll(result, i -> a[i] * b[i]);
+    } else {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = a[i] * b[i];
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Multiplies a[i] * b[i] for all elements.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return A new array with the results
+   */
+  public static double[] multiply(double[] a, double[] b) {
+    double[] result = new double[checkLength(a.length, b.length)];
+
+    if (isParallel(result.length)) {
+      Arrays.parallelSetAll(result, i -> a[i] * b[i]);
+    } else {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = a[i] * b[i];
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Multiplies a[i] * b[i] for all elements, see {@link NumberUtil#multiply(Number, Number)}.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return A new array with the results
+   */
+  public static Number[] multiply(Number[] a, Number[] b) {
+    Number[] result = new Number[checkLength(a.length, b.length)];
+
+    if (isParallel(result.length)) {
+      Arrays.parallelSetAll(result, i -> NumberUtil.multiply(a[i], b[i]));
+    } else {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = NumberUtil.multiply(a[i], b[i]);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Divides a[i] / b[i] for all elements.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return A new array with the results
+   */
+  public static int[] divide(int[] a, int[] b) {
+    int[] result = new int[checkLength(a.length, b.length)];
+
+    if (isParallel(result.length)) {
+      Arrays.parallelSetAll(result, i -> a[i] / b[i]);
+    } else {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = a[i] / b[i];
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Divides a[i] / b[i] for all elements.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return A new array with the results
+   */
+  public static long[] divide(long[] a, long[] b) {
+    long[] result = new long[checkLength(a.length, b.length)];
+
+    if (isParallel(result.length)) {
+      Arrays.parallelSetAll(result, i -> a[i] / b[i]);
+    } else {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = a[i] / b[i];
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Divides a[i] / b[i] for all elements.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return A new array with the results
+   */
+  public static double[] divide(double[] a, double[] b) {
+    double[] result = new double[checkLength(a.length, b.length)];
+
+    if (isParallel(result.length)) {
+      Arrays.parallelSetAll(result, i -> a[i] / b[i]);
+    } else {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = a[i] / b[i];
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Divides a[i] / b[i] for all elements, see {@link NumberUtil#divide(Number, Number)}.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return A new array with the results
+   */
+  public static Number[] divide(Number[] a, Number[] b) {
+    Number[] result = new Number[checkLength(a.length, b.length)];
+
+    if (isParallel(result.length)) {
+      Arrays.parallelSetAll(result, i -> NumberUtil.divide(a[i], b[i]));
+    } else {
+      for (int i = 0; i < result.length; i++) {
+        result[i] = NumberUtil.divide(a[i], b[i]);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Calculates the sum of all values, as <code>long</code> so that it does not overflow.
+   *
+   * @param values The values
+   * @return The sum
+   */
+  public static long sum(int[] values) {
+    if (isParallel(values.length)) {
+      return Arrays.stream(values).parallel().asLongStream().sum();
+    }
+
+    long sum = 0;
+    for (int value : values) {
+      sum += value;
+    }
+    return sum;
+  }
+
+  /**
+   * Calculates the sum of all values.
+   *
+   * @param values The values
+   * @return The sum
+   */
+  public static long sum(long[] values) {
+    if (isParallel(values.length)) {
+      return Arrays.stream(values).parallel().sum();
+    }
+
+    long sum = 0;
+    for (long value : values) {
+      sum += value;
+    }
+    return sum;
+  }
+
+  /**
+   * Calculates the sum of all values.
+   *
+   * @param values The values
+   * @return The sum
+   */
+  public static double sum(double[] values) {
+    if (isParallel(values.length)) {
+      return Arrays.stream(values).parallel().sum();
+    }
+
+    double sum = 0;
+    for (double value : values) {
+      sum += value;
+    }
+    return sum;
+  }
+
+  /**
+   * Calculates the sum of all values. The type of the sum is the type with the highest "precision"
+   * of all the values (short -> int -> long -> float -> double). The types are looked up once and
+   * the values are then added as primitive values.
+   *
+   * @param values The values
+   * @return The sum. <code>0</code> (an Integer) for an empty array
+   */
+  public static Number sum(Number[] values) {
+    NumberOps<?> ops = ops(values);
+
+    if (ops == NumberOps.INTEGER) {
+      int sum = 0;
+      for (Number value : values) {
+        sum += value.intValue();
+      }
+      return sum;
+    } else if (ops == NumberOps.LONG) {
+      if (isParallel(values.length)) {
+        return Arrays.stream(values).parallel().mapToLong(Number::longValue).sum();
+      }
+
+      long sum = 0;
+      for (Number value : values) {
+        sum += value.longValue();
+      }
+      return sum;
+    } else if (ops == NumberOps.FLOAT) {
+      float sum = 0;
+      for (Number value : values) {
+        sum += value.floatValue();
+      }
+      return sum;
+    } else if (ops == NumberOps.DOUBLE) {
+      if (isParallel(values.length)) {
+        return Arrays.stream(values).parallel().mapToDouble(Number::doubleValue).sum();
+      }
+
+      double sum = 0;
+      for (Number value : values) {
+        sum += value.doubleValue();
+      }
+      return sum;
+    } else {
+      Number sum = ops.valueOf(0);
+      for (Number value : values) {
+        sum = ops.add(sum, value);
+      }
+      return sum;
+    }
+  }
+
+  /**
+   * Calculates the exact sum of all values, like {@link NumberUtil#addExact(Number, Number)} does.
+   * Integer values are added as <code>long</code> values and only widened to a {@link BigInteger}
+   * once the sum overflows.
+   *
+   * @param values The values
+   * @return The sum. <code>0</code> (an Integer) for an empty array
+   */
+  public static Number sumExact(Number[] values) {
+    NumberOps<?> ops = ops(values);
+
+    if (ops == NumberOps.INTEGER || ops == NumberOps.LONG) {
+      long sum = 0;
+      for (int i = 0; i < values.length; i++) {
+        long value = values[i].longValue();
+        long result = sum + value;
+
+        if (((sum ^ result) & (value ^ result)) < 0) {
+          // Overflow, continue with the remaining values as BigInteger
+          BigInteger bigSum = BigInteger.valueOf(sum);
+          for (int j = i; j < values.length; j++) {
+            bigSum = bigSum.add(BigInteger.valueOf(values[j].longValue()));
+          }
+          return bigSum;
+        }
+
+        sum = result;
+      }
+
+      if (ops == NumberOps.INTEGER && sum == (int) sum) {
+        return (int) sum;
+      }
+      return sum;
+    }
+
+    Number sum = ops.valueOf(0);
+    for (Number value : values) {
+      sum = NumberUtil.addExact(sum, value);
+    }
+    return sum;
+  }
+
+  /**
+   * Returns the smallest value.
+   *
+   * @param values The values, at least one
+   * @return The smallest value
+   */
+  public static int min(int[] values) {
+    checkNotEmpty(values.length);
+
+    if (isParallel(values.length)) {
+      return Arrays.stream(values).parallel().min().getAsInt();
+    }
+
+    int min = values[0];
+    for (int value : values) {
+      min = Math.min(min, value);
+    }
+    return min;
+  }
+
+  /**
+   * Returns the smallest value.
+   *
+   * @param values The values, at least one
+   * @return The smallest value
+   */
+  public static long min(long[] values) {
+    checkNotEmpty(values.length);
+
+    if (isParallel(values.length)) {
+      return Arrays.stream(values).parallel().min().getAsLong();
+    }
+
+    long min = values[0];
+    for (long value : values) {
+      min = Math.min(min, value);
+    }
+    return min;
+  }
+
+  /**
+   * Returns the smallest value. If any of the values is NaN, the result is NaN.
+   *
+   * @param values The values, at least one
+   * @return The smallest value
+   */
+  public static double min(double[] values) {
+    checkNotEmpty(values.length);
+
+    if (isParallel(values.length)) {
+      return Arrays.stream(values).parallel().min().getAsDouble();
+    }
+
+    double min = values[0];
+    for (double value : values) {
+      min = Math.min(min, value);
+    }
+    return min;
+  }
+
+  /**
+   * Returns the smallest value, compared with {@link NumberUtil#lt(Number, Number)}. If multiple
+   * values are equally small, the first one is returned.
+   *
+   * @param values The values, at least one
+   * @return The smallest value
+   */
+  public static Number min(Number[] values) {
+    checkNotEmpty(values.length);
+
+    Number min = values[0];
+    for (Number value : values) {
+      if (NumberUtil.lt(value, min)) {
+        min = value;
+      }
+    }
+    return min;
+  }
+
+  /**
+   * Returns the largest value.
+   *
+   * @param values The values, at least one
+   * @return The largest value
+   */
+  public static int max(int[] values) {
+    checkNotEmpty(values.length);
+
+    if (isParallel(values.length)) {
+      return Arrays.stream(values).parallel().max().getAsInt();
+    }
+
+    int max = values[0];
+    for (int value : values) {
+      max = Math.max(max, value);
+    }
+    return max;
+  }
+
+  /**
+   * Returns the largest value.
+   *
+   * @param values The values, at least one
+   * @return The largest value
+   */
+  public static long max(long[] values) {
+    checkNotEmpty(values.length);
+
+    if (isParallel(values.length)) {
+      return Arrays.stream(values).parallel().max().getAsLong();
+    }
+
+    long max = values[0];
+    for (long value : values) {
+      max = Math.max(max, value);
+    }
+    return max;
+  }
+
+  /**
+   * Returns the largest value. If any of the values is NaN, the result is NaN.
+   *
+   * @param values The values, at least one
+   * @return The largest value
+   */
+  public static double max(double[] values) {
+    checkNotEmpty(values.length);
+
+    if (isParallel(values.length)) {
+      return Arrays.stream(values).parallel().max().getAsDouble();
+    }
+
+    double max = values[0];
+    for (double value : values) {
+      max = Math.max(max, value);
+    }
+    return max;
+  }
+
+  /**
+   * Returns the largest value, compared with {@link NumberUtil#gt(Number, Number)}. If multiple
+   * values are equally large, the first one is returned.
+   *
+   * @param values The values, at least one
+   * @return The largest value
+   */
+  public static Number max(Number[] values) {
+    checkNotEmpty(values.length);
+
+    Number max = values[0];
+    for (Number value : values) {
+      if (NumberUtil.gt(value, max)) {
+        max = value;
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Calculates the arithmetic mean of all values.
+   *
+   * @param values The values, at least one
+   * @return The mean
+   */
+  public static double mean(int[] values) {
+    checkNotEmpty(values.length);
+    return (double) sum(values) / values.length;
+  }
+
+  /**
+   * Calculates the arithmetic mean of all values.
+   *
+   * @param values The values, at least one
+   * @return The mean
+   */
+  public static double mean(long[] values) {
+    checkNotEmpty(values.length);
+
+    if (isParallel(values.length)) {
+      return Arrays.stream(values).parallel().asDoubleStream().sum() / values.length;
+    }
+
+    double sum = 0;
+    for (long value : values) {
+      sum += value;
+    }
+    return sum / values.length;
+  }
+
+  /**
+   * Calculates the arithmetic mean of all values.
+   *
+   * @param values The values, at least one
+   * @return The mean
+   */
+  public static double mean(double[] values) {
+    checkNotEmpty(values.length);
+    return sum(values) / values.length;
+  }
+
+  /**
+   * Calculates the arithmetic mean of all values, as <code>double</code>.
+   *
+   * @param values The values, at least one
+   * @return The mean
+   */
+  public static double mean(Number[] values) {
+    checkNotEmpty(values.length);
+
+    if (isParallel(values.length)) {
+      return Arrays.stream(values).parallel().mapToDouble(Number::doubleValue).sum()
+          / values.length;
+    }
+
+    double sum = 0;
+    for (Number value : values) {
+      sum += value.doubleValue();
+    }
+    return sum / values.length;
+  }
+
+  /**
+   * Calculates the dot product (the sum of a[i] * b[i]), as <code>long</code>.
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return The dot product
+   */
+  public static long dot(int[] a, int[] b) {
+    int length = checkLength(a.length, b.length);
+
+    if (isParallel(length)) {
+      return IntStream.range(0, length).parallel().mapToLong(i -> (long) a[i] * b[i]).sum();
+    }
+
+    long sum = 0;
+    for (int i = 0; i < length; i++) {
+      sum += (long) a[i] * b[i];
+    }
+    return sum;
+  }
+
+  /**
+   * Calculates the dot product (the sum of a[i] * b[i]).
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return The dot product
+   */
+  public static long dot(long[] a, long[] b) {
+    int length = checkLength(a.length, b.length);
+
+    if (isParallel(length)) {
+      return IntStream.range(0, length).parallel().mapToLong(i -> a[i] * b[i]).sum();
+    }
+
+    long sum = 0;
+    for (int i = 0; i < length; i++) {
+      sum += a[i] * b[i];
+    }
+    return sum;
+  }
+
+  /**
+   * Calculates the dot product (the sum of a[i] * b[i]).
+   *
+   * @param a The first array
+   * @param b The second array, with the same length as the first array
+   * @return The dot product
+   */
+  public static double dot(double[] a, double[] b) {
+    int length = checkLength(a.length, b.length);
+
+    if (isParallel(length)) {
+      return IntStream.range(0, length).parallel().mapToDouble(i -> a[i] * b[i]).sum();
+    }
+
+    double sum = 0;
+    for (int i = 0; i < length; i++) {
+      sum += a[i] * b[i];
+    }
+    return sum;
+  }
+
+  /**
+   * Calculates the prefix sums (running totals): result[i] = values[0] + ... + values[i]. The
+   * sums are <code>long</code> values so that they do not overflow.
+   *
+   * @param values The values
+   * @return A new array with the prefix sums
+   */
+  public static long[] prefixSum(int[] values) {
+    long[] result = new long[values.length];
+
+    for (int i = 0; i < values.length; i++) {
+      result[i] = values[i];
+    }
+
+    prefixSumInPlace(result);
+    return result;
+  }
+
+  /**
+   * Calculates the prefix sums (running totals): result[i] = values[0] + ... + values[i].
+   *
+   * @param values The values
+   * @return A new array with the prefix sums
+   */
+  public static long[] prefixSum(long[] values) {
+    long[] result = values.clone();
+    prefixSumInPlace(result);
+    return result;
+  }
+
+  /**
+   * Calculates the prefix sums (running totals): result[i] = values[0] + ... + values[i].
+   *
+   * @param values The values
+   * @return A new array with the prefix sums
+   */
+  public static double[] prefixSum(double[] values) {
+    double[] result = values.clone();
+
+    if (isParallel(result.length)) {
+      Arrays.parallelPrefix(result, Double::sum);
+    } else {
+      for (int i = 1; i < result.length; i++) {
+        result[i] += result[i - 1];
+      }
+    }
+
+    return result;
+  }
+
+  private static void prefixSumInPlace(long[] values) {
+    if (isParallel(values.length)) {
+      Arrays.parallelPrefix(values, Long::sum);
+    } else {
+      for (int i = 1; i < values.length; i++) {
+        values[i] += values[i - 1];
+      }
+    }
+  }
+
+  /**
+   * Resolves the operations for the type with the highest "precision" of all values.
+   *
+   * @param values The values
+   * @return The operations
+   */
+  private static NumberOps<?> ops(Number[] values) {
+    if (values.length == 0) {
+      return NumberOps.INTEGER;
+    }
+
+    NumberOps<?> ops = NumberUtil.ops(values[0].getClass());
+    Class<?> lastClass = values[0].getClass();
+
+    for (Number value : values) {
+      // Only look up the type again if it changes, columns usually have only one type
+      if (value.getClass() != lastClass) {
+        lastClass = value.getClass();
+        ops = NumberUtil.ops(ops.getType(), value.getClass());
+      }
+    }
+
+    return ops;
+  }
+
+  private static boolean isParallel(int length) {
+    return length >= parallelThreshold;
+  }
+
+  private static int checkLength(int length1, int length2) {
+    if (length1 != length2) {
+      throw new NumberUtilError("Array lengths differ: "
+          + length1
+          + " and "
+          + length2);
+    }
+
+    return length1;
+  }
+
+  private static void checkNotEmpty(int length) {
+    if (length == 0) {
+      throw new NumberUtilError("At least one value is needed");
+    }
+  }
+
+}
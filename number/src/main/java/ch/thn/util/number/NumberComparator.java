@@ -0,0 +1,169 @@
+package ch.thn.util.number;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A total order of numbers of any type which is supported by {@link NumberUtil}, also of numbers
+ * with different types. The numbers are compared by their exact values:<br />
+ * - <code>long</code> values beyond 2^53 are compared exactly with <code>double</code> values
+ * (unlike a comparison of the two values as <code>double</code>)<br />
+ * - -0.0 is smaller than 0.0 (and smaller than an integer 0, which is equal to 0.0)<br />
+ * - NaN is larger than any other number, including positive infinity, and equal to itself<br />
+ * This is the same order as {@link Double#compare(double, double)} for floating point values and
+ * {@link Long#compare(long, long)} for integer values. Numbers with the same value but a different
+ * type (e.g. 1 and 1.0) are equal.<br />
+ * <br />
+ * The common types are resolved with a few <code>instanceof</code> checks and compared as
+ * primitive values. Only {@link Decimal}, {@link BigInteger} and {@link BigDecimal} values
+ * combined with other types are compared as {@link BigDecimal}. To sort many numbers,
+ * {@link NumberSort} is faster.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ */
+public final class NumberComparator implements Comparator<Number>, Serializable {
+  private static final long serialVersionUID = 6139281716264526307L;
+
+  /** The comparator. */
+  public static final NumberComparator INSTANCE = new NumberComparator();
+
+  // The kinds of numbers
+  static final int INTEGRAL = 0;
+  static final int FLOATING = 1;
+  static final int DECIMAL = 2;
+  static final int BIG = 3;
+
+  private static final double TWO_POW_63 = 0x1p63;
+
+
+  private NumberComparator() {}
+
+  @Override
+  public int compare(Number num1, Number num2) {
+    int kind1 = kind(num1);
+    int kind2 = kind(num2);
+
+    if (kind1 == INTEGRAL) {
+      if (kind2 == INTEGRAL) {
+        return Long.compare(num1.longValue(), num2.longValue());
+      } else if (kind2 == FLOATING) {
+        return compare(num1.longValue(), num2.doubleValue());
+      }
+    } else if (kind1 == FLOATING) {
+      if (kind2 == FLOATING) {
+        return Double.compare(num1.doubleValue(), num2.doubleValue());
+      } else if (kind2 == INTEGRAL) {
+        return -compare(num2.longValue(), num1.doubleValue());
+      }
+    }
+
+    return compareExact(num1, kind1, num2, kind2);
+  }
+
+  /**
+   * Compares a <code>long</code> value with a <code>double</code> value exactly.
+   *
+   * @param value1 The first value
+   * @param value2 The second value
+   * @return The comparison result
+   */
+  static int compare(long value1, double value2) {
+    if (Double.isNaN(value2) || value2 >= TWO_POW_63) {
+      return -1;
+    } else if (value2 < -TWO_POW_63) {
+      return 1;
+    }
+
+    // The integer part of the double, which is exact within the long range
+    long integer = (long) value2;
+    if (value1 != integer) {
+      return Long.compare(value1, integer);
+    }
+
+    // Doubles beyond 2^52 have no fraction, so the subtraction is exact
+    double fraction = value2 - integer;
+    if (fraction > 0) {
+      return -1;
+    } else if (fraction < 0) {
+      return 1;
+    }
+
+    return isNegativeZero(value2) ? 1 : 0;
+  }
+
+  /**
+   * Compares two numbers of which at least one is not a primitive type.
+   *
+   * @param num1 The first number
+   * @param kind1 The kind of the first number
+   * @param num2 The second number
+   * @param kind2 The kind of the second number
+   * @return The comparison result
+   */
+  private static int compareExact(Number num1, int kind1, Number num2, int kind2) {
+    if (kind1 == FLOATING && !Double.isFinite(num1.doubleValue())) {
+      return num1.doubleValue() > 0 || Double.isNaN(num1.doubleValue()) ? 1 : -1;
+    } else if (kind2 == FLOATING && !Double.isFinite(num2.doubleValue())) {
+      return num2.doubleValue() > 0 || Double.isNaN(num2.doubleValue()) ? -1 : 1;
+    }
+
+    if (kind1 != FLOATING && kind1 != BIG && kind2 != FLOATING && kind2 != BIG) {
+      return NumberOps.toDecimal(num1).compareTo(NumberOps.toDecimal(num2));
+    }
+
+    int result = NumberOps.toBigDecimal(num1).compareTo(NumberOps.toBigDecimal(num2));
+    if (result != 0) {
+      return result;
+    }
+
+    // Only one of them can be a floating point number here
+    if (kind1 == FLOATING && isNegativeZero(num1.doubleValue())) {
+      return -1;
+    } else if (kind2 == FLOATING && isNegativeZero(num2.doubleValue())) {
+      return 1;
+    }
+    return 0;
+  }
+
+  private static boolean isNegativeZero(double value) {
+    return Double.doubleToRawLongBits(value) == Long.MIN_VALUE;
+  }
+
+  /**
+   * Determines the kind of the number.
+   *
+   * @param num The number
+   * @return {@link #INTEGRAL}, {@link #FLOATING}, {@link #DECIMAL} or {@link #BIG}
+   */
+  static int kind(Number num) {
+    if (num instanceof Integer || num instanceof Long || num instanceof Short
+        || num instanceof Byte || num instanceof AtomicInteger || num instanceof AtomicLong
+        || num instanceof LongAdder || num instanceof LongAccumulator) {
+      return INTEGRAL;
+    } else if (num instanceof Double || num instanceof Float || num instanceof DoubleAdder
+        || num instanceof DoubleAccumulator) {
+      return FLOATING;
+    } else if (num instanceof Decimal) {
+      return DECIMAL;
+    } else if (num instanceof BigInteger || num instanceof BigDecimal) {
+      return BIG;
+    }
+
+    throw new NumberUtilError("Unknown number class "
+        + num.getClass());
+  }
+
+  private Object readResolve() {
+    return INSTANCE;
+  }
+
+}
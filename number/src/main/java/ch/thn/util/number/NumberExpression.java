@@ -0,0 +1,1076 @@
+package ch.thn.util.number;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * An arithmetic expression like <code>(a + b) * c / 100</code>, which is parsed once and can then
+ * be evaluated any number of times with different values for its variables.<br />
+ * <br />
+ * The expression is compiled for one primitive lane: <code>long</code> if the variables are of an
+ * integer type and all literals are integers, <code>double</code> otherwise (the same type rules
+ * as {@link NumberUtil#add(Number, Number)} etc.). Integer divisions are truncated, and
+ * <code>long</code> operations overflow silently, like the primitive operations do. Parts of the
+ * expression which only consist of literals are calculated when the expression is compiled.<br />
+ * <br />
+ * The expressions support the operators <code>+ - * / %</code> (with the usual precedence),
+ * unary minus and parentheses. Variable names start with a letter or <code>_</code>.<br />
+ * <br />
+ * The compiled expression is immutable and can be shared between threads. The primitive
+ * <code>evaluate</code> methods do not box at all, and the column methods evaluate whole arrays
+ * block by block, each operation in a tight loop over primitive arrays.
+ *
+ * <pre>
+ * NumberExpression expr = NumberExpression.compile("(a + b) * c / 100", Long.class, "a", "b", "c");
+ * long result = expr.evaluateLong(values);
+ * expr.evaluate(new long[][] {columnA, columnB, columnC}, results);
+ * </pre>
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ */
+public final class NumberExpression {
+
+  /** The number of values which are evaluated together by the column methods. */
+  private static final int BLOCK_SIZE = 1024;
+
+  /** The number of blocks evaluated by one parallel task. */
+  private static final int BLOCKS_PER_TASK = 64;
+
+  private final String expression;
+  private final String[] variables;
+  private final LongNode longNode;
+  private final DoubleNode doubleNode;
+  private final int scratchSize;
+
+
+  private NumberExpression(String expression, String[] variables, LongNode longNode,
+      DoubleNode doubleNode) {
+    this.expression = expression;
+    this.variables = variables;
+    this.longNode = longNode;
+    this.doubleNode = doubleNode;
+    this.scratchSize = longNode != null ? longNode.depth() : doubleNode.depth();
+  }
+
+  /**
+   * Compiles the expression for <code>double</code> variables.
+   *
+   * @param expression The expression
+   * @param variables The names of the variables, in the order in which their values are passed
+   *        to the evaluate methods
+   * @return The compiled expression
+   */
+  public static NumberExpression compile(String expression, String... variables) {
+    return compile(expression, Double.class, variables);
+  }
+
+  /**
+   * Compiles the expression for variables of the given type.
+   *
+   * @param expression The expression
+   * @param type The type of the variables. Integer types (byte, short, int, long) are evaluated
+   *        with <code>long</code> values, floating point types with <code>double</code> values
+   * @param variables The names of the variables, in the order in which their values are passed
+   *        to the evaluate methods
+   * @return The compiled expression
+   */
+  public static NumberExpression compile(String expression, Class<? extends Number> type,
+      String... variables) {
+    NumberOps<?> ops = NumberUtil.ops(type);
+
+    if (ops == NumberOps.DECIMAL || ops == NumberOps.BIG_INTEGER
+        || ops == NumberOps.BIG_DECIMAL) {
+      throw new NumberUtilError("Expressions can not be compiled for "
+          + type.getSimpleName());
+    }
+
+    Term term = new Parser(expression, variables).parse();
+
+    if (ops == NumberOps.INTEGER || ops == NumberOps.LONG) {
+      if (!term.hasDecimals()) {
+        return new NumberExpression(expression, variables.clone(), term.toLong(), null);
+      }
+    }
+
+    return new NumberExpression(expression, variables.clone(), null, term.toDouble());
+  }
+
+  /**
+   * Returns the type of the values the expression is evaluated with.
+   *
+   * @return <code>Long.class</code> or <code>Double.class</code>
+   */
+  public Class<? extends Number> getType() {
+    return longNode != null ? Long.class : Double.class;
+  }
+
+  /**
+   * Returns the names of the variables, in the order in which their values are passed to the
+   * evaluate methods.
+   *
+   * @return The variable names
+   */
+  public String[] getVariables() {
+    return variables.clone();
+  }
+
+  /**
+   * Evaluates the expression with the given values. The expression has to be evaluated with
+   * <code>long</code> values (see {@link #getType()}).
+   *
+   * @param values The values of the variables
+   * @return The result
+   */
+  public long evaluateLong(long... values) {
+    checkValueCount(values.length);
+    return checkLong().evaluate(values);
+  }
+
+  /**
+   * Evaluates the expression with the given values. Expressions which are evaluated with
+   * <code>long</code> values (see {@link #getType()}) can also be evaluated with this method, the
+   * values are then converted to <code>long</code> values.
+   *
+   * @param values The values of the variables
+   * @return The result
+   */
+  public double evaluateDouble(double... values) {
+    checkValueCount(values.length);
+
+    if (longNode != null) {
+      long[] longValues = new long[values.length];
+      for (int i = 0; i < values.length; i++) {
+        longValues[i] = (long) values[i];
+      }
+      return longNode.evaluate(longValues);
+    }
+
+    return doubleNode.evaluate(values);
+  }
+
+  /**
+   * Evaluates the expression with the given values. The result is a <code>Long</code> or a
+   * <code>Double</code>, depending on {@link #getType()}.
+   *
+   * @param values The values of the variables
+   * @return The result
+   */
+  public Number evaluate(Number... values) {
+    checkValueCount(values.length);
+
+    if (longNode != null) {
+      long[] longValues = new long[values.length];
+      for (int i = 0; i < values.length; i++) {
+        longValues[i] = values[i].longValue();
+      }
+      return longNode.evaluate(longValues);
+    }
+
+    double[] doubleValues = new double[values.length];
+    for (int i = 0; i < values.length; i++) {
+      doubleValues[i] = values[i].doubleValue();
+    }
+    return doubleNode.evaluate(doubleValues);
+  }
+
+  /**
+   * Evaluates the expression for each row of the given columns. The expression has to be
+   * evaluated with <code>long</code> values (see {@link #getType()}). The number of rows is the
+   * length of the first column.
+   *
+   * @param columns The values of the variables, one column for each variable
+   * @return The results
+   */
+  public long[] evaluate(long[][] columns) {
+    long[] results = new long[columns.length > 0 ? columns[0].length : 0];
+    evaluate(columns, results);
+    return results;
+  }
+
+  /**
+   * Evaluates the expression for each row of the given columns and writes the results into the
+   * given array. The expression has to be evaluated with <code>long</code> values (see
+   * {@link #getType()}). Columns with at least {@link NumberArrayUtil#getParallelThreshold()} rows
+   * are evaluated in parallel.
+   *
+   * @param columns The values of the variables, one column for each variable
+   * @param results The array for the results. Its length is the number of rows to evaluate
+   */
+  public void evaluate(long[][] columns, long[] results) {
+    LongNode node = checkLong();
+    checkColumnCount(columns.length);
+    for (long[] column : columns) {
+      checkColumnLength(column.length, results.length);
+    }
+
+    forEachTask(results.length, (offset, end) -> {
+      long[] block = new long[BLOCK_SIZE];
+      long[][] scratch = new long[scratchSize][BLOCK_SIZE];
+
+      for (int i = offset; i < end; i += BLOCK_SIZE) {
+        int length = Math.min(BLOCK_SIZE, end - i);
+        node.evaluate(columns, i, length, block, scratch, 0);
+        System.arraycopy(block, 0, results, i, length);
+      }
+    });
+  }
+
+  /**
+   * Evaluates the expression for each row of the given columns. Expressions which are evaluated
+   * with <code>long</code> values (see {@link #getType()}) have to be evaluated with
+   * {@link #evaluate(long[][])}. The number of rows is the length of the first column.
+   *
+   * @param columns The values of the variables, one column for each variable
+   * @return The results
+   */
+  public double[] evaluate(double[][] columns) {
+    double[] results = new double[columns.length > 0 ? columns[0].length : 0];
+    evaluate(columns, results);
+    return results;
+  }
+
+  /**
+   * Evaluates the expression for each row of the given columns and writes the results into the
+   * given array. Expressions which are evaluated with <code>long</code> values (see
+   * {@link #getType()}) have to be evaluated with {@link #evaluate(long[][], long[])}. Columns
+   * with at least {@link NumberArrayUtil#getParallelThreshold()} rows are evaluated in parallel.
+   *
+   * @param columns The values of the variables, one column for each variable
+   * @param results The array for the results. Its length is the number of rows to evaluate
+   */
+  public void evaluate(double[][] columns, double[] results) {
+    if (doubleNode == null) {
+      throw new NumberUtilError("Expression "
+          + expression
+          + " is evaluated with long values");
+    }
+
+    checkColumnCount(columns.length);
+    for (double[] column : columns) {
+      checkColumnLength(column.length, results.length);
+    }
+
+    forEachTask(results.length, (offset, end) -> {
+      double[] block = new double[BLOCK_SIZE];
+      double[][] scratch = new double[scratchSize][BLOCK_SIZE];
+
+      for (int i = offset; i < end; i += BLOCK_SIZE) {
+        int length = Math.min(BLOCK_SIZE, end - i);
+        doubleNode.evaluate(columns, i, length, block, scratch, 0);
+        System.arraycopy(block, 0, results, i, length);
+      }
+    });
+  }
+
+  private LongNode checkLong() {
+    if (longNode == null) {
+      throw new NumberUtilError("Expression "
+          + expression
+          + " is evaluated with double values");
+    }
+    return longNode;
+  }
+
+  private void checkValueCount(int count) {
+    if (count != variables.length) {
+      throw new NumberUtilError("Expected "
+          + variables.length
+          + " values for "
+          + Arrays.toString(variables)
+          + ", got "
+          + count);
+    }
+  }
+
+  private void checkColumnCount(int count) {
+    if (count != variables.length) {
+      throw new NumberUtilError("Expected "
+          + variables.length
+          + " columns for "
+          + Arrays.toString(variables)
+          + ", got "
+          + count);
+    }
+  }
+
+  private static void checkColumnLength(int length, int rows) {
+    if (length < rows) {
+      throw new NumberUtilError("Column with "
+          + length
+          + " values is shorter than the "
+          + rows
+          + " results");
+    }
+  }
+
+  /**
+   * Splits the rows into tasks of {@link #BLOCKS_PER_TASK} blocks, which run in parallel if there
+   * are enough rows.
+   *
+   * @param rows The number of rows
+   * @param task The task, called with the first row and the end of its rows (exclusive)
+   */
+  private static void forEachTask(int rows, RangeTask task) {
+    int taskSize = BLOCK_SIZE * BLOCKS_PER_TASK;
+
+    if (rows < NumberArrayUtil.getParallelThreshold()) {
+      task.run(0, rows);
+      return;
+    }
+
+    int tasks = (rows + taskSize - 1) / taskSize;
+    IntStream.range(0, tasks).parallel().forEach(t -> {
+      int offset = t * taskSize;
+      task.run(offset, Math.min(rows, offset + taskSize));
+    });
+  }
+
+  @Override
+  public String toString() {
+    return "NumberExpression["
+        + expression
+        + "]";
+  }
+
+
+  /************************************************************************************
+   * A task which evaluates a range of rows.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private interface RangeTask {
+
+    void run(int offset, int end);
+
+  }
+
+
+  /************************************************************************************
+   * The parsed expression, before it is compiled for a lane.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static final class Term {
+
+    private static final char LITERAL = 'L';
+    private static final char VARIABLE = 'V';
+    private static final char NEGATE = 'N';
+
+    // One of the operators, or LITERAL, VARIABLE or NEGATE
+    private final char kind;
+    private final String literal;
+    private final int index;
+    private final Term left;
+    private final Term right;
+
+    private Term(char kind, String literal, int index, Term left, Term right) {
+      this.kind = kind;
+      this.literal = literal;
+      this.index = index;
+      this.left = left;
+      this.right = right;
+    }
+
+    static Term literal(String literal) {
+      return new Term(LITERAL, literal, -1, null, null);
+    }
+
+    static Term variable(int index) {
+      return new Term(VARIABLE, null, index, null, null);
+    }
+
+    static Term negate(Term term) {
+      return new Term(NEGATE, null, -1, term, null);
+    }
+
+    static Term binary(char operator, Term left, Term right) {
+      return new Term(operator, null, -1, left, right);
+    }
+
+    boolean hasDecimals() {
+      if (kind == LITERAL) {
+        return literal.indexOf('.') >= 0 || literal.indexOf('e') >= 0
+            || literal.indexOf('E') >= 0;
+      }
+      return (left != null && left.hasDecimals()) || (right != null && right.hasDecimals());
+    }
+
+    /**
+     * Creates the nodes for the <code>long</code> lane. Operations on constants are calculated
+     * right away.
+     *
+     * @return The node
+     */
+    LongNode toLong() {
+      if (kind == LITERAL) {
+        try {
+          return new LongConstant(Long.parseLong(literal));
+        } catch (NumberFormatException e) {
+          throw new NumberUtilError("Literal "
+              + literal
+              + " is out of the range of long values");
+        }
+      } else if (kind == VARIABLE) {
+        return new LongVariable(index);
+      } else if (kind == NEGATE) {
+        LongNode node = left.toLong();
+        if (node instanceof LongConstant) {
+          return new LongConstant(-((LongConstant) node).value);
+        }
+        return new LongNegate(node);
+      }
+
+      LongBinary node = new LongBinary(kind, left.toLong(), right.toLong());
+      // A division by zero is left for the evaluation, which throws the ArithmeticException
+      if (node.left instanceof LongConstant && node.right instanceof LongConstant
+          && ((LongConstant) node.right).value != 0) {
+        return new LongConstant(node.evaluate(null));
+      }
+      return node;
+    }
+
+    /**
+     * Creates the nodes for the <code>double</code> lane. Operations on constants are calculated
+     * right away.
+     *
+     * @return The node
+     */
+    DoubleNode toDouble() {
+      if (kind == LITERAL) {
+        return new DoubleConstant(Double.parseDouble(literal));
+      } else if (kind == VARIABLE) {
+        return new DoubleVariable(index);
+      } else if (kind == NEGATE) {
+        DoubleNode node = left.toDouble();
+        if (node instanceof DoubleConstant) {
+          return new DoubleConstant(-((DoubleConstant) node).value);
+        }
+        return new DoubleNegate(node);
+      }
+
+      DoubleBinary node = new DoubleBinary(kind, left.toDouble(), right.toDouble());
+      if (node.left instanceof DoubleConstant && node.right instanceof DoubleConstant) {
+        return new DoubleConstant(node.evaluate(null));
+      }
+      return node;
+    }
+
+  }
+
+
+  /************************************************************************************
+   * A recursive descent parser for the expressions.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static final class Parser {
+
+    private final String expression;
+    private final String[] variables;
+    private int pos;
+
+    Parser(String expression, String[] variables) {
+      this.expression = expression;
+      this.variables = variables;
+    }
+
+    Term parse() {
+      Term term = parseSum();
+      skipWhitespace();
+
+      if (pos < expression.length()) {
+        throw error("Unexpected character '"
+            + expression.charAt(pos)
+            + "'");
+      }
+
+      return term;
+    }
+
+    private Term parseSum() {
+      Term term = parseProduct();
+
+      while (true) {
+        char c = peek();
+        if (c != '+' && c != '-') {
+          return term;
+        }
+        pos++;
+        term = Term.binary(c, term, parseProduct());
+      }
+    }
+
+    private Term parseProduct() {
+      Term term = parseUnary();
+
+      while (true) {
+        char c = peek();
+        if (c != '*' && c != '/' && c != '%') {
+          return term;
+        }
+        pos++;
+        term = Term.binary(c, term, parseUnary());
+      }
+    }
+
+    private Term parseUnary() {
+      char c = peek();
+
+      if (c == '-') {
+        pos++;
+        c = peek();
+        if (Character.isDigit(c) || c == '.') {
+          // Part of the literal, so that Long.MIN_VALUE can be parsed
+          return Term.literal("-"
+              + parseLiteral());
+        }
+        return Term.negate(parseUnary());
+      } else if (c == '+') {
+        pos++;
+        return parseUnary();
+      }
+
+      return parsePrimary();
+    }
+
+    private Term parsePrimary() {
+      char c = peek();
+      int start = pos;
+
+      if (c == '(') {
+        pos++;
+        Term term = parseSum();
+        if (peek() != ')') {
+          throw error("Missing ')'");
+        }
+        pos++;
+        return term;
+      } else if (Character.isDigit(c) || c == '.') {
+        return Term.literal(parseLiteral());
+      } else if (Character.isLetter(c) || c == '_') {
+        while (pos < expression.length()
+            && (Character.isLetterOrDigit(expression.charAt(pos))
+                || expression.charAt(pos) == '_')) {
+          pos++;
+        }
+        return Term.variable(indexOf(expression.substring(start, pos)));
+      } else if (c == 0) {
+        throw error("Unexpected end");
+      }
+
+      throw error("Unexpected character '"
+          + c
+          + "'");
+    }
+
+    private String parseLiteral() {
+      int start = pos;
+      while (pos < expression.length() && isLiteralChar(expression.charAt(pos))) {
+        pos++;
+      }
+
+      String literal = expression.substring(start, pos);
+      try {
+        // Only digits, '.', exponents and their signs have been read, which Java parses as well
+        Double.parseDouble(literal);
+      } catch (NumberFormatException e) {
+        pos = start;
+        throw error("Invalid number "
+            + literal);
+      }
+      return literal;
+    }
+
+    private boolean isLiteralChar(char c) {
+      if (Character.isDigit(c) || c == '.' || c == 'e' || c == 'E') {
+        return true;
+      }
+      // The sign of an exponent
+      char previous = expression.charAt(pos - 1);
+      return (c == '+' || c == '-') && (previous == 'e' || previous == 'E');
+    }
+
+    private int indexOf(String name) {
+      for (int i = 0; i < variables.length; i++) {
+        if (variables[i].equals(name)) {
+          return i;
+        }
+      }
+
+      pos -= name.length();
+      throw error("Unknown variable "
+          + name);
+    }
+
+    /**
+     * Skips whitespace and returns the next character.
+     *
+     * @return The next character, or 0 at the end of the expression
+     */
+    private char peek() {
+      skipWhitespace();
+      return pos < expression.length() ? expression.charAt(pos) : 0;
+    }
+
+    private void skipWhitespace() {
+      while (pos < expression.length() && Character.isWhitespace(expression.charAt(pos))) {
+        pos++;
+      }
+    }
+
+    private NumberUtilError error(String message) {
+      return new NumberUtilError(message
+          + " at position "
+          + pos
+          + " in expression "
+          + expression);
+    }
+
+  }
+
+
+  /************************************************************************************
+   * A node of the compiled <code>long</code> expression.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private abstract static class LongNode {
+
+    /**
+     * Evaluates the node for one row.
+     *
+     * @param values The values of the variables
+     * @return The result
+     */
+    abstract long evaluate(long[] values);
+
+    /**
+     * Evaluates the node for a block of rows.
+     *
+     * @param columns The values of the variables
+     * @param offset The first row
+     * @param length The number of rows, at most {@link NumberExpression#BLOCK_SIZE}
+     * @param out The array for the results, starting at index 0
+     * @param scratch Arrays for intermediate results, starting at index <code>depth</code>
+     * @param depth The first scratch array the node may use
+     */
+    abstract void evaluate(long[][] columns, int offset, int length, long[] out,
+        long[][] scratch, int depth);
+
+    /**
+     * Returns the number of scratch arrays the node needs.
+     *
+     * @return The number of scratch arrays
+     */
+    int depth() {
+      return 0;
+    }
+
+  }
+
+
+  /************************************************************************************
+   * A <code>long</code> constant.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static final class LongConstant extends LongNode {
+
+    private final long value;
+
+    LongConstant(long value) {
+      this.value = value;
+    }
+
+    @Override
+    long evaluate(long[] values) {
+      return value;
+    }
+
+    @Override
+    void evaluate(long[][] columns, int offset, int length, long[] out, long[][] scratch,
+        int depth) {
+      Arrays.fill(out, 0, length, value);
+    }
+
+  }
+
+
+  /************************************************************************************
+   * A <code>long</code> variable.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static final class LongVariable extends LongNode {
+
+    private final int index;
+
+    LongVariable(int index) {
+      this.index = index;
+    }
+
+    @Override
+    long evaluate(long[] values) {
+      return values[index];
+    }
+
+    @Override
+    void evaluate(long[][] columns, int offset, int length, long[] out, long[][] scratch,
+        int depth) {
+      System.arraycopy(columns[index], offset, out, 0, length);
+    }
+
+  }
+
+
+  /************************************************************************************
+   * The negation of a <code>long</code> node.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static final class LongNegate extends LongNode {
+
+    private final LongNode node;
+
+    LongNegate(LongNode node) {
+      this.node = node;
+    }
+
+    @Override
+    long evaluate(long[] values) {
+      return -node.evaluate(values);
+    }
+
+    @Override
+    void evaluate(long[][] columns, int offset, int length, long[] out, long[][] scratch,
+        int depth) {
+      node.evaluate(columns, offset, length, out, scratch, depth);
+      for (int i = 0; i < length; i++) {
+        out[i] = -out[i];
+      }
+    }
+
+    @Override
+    int depth() {
+      return node.depth();
+    }
+
+  }
+
+
+  /************************************************************************************
+   * An operation on two <code>long</code> nodes.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static final class LongBinary extends LongNode {
+
+    private final char operator;
+    private final LongNode left;
+    private final LongNode right;
+
+    LongBinary(char operator, LongNode left, LongNode right) {
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    long evaluate(long[] values) {
+      long value1 = left.evaluate(values);
+      long value2 = right.evaluate(values);
+
+      switch (operator) {
+        case '+':
+          return value1 + value2;
+        case '-':
+          return value1 - value2;
+        case '*':
+          return value1 * value2;
+        case '/':
+          return value1 / value2;
+        default:
+          return value1 % value2;
+      }
+    }
+
+    @Override
+    void evaluate(long[][] columns, int offset, int length, long[] out, long[][] scratch,
+        int depth) {
+      left.evaluate(columns, offset, length, out, scratch, depth);
+      long[] values = scratch[depth];
+      right.evaluate(columns, offset, length, values, scratch, depth + 1);
+
+      switch (operator) {
+        case '+':
+          for (int i = 0; i < length; i++) {
+            out[i] += values[i];
+          }
+          break;
+        case '-':
+          for (int i = 0; i < length; i++) {
+            out[i] -= values[i];
+          }
+          break;
+        case '*':
+          for (int i = 0; i < length; i++) {
+            out[i] *= values[i];
+          }
+          break;
+        case '/':
+          for (int i = 0; i < length; i++) {
+            out[i] /= values[i];
+          }
+          break;
+        default:
+          for (int i = 0; i < length; i++) {
+            out[i] %= values[i];
+          }
+          break;
+      }
+    }
+
+    @Override
+    int depth() {
+      return Math.max(left.depth(), right.depth() + 1);
+    }
+
+  }
+
+
+  /************************************************************************************
+   * A node of the compiled <code>double</code> expression.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private abstract static class DoubleNode {
+
+    /**
+     * Evaluates the node for one row.
+     *
+     * @param values The values of the variables
+     * @return The result
+     */
+    abstract double evaluate(double[] values);
+
+    /**
+     * Evaluates the node for a block of rows.
+     *
+     * @param columns The values of the variables
+     * @param offset The first row
+     * @param length The number of rows, at most {@link NumberExpression#BLOCK_SIZE}
+     * @param out The array for the results, starting at index 0
+     * @param scratch Arrays for intermediate results, starting at index <code>depth</code>
+     * @param depth The first scratch array the node may use
+     */
+    abstract void evaluate(double[][] columns, int offset, int length, double[] out,
+        double[][] scratch, int depth);
+
+    /**
+     * Returns the number of scratch arrays the node needs.
+     *
+     * @return The number of scratch arrays
+     */
+    int depth() {
+      return 0;
+    }
+
+  }
+
+
+  /************************************************************************************
+   * A <code>double</code> constant.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static final class DoubleConstant extends DoubleNode {
+
+    private final double value;
+
+    DoubleConstant(double value) {
+      this.value = value;
+    }
+
+    @Override
+    double evaluate(double[] values) {
+      return value;
+    }
+
+    @Override
+    void evaluate(double[][] columns, int offset, int length, double[] out, double[][] scratch,
+        int depth) {
+      Arrays.fill(out, 0, length, value);
+    }
+
+  }
+
+
+  /************************************************************************************
+   * A <code>double</code> variable.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static final class DoubleVariable extends DoubleNode {
+
+    private final int index;
+
+    DoubleVariable(int index) {
+      this.index = index;
+    }
+
+    @Override
+    double evaluate(double[] values) {
+      return values[index];
+    }
+
+    @Override
+    void evaluate(double[][] columns, int offset, int length, double[] out, double[][] scratch,
+        int depth) {
+      System.arraycopy(columns[index], offset, out, 0, length);
+    }
+
+  }
+
+
+  /************************************************************************************
+   * The negation of a <code>double</code> node.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static final class DoubleNegate extends DoubleNode {
+
+    private final DoubleNode node;
+
+    DoubleNegate(DoubleNode node) {
+      this.node = node;
+    }
+
+    @Override
+    double evaluate(double[] values) {
+      return -node.evaluate(values);
+    }
+
+    @Override
+    void evaluate(double[][] columns, int offset, int length, double[] out, double[][] scratch,
+        int depth) {
+      node.evaluate(columns, offset, length, out, scratch, depth);
+      for (int i = 0; i < length; i++) {
+        out[i] = -out[i];
+      }
+    }
+
+    @Override
+    int depth() {
+      return node.depth();
+    }
+
+  }
+
+
+  /************************************************************************************
+   * An operation on two <code>double</code> nodes.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static final class DoubleBinary extends DoubleNode {
+
+    private final char operator;
+    private final DoubleNode left;
+    private final DoubleNode right;
+
+    DoubleBinary(char operator, DoubleNode left, DoubleNode right) {
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    double evaluate(double[] values) {
+      double value1 = left.evaluate(values);
+      double value2 = right.evaluate(values);
+
+      switch (operator) {
+        case '+':
+          return value1 + value2;
+        case '-':
+          return value1 - value2;
+        case '*':
+          return value1 * value2;
+        case '/':
+          return value1 / value2;
+        default:
+          return value1 % value2;
+      }
+    }
+
+    @Override
+    void evaluate(double[][] columns, int offset, int length, double[] out, double[][] scratch,
+        int depth) {
+      left.evaluate(columns, offset, length, out, scratch, depth);
+      double[] values = scratch[depth];
+      right.evaluate(columns, offset, length, values, scratch, depth + 1);
+
+      switch (operator) {
+        case '+':
+          for (int i = 0; i < length; i++) {
+            out[i] += values[i];
+          }
+          break;
+        case '-':
+          for (int i = 0; i < length; i++) {
+            out[i] -= values[i];
+          }
+          break;
+        case '*':
+          for (int i = 0; i < length; i++) {
+            out[i] *= values[i];
+          }
+          break;
+        case '/':
+          for (int i = 0; i < length; i++) {
+            out[i] /= values[i];
+          }
+          break;
+        default:
+          for (int i = 0; i < length; i++) {
+            out[i] %= values[i];
+          }
+          break;
+      }
+    }
+
+    @Override
+    int depth() {
+      return Math.max(left.depth(), right.depth() + 1);
+    }
+
+  }
+
+}
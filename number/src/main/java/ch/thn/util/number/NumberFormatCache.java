@@ -0,0 +1,177 @@
+package ch.thn.util.number;
+
+import java.text.DecimalFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of {@link DecimalFormat} instances, keyed by their {@link NumberFormatSpec}.
+ * Creating a {@link DecimalFormat} parses the pattern and loads the symbols of the locale, which is
+ * expensive compared to formatting a single number.<br />
+ * <br />
+ * {@link DecimalFormat} is not thread safe, so each thread has its own formats. Each thread keeps
+ * at most {@link #getMaxSize()} formats and drops the least recently used one when it needs more.
+ * The formats are created for the current default {@link Locale.Category#FORMAT} locale. If the
+ * default locale changes, the formats are created again for the new locale.<br />
+ * <br />
+ * The hits and misses of all threads are counted (see {@link #getHitRate()}).
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public class NumberFormatCache {
+
+  /** The default number of formats per thread. */
+  public static final int DEFAULT_MAX_SIZE = 32;
+
+  private final int maxSize;
+  private final ThreadLocal<Map<NumberFormatSpec, Entry>> formats;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+
+  /**
+   * A new cache with {@link #DEFAULT_MAX_SIZE} formats per thread.
+   *
+   */
+  public NumberFormatCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * A new cache with the given number of formats per thread.
+   *
+   * @param maxSize The maximum number of formats each thread keeps
+   */
+  public NumberFormatCache(int maxSize) {
+    if (maxSize < 1) {
+      throw new NumberUtilError("Cache size has to be > 0");
+    }
+
+    this.maxSize = maxSize;
+    this.formats = ThreadLocal.withInitial(() -> new LinkedHashMap<NumberFormatSpec, Entry>(16,
+        0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(
+          Map.Entry<NumberFormatSpec, NumberFormatCache.Entry> eldest) {
+        return size() > NumberFormatCache.this.maxSize;
+      }
+    });
+  }
+
+  /**
+   * Returns the format for the spec. The format belongs to the calling thread: it must not be
+   * handed to other threads and must not be modified.
+   *
+   * @param spec The formatting options
+   * @return The format
+   */
+  public DecimalFormat get(NumberFormatSpec spec) {
+    Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+    Map<NumberFormatSpec, Entry> map = formats.get();
+    Entry entry = map.get(spec);
+
+    if (entry != null && entry.locale.equals(locale)) {
+      hits.increment();
+      return entry.format;
+    }
+
+    misses.increment();
+    DecimalFormat format = new DecimalFormat(spec.toPattern());
+    map.put(spec, new Entry(locale, format));
+    return format;
+  }
+
+  /**
+   * Formats the number with the cached format for the spec.
+   *
+   * @param num The number to format
+   * @param spec The formatting options
+   * @return The formatted number
+   */
+  public String format(Number num, NumberFormatSpec spec) {
+    if (num instanceof Decimal) {
+      // DecimalFormat would format it as double
+      return get(spec).format(((Decimal) num).toBigDecimal());
+    }
+    return get(spec).format(num);
+  }
+
+  /**
+   * Removes the formats of the calling thread.
+   *
+   */
+  public void clear() {
+    formats.remove();
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the share of the lookups which found a cached format.
+   *
+   * @return The hit rate from 0 to 1, or 0 if there were no lookups yet
+   */
+  public double getHitRate() {
+    long hitCount = hits.sum();
+    long total = hitCount + misses.sum();
+    return total == 0 ? 0 : (double) hitCount / total;
+  }
+
+  /**
+   * Resets the hit and miss counts.
+   *
+   */
+  public void resetStatistics() {
+    hits.reset();
+    misses.reset();
+  }
+
+  @Override
+  public String toString() {
+    return "NumberFormatCache[maxSize="
+        + maxSize
+        + ", hits="
+        + getHitCount()
+        + ", misses="
+        + getMissCount()
+        + "]";
+  }
+
+
+  /************************************************************************************
+   * A cached format together with the locale it has been created for.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static final class Entry {
+
+    private final Locale locale;
+    private final DecimalFormat format;
+
+    private Entry(Locale locale, DecimalFormat format) {
+      this.locale = locale;
+      this.format = format;
+    }
+
+  }
+
+}
@@ -0,0 +1,194 @@
+package ch.thn.util.number;
+
+/**
+ * The immutable formatting options for {@link NumberUtil#formatNumber(Number, NumberFormatSpec)}.
+ * The options are the same as the parameters of
+ * {@link NumberUtil#createDecimalFormat(int, int, boolean, boolean, boolean, boolean, boolean)},
+ * and {@link #toPattern()} returns the same {@link java.text.DecimalFormat} pattern.<br />
+ * <br />
+ * Specs with the same options are equal, so they can be used as keys (see
+ * {@link NumberFormatCache}). Frequently used specs can be kept in constants.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public final class NumberFormatSpec {
+
+  private static final int MAX_DIGIT_PATTERN = 6;
+
+  // Some predefined digit patterns
+  private static final String[][] digitPattern = {null, {"#", "0"}, {"##", "00"},
+      {"###", "000"}, {"####", "0000"}, {"#####", "00000"}, {"######", "000000"}};
+
+  private final int minNumberOfDigits;
+  private final int maxNumberOfDecimals;
+  private final boolean currency;
+  private final boolean internationalCurrency;
+  private final boolean leadingZeroes;
+  private final boolean percentage;
+  private final boolean grouping;
+
+  private final int hashCode;
+
+
+  /**
+   * Creates the formatting options.
+   *
+   * @param minNumberOfDigits The number of digits to show
+   * @param maxNumberOfDecimals The maximal number of decimals to show
+   * @param currency Whether or not to add the currency sign
+   * @param internationalCurrency Whether or not to show the currency sign in international format
+   * @param leadingZeroes Whether or not to fill missing the digits with zeroes
+   * @param percentage Whether or not to add a percentage sign
+   * @param grouping Enables grouping (grouped by thousands, e.g. 10,000)
+   */
+  public NumberFormatSpec(int minNumberOfDigits, int maxNumberOfDecimals, boolean currency,
+      boolean internationalCurrency, boolean leadingZeroes, boolean percentage, boolean grouping) {
+    if (minNumberOfDigits <= 0) {
+      throw new NumberUtilError("Minimum number of digits has to be > 0");
+    }
+
+    if (maxNumberOfDecimals < 0) {
+      throw new NumberUtilError("Maximum number of decimals has to be >= 0");
+    }
+
+    this.minNumberOfDigits = minNumberOfDigits;
+    this.maxNumberOfDecimals = maxNumberOfDecimals;
+    this.currency = currency;
+    this.internationalCurrency = internationalCurrency;
+    this.leadingZeroes = leadingZeroes;
+    this.percentage = percentage;
+    this.grouping = grouping;
+
+    int hash = 31 * minNumberOfDigits + maxNumberOfDecimals;
+    hash = 31 * hash + (currency ? 1 : 0);
+    hash = 31 * hash + (internationalCurrency ? 1 : 0);
+    hash = 31 * hash + (leadingZeroes ? 1 : 0);
+    hash = 31 * hash + (percentage ? 1 : 0);
+    hash = 31 * hash + (grouping ? 1 : 0);
+    this.hashCode = hash;
+  }
+
+  public int getMinNumberOfDigits() {
+    return minNumberOfDigits;
+  }
+
+  public int getMaxNumberOfDecimals() {
+    return maxNumberOfDecimals;
+  }
+
+  public boolean isCurrency() {
+    return currency;
+  }
+
+  public boolean isInternationalCurrency() {
+    return internationalCurrency;
+  }
+
+  public boolean isLeadingZeroes() {
+    return leadingZeroes;
+  }
+
+  public boolean isPercentage() {
+    return percentage;
+  }
+
+  public boolean isGrouping() {
+    return grouping;
+  }
+
+  /**
+   * Builds the {@link java.text.DecimalFormat} pattern for these options.
+   *
+   * @return The pattern
+   */
+  public String toPattern() {
+    StringBuilder sb = new StringBuilder(minNumberOfDigits + maxNumberOfDecimals + 5);
+
+    if (currency || internationalCurrency) {
+      // Having a single 'CURRENCY SIGN' in the pattern will be replaced by the currency symbol
+      sb.append("\u00A4"); // Unicode Character 'CURRENCY SIGN'
+
+      if (internationalCurrency) {
+        // Having a second 'CURRENCY SIGN' in the pattern will be replaced with the international
+        // currency symbol
+        sb.append("\u00A4"); // Unicode Character 'CURRENCY SIGN'
+      }
+    }
+
+    appendDigitPattern(sb, minNumberOfDigits, leadingZeroes, grouping);
+
+    sb.append(".");
+
+    appendDigitPattern(sb, maxNumberOfDecimals, false, false);
+
+    if (percentage) {
+      sb.append("%");
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * Appends the digit pattern with the given number of digits.
+   *
+   * @param sb The pattern to append to
+   * @param numberOfDigits The number of digits
+   * @param zeroes If <code>true</code>, missing digits will be shown as zeroes
+   * @param grouping Groups by thousands
+   */
+  private static void appendDigitPattern(StringBuilder sb, int numberOfDigits, boolean zeroes,
+      boolean grouping) {
+    int start = sb.length();
+
+    // There is no pattern for 0 digits, which results in the longest predefined pattern
+    if (numberOfDigits > 0 && numberOfDigits <= MAX_DIGIT_PATTERN) {
+      sb.append(digitPattern[numberOfDigits][zeroes ? 1 : 0]);
+    } else {
+      sb.append(digitPattern[MAX_DIGIT_PATTERN][zeroes ? 1 : 0]);
+
+      for (int i = MAX_DIGIT_PATTERN; i < numberOfDigits; i++) {
+        sb.append(zeroes ? '0' : '#');
+      }
+    }
+
+    if (grouping && sb.length() - start > 3) {
+      // Add the grouping separator if requested
+      sb.insert(sb.length() - 3, ',');
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+
+    if (!(obj instanceof NumberFormatSpec)) {
+      return false;
+    }
+
+    NumberFormatSpec other = (NumberFormatSpec) obj;
+    return minNumberOfDigits == other.minNumberOfDigits
+        && maxNumberOfDecimals == other.maxNumberOfDecimals
+        && currency == other.currency
+        && internationalCurrency == other.internationalCurrency
+        && leadingZeroes == other.leadingZeroes
+        && percentage == other.percentage
+        && grouping == other.grouping;
+  }
+
+  @Override
+  public String toString() {
+    return "NumberFormatSpec["
+        + toPattern()
+        + "]";
+  }
+
+}
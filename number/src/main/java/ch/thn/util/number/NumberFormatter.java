@@ -0,0 +1,603 @@
+package ch.thn.util.number;
+
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Formats numbers exactly like the {@link DecimalFormat} for a {@link NumberFormatSpec}, but
+ * appends the characters directly to a {@link StringBuilder}, a <code>char[]</code> or an
+ * {@link Appendable}, without creating any intermediate objects.<br />
+ * <br />
+ * The prefixes, suffixes, separators and digit counts are taken once from the
+ * {@link DecimalFormat} of the spec. The digits are then written with a digit pair table, and
+ * <code>double</code> and {@link Decimal} values are rounded half-even. Values which can not be
+ * formatted like that (<code>double</code> values which have more than 15 digits including the
+ * decimals, {@link Decimal} values with a multiplier, {@link java.math.BigDecimal},
+ * {@link java.math.BigInteger}, ...) are formatted with the {@link DecimalFormat} itself.<br />
+ * <br />
+ * A formatter is immutable and can be used by multiple threads at the same time.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public final class NumberFormatter {
+
+  private static final char[] DIGIT_PAIRS = new char[200];
+
+  private static final long[] POWERS_OF_TEN = new long[19];
+
+  static {
+    for (int i = 0; i < 100; i++) {
+      DIGIT_PAIRS[2 * i] = (char) ('0' + i / 10);
+      DIGIT_PAIRS[2 * i + 1] = (char) ('0' + i % 10);
+    }
+
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  // The buffer each thread formats into before the characters are copied to the destination
+  private static final ThreadLocal<char[]> buffers = ThreadLocal.withInitial(() -> new char[64]);
+
+  private final NumberFormatSpec spec;
+
+  // The following fields are also used by NumberParser, to parse what this formatter formats
+
+  /** Only used for the values which are not formatted by this class. Not thread safe. */
+  final DecimalFormat format;
+
+  final char[] positivePrefix;
+  final char[] positiveSuffix;
+  final char[] negativePrefix;
+  final char[] negativeSuffix;
+  final char[] nan;
+  final char[] infinity;
+
+  final char zeroDigit;
+  final char groupingSeparator;
+  final char decimalSeparator;
+
+  final int minIntegerDigits;
+  final int minFractionDigits;
+  final int maxFractionDigits;
+  final int groupingSize;
+  final int multiplier;
+  final boolean decimalSeparatorAlwaysShown;
+
+  private final int maxLength;
+
+
+  /**
+   * A formatter for the current default {@link Locale.Category#FORMAT} locale.
+   *
+   * @param spec The formatting options
+   */
+  public NumberFormatter(NumberFormatSpec spec) {
+    this(spec, DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT)));
+  }
+
+  /**
+   * A formatter for the given locale.
+   *
+   * @param spec The formatting options
+   * @param locale The locale for the symbols
+   */
+  public NumberFormatter(NumberFormatSpec spec, Locale locale) {
+    this(spec, DecimalFormatSymbols.getInstance(locale));
+  }
+
+  /**
+   * A formatter with the given symbols.
+   *
+   * @param spec The formatting options
+   * @param symbols The symbols to use
+   */
+  public NumberFormatter(NumberFormatSpec spec, DecimalFormatSymbols symbols) {
+    this.spec = spec;
+    this.format = new DecimalFormat(spec.toPattern(), symbols);
+
+    positivePrefix = format.getPositivePrefix().toCharArray();
+    positiveSuffix = format.getPositiveSuffix().toCharArray();
+    negativePrefix = format.getNegativePrefix().toCharArray();
+    negativeSuffix = format.getNegativeSuffix().toCharArray();
+    nan = symbols.getNaN().toCharArray();
+    infinity = symbols.getInfinity().toCharArray();
+
+    minIntegerDigits = format.getMinimumIntegerDigits();
+    minFractionDigits = format.getMinimumFractionDigits();
+    maxFractionDigits = format.getMaximumFractionDigits();
+    groupingSize = format.isGroupingUsed() ? format.getGroupingSize() : 0;
+    multiplier = format.getMultiplier();
+    decimalSeparatorAlwaysShown = format.isDecimalSeparatorAlwaysShown();
+
+    // The separators depend on the format (e.g. the monetary separators for currency formats),
+    // so they are taken from a formatted number
+    DecimalFormat probe = (DecimalFormat) format.clone();
+    probe.setPositivePrefix("");
+    probe.setPositiveSuffix("");
+    probe.setMultiplier(1);
+    probe.setGroupingUsed(true);
+    probe.setGroupingSize(3);
+    probe.setMinimumIntegerDigits(1);
+    probe.setMinimumFractionDigits(1);
+    probe.setMaximumFractionDigits(1);
+    String probed = probe.format(1000.5);
+    zeroDigit = probed.charAt(2);
+    groupingSeparator = probed.charAt(1);
+    decimalSeparator = probed.charAt(5);
+
+    int affixes = Math.max(positivePrefix.length + positiveSuffix.length,
+        negativePrefix.length + negativeSuffix.length);
+    int digits = 2 * Math.max(minIntegerDigits, 20) + 1 + Math.max(minFractionDigits,
+        Math.min(maxFractionDigits, DecimalRounding.MAX_EXACT_DECIMALS));
+    maxLength = affixes + Math.max(digits, Math.max(nan.length, infinity.length));
+  }
+
+  public NumberFormatSpec getSpec() {
+    return spec;
+  }
+
+  /**
+   * Formats the number.
+   *
+   * @param num The number to format
+   * @return The formatted number
+   */
+  public String format(double num) {
+    char[] buffer = buffer();
+    int length = write(num, buffer);
+    return length < 0 ? fallback(num) : new String(buffer, 0, length);
+  }
+
+  /**
+   * Formats the number.
+   *
+   * @param num The number to format
+   * @return The formatted number
+   */
+  public String format(long num) {
+    char[] buffer = buffer();
+    int length = write(num, buffer);
+    return length < 0 ? fallback(num) : new String(buffer, 0, length);
+  }
+
+  /**
+   * Formats the number.
+   *
+   * @param num The number to format
+   * @return The formatted number
+   */
+  public String format(Number num) {
+    char[] buffer = buffer();
+    int length = write(num, buffer);
+    return length < 0 ? fallback(num) : new String(buffer, 0, length);
+  }
+
+  /**
+   * Appends the formatted number to the string builder.
+   *
+   * @param num The number to format
+   * @param sb The string builder to append to
+   * @return The string builder
+   */
+  public StringBuilder format(double num, StringBuilder sb) {
+    char[] buffer = buffer();
+    int length = write(num, buffer);
+    return length < 0 ? sb.append(fallback(num)) : sb.append(buffer, 0, length);
+  }
+
+  /**
+   * Appends the formatted number to the string builder.
+   *
+   * @param num The number to format
+   * @param sb The string builder to append to
+   * @return The string builder
+   */
+  public StringBuilder format(long num, StringBuilder sb) {
+    char[] buffer = buffer();
+    int length = write(num, buffer);
+    return length < 0 ? sb.append(fallback(num)) : sb.append(buffer, 0, length);
+  }
+
+  /**
+   * Appends the formatted number to the string builder.
+   *
+   * @param num The number to format
+   * @param sb The string builder to append to
+   * @return The string builder
+   */
+  public StringBuilder format(Number num, StringBuilder sb) {
+    char[] buffer = buffer();
+    int length = write(num, buffer);
+    return length < 0 ? sb.append(fallback(num)) : sb.append(buffer, 0, length);
+  }
+
+  /**
+   * Writes the formatted number into the array.
+   *
+   * @param num The number to format
+   * @param dest The array to write to
+   * @param offset The position of the first character in the array
+   * @return The number of characters written
+   * @throws IndexOutOfBoundsException If the characters do not fit into the array
+   */
+  public int format(double num, char[] dest, int offset) {
+    char[] buffer = buffer();
+    int length = write(num, buffer);
+    return length < 0 ? copy(fallback(num), dest, offset) : copy(buffer, length, dest, offset);
+  }
+
+  /**
+   * Writes the formatted number into the array.
+   *
+   * @param num The number to format
+   * @param dest The array to write to
+   * @param offset The position of the first character in the array
+   * @return The number of characters written
+   * @throws IndexOutOfBoundsException If the characters do not fit into the array
+   */
+  public int format(long num, char[] dest, int offset) {
+    char[] buffer = buffer();
+    int length = write(num, buffer);
+    return length < 0 ? copy(fallback(num), dest, offset) : copy(buffer, length, dest, offset);
+  }
+
+  /**
+   * Writes the formatted number into the array.
+   *
+   * @param num The number to format
+   * @param dest The array to write to
+   * @param offset The position of the first character in the array
+   * @return The number of characters written
+   * @throws IndexOutOfBoundsException If the characters do not fit into the array
+   */
+  public int format(Number num, char[] dest, int offset) {
+    char[] buffer = buffer();
+    int length = write(num, buffer);
+    return length < 0 ? copy(fallback(num), dest, offset) : copy(buffer, length, dest, offset);
+  }
+
+  /**
+   * Appends the formatted number to the appendable.
+   *
+   * @param num The number to format
+   * @param out The appendable to append to
+   * @throws IOException If appending fails
+   */
+  public void format(double num, Appendable out) throws IOException {
+    char[] buffer = buffer();
+    int length = write(num, buffer);
+    append(length < 0 ? fallback(num) : null, buffer, length, out);
+  }
+
+  /**
+   * Appends the formatted number to the appendable.
+   *
+   * @param num The number to format
+   * @param out The appendable to append to
+   * @throws IOException If appending fails
+   */
+  public void format(long num, Appendable out) throws IOException {
+    char[] buffer = buffer();
+    int length = write(num, buffer);
+    append(length < 0 ? fallback(num) : null, buffer, length, out);
+  }
+
+  /**
+   * Appends the formatted number to the appendable.
+   *
+   * @param num The number to format
+   * @param out The appendable to append to
+   * @throws IOException If appending fails
+   */
+  public void format(Number num, Appendable out) throws IOException {
+    char[] buffer = buffer();
+    int length = write(num, buffer);
+    append(length < 0 ? fallback(num) : null, buffer, length, out);
+  }
+
+  private char[] buffer() {
+    char[] buffer = buffers.get();
+    if (buffer.length < maxLength) {
+      buffer = new char[maxLength];
+      buffers.set(buffer);
+    }
+    return buffer;
+  }
+
+  private static int copy(char[] buffer, int length, char[] dest, int offset) {
+    System.arraycopy(buffer, 0, dest, offset, length);
+    return length;
+  }
+
+  private static int copy(String str, char[] dest, int offset) {
+    if (offset < 0 || offset + str.length() > dest.length) {
+      throw new IndexOutOfBoundsException("Formatted number does not fit into the array");
+    }
+
+    str.getChars(0, str.length(), dest, offset);
+    return str.length();
+  }
+
+  private static void append(String str, char[] buffer, int length, Appendable out)
+      throws IOException {
+    if (str != null) {
+      out.append(str);
+    } else if (out instanceof StringBuilder) {
+      ((StringBuilder) out).append(buffer, 0, length);
+    } else {
+      for (int i = 0; i < length; i++) {
+        out.append(buffer[i]);
+      }
+    }
+  }
+
+  private String fallback(Object num) {
+    if (num instanceof Decimal) {
+      // DecimalFormat would format it as double
+      num = ((Decimal) num).toBigDecimal();
+    }
+
+    synchronized (format) {
+      return format.format(num);
+    }
+  }
+
+  /**
+   * Writes the number into the buffer.
+   *
+   * @param num The number to write
+   * @param buffer The buffer, at least {@link #maxLength} long
+   * @return The number of characters written, or -1 if the number has to be formatted by the
+   *         {@link DecimalFormat}
+   */
+  private int write(Number num, char[] buffer) {
+    if (num instanceof Double || num instanceof Float) {
+      return write(num.doubleValue(), buffer);
+    }
+
+    if (num instanceof Long || num instanceof Integer || num instanceof Short
+        || num instanceof Byte || num instanceof AtomicInteger || num instanceof AtomicLong) {
+      return write(num.longValue(), buffer);
+    }
+
+    if (num instanceof Decimal) {
+      return write((Decimal) num, buffer);
+    }
+
+    return -1;
+  }
+
+  private int write(double num, char[] buffer) {
+    if (Double.isNaN(num)) {
+      System.arraycopy(nan, 0, buffer, 0, nan.length);
+      return nan.length;
+    }
+
+    boolean negative = num < 0 || (num == 0 && 1 / num < 0);
+    double abs = Math.abs(num * multiplier);
+    char[] prefix = negative ? negativePrefix : positivePrefix;
+    char[] suffix = negative ? negativeSuffix : positiveSuffix;
+
+    if (Double.isInfinite(abs)) {
+      int pos = put(prefix, buffer, 0);
+      pos = put(infinity, buffer, pos);
+      return put(suffix, buffer, pos);
+    }
+
+    if (maxFractionDigits > DecimalRounding.MAX_EXACT_DECIMALS) {
+      return -1;
+    }
+
+    double scaled = DecimalRounding.roundScaled(abs, maxFractionDigits, RoundingMode.HALF_EVEN);
+
+    if (Double.isNaN(scaled)) {
+      return -1;
+    }
+
+    long digits = (long) scaled;
+    long integer = 0;
+    long fraction = digits;
+
+    if (maxFractionDigits < POWERS_OF_TEN.length) {
+      integer = digits / POWERS_OF_TEN[maxFractionDigits];
+      fraction = digits - integer * POWERS_OF_TEN[maxFractionDigits];
+    }
+
+    int pos = put(prefix, buffer, 0);
+    pos = writeNumber(integer, fraction, maxFractionDigits, buffer, pos);
+    return put(suffix, buffer, pos);
+  }
+
+  private int write(long num, char[] buffer) {
+    if (num == Long.MIN_VALUE || Math.abs(num) > Long.MAX_VALUE / multiplier) {
+      return -1;
+    }
+
+    boolean negative = num < 0;
+    long abs = Math.abs(num) * multiplier;
+
+    int pos = put(negative ? negativePrefix : positivePrefix, buffer, 0);
+    pos = writeNumber(abs, 0, 0, buffer, pos);
+    return put(negative ? negativeSuffix : positiveSuffix, buffer, pos);
+  }
+
+  private int write(Decimal num, char[] buffer) {
+    long unscaled = num.getUnscaled();
+    int scale = num.getScale();
+
+    if (multiplier != 1 || unscaled == Long.MIN_VALUE) {
+      return -1;
+    }
+
+    boolean negative = unscaled < 0;
+    long abs = Math.abs(unscaled);
+
+    if (scale > maxFractionDigits) {
+      abs = Decimal.rescale(abs, scale, maxFractionDigits, RoundingMode.HALF_EVEN);
+      scale = maxFractionDigits;
+    }
+
+    long integer = abs / POWERS_OF_TEN[scale];
+    long fraction = abs - integer * POWERS_OF_TEN[scale];
+
+    int pos = put(negative ? negativePrefix : positivePrefix, buffer, 0);
+    pos = writeNumber(integer, fraction, scale, buffer, pos);
+    return put(negative ? negativeSuffix : positiveSuffix, buffer, pos);
+  }
+
+  /**
+   * Writes the integer digits, the decimal separator and the fraction digits.
+   *
+   * @param integer The integer part
+   * @param fraction The fraction part as integer
+   * @param fractionDigits The number of fraction digits in the fraction part
+   * @param buffer The buffer to write to
+   * @param pos The position to start writing at
+   * @return The position after the last character written
+   */
+  private int writeNumber(long integer, long fraction, int fractionDigits, char[] buffer,
+      int pos) {
+    // Remove trailing zeroes which do not have to be shown
+    while (fractionDigits > minFractionDigits && fraction % 10 == 0) {
+      fraction /= 10;
+      fractionDigits--;
+    }
+
+    int shownFractionDigits = Math.max(fractionDigits, minFractionDigits);
+    boolean separator = shownFractionDigits > 0 || decimalSeparatorAlwaysShown;
+
+    int integerDigits = Math.max(integer == 0 ? 0 : digitCount(integer), minIntegerDigits);
+    if (integerDigits == 0 && !separator) {
+      // At least a zero has to be shown
+      integerDigits = 1;
+    }
+
+    int start = pos;
+    pos = writeInteger(integer, integerDigits, buffer, pos);
+
+    if (separator) {
+      buffer[pos++] = decimalSeparator;
+      pos = writePadded(fraction, fractionDigits, buffer, pos);
+      for (int i = fractionDigits; i < shownFractionDigits; i++) {
+        buffer[pos++] = '0';
+      }
+    }
+
+    if (zeroDigit != '0') {
+      for (int i = start; i < pos; i++) {
+        char c = buffer[i];
+        if (c >= '0' && c <= '9') {
+          buffer[i] = (char) (c - '0' + zeroDigit);
+        }
+      }
+    }
+
+    return pos;
+  }
+
+  /**
+   * Writes the integer part with leading zeroes and grouping separators.
+   *
+   * @param integer The integer part
+   * @param digits The number of digits to write
+   * @param buffer The buffer to write to
+   * @param pos The position to start writing at
+   * @return The position after the last character written
+   */
+  private int writeInteger(long integer, int digits, char[] buffer, int pos) {
+    int separators = groupingSize > 0 && digits > 0 ? (digits - 1) / groupingSize : 0;
+    int end = pos + digits + separators;
+    int digitStart = end - digits;
+
+    // Write the digits without separators at the end first
+    writePadded(integer, digits, buffer, digitStart);
+
+    if (separators > 0) {
+      // Move the digits to the front and insert the separators. The target position never
+      // overtakes the digit which is read next.
+      int target = pos;
+      for (int i = 0; i < digits; i++) {
+        buffer[target++] = buffer[digitStart + i];
+        int remaining = digits - 1 - i;
+        if (remaining > 0 && remaining % groupingSize == 0) {
+          buffer[target++] = groupingSeparator;
+        }
+      }
+    }
+
+    return end;
+  }
+
+  /**
+   * Writes the given number of digits of the value, with leading zeroes if the value has less
+   * digits.
+   *
+   * @param value The value to write, >= 0 and with at most <code>digits</code> digits
+   * @param digits The number of digits to write
+   * @param buffer The buffer to write to
+   * @param start The position of the first digit
+   * @return The position after the last digit
+   */
+  private static int writePadded(long value, int digits, char[] buffer, int start) {
+    int end = start + digits;
+    int pos = end;
+
+    while (value >= 100) {
+      long quotient = value / 100;
+      int pair = (int) (value - quotient * 100) << 1;
+      value = quotient;
+      buffer[--pos] = DIGIT_PAIRS[pair + 1];
+      buffer[--pos] = DIGIT_PAIRS[pair];
+    }
+
+    if (value >= 10) {
+      int pair = (int) value << 1;
+      buffer[--pos] = DIGIT_PAIRS[pair + 1];
+      buffer[--pos] = DIGIT_PAIRS[pair];
+    } else if (value > 0) {
+      buffer[--pos] = (char) ('0' + value);
+    }
+
+    while (pos > start) {
+      buffer[--pos] = '0';
+    }
+
+    return end;
+  }
+
+  /**
+   * Returns the number of digits of the value. 0 has no digits.
+   *
+   * @param value The value, >= 0
+   * @return The number of digits
+   */
+  private static int digitCount(long value) {
+    int count = 0;
+    while (count < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[count]) {
+      count++;
+    }
+    return count;
+  }
+
+  private static int put(char[] chars, char[] buffer, int pos) {
+    System.arraycopy(chars, 0, buffer, pos, chars.length);
+    return pos + chars.length;
+  }
+
+  @Override
+  public String toString() {
+    return "NumberFormatter["
+        + format.toPattern()
+        + "]";
+  }
+
+}
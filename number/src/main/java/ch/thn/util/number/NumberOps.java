@@ -0,0 +1,1374 @@
+package ch.thn.util.number;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * The arithmetic operations for one number type. An instance is resolved once for the types
+ * which are involved (see {@link NumberUtil#ops(Class, Class)}) and can then be used for any
+ * number of operations, without looking up the types again for each operation.<br />
+ * <br />
+ * The operations which take {@link Number} arguments convert both arguments to the type of this
+ * instance and return a boxed result, exactly like {@link NumberUtil#add(Number, Number)} etc. do.
+ * Each primitive type also has its own subclass ({@link OfInt}, {@link OfLong}, {@link OfFloat},
+ * {@link OfDouble}) with the same operations on primitive values, which do not box at all.<br />
+ * <br />
+ * The exact operations ({@link #addExact(Number, Number)} etc.) calculate with the primitive type
+ * as long as the result does not overflow, and only widen the result when it does:
+ * <code>int</code> to <code>long</code> to {@link BigInteger}, and <code>float</code> to
+ * <code>double</code> to {@link BigDecimal}. {@link Decimal} values widen to a {@link BigDecimal}
+ * as well. Floating point results are still rounded to their type like with the Java operators,
+ * only results which would be infinite are widened.<br />
+ * <br />
+ * There is no separate instance for <code>short</code> values, since <code>short</code>
+ * arithmetic in Java is done with <code>int</code> values and results in an <code>int</code>.
+ *
+ * @param <T> The number type of the results
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ */
+public abstract class NumberOps<T extends Number> {
+
+  /** Operations on <code>int</code> values (also used for <code>short</code> values). */
+  public static final OfInt INTEGER = new OfInt();
+  /** Operations on <code>long</code> values. */
+  public static final OfLong LONG = new OfLong();
+  /** Operations on <code>float</code> values. */
+  public static final OfFloat FLOAT = new OfFloat();
+  /** Operations on <code>double</code> values. */
+  public static final OfDouble DOUBLE = new OfDouble();
+  /** Operations on <code>Decimal</code> values. */
+  public static final OfDecimal DECIMAL = new OfDecimal();
+  /** Operations on <code>BigInteger</code> values. */
+  public static final OfBigInteger BIG_INTEGER = new OfBigInteger();
+  /** Operations on <code>BigDecimal</code> values. */
+  public static final OfBigDecimal BIG_DECIMAL = new OfBigDecimal();
+
+  /**
+   * The precision of the {@link BigDecimal} divisions whose exact result has no terminating
+   * decimal expansion.
+   */
+  public static final MathContext DIVISION_CONTEXT = MathContext.DECIMAL128;
+
+
+  /**
+   * Only the predefined instances exist.
+   *
+   */
+  NumberOps() {}
+
+  /**
+   * Returns the type of the numbers returned by the operations.
+   *
+   * @return The result type
+   */
+  public abstract Class<T> getType();
+
+  /**
+   * Converts the number to the type of this instance.
+   *
+   * @param num The number to convert
+   * @return The converted number
+   */
+  public abstract T valueOf(Number num);
+
+  /**
+   * Adds num1 + num2.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The result of the operation
+   */
+  public abstract T add(Number num1, Number num2);
+
+  /**
+   * Subtracts num1 - num2.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The result of the operation
+   */
+  public abstract T subtract(Number num1, Number num2);
+
+  /**
+   * Multiplies num1 * num2.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The result of the operation
+   */
+  public abstract T multiply(Number num1, Number num2);
+
+  /**
+   * Divides num1 / num2.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The result of the operation
+   */
+  public abstract T divide(Number num1, Number num2);
+
+  /**
+   * Calculates the remainder num1 % num2.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The result of the operation
+   */
+  public abstract T remainder(Number num1, Number num2);
+
+  /**
+   * Checks if num1 > num2.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The result of the operation
+   */
+  public abstract boolean gt(Number num1, Number num2);
+
+  /**
+   * Checks if num1 < num2.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The result of the operation
+   */
+  public abstract boolean lt(Number num1, Number num2);
+
+  /**
+   * Adds num1 + num2. The result is widened if it does not fit into the type of this instance.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The exact result of the operation
+   */
+  public abstract Number addExact(Number num1, Number num2);
+
+  /**
+   * Subtracts num1 - num2. The result is widened if it does not fit into the type of this
+   * instance.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The exact result of the operation
+   */
+  public abstract Number subtractExact(Number num1, Number num2);
+
+  /**
+   * Multiplies num1 * num2. The result is widened if it does not fit into the type of this
+   * instance.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The exact result of the operation
+   */
+  public abstract Number multiplyExact(Number num1, Number num2);
+
+  /**
+   * Divides num1 / num2. Integer divisions are truncated like {@link #divide(Number, Number)}, only
+   * the overflow of <code>MIN_VALUE / -1</code> is widened. Floating point quotients which
+   * overflow are widened, a <code>double</code> quotient to a {@link BigDecimal} which is rounded
+   * to {@link #DIVISION_CONTEXT} if it has no terminating decimal expansion. A division by zero is
+   * not widened.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The result of the operation
+   */
+  public abstract Number divideExact(Number num1, Number num2);
+
+  @Override
+  public String toString() {
+    return "NumberOps["
+        + getType().getSimpleName()
+        + "]";
+  }
+
+  /**
+   * Converts the number to a {@link BigInteger}. Decimals are truncated.
+   *
+   * @param num The number to convert
+   * @return The converted number
+   */
+  static BigInteger toBigInteger(Number num) {
+    if (num instanceof BigInteger) {
+      return (BigInteger) num;
+    } else if (num instanceof BigDecimal) {
+      return ((BigDecimal) num).toBigInteger();
+    } else if (num instanceof Decimal) {
+      return BigInteger.valueOf(num.longValue());
+    } else if (isFloatingPoint(num)) {
+      return toBigDecimal(num).toBigInteger();
+    }
+
+    return BigInteger.valueOf(num.longValue());
+  }
+
+  /**
+   * Converts the number to a {@link BigDecimal}. Floating point values are converted with their
+   * exact binary value (for example, 0.1 is actually 0.1000000000000000055511151231257827...).
+   *
+   * @param num The number to convert
+   * @return The converted number
+   */
+  static BigDecimal toBigDecimal(Number num) {
+    if (num instanceof BigDecimal) {
+      return (BigDecimal) num;
+    } else if (num instanceof BigInteger) {
+      return new BigDecimal((BigInteger) num);
+    } else if (num instanceof Decimal) {
+      return ((Decimal) num).toBigDecimal();
+    } else if (isFloatingPoint(num)) {
+      double value = num.doubleValue();
+
+      if (Double.isNaN(value) || Double.isInfinite(value)) {
+        throw new NumberUtilError("No decimal value for "
+            + value);
+      }
+
+      return new BigDecimal(value);
+    }
+
+    return BigDecimal.valueOf(num.longValue());
+  }
+
+  /**
+   * Converts the number to a {@link Decimal}. Values with more than {@link Decimal#MAX_SCALE}
+   * decimals are rounded with {@link RoundingMode#HALF_EVEN}.
+   *
+   * @param num The number to convert
+   * @return The converted number
+   */
+  static Decimal toDecimal(Number num) {
+    if (num instanceof Decimal) {
+      return (Decimal) num;
+    } else if (!(num instanceof BigDecimal || num instanceof BigInteger || isFloatingPoint(num))) {
+      return Decimal.valueOf(num.longValue());
+    }
+
+    BigDecimal value = toBigDecimal(num);
+    if (value.scale() > Decimal.MAX_SCALE) {
+      value = value.setScale(Decimal.MAX_SCALE, RoundingMode.HALF_EVEN).stripTrailingZeros();
+    }
+    return Decimal.valueOf(value);
+  }
+
+  private static boolean isFloatingPoint(Number num) {
+    return num instanceof Double || num instanceof Float || num instanceof DoubleAdder
+        || num instanceof DoubleAccumulator;
+  }
+
+
+  /************************************************************************************
+   * Operations on <code>int</code> values.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  public static final class OfInt extends NumberOps<Integer> {
+
+    private OfInt() {}
+
+    @Override
+    public Class<Integer> getType() {
+      return Integer.class;
+    }
+
+    /**
+     * Converts the number to an <code>int</code> value, like {@link Number#intValue()}.
+     *
+     * @param num The number to convert
+     * @return The converted value
+     */
+    public int value(Number num) {
+      return num.intValue();
+    }
+
+    @Override
+    public Integer valueOf(Number num) {
+      return num.intValue();
+    }
+
+    /**
+     * Adds num1 + num2. The result overflows like with the Java operator, it is not widened
+     * (see {@link #addExact(Number, Number)}).
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public int add(int num1, int num2) {
+      return num1 + num2;
+    }
+
+    @Override
+    public Integer add(Number num1, Number num2) {
+      return add(num1.intValue(), num2.intValue());
+    }
+
+    /**
+     * Subtracts num1 - num2. The result overflows like with the Java operator, it is not widened
+     * (see {@link #subtractExact(Number, Number)}).
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public int subtract(int num1, int num2) {
+      return num1 - num2;
+    }
+
+    @Override
+    public Integer subtract(Number num1, Number num2) {
+      return subtract(num1.intValue(), num2.intValue());
+    }
+
+    /**
+     * Multiplies num1 * num2. The result overflows like with the Java operator, it is not widened
+     * (see {@link #multiplyExact(Number, Number)}).
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public int multiply(int num1, int num2) {
+      return num1 * num2;
+    }
+
+    @Override
+    public Integer multiply(Number num1, Number num2) {
+      return multiply(num1.intValue(), num2.intValue());
+    }
+
+    /**
+     * Divides num1 / num2. The quotient is truncated towards zero.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     * @throws ArithmeticException If num2 is zero
+     */
+    public int divide(int num1, int num2) {
+      return num1 / num2;
+    }
+
+    @Override
+    public Integer divide(Number num1, Number num2) {
+      return divide(num1.intValue(), num2.intValue());
+    }
+
+    /**
+     * Calculates the remainder num1 % num2, which has the sign of num1.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     * @throws ArithmeticException If num2 is zero
+     */
+    public int remainder(int num1, int num2) {
+      return num1 % num2;
+    }
+
+    @Override
+    public Integer remainder(Number num1, Number num2) {
+      return remainder(num1.intValue(), num2.intValue());
+    }
+
+    /**
+     * Checks if num1 > num2.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public boolean gt(int num1, int num2) {
+      return num1 > num2;
+    }
+
+    @Override
+    public boolean gt(Number num1, Number num2) {
+      return gt(num1.intValue(), num2.intValue());
+    }
+
+    /**
+     * Checks if num1 < num2.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public boolean lt(int num1, int num2) {
+      return num1 < num2;
+    }
+
+    @Override
+    public boolean lt(Number num1, Number num2) {
+      return lt(num1.intValue(), num2.intValue());
+    }
+
+    @Override
+    public Number addExact(Number num1, Number num2) {
+      return narrow((long) num1.intValue() + num2.intValue());
+    }
+
+    @Override
+    public Number subtractExact(Number num1, Number num2) {
+      return narrow((long) num1.intValue() - num2.intValue());
+    }
+
+    @Override
+    public Number multiplyExact(Number num1, Number num2) {
+      return narrow((long) num1.intValue() * num2.intValue());
+    }
+
+    @Override
+    public Number divideExact(Number num1, Number num2) {
+      return narrow((long) num1.intValue() / num2.intValue());
+    }
+
+    /**
+     * Returns the result as <code>int</code> if it fits, otherwise as <code>long</code>.
+     *
+     * @param result The result
+     * @return The narrowest result
+     */
+    private static Number narrow(long result) {
+      if (result == (int) result) {
+        return (int) result;
+      }
+      return result;
+    }
+
+
+  }
+
+
+  /************************************************************************************
+   * Operations on <code>long</code> values.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  public static final class OfLong extends NumberOps<Long> {
+
+    private OfLong() {}
+
+    @Override
+    public Class<Long> getType() {
+      return Long.class;
+    }
+
+    /**
+     * Converts the number to a <code>long</code> value, like {@link Number#longValue()}.
+     *
+     * @param num The number to convert
+     * @return The converted value
+     */
+    public long value(Number num) {
+      return num.longValue();
+    }
+
+    @Override
+    public Long valueOf(Number num) {
+      return num.longValue();
+    }
+
+    /**
+     * Adds num1 + num2. The result overflows like with the Java operator, it is not widened
+     * (see {@link #addExact(Number, Number)}).
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public long add(long num1, long num2) {
+      return num1 + num2;
+    }
+
+    @Override
+    public Long add(Number num1, Number num2) {
+      return add(num1.longValue(), num2.longValue());
+    }
+
+    /**
+     * Subtracts num1 - num2. The result overflows like with the Java operator, it is not widened
+     * (see {@link #subtractExact(Number, Number)}).
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public long subtract(long num1, long num2) {
+      return num1 - num2;
+    }
+
+    @Override
+    public Long subtract(Number num1, Number num2) {
+      return subtract(num1.longValue(), num2.longValue());
+    }
+
+    /**
+     * Multiplies num1 * num2. The result overflows like with the Java operator, it is not widened
+     * (see {@link #multiplyExact(Number, Number)}).
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public long multiply(long num1, long num2) {
+      return num1 * num2;
+    }
+
+    @Override
+    public Long multiply(Number num1, Number num2) {
+      return multiply(num1.longValue(), num2.longValue());
+    }
+
+    /**
+     * Divides num1 / num2. The quotient is truncated towards zero.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     * @throws ArithmeticException If num2 is zero
+     */
+    public long divide(long num1, long num2) {
+      return num1 / num2;
+    }
+
+    @Override
+    public Long divide(Number num1, Number num2) {
+      return divide(num1.longValue(), num2.longValue());
+    }
+
+    /**
+     * Calculates the remainder num1 % num2, which has the sign of num1.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     * @throws ArithmeticException If num2 is zero
+     */
+    public long remainder(long num1, long num2) {
+      return num1 % num2;
+    }
+
+    @Override
+    public Long remainder(Number num1, Number num2) {
+      return remainder(num1.longValue(), num2.longValue());
+    }
+
+    /**
+     * Checks if num1 > num2.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public boolean gt(long num1, long num2) {
+      return num1 > num2;
+    }
+
+    @Override
+    public boolean gt(Number num1, Number num2) {
+      return gt(num1.longValue(), num2.longValue());
+    }
+
+    /**
+     * Checks if num1 < num2.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public boolean lt(long num1, long num2) {
+      return num1 < num2;
+    }
+
+    @Override
+    public boolean lt(Number num1, Number num2) {
+      return lt(num1.longValue(), num2.longValue());
+    }
+
+    @Override
+    public Number addExact(Number num1, Number num2) {
+      long value1 = num1.longValue();
+      long value2 = num2.longValue();
+      long result = value1 + value2;
+
+      // Same check as Math.addExact: overflow if both values have the other sign than the result
+      if (((value1 ^ result) & (value2 ^ result)) < 0) {
+        return BigInteger.valueOf(value1).add(BigInteger.valueOf(value2));
+      }
+      return result;
+    }
+
+    @Override
+    public Number subtractExact(Number num1, Number num2) {
+      long value1 = num1.longValue();
+      long value2 = num2.longValue();
+      long result = value1 - value2;
+
+      if (((value1 ^ value2) & (value1 ^ result)) < 0) {
+        return BigInteger.valueOf(value1).subtract(BigInteger.valueOf(value2));
+      }
+      return result;
+    }
+
+    @Override
+    public Number multiplyExact(Number num1, Number num2) {
+      long value1 = num1.longValue();
+      long value2 = num2.longValue();
+      long result = value1 * value2;
+
+      // The product fits if the upper 64 bits only contain the sign of the lower 64 bits
+      if (MathOps.multiplyHigh(value1, value2) != (result >> 63)) {
+        return BigInteger.valueOf(value1).multiply(BigInteger.valueOf(value2));
+      }
+      return result;
+    }
+
+    @Override
+    public Number divideExact(Number num1, Number num2) {
+      long value1 = num1.longValue();
+      long value2 = num2.longValue();
+
+      if (value1 == Long.MIN_VALUE && value2 == -1) {
+        return BigInteger.valueOf(value1).negate();
+      }
+      return value1 / value2;
+    }
+
+
+  }
+
+
+  /************************************************************************************
+   * Operations on <code>float</code> values.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  public static final class OfFloat extends NumberOps<Float> {
+
+    private OfFloat() {}
+
+    @Override
+    public Class<Float> getType() {
+      return Float.class;
+    }
+
+    /**
+     * Converts the number to a <code>float</code> value, like {@link Number#floatValue()}.
+     *
+     * @param num The number to convert
+     * @return The converted value
+     */
+    public float value(Number num) {
+      return num.floatValue();
+    }
+
+    @Override
+    public Float valueOf(Number num) {
+      return num.floatValue();
+    }
+
+    /**
+     * Adds num1 + num2.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public float add(float num1, float num2) {
+      return num1 + num2;
+    }
+
+    @Override
+    public Float add(Number num1, Number num2) {
+      return add(num1.floatValue(), num2.floatValue());
+    }
+
+    /**
+     * Subtracts num1 - num2.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public float subtract(float num1, float num2) {
+      return num1 - num2;
+    }
+
+    @Override
+    public Float subtract(Number num1, Number num2) {
+      return subtract(num1.floatValue(), num2.floatValue());
+    }
+
+    /**
+     * Multiplies num1 * num2.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public float multiply(float num1, float num2) {
+      return num1 * num2;
+    }
+
+    @Override
+    public Float multiply(Number num1, Number num2) {
+      return multiply(num1.floatValue(), num2.floatValue());
+    }
+
+    /**
+     * Divides num1 / num2. A division by zero results in an infinite value, or NaN if num1 is
+     * zero or NaN as well.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public float divide(float num1, float num2) {
+      return num1 / num2;
+    }
+
+    @Override
+    public Float divide(Number num1, Number num2) {
+      return divide(num1.floatValue(), num2.floatValue());
+    }
+
+    /**
+     * Calculates the remainder num1 % num2, which has the sign of num1. The remainder of a
+     * division by zero is NaN.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public float remainder(float num1, float num2) {
+      return num1 % num2;
+    }
+
+    @Override
+    public Float remainder(Number num1, Number num2) {
+      return remainder(num1.floatValue(), num2.floatValue());
+    }
+
+    /**
+     * Checks if num1 > num2. Always <code>false</code> if one of the numbers is NaN.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public boolean gt(float num1, float num2) {
+      return num1 > num2;
+    }
+
+    @Override
+    public boolean gt(Number num1, Number num2) {
+      return gt(num1.floatValue(), num2.floatValue());
+    }
+
+    /**
+     * Checks if num1 < num2. Always <code>false</code> if one of the numbers is NaN.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public boolean lt(float num1, float num2) {
+      return num1 < num2;
+    }
+
+    @Override
+    public boolean lt(Number num1, Number num2) {
+      return lt(num1.floatValue(), num2.floatValue());
+    }
+
+    @Override
+    public Number addExact(Number num1, Number num2) {
+      float value1 = num1.floatValue();
+      float value2 = num2.floatValue();
+      float result = value1 + value2;
+
+      if (isOverflow(result, value1, value2)) {
+        return (double) value1 + value2;
+      }
+      return result;
+    }
+
+    @Override
+    public Number subtractExact(Number num1, Number num2) {
+      return addExact(num1, -num2.floatValue());
+    }
+
+    @Override
+    public Number multiplyExact(Number num1, Number num2) {
+      float value1 = num1.floatValue();
+      float value2 = num2.floatValue();
+      float result = value1 * value2;
+
+      if (isOverflow(result, value1, value2)) {
+        return (double) value1 * value2;
+      }
+      return result;
+    }
+
+    @Override
+    public Number divideExact(Number num1, Number num2) {
+      float value1 = num1.floatValue();
+      float value2 = num2.floatValue();
+      float result = value1 / value2;
+
+      // Division by zero results in an infinite value, like the division of floats does
+      if (value2 != 0 && isOverflow(result, value1, value2)) {
+        return (double) value1 / value2;
+      }
+      return result;
+    }
+
+    /**
+     * Checks if the result of an operation overflowed. The results of <code>float</code>
+     * operations always fit into a <code>double</code>.
+     *
+     * @param result The result
+     * @param value1 The first value of the operation
+     * @param value2 The second value of the operation
+     * @return True if the result is infinite, but not the values
+     */
+    private static boolean isOverflow(float result, float value1, float value2) {
+      return Float.isInfinite(result) && Float.isFinite(value1) && Float.isFinite(value2);
+    }
+
+
+  }
+
+
+  /************************************************************************************
+   * Operations on <code>double</code> values.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  public static final class OfDouble extends NumberOps<Double> {
+
+    private OfDouble() {}
+
+    @Override
+    public Class<Double> getType() {
+      return Double.class;
+    }
+
+    /**
+     * Converts the number to a <code>double</code> value, like {@link Number#doubleValue()}.
+     *
+     * @param num The number to convert
+     * @return The converted value
+     */
+    public double value(Number num) {
+      return num.doubleValue();
+    }
+
+    @Override
+    public Double valueOf(Number num) {
+      return num.doubleValue();
+    }
+
+    /**
+     * Adds num1 + num2.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public double add(double num1, double num2) {
+      return num1 + num2;
+    }
+
+    @Override
+    public Double add(Number num1, Number num2) {
+      return add(num1.doubleValue(), num2.doubleValue());
+    }
+
+    /**
+     * Subtracts num1 - num2.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public double subtract(double num1, double num2) {
+      return num1 - num2;
+    }
+
+    @Override
+    public Double subtract(Number num1, Number num2) {
+      return subtract(num1.doubleValue(), num2.doubleValue());
+    }
+
+    /**
+     * Multiplies num1 * num2.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public double multiply(double num1, double num2) {
+      return num1 * num2;
+    }
+
+    @Override
+    public Double multiply(Number num1, Number num2) {
+      return multiply(num1.doubleValue(), num2.doubleValue());
+    }
+
+    /**
+     * Divides num1 / num2. A division by zero results in an infinite value, or NaN if num1 is
+     * zero or NaN as well.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public double divide(double num1, double num2) {
+      return num1 / num2;
+    }
+
+    @Override
+    public Double divide(Number num1, Number num2) {
+      return divide(num1.doubleValue(), num2.doubleValue());
+    }
+
+    /**
+     * Calculates the remainder num1 % num2, which has the sign of num1. The remainder of a
+     * division by zero is NaN.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public double remainder(double num1, double num2) {
+      return num1 % num2;
+    }
+
+    @Override
+    public Double remainder(Number num1, Number num2) {
+      return remainder(num1.doubleValue(), num2.doubleValue());
+    }
+
+    /**
+     * Checks if num1 > num2. Always <code>false</code> if one of the numbers is NaN.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public boolean gt(double num1, double num2) {
+      return num1 > num2;
+    }
+
+    @Override
+    public boolean gt(Number num1, Number num2) {
+      return gt(num1.doubleValue(), num2.doubleValue());
+    }
+
+    /**
+     * Checks if num1 < num2. Always <code>false</code> if one of the numbers is NaN.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    public boolean lt(double num1, double num2) {
+      return num1 < num2;
+    }
+
+    @Override
+    public boolean lt(Number num1, Number num2) {
+      return lt(num1.doubleValue(), num2.doubleValue());
+    }
+
+    @Override
+    public Number addExact(Number num1, Number num2) {
+      double value1 = num1.doubleValue();
+      double value2 = num2.doubleValue();
+      double result = value1 + value2;
+
+      if (isOverflow(result, value1, value2)) {
+        return toBigDecimal(value1).add(toBigDecimal(value2));
+      }
+      return result;
+    }
+
+    @Override
+    public Number subtractExact(Number num1, Number num2) {
+      return addExact(num1, -num2.doubleValue());
+    }
+
+    @Override
+    public Number multiplyExact(Number num1, Number num2) {
+      double value1 = num1.doubleValue();
+      double value2 = num2.doubleValue();
+      double result = value1 * value2;
+
+      if (isOverflow(result, value1, value2)) {
+        return toBigDecimal(value1).multiply(toBigDecimal(value2));
+      }
+      return result;
+    }
+
+    @Override
+    public Number divideExact(Number num1, Number num2) {
+      double value1 = num1.doubleValue();
+      double value2 = num2.doubleValue();
+      double result = value1 / value2;
+
+      // Division by zero results in an infinite value, like the division of doubles does
+      if (value2 != 0 && isOverflow(result, value1, value2)) {
+        return BIG_DECIMAL.divideExact(value1, value2);
+      }
+      return result;
+    }
+
+    /**
+     * Checks if the result of an operation overflowed.
+     *
+     * @param result The result
+     * @param value1 The first value of the operation
+     * @param value2 The second value of the operation
+     * @return True if the result is infinite, but not the values
+     */
+    private static boolean isOverflow(double result, double value1, double value2) {
+      return Double.isInfinite(result) && Double.isFinite(value1) && Double.isFinite(value2);
+    }
+
+
+  }
+
+
+  /************************************************************************************
+   * Operations on {@link Decimal} values. Multiplications and divisions are rounded with
+   * {@link RoundingMode#HALF_EVEN} to the larger scale of the two numbers. The exact operations
+   * widen to a {@link BigDecimal} if the result does not fit into a {@link Decimal}.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  public static final class OfDecimal extends NumberOps<Decimal> {
+
+    private OfDecimal() {}
+
+    @Override
+    public Class<Decimal> getType() {
+      return Decimal.class;
+    }
+
+    @Override
+    public Decimal valueOf(Number num) {
+      return toDecimal(num);
+    }
+
+    @Override
+    public Decimal add(Number num1, Number num2) {
+      return toDecimal(num1).add(toDecimal(num2));
+    }
+
+    @Override
+    public Decimal subtract(Number num1, Number num2) {
+      return toDecimal(num1).subtract(toDecimal(num2));
+    }
+
+    @Override
+    public Decimal multiply(Number num1, Number num2) {
+      Decimal value1 = toDecimal(num1);
+      Decimal value2 = toDecimal(num2);
+      return value1.multiply(value2, Math.max(value1.getScale(), value2.getScale()),
+          RoundingMode.HALF_EVEN);
+    }
+
+    @Override
+    public Decimal divide(Number num1, Number num2) {
+      Decimal value1 = toDecimal(num1);
+      Decimal value2 = toDecimal(num2);
+      return value1.divide(value2, Math.max(value1.getScale(), value2.getScale()),
+          RoundingMode.HALF_EVEN);
+    }
+
+    @Override
+    public Decimal remainder(Number num1, Number num2) {
+      return toDecimal(num1).remainder(toDecimal(num2));
+    }
+
+    @Override
+    public boolean gt(Number num1, Number num2) {
+      return toDecimal(num1).compareTo(toDecimal(num2)) > 0;
+    }
+
+    @Override
+    public boolean lt(Number num1, Number num2) {
+      return toDecimal(num1).compareTo(toDecimal(num2)) < 0;
+    }
+
+    @Override
+    public Number addExact(Number num1, Number num2) {
+      try {
+        return add(num1, num2);
+      } catch (ArithmeticException e) {
+        return BIG_DECIMAL.add(num1, num2);
+      }
+    }
+
+    @Override
+    public Number subtractExact(Number num1, Number num2) {
+      try {
+        return subtract(num1, num2);
+      } catch (ArithmeticException e) {
+        return BIG_DECIMAL.subtract(num1, num2);
+      }
+    }
+
+    @Override
+    public Number multiplyExact(Number num1, Number num2) {
+      Decimal value1 = toDecimal(num1);
+      Decimal value2 = toDecimal(num2);
+
+      if (value1.getScale() + value2.getScale() <= Decimal.MAX_SCALE) {
+        try {
+          return value1.multiply(value2);
+        } catch (ArithmeticException e) {
+          // Widened below
+        }
+      }
+      return narrow(BIG_DECIMAL.multiply(value1, value2));
+    }
+
+    /**
+     * Divides num1 / num2. The quotient is a {@link Decimal} if it has a terminating decimal
+     * expansion which fits, otherwise a {@link BigDecimal} like
+     * {@link OfBigDecimal#divideExact(Number, Number)}.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    @Override
+    public Number divideExact(Number num1, Number num2) {
+      Number result = BIG_DECIMAL.divideExact(toDecimal(num1), toDecimal(num2));
+      return narrow((BigDecimal) result);
+    }
+
+    /**
+     * Returns the result as {@link Decimal} if it fits.
+     *
+     * @param result The exact result
+     * @return The narrowest result
+     */
+    private static Number narrow(BigDecimal result) {
+      BigDecimal value = result;
+      if (value.scale() > Decimal.MAX_SCALE) {
+        value = value.stripTrailingZeros();
+      }
+
+      if (value.scale() <= Decimal.MAX_SCALE
+          && value.setScale(Math.max(value.scale(), 0)).unscaledValue().bitLength() < 64) {
+        return Decimal.valueOf(value);
+      }
+      return result;
+    }
+
+
+  }
+
+
+  /************************************************************************************
+   * Operations on {@link BigInteger} values. Other numbers are converted with
+   * {@link BigInteger#valueOf(long)}, decimals are truncated.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  public static final class OfBigInteger extends NumberOps<BigInteger> {
+
+    private OfBigInteger() {}
+
+    @Override
+    public Class<BigInteger> getType() {
+      return BigInteger.class;
+    }
+
+    @Override
+    public BigInteger valueOf(Number num) {
+      return toBigInteger(num);
+    }
+
+    @Override
+    public BigInteger add(Number num1, Number num2) {
+      return toBigInteger(num1).add(toBigInteger(num2));
+    }
+
+    @Override
+    public BigInteger subtract(Number num1, Number num2) {
+      return toBigInteger(num1).subtract(toBigInteger(num2));
+    }
+
+    @Override
+    public BigInteger multiply(Number num1, Number num2) {
+      return toBigInteger(num1).multiply(toBigInteger(num2));
+    }
+
+    @Override
+    public BigInteger divide(Number num1, Number num2) {
+      return toBigInteger(num1).divide(toBigInteger(num2));
+    }
+
+    @Override
+    public BigInteger remainder(Number num1, Number num2) {
+      return toBigInteger(num1).remainder(toBigInteger(num2));
+    }
+
+    @Override
+    public boolean gt(Number num1, Number num2) {
+      return toBigInteger(num1).compareTo(toBigInteger(num2)) > 0;
+    }
+
+    @Override
+    public boolean lt(Number num1, Number num2) {
+      return toBigInteger(num1).compareTo(toBigInteger(num2)) < 0;
+    }
+
+    @Override
+    public Number addExact(Number num1, Number num2) {
+      return add(num1, num2);
+    }
+
+    @Override
+    public Number subtractExact(Number num1, Number num2) {
+      return subtract(num1, num2);
+    }
+
+    @Override
+    public Number multiplyExact(Number num1, Number num2) {
+      return multiply(num1, num2);
+    }
+
+    @Override
+    public Number divideExact(Number num1, Number num2) {
+      return divide(num1, num2);
+    }
+
+
+  }
+
+
+  /************************************************************************************
+   * Operations on {@link BigDecimal} values. Floating point numbers are converted with their
+   * exact binary value. Divisions are rounded to {@link NumberOps#DIVISION_CONTEXT}.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  public static final class OfBigDecimal extends NumberOps<BigDecimal> {
+
+    private OfBigDecimal() {}
+
+    @Override
+    public Class<BigDecimal> getType() {
+      return BigDecimal.class;
+    }
+
+    @Override
+    public BigDecimal valueOf(Number num) {
+      return toBigDecimal(num);
+    }
+
+    @Override
+    public BigDecimal add(Number num1, Number num2) {
+      return toBigDecimal(num1).add(toBigDecimal(num2));
+    }
+
+    @Override
+    public BigDecimal subtract(Number num1, Number num2) {
+      return toBigDecimal(num1).subtract(toBigDecimal(num2));
+    }
+
+    @Override
+    public BigDecimal multiply(Number num1, Number num2) {
+      return toBigDecimal(num1).multiply(toBigDecimal(num2));
+    }
+
+    @Override
+    public BigDecimal divide(Number num1, Number num2) {
+      return toBigDecimal(num1).divide(toBigDecimal(num2), DIVISION_CONTEXT);
+    }
+
+    @Override
+    public BigDecimal remainder(Number num1, Number num2) {
+      return toBigDecimal(num1).remainder(toBigDecimal(num2));
+    }
+
+    @Override
+    public boolean gt(Number num1, Number num2) {
+      return toBigDecimal(num1).compareTo(toBigDecimal(num2)) > 0;
+    }
+
+    @Override
+    public boolean lt(Number num1, Number num2) {
+      return toBigDecimal(num1).compareTo(toBigDecimal(num2)) < 0;
+    }
+
+    @Override
+    public Number addExact(Number num1, Number num2) {
+      return add(num1, num2);
+    }
+
+    @Override
+    public Number subtractExact(Number num1, Number num2) {
+      return subtract(num1, num2);
+    }
+
+    @Override
+    public Number multiplyExact(Number num1, Number num2) {
+      return multiply(num1, num2);
+    }
+
+    /**
+     * Divides num1 / num2. The quotient is exact if it has a terminating decimal expansion, and
+     * is rounded to {@link NumberOps#DIVISION_CONTEXT} otherwise.
+     *
+     * @param num1 The first number
+     * @param num2 The second number
+     * @return The result of the operation
+     */
+    @Override
+    public Number divideExact(Number num1, Number num2) {
+      BigDecimal value1 = toBigDecimal(num1);
+      BigDecimal value2 = toBigDecimal(num2);
+
+      try {
+        return value1.divide(value2);
+      } catch (ArithmeticException e) {
+        if (value2.signum() == 0) {
+          throw e;
+        }
+        // No terminating decimal expansion
+        return value1.divide(value2, DIVISION_CONTEXT);
+      }
+    }
+
+
+  }
+
+}
@@ -0,0 +1,673 @@
+package ch.thn.util.number;
+
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.text.ParsePosition;
+import java.util.Locale;
+
+/**
+ * Parses numbers which have been formatted with a {@link NumberFormatSpec} (see
+ * {@link NumberUtil#formatNumber(Number, NumberFormatSpec)} and {@link NumberFormatter}) back into
+ * primitive values. The text can be read from a range of a {@link CharSequence} or of a UTF-8
+ * encoded <code>byte[]</code>, without creating any objects.<br />
+ * <br />
+ * The whole range has to be the number: the prefix (sign, currency symbol) and suffix (percent
+ * sign) of the spec, the digits, grouping separators in the integer part and at most one decimal
+ * separator. Percentages are divided by 100 again, like {@link DecimalFormat#parse(String)} does.
+ * Anything else results in a {@link NumberFormatException}.<br />
+ * <br />
+ * Values with up to 18 significant digits are converted to <code>double</code> with exact
+ * arithmetic when possible. Longer values are converted by the {@link DecimalFormat} of the spec,
+ * so that all results are correctly rounded.<br />
+ * <br />
+ * A parser is immutable and can be used by multiple threads at the same time.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public final class NumberParser {
+
+  /** The maximum number of digits which always fit into a long. */
+  private static final int MAX_DIGITS = 18;
+
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+  private static final int MAX_EXACT_EXPONENT = DecimalRounding.MAX_EXACT_DECIMALS;
+
+  private static final double[] POWERS_OF_TEN = new double[DecimalRounding.MAX_EXACT_DECIMALS + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  // The character views on the byte arrays, reused by each thread
+  private static final ThreadLocal<Latin1Chars> views = ThreadLocal.withInitial(Latin1Chars::new);
+
+  private final NumberFormatter formatter;
+
+  /** Only used for the values which are not parsed by this class. Not thread safe. */
+  private final DecimalFormat format;
+
+  private final Symbols charSymbols;
+  private final Symbols byteSymbols;
+
+  private final boolean grouping;
+  private final int multiplier;
+
+
+  /**
+   * A parser for the current default {@link Locale.Category#FORMAT} locale.
+   *
+   * @param spec The formatting options
+   */
+  public NumberParser(NumberFormatSpec spec) {
+    this(new NumberFormatter(spec));
+  }
+
+  /**
+   * A parser for the given locale.
+   *
+   * @param spec The formatting options
+   * @param locale The locale for the symbols
+   */
+  public NumberParser(NumberFormatSpec spec, Locale locale) {
+    this(new NumberFormatter(spec, locale));
+  }
+
+  /**
+   * A parser for the numbers formatted by the given formatter.
+   *
+   * @param formatter The formatter
+   */
+  public NumberParser(NumberFormatter formatter) {
+    this.formatter = formatter;
+    this.format = (DecimalFormat) formatter.format.clone();
+    this.grouping = formatter.groupingSize > 0;
+    this.multiplier = formatter.multiplier;
+    this.charSymbols = new Symbols(formatter, false);
+    this.byteSymbols = new Symbols(formatter, true);
+  }
+
+  public NumberFormatter getFormatter() {
+    return formatter;
+  }
+
+  /**
+   * Parses the whole text.
+   *
+   * @param text The text to parse
+   * @return The parsed value
+   * @throws NumberFormatException If the text is not a number of this format
+   */
+  public double parseDouble(CharSequence text) {
+    return parseDouble(text, 0, text.length());
+  }
+
+  /**
+   * Parses the characters from start (inclusive) to end (exclusive).
+   *
+   * @param text The text to parse
+   * @param start The first character
+   * @param end The end of the range
+   * @return The parsed value
+   * @throws NumberFormatException If the range is not a number of this format
+   */
+  public double parseDouble(CharSequence text, int start, int end) {
+    checkRange(text.length(), start, end);
+    return parseDouble(text, start, end, charSymbols);
+  }
+
+  /**
+   * Parses the UTF-8 encoded bytes from start (inclusive) to end (exclusive).
+   *
+   * @param text The text to parse
+   * @param start The first byte
+   * @param end The end of the range
+   * @return The parsed value
+   * @throws NumberFormatException If the range is not a number of this format
+   */
+  public double parseDouble(byte[] text, int start, int end) {
+    checkRange(text.length, start, end);
+    return parseDouble(views.get().wrap(text), start, end, byteSymbols);
+  }
+
+  private double parseDouble(CharSequence text, int start, int end, Symbols symbols) {
+    if (symbols.matchesExactly(symbols.nan, text, start, end)) {
+      return Double.NaN;
+    }
+
+    int sign = sign(text, start, end, symbols);
+    boolean negative = sign < 0;
+    int pos = start + (negative ? symbols.negativePrefix.length : symbols.positivePrefix.length);
+    int digitsEnd =
+        end - (negative ? symbols.negativeSuffix.length : symbols.positiveSuffix.length);
+
+    if (symbols.matchesExactly(symbols.infinity, text, pos, digitsEnd)) {
+      return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean dropped = false;
+    boolean anyDigit = false;
+    boolean decimal = false;
+
+    while (pos < digitsEnd) {
+      int digit = symbols.digit(text.charAt(pos));
+
+      if (digit >= 0) {
+        anyDigit = true;
+        if (digits < MAX_DIGITS) {
+          if (mantissa != 0 || digit != 0) {
+            mantissa = mantissa * 10 + digit;
+            digits++;
+          }
+          if (decimal) {
+            exponent--;
+          }
+        } else {
+          // Only the exponent is kept for further digits
+          dropped |= digit != 0;
+          if (!decimal) {
+            exponent++;
+          }
+        }
+        pos++;
+      } else if (!decimal && symbols.matches(symbols.decimalSeparator, text, pos, digitsEnd)) {
+        decimal = true;
+        pos += symbols.decimalSeparator.length;
+      } else if (!decimal && grouping
+          && symbols.matches(symbols.groupingSeparator, text, pos, digitsEnd)) {
+        pos += symbols.groupingSeparator.length;
+      } else if (symbols.zeroDigit != formatter.zeroDigit) {
+        // Digits which are not ASCII digits in the bytes
+        return fallback(text, start, end, symbols).doubleValue();
+      } else {
+        throw unparseable(text, start, end);
+      }
+    }
+
+    if (!anyDigit) {
+      throw unparseable(text, start, end);
+    }
+
+    double value;
+    if (mantissa == 0) {
+      value = 0;
+    } else if (!dropped && mantissa <= MAX_EXACT_MANTISSA && exponent >= -MAX_EXACT_EXPONENT
+        && exponent <= MAX_EXACT_EXPONENT) {
+      // Both values are exact, so the result is correctly rounded
+      value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent]
+          : mantissa * POWERS_OF_TEN[exponent];
+    } else {
+      return fallback(text, start, end, symbols).doubleValue();
+    }
+
+    if (multiplier != 1) {
+      value /= multiplier;
+    }
+
+    return negative ? -value : value;
+  }
+
+  /**
+   * Parses the whole text.
+   *
+   * @param text The text to parse
+   * @return The parsed value
+   * @throws NumberFormatException If the text is not a number of this format, or if it has a
+   *         fractional part or does not fit into a <code>long</code>
+   */
+  public long parseLong(CharSequence text) {
+    return parseLong(text, 0, text.length());
+  }
+
+  /**
+   * Parses the characters from start (inclusive) to end (exclusive).
+   *
+   * @param text The text to parse
+   * @param start The first character
+   * @param end The end of the range
+   * @return The parsed value
+   * @throws NumberFormatException If the range is not a number of this format, or if it has a
+   *         fractional part or does not fit into a <code>long</code>
+   */
+  public long parseLong(CharSequence text, int start, int end) {
+    checkRange(text.length(), start, end);
+    return parseLong(text, start, end, charSymbols);
+  }
+
+  /**
+   * Parses the UTF-8 encoded bytes from start (inclusive) to end (exclusive).
+   *
+   * @param text The text to parse
+   * @param start The first byte
+   * @param end The end of the range
+   * @return The parsed value
+   * @throws NumberFormatException If the range is not a number of this format, or if it has a
+   *         fractional part or does not fit into a <code>long</code>
+   */
+  public long parseLong(byte[] text, int start, int end) {
+    checkRange(text.length, start, end);
+    return parseLong(views.get().wrap(text), start, end, byteSymbols);
+  }
+
+  private long parseLong(CharSequence text, int start, int end, Symbols symbols) {
+    int sign = sign(text, start, end, symbols);
+    boolean negative = sign < 0;
+    int pos = start + (negative ? symbols.negativePrefix.length : symbols.positivePrefix.length);
+    int digitsEnd =
+        end - (negative ? symbols.negativeSuffix.length : symbols.positiveSuffix.length);
+
+    // Accumulated negatively, since the negative range is larger
+    long value = 0;
+    boolean anyDigit = false;
+    boolean decimal = false;
+
+    while (pos < digitsEnd) {
+      int digit = symbols.digit(text.charAt(pos));
+
+      if (digit >= 0) {
+        anyDigit = true;
+        if (decimal) {
+          if (digit != 0) {
+            throw notALong(text, start, end);
+          }
+        } else {
+          if (value < Long.MIN_VALUE / 10 || value * 10 < Long.MIN_VALUE + digit) {
+            // The DecimalFormat decides, since percentages may still fit after the division
+            return fallbackLong(text, start, end, symbols);
+          }
+          value = value * 10 - digit;
+        }
+        pos++;
+      } else if (!decimal && symbols.matches(symbols.decimalSeparator, text, pos, digitsEnd)) {
+        decimal = true;
+        pos += symbols.decimalSeparator.length;
+      } else if (!decimal && grouping
+          && symbols.matches(symbols.groupingSeparator, text, pos, digitsEnd)) {
+        pos += symbols.groupingSeparator.length;
+      } else if (symbols.zeroDigit != formatter.zeroDigit) {
+        // Digits which are not ASCII digits in the bytes
+        return fallbackLong(text, start, end, symbols);
+      } else {
+        throw unparseable(text, start, end);
+      }
+    }
+
+    if (!anyDigit) {
+      throw unparseable(text, start, end);
+    }
+
+    if (multiplier != 1) {
+      if (value % multiplier != 0) {
+        throw notALong(text, start, end);
+      }
+      value /= multiplier;
+    }
+
+    if (!negative) {
+      if (value == Long.MIN_VALUE) {
+        throw notALong(text, start, end);
+      }
+      value = -value;
+    }
+
+    return value;
+  }
+
+  /**
+   * Parses all values in the text, which are separated by the delimiter, into the array. An empty
+   * value after the last delimiter is ignored, so that the text may end with a delimiter. If the
+   * delimiter is <code>'\n'</code>, a <code>'\r'</code> before it is removed as well.
+   *
+   * @param text The values to parse
+   * @param delimiter The character between the values
+   * @param dest The array to store the values in
+   * @param offset The index in the array for the first value
+   * @return The number of values parsed
+   * @throws NumberFormatException If one of the values is not a number of this format
+   * @throws IndexOutOfBoundsException If the array is too small
+   */
+  public int parseDoubles(CharSequence text, char delimiter, double[] dest, int offset) {
+    return parseAll(text, 0, text.length(), delimiter, charSymbols, dest, null, offset);
+  }
+
+  /**
+   * Parses all values in the UTF-8 encoded bytes from start (inclusive) to end (exclusive), which
+   * are separated by the delimiter, into the array. See
+   * {@link #parseDoubles(CharSequence, char, double[], int)}.
+   *
+   * @param text The values to parse
+   * @param start The first byte
+   * @param end The end of the range
+   * @param delimiter The (ASCII) character between the values
+   * @param dest The array to store the values in
+   * @param offset The index in the array for the first value
+   * @return The number of values parsed
+   * @throws NumberFormatException If one of the values is not a number of this format
+   * @throws IndexOutOfBoundsException If the array is too small
+   */
+  public int parseDoubles(byte[] text, int start, int end, byte delimiter, double[] dest,
+      int offset) {
+    checkRange(text.length, start, end);
+    return parseAll(views.get().wrap(text), start, end, (char) (delimiter & 0xFF), byteSymbols,
+        dest, null, offset);
+  }
+
+  /**
+   * Parses all values in the text, which are separated by the delimiter, into the array. An empty
+   * value after the last delimiter is ignored, so that the text may end with a delimiter. If the
+   * delimiter is <code>'\n'</code>, a <code>'\r'</code> before it is removed as well.
+   *
+   * @param text The values to parse
+   * @param delimiter The character between the values
+   * @param dest The array to store the values in
+   * @param offset The index in the array for the first value
+   * @return The number of values parsed
+   * @throws NumberFormatException If one of the values is not a number of this format, has a
+   *         fractional part or does not fit into a <code>long</code>
+   * @throws IndexOutOfBoundsException If the array is too small
+   */
+  public int parseLongs(CharSequence text, char delimiter, long[] dest, int offset) {
+    return parseAll(text, 0, text.length(), delimiter, charSymbols, null, dest, offset);
+  }
+
+  /**
+   * Parses all values in the UTF-8 encoded bytes from start (inclusive) to end (exclusive), which
+   * are separated by the delimiter, into the array. See
+   * {@link #parseLongs(CharSequence, char, long[], int)}.
+   *
+   * @param text The values to parse
+   * @param start The first byte
+   * @param end The end of the range
+   * @param delimiter The (ASCII) character between the values
+   * @param dest The array to store the values in
+   * @param offset The index in the array for the first value
+   * @return The number of values parsed
+   * @throws NumberFormatException If one of the values is not a number of this format, has a
+   *         fractional part or does not fit into a <code>long</code>
+   * @throws IndexOutOfBoundsException If the array is too small
+   */
+  public int parseLongs(byte[] text, int start, int end, byte delimiter, long[] dest,
+      int offset) {
+    checkRange(text.length, start, end);
+    return parseAll(views.get().wrap(text), start, end, (char) (delimiter & 0xFF), byteSymbols,
+        null, dest, offset);
+  }
+
+  /**
+   * Parses the delimited values into one of the arrays.
+   *
+   * @param text The text
+   * @param start The first character
+   * @param end The end of the range
+   * @param delimiter The delimiter
+   * @param symbols The symbols for the text
+   * @param doubles The array for double values, or <code>null</code>
+   * @param longs The array for long values, or <code>null</code>
+   * @param offset The index in the array for the first value
+   * @return The number of values parsed
+   */
+  private int parseAll(CharSequence text, int start, int end, char delimiter, Symbols symbols,
+      double[] doubles, long[] longs, int offset) {
+    int index = offset;
+    int valueStart = start;
+
+    for (int i = start; i <= end; i++) {
+      if (i < end && text.charAt(i) != delimiter) {
+        continue;
+      }
+
+      if (i == end && valueStart == end && i > start) {
+        // Nothing after the last delimiter
+        break;
+      }
+
+      int valueEnd = i;
+      if (delimiter == '\n' && valueEnd > valueStart && text.charAt(valueEnd - 1) == '\r') {
+        valueEnd--;
+      }
+
+      if (doubles != null) {
+        doubles[index] = parseDouble(text, valueStart, valueEnd, symbols);
+      } else {
+        longs[index] = parseLong(text, valueStart, valueEnd, symbols);
+      }
+
+      index++;
+      valueStart = i + 1;
+    }
+
+    return index - offset;
+  }
+
+  /**
+   * Returns the sign of the text, by matching the prefixes and suffixes of the format. The longer
+   * prefix wins if both prefixes match.
+   *
+   * @param text The text
+   * @param start The first character
+   * @param end The end of the range
+   * @param symbols The symbols for the text
+   * @return 1 for positive values, -1 for negative values
+   * @throws NumberFormatException If the text does not have a prefix and suffix of the format
+   */
+  private int sign(CharSequence text, int start, int end, Symbols symbols) {
+    boolean positive = symbols.matches(symbols.positivePrefix, text, start, end)
+        && symbols.endsWith(symbols.positiveSuffix, text,
+            start + symbols.positivePrefix.length, end);
+    boolean negative = symbols.matches(symbols.negativePrefix, text, start, end)
+        && symbols.endsWith(symbols.negativeSuffix, text,
+            start + symbols.negativePrefix.length, end);
+
+    if (positive && negative) {
+      return symbols.negativePrefix.length > symbols.positivePrefix.length ? -1 : 1;
+    } else if (positive) {
+      return 1;
+    } else if (negative) {
+      return -1;
+    }
+
+    throw unparseable(text, start, end);
+  }
+
+  /**
+   * Parses the text with the {@link DecimalFormat}.
+   *
+   * @param text The text
+   * @param start The first character
+   * @param end The end of the range
+   * @param symbols The symbols for the text
+   * @return The parsed value
+   */
+  private Number fallback(CharSequence text, int start, int end, Symbols symbols) {
+    String str = string(text, start, end, symbols);
+    ParsePosition position = new ParsePosition(0);
+    Number value;
+
+    synchronized (format) {
+      value = format.parse(str, position);
+    }
+
+    if (value == null || position.getIndex() != str.length()) {
+      throw unparseable(text, start, end);
+    }
+
+    return value;
+  }
+
+  private long fallbackLong(CharSequence text, int start, int end, Symbols symbols) {
+    Number value = fallback(text, start, end, symbols);
+
+    if (value instanceof Long) {
+      return value.longValue();
+    } else if (value.doubleValue() == 0) {
+      // Negative zero is returned as Double
+      return 0;
+    }
+
+    throw notALong(text, start, end);
+  }
+
+  private static String string(CharSequence text, int start, int end, Symbols symbols) {
+    if (symbols.utf8) {
+      return new String(((Latin1Chars) text).bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+    return text.subSequence(start, end).toString();
+  }
+
+  private static NumberFormatException unparseable(CharSequence text, int start, int end) {
+    return new NumberFormatException("Unparseable number: \""
+        + text.subSequence(start, end)
+        + "\"");
+  }
+
+  private static NumberFormatException notALong(CharSequence text, int start, int end) {
+    return new NumberFormatException("Not a long value: \""
+        + text.subSequence(start, end)
+        + "\"");
+  }
+
+  private static void checkRange(int length, int start, int end) {
+    if (start < 0 || end > length || start > end) {
+      throw new IndexOutOfBoundsException("Range "
+          + start
+          + "-"
+          + end
+          + " out of range for length "
+          + length);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "NumberParser["
+        + format.toPattern()
+        + "]";
+  }
+
+
+  /************************************************************************************
+   * The symbols of the format, either as characters or as UTF-8 bytes (one character per byte,
+   * see {@link Latin1Chars}).
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static final class Symbols {
+
+    private final boolean utf8;
+    private final char[] positivePrefix;
+    private final char[] positiveSuffix;
+    private final char[] negativePrefix;
+    private final char[] negativeSuffix;
+    private final char[] nan;
+    private final char[] infinity;
+    private final char[] groupingSeparator;
+    private final char[] decimalSeparator;
+    /** Digits from this digit on are accepted as well as the ASCII digits. */
+    private final char zeroDigit;
+
+    private Symbols(NumberFormatter formatter, boolean utf8) {
+      this.utf8 = utf8;
+      positivePrefix = encode(formatter.positivePrefix, utf8);
+      positiveSuffix = encode(formatter.positiveSuffix, utf8);
+      negativePrefix = encode(formatter.negativePrefix, utf8);
+      negativeSuffix = encode(formatter.negativeSuffix, utf8);
+      nan = encode(formatter.nan, utf8);
+      infinity = encode(formatter.infinity, utf8);
+      groupingSeparator = encode(new char[] {formatter.groupingSeparator}, utf8);
+      decimalSeparator = encode(new char[] {formatter.decimalSeparator}, utf8);
+      // Only ASCII digits are single bytes
+      zeroDigit = utf8 ? '0' : formatter.zeroDigit;
+    }
+
+    private static char[] encode(char[] chars, boolean utf8) {
+      if (!utf8) {
+        return chars;
+      }
+
+      return new String(new String(chars).getBytes(StandardCharsets.UTF_8),
+          StandardCharsets.ISO_8859_1).toCharArray();
+    }
+
+    private int digit(char c) {
+      if (c >= '0' && c <= '9') {
+        return c - '0';
+      }
+
+      int digit = c - zeroDigit;
+      return digit >= 0 && digit <= 9 ? digit : -1;
+    }
+
+    private boolean matches(char[] symbol, CharSequence text, int pos, int end) {
+      if (symbol.length > end - pos) {
+        return false;
+      }
+
+      for (int i = 0; i < symbol.length; i++) {
+        if (text.charAt(pos + i) != symbol[i]) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    private boolean endsWith(char[] symbol, CharSequence text, int start, int end) {
+      return end - start >= symbol.length && matches(symbol, text, end - symbol.length, end);
+    }
+
+    private boolean matchesExactly(char[] symbol, CharSequence text, int start, int end) {
+      return end - start == symbol.length && matches(symbol, text, start, end);
+    }
+
+  }
+
+
+  /************************************************************************************
+   * A reusable view on a byte array, with one character per byte.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static final class Latin1Chars implements CharSequence {
+
+    private byte[] bytes;
+
+    private Latin1Chars wrap(byte[] bytes) {
+      this.bytes = bytes;
+      return this;
+    }
+
+    @Override
+    public int length() {
+      return bytes.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      return (char) (bytes[index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+  }
+
+}
@@ -0,0 +1,260 @@
+package ch.thn.util.number;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Sorts large amounts of numbers with a radix sort. The numbers are converted once into
+ * <code>long</code> keys whose signed order is the order of the numbers, and the keys are sorted
+ * in up to eight passes over their bytes (passes in which all keys have the same byte are
+ * skipped). This takes linear time, and for arrays with many elements is faster than the
+ * comparison based {@link Arrays#sort(long[])} and much faster than sorting boxed numbers with a
+ * {@link java.util.Comparator}.<br />
+ * <br />
+ * Boxed numbers are sorted in the order of {@link NumberComparator}, and the sort is stable (equal
+ * numbers keep their order, also e.g. 1 and 1.0). Integer numbers are sorted by their
+ * <code>long</code> value, floating point numbers and integer numbers within the exact range of
+ * <code>double</code> (±2^53) by their <code>double</code> value. All other combinations (e.g.
+ * {@link Decimal} or <code>BigDecimal</code> values, or large <code>long</code> values together
+ * with <code>double</code> values) are sorted with {@link NumberComparator}.<br />
+ * <br />
+ * Arrays with less than {@link #RADIX_THRESHOLD} elements are sorted with {@link Arrays#sort}.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ */
+public class NumberSort {
+
+  /** The number of elements from which on the radix sort is used. */
+  public static final int RADIX_THRESHOLD = 1 << 10;
+
+  // The exact integer range of double values
+  private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+  private static final int RADIX_BITS = 8;
+  private static final int RADIX = 1 << RADIX_BITS;
+  private static final int PASSES = Long.SIZE / RADIX_BITS;
+
+
+  /**
+   * Sorts the values in ascending order.
+   *
+   * @param values The values to sort
+   */
+  public static void sort(long[] values) {
+    if (values.length < RADIX_THRESHOLD) {
+      Arrays.sort(values);
+      return;
+    }
+
+    radixSort(values, null, values.length);
+  }
+
+  /**
+   * Sorts the values in ascending order, in the same order as {@link Arrays#sort(double[])}: -0.0
+   * is sorted before 0.0, and NaN values are sorted to the end.
+   *
+   * @param values The values to sort
+   */
+  public static void sort(double[] values) {
+    if (values.length < RADIX_THRESHOLD) {
+      Arrays.sort(values);
+      return;
+    }
+
+    // Move the NaN values to the end, they are all equal
+    int length = values.length;
+    for (int i = 0; i < length;) {
+      if (Double.isNaN(values[i])) {
+        double nan = values[i];
+        values[i] = values[--length];
+        values[length] = nan;
+      } else {
+        i++;
+      }
+    }
+
+    long[] keys = new long[length];
+    for (int i = 0; i < length; i++) {
+      keys[i] = sortableBits(Double.doubleToRawLongBits(values[i]));
+    }
+
+    radixSort(keys, null, length);
+
+    for (int i = 0; i < length; i++) {
+      values[i] = Double.longBitsToDouble(sortableBits(keys[i]));
+    }
+  }
+
+  /**
+   * Sorts the numbers in the order of {@link NumberComparator}. The sort is stable.
+   *
+   * @param values The numbers to sort
+   * @param <T> The type of the numbers
+   */
+  public static <T extends Number> void sort(T[] values) {
+    int length = values.length;
+
+    if (length < RADIX_THRESHOLD) {
+      Arrays.sort(values, NumberComparator.INSTANCE);
+      return;
+    }
+
+    long[] keys = new long[length];
+    boolean integral = false;
+    boolean floating = false;
+    boolean largeIntegral = false;
+
+    for (int i = 0; i < length; i++) {
+      Number num = values[i];
+      int kind = NumberComparator.kind(num);
+
+      if (kind == NumberComparator.INTEGRAL) {
+        long value = num.longValue();
+        keys[i] = value;
+        integral = true;
+        largeIntegral |= value > MAX_EXACT_DOUBLE || value < -MAX_EXACT_DOUBLE;
+      } else if (kind == NumberComparator.FLOATING) {
+        // The canonical NaN, so that all NaN values are equal
+        keys[i] = sortableBits(Double.doubleToLongBits(num.doubleValue()));
+        floating = true;
+      } else {
+        Arrays.sort(values, NumberComparator.INSTANCE);
+        return;
+      }
+
+      if (floating && largeIntegral) {
+        // The long keys would not be exact as double keys
+        Arrays.sort(values, NumberComparator.INSTANCE);
+        return;
+      }
+    }
+
+    if (integral && floating) {
+      // The integer values are exact as double values
+      for (int i = 0; i < length; i++) {
+        if (NumberComparator.kind(values[i]) == NumberComparator.INTEGRAL) {
+          keys[i] = sortableBits(Double.doubleToLongBits(keys[i]));
+        }
+      }
+    }
+
+    int[] indices = new int[length];
+    for (int i = 0; i < length; i++) {
+      indices[i] = i;
+    }
+
+    radixSort(keys, indices, length);
+
+    T[] unsorted = values.clone();
+    for (int i = 0; i < length; i++) {
+      values[i] = unsorted[indices[i]];
+    }
+  }
+
+  /**
+   * Sorts the numbers in the order of {@link NumberComparator}. The sort is stable.
+   *
+   * @param list The numbers to sort
+   * @param <T> The type of the numbers
+   */
+  @SuppressWarnings("unchecked")
+  public static <T extends Number> void sort(List<T> list) {
+    T[] values = (T[]) list.toArray(new Number[list.size()]);
+    sort(values);
+
+    ListIterator<T> iterator = list.listIterator();
+    for (T value : values) {
+      iterator.next();
+      iterator.set(value);
+    }
+  }
+
+  /**
+   * Converts the bits of a <code>double</code> value (not NaN, or the canonical NaN) to a
+   * <code>long</code> value with the same signed order, and back. The bits of negative values are
+   * inverted (except the sign bit), so that a larger magnitude results in a smaller value.
+   *
+   * @param bits The bits
+   * @return The converted bits
+   */
+  private static long sortableBits(long bits) {
+    return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+  }
+
+  /**
+   * Sorts the keys in signed ascending order with a stable least significant digit radix sort.
+   *
+   * @param keys The keys to sort
+   * @param indices The values which belong to the keys and are moved along with them, or
+   *        <code>null</code>
+   * @param length The number of keys to sort, from the start of the array
+   */
+  private static void radixSort(long[] keys, int[] indices, int length) {
+    if (length <= 1) {
+      // Already sorted, e.g. if all values of a double array are NaN
+      return;
+    }
+
+    long[] from = keys;
+    long[] to = new long[length];
+    int[] fromIndices = indices;
+    int[] toIndices = indices == null ? null : new int[length];
+
+    // The counts of all passes in one go over the keys
+    int[] counts = new int[PASSES * RADIX];
+    for (int i = 0; i < length; i++) {
+      long key = keys[i] ^ Long.MIN_VALUE;
+      for (int pass = 0; pass < PASSES; pass++) {
+        counts[pass * RADIX + (int) ((key >>> (pass * RADIX_BITS)) & (RADIX - 1))]++;
+      }
+    }
+
+    for (int pass = 0; pass < PASSES; pass++) {
+      int shift = pass * RADIX_BITS;
+      int offset = pass * RADIX;
+
+      if (counts[offset + digit(from[0], shift)] == length) {
+        // All keys have the same digit
+        continue;
+      }
+
+      // Counts to start positions
+      int position = 0;
+      for (int i = offset; i < offset + RADIX; i++) {
+        int count = counts[i];
+        counts[i] = position;
+        position += count;
+      }
+
+      for (int i = 0; i < length; i++) {
+        int target = counts[offset + digit(from[i], shift)]++;
+        to[target] = from[i];
+        if (fromIndices != null) {
+          toIndices[target] = fromIndices[i];
+        }
+      }
+
+      long[] swap = from;
+      from = to;
+      to = swap;
+      int[] swapIndices = fromIndices;
+      fromIndices = toIndices;
+      toIndices = swapIndices;
+    }
+
+    if (from != keys) {
+      System.arraycopy(from, 0, keys, 0, length);
+      if (indices != null) {
+        System.arraycopy(fromIndices, 0, indices, 0, length);
+      }
+    }
+  }
+
+  private static int digit(long key, int shift) {
+    // The sign bit is flipped, so that the unsigned digits result in the signed order
+    return (int) (((key ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1));
+  }
+
+}
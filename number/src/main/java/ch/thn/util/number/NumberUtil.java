@@ -1,10 +1,19 @@
 package ch.thn.util.number;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Utility methods which handle various number operations and functions related to numbers.<br />
@@ -24,7 +33,10 @@ public class NumberUtil {
     INTEGER,
     LONG,
     FLOAT,
-    DOUBLE;
+    DOUBLE,
+    DECIMAL,
+    BIG_INTEGER,
+    BIG_DECIMAL;
   }
 
   // Number types for easier if/switch etc. usage (so that instanceof does not need to be used)
@@ -32,39 +44,31 @@ public class NumberUtil {
       new LinkedHashMap<Class<?>, OperationType>();
 
   static {
+    types.put(Byte.class, OperationType.SHORT);
     types.put(Short.class, OperationType.SHORT);
     types.put(Integer.class, OperationType.INTEGER);
+    types.put(AtomicInteger.class, OperationType.INTEGER);
     types.put(Long.class, OperationType.LONG);
+    types.put(AtomicLong.class, OperationType.LONG);
+    types.put(LongAdder.class, OperationType.LONG);
+    types.put(LongAccumulator.class, OperationType.LONG);
     types.put(Float.class, OperationType.FLOAT);
     types.put(Double.class, OperationType.DOUBLE);
+    types.put(DoubleAdder.class, OperationType.DOUBLE);
+    types.put(DoubleAccumulator.class, OperationType.DOUBLE);
+    types.put(Decimal.class, OperationType.DECIMAL);
+    types.put(BigInteger.class, OperationType.BIG_INTEGER);
+    types.put(BigDecimal.class, OperationType.BIG_DECIMAL);
   }
 
-  // Shared decimal patterns
-  private static final HashMap<Integer, DecimalFormat> roundDecimals =
-      new LinkedHashMap<Integer, DecimalFormat>();
+  // The operations for each operation type, indexed by the ordinal of the type. Short (and byte)
+  // values are calculated as int values (like Java does)
+  private static final NumberOps<?>[] operations = {NumberOps.INTEGER, NumberOps.INTEGER,
+      NumberOps.LONG, NumberOps.FLOAT, NumberOps.DOUBLE, NumberOps.DECIMAL, NumberOps.BIG_INTEGER,
+      NumberOps.BIG_DECIMAL};
 
-  static {
-    roundDecimals.put(1, new DecimalFormat("#.#"));
-    roundDecimals.put(2, new DecimalFormat("#.##"));
-    roundDecimals.put(3, new DecimalFormat("#.###"));
-    roundDecimals.put(4, new DecimalFormat("#.####"));
-    roundDecimals.put(5, new DecimalFormat("#.#####"));
-  }
-
-  private static int MAX_DIGIT_PATTERN = 6;
-
-  // Some predefined digit patterns
-  private static final HashMap<Integer, String[]> digitPattern =
-      new LinkedHashMap<Integer, String[]>();
-
-  static {
-    digitPattern.put(1, new String[] {"#", "0"});
-    digitPattern.put(2, new String[] {"##", "00"});
-    digitPattern.put(3, new String[] {"###", "000"});
-    digitPattern.put(4, new String[] {"####", "0000"});
-    digitPattern.put(5, new String[] {"#####", "00000"});
-    digitPattern.put(MAX_DIGIT_PATTERN, new String[] {"######", "000000"});
-  }
+  // The formats used by the formatNumber methods
+  private static final NumberFormatCache formatCache = new NumberFormatCache();
 
 
 
@@ -89,7 +93,8 @@ public class NumberUtil {
   }
 
   /**
-   * Rounds to the given number of decimals for double values.<br>
+   * Rounds to the given number of decimals for double values, rounding ties to the even neighbor
+   * ({@link RoundingMode#HALF_EVEN}).<br>
    * Example with two decimals: 1.22565... -> 1.23
    *
    * @param num The number to round
@@ -97,16 +102,26 @@ public class NumberUtil {
    * @return The rounded number
    */
   public static double roundDecimals(double num, int numberOfDecimals) {
-    if (roundDecimals.containsKey(numberOfDecimals)) {
-      return Double.valueOf(roundDecimals.get(numberOfDecimals).format(num));
-    } else {
-      return Double.valueOf(
-          createDecimalFormat(1, numberOfDecimals, false, false, false, false, false).format(num));
-    }
+    return DecimalRounding.round(num, numberOfDecimals, RoundingMode.HALF_EVEN);
+  }
+
+  /**
+   * Rounds to the given number of decimals for double values, with the given rounding mode. The
+   * exact binary value of the number is rounded, like {@link java.math.BigDecimal} does (for
+   * example, 1.005 is actually 1.00499999999999989... and rounds to 1.0 with two decimals).
+   *
+   * @param num The number to round
+   * @param numberOfDecimals The number of decimals to show
+   * @param mode The rounding mode
+   * @return The rounded number. NaN and infinite numbers are returned unchanged
+   */
+  public static double roundDecimals(double num, int numberOfDecimals, RoundingMode mode) {
+    return DecimalRounding.round(num, numberOfDecimals, mode);
   }
 
   /**
-   * Rounds to the given number of decimals for float values.<br>
+   * Rounds to the given number of decimals for float values, rounding ties to the even neighbor
+   * ({@link RoundingMode#HALF_EVEN}).<br>
    * Example with two decimals: 1.22565... -> 1.23
    *
    * @param num The number to round
@@ -114,11 +129,49 @@ public class NumberUtil {
    * @return The rounded number
    */
   public static float roundDecimals(float num, int numberOfDecimals) {
-    if (roundDecimals.containsKey(numberOfDecimals)) {
-      return Float.valueOf(roundDecimals.get(numberOfDecimals).format(num));
-    } else {
-      return Float.valueOf(
-          createDecimalFormat(1, numberOfDecimals, false, false, false, false, false).format(num));
+    return DecimalRounding.round(num, numberOfDecimals, RoundingMode.HALF_EVEN);
+  }
+
+  /**
+   * Rounds to the given number of decimals for float values, with the given rounding mode.
+   *
+   * @param num The number to round
+   * @param numberOfDecimals The number of decimals to show
+   * @param mode The rounding mode
+   * @return The rounded number. NaN and infinite numbers are returned unchanged
+   * @see #roundDecimals(double, int, RoundingMode)
+   */
+  public static float roundDecimals(float num, int numberOfDecimals, RoundingMode mode) {
+    return DecimalRounding.round(num, numberOfDecimals, mode);
+  }
+
+  /**
+   * Rounds all the numbers in the array to the given number of decimals. The rounded numbers are
+   * written back into the given array.
+   *
+   * @param nums The numbers to round
+   * @param numberOfDecimals The number of decimals to show
+   * @param mode The rounding mode
+   * @see #roundDecimals(double, int, RoundingMode)
+   */
+  public static void roundDecimals(double[] nums, int numberOfDecimals, RoundingMode mode) {
+    for (int i = 0; i < nums.length; i++) {
+      nums[i] = DecimalRounding.round(nums[i], numberOfDecimals, mode);
+    }
+  }
+
+  /**
+   * Rounds all the numbers in the array to the given number of decimals. The rounded numbers are
+   * written back into the given array.
+   *
+   * @param nums The numbers to round
+   * @param numberOfDecimals The number of decimals to show
+   * @param mode The rounding mode
+   * @see #roundDecimals(float, int, RoundingMode)
+   */
+  public static void roundDecimals(float[] nums, int numberOfDecimals, RoundingMode mode) {
+    for (int i = 0; i < nums.length; i++) {
+      nums[i] = DecimalRounding.round(nums[i], numberOfDecimals, mode);
     }
   }
 
@@ -139,79 +192,8 @@ public class NumberUtil {
   public static DecimalFormat createDecimalFormat(int minNumberOfDigits, int maxNumberOfDecimals,
       boolean currency, boolean internationalCurrency, boolean leadingZeroes, boolean percentage,
       boolean grouping) {
-    if (minNumberOfDigits <= 0) {
-      throw new NumberUtilError("Minimum number of digits has to be > 0");
-    }
-
-    if (maxNumberOfDecimals < 0) {
-      throw new NumberUtilError("Maximum number of decimals has to be >= 0");
-    }
-
-    StringBuilder sb = new StringBuilder(minNumberOfDigits + maxNumberOfDecimals);
-
-    if (currency || internationalCurrency) {
-      // Having a single 'CURRENCY SIGN' in the pattern will be replaced by the currency symbol
-      sb.append("\u00A4"); // Unicode Character 'CURRENCY SIGN'
-
-      if (internationalCurrency) {
-        // Having a second 'CURRENCY SIGN' in the pattern will be replaced with the international
-        // currency symbol
-        sb.append("\u00A4"); // Unicode Character 'CURRENCY SIGN'
-      }
-    }
-
-    sb.append(getDigitPattern(minNumberOfDigits, leadingZeroes, grouping));
-
-    sb.append(".");
-
-    sb.append(getDigitPattern(maxNumberOfDecimals, false, false));
-
-    if (percentage) {
-      sb.append("%");
-    }
-
-    return new DecimalFormat(sb.toString());
-  }
-
-  /**
-   * Returns the digit pattern with the given number of digits.
-   *
-   * @param numberOfDigits The number of digits
-   * @param zeroes If <code>true</code>, missing digits will be shown as zeroes
-   * @param grouping Groups by thousands
-   * @return The digit pattern
-   */
-  private static String getDigitPattern(int numberOfDigits, boolean zeroes, boolean grouping) {
-    if (numberOfDigits < 0) {
-      throw new NumberUtilError("Number of digits has to be >= 0");
-    }
-
-    StringBuilder sb = new StringBuilder(numberOfDigits);
-
-    if (digitPattern.containsKey(numberOfDigits)) {
-      sb.append(digitPattern.get(numberOfDigits)[zeroes ? 1 : 0]);
-    } else {
-
-      sb.append(digitPattern.get(MAX_DIGIT_PATTERN)[zeroes ? 1 : 0]);
-
-      if (zeroes) {
-        for (int i = MAX_DIGIT_PATTERN; i < numberOfDigits; i++) {
-          sb.append("0");
-        }
-      } else {
-        for (int i = MAX_DIGIT_PATTERN; i < numberOfDigits; i++) {
-          sb.append("#");
-        }
-      }
-
-    }
-
-    if (grouping && sb.length() > 3) {
-      // Add the grouping separator if requested
-      sb.insert(sb.length() - 3, ',');
-    }
-
-    return sb.toString();
+    return new DecimalFormat(new NumberFormatSpec(minNumberOfDigits, maxNumberOfDecimals, currency,
+        internationalCurrency, leadingZeroes, percentage, grouping).toPattern());
   }
 
   /**
@@ -230,8 +212,8 @@ public class NumberUtil {
   public static String formatNumber(Number num, int minNumberOfDigits, int maxNumberOfDecimals,
       boolean currency, boolean internationalCurrency, boolean leadingZeroes, boolean percentage,
       boolean grouping) {
-    return createDecimalFormat(minNumberOfDigits, maxNumberOfDecimals, currency,
-        internationalCurrency, leadingZeroes, percentage, grouping).format(num);
+    return formatNumber(num, new NumberFormatSpec(minNumberOfDigits, maxNumberOfDecimals, currency,
+        internationalCurrency, leadingZeroes, percentage, grouping));
   }
 
   /**
@@ -247,8 +229,8 @@ public class NumberUtil {
   public static String formatNumber(Number num, boolean currency, boolean internationalCurrency,
       boolean percentage, boolean grouping) {
     // Use at least 4 digits to make the grouping work
-    return createDecimalFormat(4, 0, currency, internationalCurrency, false, percentage, grouping)
-        .format(num);
+    return formatNumber(num,
+        new NumberFormatSpec(4, 0, currency, internationalCurrency, false, percentage, grouping));
   }
 
   /**
@@ -263,8 +245,8 @@ public class NumberUtil {
    */
   public static String formatNumber(Number num, int minNumberOfDigits, int maxNumberOfDecimals,
       boolean leadingZeroes, boolean grouping) {
-    return createDecimalFormat(minNumberOfDigits, maxNumberOfDecimals, false, false, leadingZeroes,
-        false, grouping).format(num);
+    return formatNumber(num, new NumberFormatSpec(minNumberOfDigits, maxNumberOfDecimals, false,
+        false, leadingZeroes, false, grouping));
   }
 
   /**
@@ -276,7 +258,29 @@ public class NumberUtil {
    */
   public static String formatNumber(Number num, boolean grouping) {
     // Use at least 4 digits to make the grouping work
-    return createDecimalFormat(4, 0, false, false, false, false, grouping).format(num);
+    return formatNumber(num, new NumberFormatSpec(4, 0, false, false, false, false, grouping));
+  }
+
+  /**
+   * Formats a number according to the given formatting options. The formats are cached (see
+   * {@link #getFormatCache()}), so that they do not have to be created for each number.
+   *
+   * @param num The number to format
+   * @param spec The formatting options
+   * @return The formatted number
+   */
+  public static String formatNumber(Number num, NumberFormatSpec spec) {
+    return formatCache.format(num, spec);
+  }
+
+  /**
+   * Returns the cache with the formats used by the <code>formatNumber</code> methods, e.g. to check
+   * its hit rate.
+   *
+   * @return The format cache
+   */
+  public static NumberFormatCache getFormatCache() {
+    return formatCache;
   }
 
 
@@ -291,21 +295,7 @@ public class NumberUtil {
    * @return The result of the operation
    */
   public static Number add(Number num1, Number num2) {
-    OperationType type = getOperationType(num1, num2);
-
-    if (type == OperationType.SHORT) {
-      return num1.shortValue() + num2.shortValue();
-    } else if (type == OperationType.INTEGER) {
-      return num1.intValue() + num2.intValue();
-    } else if (type == OperationType.LONG) {
-      return num1.longValue() + num2.longValue();
-    } else if (type == OperationType.FLOAT) {
-      return num1.floatValue() + num2.floatValue();
-    } else if (type == OperationType.DOUBLE) {
-      return num1.doubleValue() + num2.doubleValue();
-    }
-
-    throw new NumberUtilError("Number addition error");
+    return ops(num1, num2).add(num1, num2);
   }
 
   /**
@@ -319,21 +309,7 @@ public class NumberUtil {
    * @return The result of the operation
    */
   public static Number subtract(Number num1, Number num2) {
-    OperationType type = getOperationType(num1, num2);
-
-    if (type == OperationType.SHORT) {
-      return num1.shortValue() - num2.shortValue();
-    } else if (type == OperationType.INTEGER) {
-      return num1.intValue() - num2.intValue();
-    } else if (type == OperationType.LONG) {
-      return num1.longValue() - num2.longValue();
-    } else if (type == OperationType.FLOAT) {
-      return num1.floatValue() - num2.floatValue();
-    } else if (type == OperationType.DOUBLE) {
-      return num1.doubleValue() - num2.doubleValue();
-    }
-
-    throw new NumberUtilError("Number subtraction error");
+    return ops(num1, num2).subtract(num1, num2);
   }
 
   /**
@@ -347,21 +323,7 @@ public class NumberUtil {
    * @return The result of the operation
    */
   public static Number multiply(Number num1, Number num2) {
-    OperationType type = getOperationType(num1, num2);
-
-    if (type == OperationType.SHORT) {
-      return num1.shortValue() * num2.shortValue();
-    } else if (type == OperationType.INTEGER) {
-      return num1.intValue() * num2.intValue();
-    } else if (type == OperationType.LONG) {
-      return num1.longValue() * num2.longValue();
-    } else if (type == OperationType.FLOAT) {
-      return num1.floatValue() * num2.floatValue();
-    } else if (type == OperationType.DOUBLE) {
-      return num1.doubleValue() * num2.doubleValue();
-    }
-
-    throw new NumberUtilError("Number multiplication error");
+    return ops(num1, num2).multiply(num1, num2);
   }
 
 
@@ -376,21 +338,7 @@ public class NumberUtil {
    * @return The result of the operation
    */
   public static Number divide(Number num1, Number num2) {
-    OperationType type = getOperationType(num1, num2);
-
-    if (type == OperationType.SHORT) {
-      return num1.shortValue() / num2.shortValue();
-    } else if (type == OperationType.INTEGER) {
-      return num1.intValue() / num2.intValue();
-    } else if (type == OperationType.LONG) {
-      return num1.longValue() / num2.longValue();
-    } else if (type == OperationType.FLOAT) {
-      return num1.floatValue() / num2.floatValue();
-    } else if (type == OperationType.DOUBLE) {
-      return num1.doubleValue() / num2.doubleValue();
-    }
-
-    throw new NumberUtilError("Number division error");
+    return ops(num1, num2).divide(num1, num2);
   }
 
   /**
@@ -404,46 +352,86 @@ public class NumberUtil {
    * @return The result of the operation
    */
   public static Number remainder(Number num1, Number num2) {
-    OperationType type = getOperationType(num1, num2);
+    return ops(num1, num2).remainder(num1, num2);
+  }
 
-    if (type == OperationType.SHORT) {
-      return num1.shortValue() % num2.shortValue();
-    } else if (type == OperationType.INTEGER) {
-      return num1.intValue() % num2.intValue();
-    } else if (type == OperationType.LONG) {
-      return num1.longValue() % num2.longValue();
-    } else if (type == OperationType.FLOAT) {
-      return num1.floatValue() % num2.floatValue();
-    } else if (type == OperationType.DOUBLE) {
-      return num1.doubleValue() % num2.doubleValue();
-    }
+  /**
+   * Adds n1 + n2 for any number type, without overflow. The operation is done with the type of the
+   * input number with the higher "precision", like {@link #add(Number, Number)} does, and the
+   * result is only widened if it does not fit into that type: <code>int</code> to
+   * <code>long</code> to {@link BigInteger}, and <code>float</code> to <code>double</code> to
+   * {@link BigDecimal}. Floating point results are rounded like with {@link #add(Number, Number)},
+   * they are only widened instead of overflowing to infinity.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The exact result of the operation
+   */
+  public static Number addExact(Number num1, Number num2) {
+    return ops(num1, num2).addExact(num1, num2);
+  }
 
-    throw new NumberUtilError("Number remainder error");
+  /**
+   * Subtracts n1 - n2 for any number type, without overflow.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The exact result of the operation
+   * @see #addExact(Number, Number)
+   */
+  public static Number subtractExact(Number num1, Number num2) {
+    return ops(num1, num2).subtractExact(num1, num2);
   }
 
   /**
-   * Checks if n1 > n2 for any number type.
+   * Multiplies n1 * n2 for any number type, without overflow.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The exact result of the operation
+   * @see #addExact(Number, Number)
+   */
+  public static Number multiplyExact(Number num1, Number num2) {
+    return ops(num1, num2).multiplyExact(num1, num2);
+  }
+
+  /**
+   * Divides n1 / n2 for any number type, without overflow. Integer divisions are truncated like
+   * with {@link #divide(Number, Number)}. Floating point quotients are rounded like with
+   * {@link #divide(Number, Number)} and only widened if they overflow, a <code>double</code>
+   * quotient to a {@link BigDecimal} rounded to {@link NumberOps#DIVISION_CONTEXT} if necessary.
    *
    * @param num1 The first number
    * @param num2 The second number
    * @return The result of the operation
+   * @see #addExact(Number, Number)
    */
-  public static boolean gt(Number num1, Number num2) {
-    OperationType type = getOperationType(num1, num2);
+  public static Number divideExact(Number num1, Number num2) {
+    return ops(num1, num2).divideExact(num1, num2);
+  }
 
-    if (type == OperationType.SHORT) {
-      return num1.shortValue() > num2.shortValue();
-    } else if (type == OperationType.INTEGER) {
-      return num1.intValue() > num2.intValue();
-    } else if (type == OperationType.LONG) {
-      return num1.longValue() > num2.longValue();
-    } else if (type == OperationType.FLOAT) {
-      return num1.floatValue() > num2.floatValue();
-    } else if (type == OperationType.DOUBLE) {
-      return num1.doubleValue() > num2.doubleValue();
-    }
+  /**
+   * Compares two numbers of any type by their exact values, in the total order of
+   * {@link NumberComparator}.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return A negative value, zero or a positive value if num1 is smaller than, equal to or larger
+   *         than num2
+   */
+  public static int compare(Number num1, Number num2) {
+    return NumberComparator.INSTANCE.compare(num1, num2);
+  }
 
-    throw new NumberUtilError("Number greater than error");
+  /**
+   * Checks if n1 > n2 for any number type.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The result of the operation
+   */
+  public static boolean gt(Number num1, Number num2) {
+    return ops(num1, num2).gt(num1, num2);
   }
 
   /**
@@ -454,21 +442,46 @@ public class NumberUtil {
    * @return The result of the operation
    */
   public static boolean lt(Number num1, Number num2) {
-    OperationType type = getOperationType(num1, num2);
+    return ops(num1, num2).lt(num1, num2);
+  }
 
-    if (type == OperationType.SHORT) {
-      return num1.shortValue() < num2.shortValue();
-    } else if (type == OperationType.INTEGER) {
-      return num1.intValue() < num2.intValue();
-    } else if (type == OperationType.LONG) {
-      return num1.longValue() < num2.longValue();
-    } else if (type == OperationType.FLOAT) {
-      return num1.floatValue() < num2.floatValue();
-    } else if (type == OperationType.DOUBLE) {
-      return num1.doubleValue() < num2.doubleValue();
-    }
+  /**
+   * Returns the operations for numbers of the given types. The operations work on the type with
+   * the higher "precision" (short -> int -> long -> float -> double -> Decimal -> BigInteger ->
+   * BigDecimal, a Decimal combined with a floating point number and a BigInteger combined with a
+   * floating point number or a Decimal result in a BigDecimal) and give the same results as
+   * {@link #add(Number, Number)} etc., but the types only have to be looked up once. For tight
+   * loops, the primitive operations of the specific {@link NumberOps} subclasses can be used.
+   *
+   * @param c1 The type of the first number
+   * @param c2 The type of the second number
+   * @return The operations
+   */
+  public static NumberOps<?> ops(Class<? extends Number> c1, Class<? extends Number> c2) {
+    return operations[getOperationType(c1, c2).ordinal()];
+  }
 
-    throw new NumberUtilError("Number less than error");
+  /**
+   * Returns the operations for numbers of the given type.
+   *
+   * @param c The number type
+   * @return The operations
+   * @see #ops(Class, Class)
+   */
+  public static NumberOps<?> ops(Class<? extends Number> c) {
+    return ops(c, c);
+  }
+
+  /**
+   * Returns the operations for the types of the given numbers.
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The operations
+   * @see #ops(Class, Class)
+   */
+  public static NumberOps<?> ops(Number num1, Number num2) {
+    return ops(num1.getClass(), num2.getClass());
   }
 
   /**
@@ -481,23 +494,52 @@ public class NumberUtil {
    * @return The operation type
    */
   private static OperationType getOperationType(Number num1, Number num2) {
-    Class<?> c1 = num1.getClass();
-    Class<?> c2 = num2.getClass();
+    return getOperationType(num1.getClass(), num2.getClass());
+  }
 
-    if (!types.containsKey(c1)) {
+  /**
+   * Determines the type of the operation for numbers of the given types.
+   *
+   * @param c1 The type of the first number
+   * @param c2 The type of the second number
+   * @return The operation type
+   * @see #getOperationType(Number, Number)
+   */
+  private static OperationType getOperationType(Class<?> c1, Class<?> c2) {
+    OperationType type1 = types.get(c1);
+    OperationType type2 = types.get(c2);
+
+    if (type1 == null) {
       throw new NumberUtilError("Unknown number class "
           + c1);
     }
 
-    if (!types.containsKey(c2)) {
+    if (type2 == null) {
       throw new NumberUtilError("Unknown number class "
           + c2);
     }
 
-    OperationType type1 = types.get(c1);
-    OperationType type2 = types.get(c2);
+    OperationType type = type1.ordinal() > type2.ordinal() ? type1 : type2;
 
-    return type1.ordinal() > type2.ordinal() ? type1 : type2;
+    if (type == OperationType.BIG_INTEGER
+        && (isDecimalType(type1) || isDecimalType(type2))) {
+      // The decimals would be truncated
+      return OperationType.BIG_DECIMAL;
+    } else if (type == OperationType.DECIMAL
+        && (isFloatingPointType(type1) || isFloatingPointType(type2))) {
+      // Binary floating point values do not fit into a fixed number of decimals
+      return OperationType.BIG_DECIMAL;
+    }
+
+    return type;
+  }
+
+  private static boolean isFloatingPointType(OperationType type) {
+    return type == OperationType.FLOAT || type == OperationType.DOUBLE;
+  }
+
+  private static boolean isDecimalType(OperationType type) {
+    return isFloatingPointType(type) || type == OperationType.DECIMAL;
   }
 
   /**
@@ -505,6 +547,9 @@ public class NumberUtil {
    * min or max value, whichever has the higher "precision" (short -> int -> long -> float ->
    * double)<br>
    * <br>
+   * Integer numbers are generated from min to max (both inclusive), floating point numbers from min
+   * (inclusive) to max (exclusive), which have to be finite.<br>
+   * <br>
    * For multiple random numbers use {@link #generateRandomNumbers(int, Number, Number)}
    *
    * @param min The minimal number to generate
@@ -512,12 +557,52 @@ public class NumberUtil {
    * @return The random number
    */
   public static Number generateRandomNumber(Number min, Number max) {
-    return generateRandomNumbers(1, min, max).get(0);
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    OperationType type = getOperationType(min, max);
+
+    if (type == OperationType.SHORT || type == OperationType.INTEGER) {
+      // Including the maximum number (from min to max)
+      checkRandomRange(min.intValue() <= max.intValue(), min, max);
+      return (int) random.nextLong(min.intValue(), max.intValue() + 1L);
+    } else if (type == OperationType.LONG) {
+      // Including the maximum number (from min to max)
+      long longMin = min.longValue();
+      long longMax = max.longValue();
+      checkRandomRange(longMin <= longMax, min, max);
+      if (longMax < Long.MAX_VALUE) {
+        return random.nextLong(longMin, longMax + 1);
+      } else if (longMin > Long.MIN_VALUE) {
+        return random.nextLong(longMin - 1, longMax) + 1;
+      } else {
+        return random.nextLong();
+      }
+    } else if (type == OperationType.FLOAT) {
+      // Excluding the maximum number (between min and max), like RandomNumbers.floats
+      float floatMin = min.floatValue();
+      float floatMax = max.floatValue();
+      RandomNumbers.checkRange(floatMin, floatMax);
+      return RandomNumbers.toRange(random.nextDouble(), floatMin, floatMax);
+    } else if (type == OperationType.DOUBLE) {
+      // Excluding the maximum number (between min and max), like RandomNumbers.doubles
+      double doubleMin = min.doubleValue();
+      double doubleMax = max.doubleValue();
+      RandomNumbers.checkRange(doubleMin, doubleMax);
+      return RandomNumbers.toRange(random.nextDouble(), doubleMin, doubleMax);
+    } else {
+      throw new NumberUtilError("No random numbers of type "
+          + type);
+    }
   }
 
   /**
    * Generates random numbers. The type of the resulting numbers is the type of the given min or max
-   * value, whichever has the higher "precision" (short -> int -> long -> float -> double)
+   * value, whichever has the higher "precision" (short -> int -> long -> float -> double)<br>
+   * <br>
+   * The numbers are generated within the same range as with
+   * {@link #generateRandomNumber(Number, Number)}.<br>
+   * <br>
+   * For large amounts of numbers, or for reproducible numbers, use the primitive arrays and streams
+   * of {@link RandomNumbers}.
    *
    * @param count The cound of random numbers to generate
    * @param min The minimal number to generate
@@ -525,44 +610,45 @@ public class NumberUtil {
    * @return The random numbers
    */
   public static ArrayList<Number> generateRandomNumbers(int count, Number min, Number max) {
-    Random random = new Random();
     ArrayList<Number> numbers = new ArrayList<>(count);
 
     OperationType type = getOperationType(min, max);
 
-    if (type == OperationType.SHORT) {
+    if (type == OperationType.SHORT || type == OperationType.INTEGER) {
       // Including the maximum number (from min to max)
-      short randomMax = (short) (max.shortValue() - min.shortValue() + (short) 1);
-      for (int i = 0; i < count; i++) {
-        numbers.add(random.nextInt(randomMax) + min.intValue());
-      }
-    } else if (type == OperationType.INTEGER) {
-      // Including the maximum number (from min to max)
-      int randomMax = max.intValue() - min.intValue() + 1;
-      for (int i = 0; i < count; i++) {
-        numbers.add(random.nextInt(randomMax) + min.intValue());
+      for (int value : RandomNumbers.ints(count, min.intValue(), max.intValue())) {
+        numbers.add(value);
       }
     } else if (type == OperationType.LONG) {
       // Including the maximum number (from min to max)
-      long randomMax = max.longValue() - min.longValue() + 1L;
-      for (int i = 0; i < count; i++) {
-        numbers.add(random.nextLong() * randomMax + min.longValue());
+      for (long value : RandomNumbers.longs(count, min.longValue(), max.longValue())) {
+        numbers.add(value);
       }
     } else if (type == OperationType.FLOAT) {
       // Excluding the maximum number (between min and max)
-      float randomMax = max.floatValue() - min.floatValue();
-      for (int i = 0; i < count; i++) {
-        numbers.add(random.nextFloat() * randomMax + min.floatValue());
+      for (float value : RandomNumbers.floats(count, min.floatValue(), max.floatValue())) {
+        numbers.add(value);
       }
     } else if (type == OperationType.DOUBLE) {
       // Excluding the maximum number (between min and max)
-      double randomMax = max.doubleValue() - min.doubleValue();
-      for (int i = 0; i < count; i++) {
-        numbers.add(random.nextDouble() * randomMax + min.doubleValue());
+      for (double value : RandomNumbers.doubles(count, min.doubleValue(), max.doubleValue())) {
+        numbers.add(value);
       }
+    } else {
+      throw new NumberUtilError("No random numbers of type "
+          + type);
     }
 
     return numbers;
   }
 
+  private static void checkRandomRange(boolean valid, Number min, Number max) {
+    if (!valid) {
+      throw new NumberUtilError("Invalid range "
+          + min
+          + " to "
+          + max);
+    }
+  }
+
 }
@@ -0,0 +1,547 @@
+package ch.thn.util.number;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Estimates quantiles (e.g. the median, p95 or p99) of a stream of values with a fixed amount of
+ * memory, without keeping the values.<br />
+ * <br />
+ * The values are counted in buckets whose bounds grow exponentially (like DDSketch), so that each
+ * quantile is estimated with a relative error of at most the configured relative accuracy. For
+ * example, with a relative accuracy of 0.01, a p99 of 250ms is reported as a value between 247.5ms
+ * and 252.5ms. The number of buckets is limited: if the values span more buckets, the buckets of
+ * the values closest to zero are merged, which only makes the quantiles of these values less
+ * accurate (the lowest quantiles of positive values, e.g. latencies). With 2048 buckets and a
+ * relative accuracy of 0.01, the values may span more than 17 orders of magnitude before this
+ * happens.<br />
+ * <br />
+ * An instance is not thread safe. Each thread records into its own instance, and the instances
+ * are then merged with {@link #merge(QuantileSketch)}. {@link #toBytes()} and
+ * {@link #fromBytes(byte[])} convert the sketch to a compact binary form and back.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ */
+public final class QuantileSketch implements DoubleConsumer {
+
+  /** The default maximum number of buckets for positive and for negative values. */
+  public static final int DEFAULT_MAX_BUCKETS = 2048;
+
+  private static final byte VERSION = 1;
+
+  private final double relativeAccuracy;
+  private final int maxBuckets;
+  private final double gamma;
+  // 1 / log(gamma), to calculate the bucket index of a value
+  private final double multiplier;
+  // Smaller values are counted as zero
+  private final double minValue;
+
+  private final Buckets positive;
+  private final Buckets negative;
+  private long zeroCount = 0;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+
+
+  /**
+   * Creates a sketch with at most {@link #DEFAULT_MAX_BUCKETS} buckets.
+   *
+   * @param relativeAccuracy The maximum relative error of the quantiles, between 0 and 1 (e.g.
+   *        0.01 for 1%). Accuracies below about 3.3e-7 are not supported, their bucket indexes do
+   *        not fit into an int
+   */
+  public QuantileSketch(double relativeAccuracy) {
+    this(relativeAccuracy, DEFAULT_MAX_BUCKETS);
+  }
+
+  /**
+   * Creates a sketch.
+   *
+   * @param relativeAccuracy The maximum relative error of the quantiles, between 0 and 1 (e.g.
+   *        0.01 for 1%). Accuracies below about 3.3e-7 are not supported, their bucket indexes do
+   *        not fit into an int
+   * @param maxBuckets The maximum number of buckets for positive and for negative values
+   */
+  public QuantileSketch(double relativeAccuracy, int maxBuckets) {
+    if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+      throw new NumberUtilError("Relative accuracy has to be between 0 and 1, got "
+          + relativeAccuracy);
+    }
+
+    if (maxBuckets < 1) {
+      throw new NumberUtilError("At least one bucket is required, got "
+          + maxBuckets);
+    }
+
+    this.relativeAccuracy = relativeAccuracy;
+    this.maxBuckets = maxBuckets;
+    this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+    this.multiplier = 1 / Math.log(gamma);
+    this.minValue = Double.MIN_NORMAL * gamma;
+
+    // The bucket indexes of all values, and their differences, have to fit into an int
+    double indexRange = Math.ceil(Math.log(Double.MAX_VALUE) * multiplier)
+        - Math.ceil(Math.log(minValue) * multiplier);
+    if (!(indexRange < Integer.MAX_VALUE)) {
+      throw new NumberUtilError("Relative accuracy "
+          + relativeAccuracy
+          + " is too small, the bucket indexes do not fit into an int");
+    }
+
+    this.positive = new Buckets(maxBuckets);
+    this.negative = new Buckets(maxBuckets);
+  }
+
+  /**
+   * Records a value.
+   *
+   * @param value The value, not <code>NaN</code> or infinite
+   */
+  public void record(double value) {
+    record(value, 1);
+  }
+
+  /**
+   * Records a value multiple times.
+   *
+   * @param value The value, not <code>NaN</code> or infinite
+   * @param count How many times to record the value
+   */
+  public void record(double value, long count) {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      throw new NumberUtilError("Can not record "
+          + value);
+    }
+
+    if (count <= 0) {
+      if (count < 0) {
+        throw new NumberUtilError("Count has to be >= 0, got "
+            + count);
+      }
+      return;
+    }
+
+    if (value >= minValue) {
+      positive.add(index(value), count);
+    } else if (value <= -minValue) {
+      negative.add(index(-value), count);
+    } else {
+      zeroCount += count;
+    }
+
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  /**
+   * Records a value.
+   *
+   * @param value The value
+   */
+  public void record(long value) {
+    record((double) value, 1);
+  }
+
+  @Override
+  public void accept(double value) {
+    record(value, 1);
+  }
+
+  /**
+   * Adds the values recorded by the other sketch to this sketch. The other sketch is not changed.
+   *
+   * @param other The other sketch, with the same relative accuracy
+   * @return This sketch
+   */
+  public QuantileSketch merge(QuantileSketch other) {
+    if (other.relativeAccuracy != relativeAccuracy) {
+      throw new NumberUtilError("Can not merge a sketch with relative accuracy "
+          + other.relativeAccuracy
+          + " into a sketch with relative accuracy "
+          + relativeAccuracy);
+    }
+
+    positive.merge(other.positive);
+    negative.merge(other.negative);
+    zeroCount += other.zeroCount;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+
+    return this;
+  }
+
+  /**
+   * Removes all recorded values.
+   *
+   */
+  public void reset() {
+    positive.clear();
+    negative.clear();
+    zeroCount = 0;
+    min = Double.POSITIVE_INFINITY;
+    max = Double.NEGATIVE_INFINITY;
+  }
+
+  /**
+   * Returns the estimated quantile.
+   *
+   * @param quantile The quantile, from 0 to 1 (e.g. 0.5 for the median, 0.99 for p99)
+   * @return The estimated value, <code>NaN</code> if no value has been recorded
+   */
+  public double getQuantile(double quantile) {
+    if (!(quantile >= 0 && quantile <= 1)) {
+      throw new NumberUtilError("Quantile has to be between 0 and 1, got "
+          + quantile);
+    }
+
+    long count = getCount();
+    if (count == 0) {
+      return Double.NaN;
+    }
+
+    // The index of the value in the sorted values
+    long rank = (long) (quantile * (count - 1));
+    double value;
+
+    if (rank < negative.total) {
+      // The negative values are sorted from the largest absolute value
+      value = -value(negative.indexOfRank(negative.total - 1 - rank));
+    } else if (rank < negative.total + zeroCount) {
+      value = 0;
+    } else {
+      value = value(positive.indexOfRank(rank - negative.total - zeroCount));
+    }
+
+    return Math.max(min, Math.min(max, value));
+  }
+
+  /**
+   * Returns the estimated quantiles.
+   *
+   * @param quantiles The quantiles, from 0 to 1
+   * @return The estimated values
+   * @see #getQuantile(double)
+   */
+  public double[] getQuantiles(double... quantiles) {
+    double[] values = new double[quantiles.length];
+    for (int i = 0; i < quantiles.length; i++) {
+      values[i] = getQuantile(quantiles[i]);
+    }
+    return values;
+  }
+
+  /**
+   * Returns the number of recorded values.
+   *
+   * @return The count
+   */
+  public long getCount() {
+    return positive.total + negative.total + zeroCount;
+  }
+
+  /**
+   * Returns the smallest recorded value (exact).
+   *
+   * @return The minimum, <code>NaN</code> if no value has been recorded
+   */
+  public double getMin() {
+    return getCount() == 0 ? Double.NaN : min;
+  }
+
+  /**
+   * Returns the largest recorded value (exact).
+   *
+   * @return The maximum, <code>NaN</code> if no value has been recorded
+   */
+  public double getMax() {
+    return getCount() == 0 ? Double.NaN : max;
+  }
+
+  public double getRelativeAccuracy() {
+    return relativeAccuracy;
+  }
+
+  public int getMaxBuckets() {
+    return maxBuckets;
+  }
+
+  /**
+   * Converts the sketch to its binary form. Only the used range of buckets is written, with
+   * variable length counts.
+   *
+   * @return The sketch as bytes
+   * @see #fromBytes(byte[])
+   */
+  public byte[] toBytes() {
+    int size = 1 + Double.BYTES + Integer.BYTES + Long.BYTES + 2 * Double.BYTES
+        + positive.maxBytes() + negative.maxBytes();
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+
+    buffer.put(VERSION);
+    buffer.putDouble(relativeAccuracy);
+    buffer.putInt(maxBuckets);
+    buffer.putLong(zeroCount);
+    buffer.putDouble(min);
+    buffer.putDouble(max);
+    positive.write(buffer);
+    negative.write(buffer);
+
+    return Arrays.copyOf(buffer.array(), buffer.position());
+  }
+
+  /**
+   * Creates a sketch from its binary form.
+   *
+   * @param bytes The bytes created with {@link #toBytes()}
+   * @return The sketch
+   */
+  public static QuantileSketch fromBytes(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+    try {
+      byte version = buffer.get();
+      if (version != VERSION) {
+        throw new NumberUtilError("Unknown sketch version "
+            + version);
+      }
+
+      QuantileSketch sketch = new QuantileSketch(buffer.getDouble(), buffer.getInt());
+      sketch.zeroCount = buffer.getLong();
+      sketch.min = buffer.getDouble();
+      sketch.max = buffer.getDouble();
+      sketch.positive.read(buffer);
+      sketch.negative.read(buffer);
+      return sketch;
+    } catch (BufferUnderflowException e) {
+      throw new NumberUtilError("Incomplete sketch with "
+          + bytes.length
+          + " bytes");
+    }
+  }
+
+  /**
+   * Returns the index of the bucket for the value. Bucket <code>i</code> contains the values from
+   * <code>gamma^(i-1)</code> (exclusive) to <code>gamma^i</code> (inclusive).
+   *
+   * @param value The positive value
+   * @return The bucket index
+   */
+  private int index(double value) {
+    return (int) Math.ceil(Math.log(value) * multiplier);
+  }
+
+  /**
+   * Returns the value which represents a bucket. It has a relative error of at most the relative
+   * accuracy to all the values in the bucket.
+   *
+   * @param index The bucket index
+   * @return The value
+   */
+  private double value(int index) {
+    return Math.exp((index - 1) / multiplier) * (1 + relativeAccuracy);
+  }
+
+  @Override
+  public String toString() {
+    return "QuantileSketch[count="
+        + getCount()
+        + ", relativeAccuracy="
+        + relativeAccuracy
+        + ", p50="
+        + getQuantile(0.5)
+        + ", p99="
+        + getQuantile(0.99)
+        + "]";
+  }
+
+
+  /************************************************************************************
+   * The counts of consecutive buckets. If the buckets span more than the maximum number of
+   * buckets, the lowest buckets are merged into the lowest remaining bucket.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static final class Buckets {
+
+    private static final int INITIAL_LENGTH = 64;
+
+    private final int maxBuckets;
+
+    private long[] counts = null;
+    // The bucket index of counts[0]
+    private int offset = 0;
+    private int minIndex = 0;
+    private int maxIndex = 0;
+    private long total = 0;
+
+    Buckets(int maxBuckets) {
+      this.maxBuckets = maxBuckets;
+    }
+
+    void add(int index, long count) {
+      if (total == 0) {
+        minIndex = index;
+        maxIndex = index;
+        ensureRange(index, index);
+      } else if (index > maxIndex) {
+        if (index - minIndex >= maxBuckets) {
+          collapse(index - maxBuckets + 1);
+        }
+        ensureRange(minIndex, index);
+        maxIndex = index;
+      } else if (index < minIndex) {
+        // Values below the lowest bucket go into the lowest bucket
+        index = Math.max(index, maxIndex - maxBuckets + 1);
+        ensureRange(index, maxIndex);
+        minIndex = Math.min(minIndex, index);
+      }
+
+      counts[index - offset] += count;
+      total += count;
+    }
+
+    void merge(Buckets other) {
+      for (int index = other.minIndex; other.total > 0 && index <= other.maxIndex; index++) {
+        long count = other.counts[index - other.offset];
+        if (count > 0) {
+          add(index, count);
+        }
+      }
+    }
+
+    void clear() {
+      if (counts != null) {
+        Arrays.fill(counts, 0);
+      }
+      total = 0;
+    }
+
+    /**
+     * Returns the index of the bucket which contains the value with the given rank.
+     *
+     * @param rank The rank, from 0 to total - 1
+     * @return The bucket index
+     */
+    int indexOfRank(long rank) {
+      long count = 0;
+      for (int index = minIndex; index < maxIndex; index++) {
+        count += counts[index - offset];
+        if (count > rank) {
+          return index;
+        }
+      }
+      return maxIndex;
+    }
+
+    /**
+     * Merges all buckets below the given index into the bucket with this index.
+     *
+     * @param newMinIndex The new lowest bucket index
+     */
+    private void collapse(int newMinIndex) {
+      long collapsed = 0;
+      for (int index = minIndex; index < newMinIndex && index <= maxIndex; index++) {
+        collapsed += counts[index - offset];
+        counts[index - offset] = 0;
+      }
+
+      if (newMinIndex > maxIndex) {
+        maxIndex = newMinIndex;
+      }
+      minIndex = newMinIndex;
+      ensureRange(minIndex, maxIndex);
+      counts[minIndex - offset] += collapsed;
+    }
+
+    /**
+     * Makes sure the counts array covers the buckets from min to max. The range is at most
+     * {@link #maxBuckets} buckets.
+     *
+     * @param min The lowest bucket index
+     * @param max The highest bucket index
+     */
+    private void ensureRange(int min, int max) {
+      if (counts != null && min >= offset && max < offset + counts.length) {
+        return;
+      }
+
+      int needed = max - min + 1;
+      int length = counts == null ? INITIAL_LENGTH : counts.length * 2;
+      length = Math.min(maxBuckets, Math.max(needed, length));
+      long[] newCounts = new long[length];
+
+      // Leave space in the direction in which the range grows
+      int newOffset = counts != null && min < offset ? max - length + 1 : min;
+
+      if (counts != null && total > 0) {
+        // All counts outside of the new range have been collapsed already
+        int from = Math.max(offset, newOffset);
+        int to = Math.min(offset + counts.length, newOffset + length);
+        if (from < to) {
+          System.arraycopy(counts, from - offset, newCounts, from - newOffset, to - from);
+        }
+      }
+
+      counts = newCounts;
+      offset = newOffset;
+    }
+
+    int maxBytes() {
+      // Two indexes and up to ten bytes per variable length count
+      return 2 * Integer.BYTES + (total == 0 ? 0 : (maxIndex - minIndex + 1) * 10);
+    }
+
+    void write(ByteBuffer buffer) {
+      if (total == 0) {
+        buffer.putInt(0);
+        buffer.putInt(0);
+        return;
+      }
+
+      buffer.putInt(maxIndex - minIndex + 1);
+      buffer.putInt(minIndex);
+      for (int index = minIndex; index <= maxIndex; index++) {
+        long count = counts[index - offset];
+        // Unsigned LEB128
+        while ((count & ~0x7FL) != 0) {
+          buffer.put((byte) ((count & 0x7F) | 0x80));
+          count >>>= 7;
+        }
+        buffer.put((byte) count);
+      }
+    }
+
+    void read(ByteBuffer buffer) {
+      int length = buffer.getInt();
+      int min = buffer.getInt();
+
+      if (length < 0 || length > maxBuckets) {
+        throw new NumberUtilError("Invalid number of buckets "
+            + length);
+      }
+
+      for (int i = 0; i < length; i++) {
+        long count = 0;
+        int shift = 0;
+        byte b;
+        do {
+          b = buffer.get();
+          count |= (long) (b & 0x7F) << shift;
+          shift += 7;
+        } while (b < 0);
+
+        if (count > 0) {
+          add(min + i, count);
+        }
+      }
+    }
+
+  }
+
+}
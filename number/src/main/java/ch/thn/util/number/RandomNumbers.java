@@ -0,0 +1,465 @@
+package ch.thn.util.number;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Generates random numbers into primitive arrays and streams.<br />
+ * <br />
+ * The values are generated in chunks of {@link #CHUNK_SIZE} values, and each chunk has its own
+ * {@link SplittableRandom}. The generators of the chunks are derived from the seed, so that the
+ * same seed always results in the same values, no matter if the chunks are generated in parallel
+ * or not. Arrays with at least {@link NumberArrayUtil#getParallelThreshold()} values are generated
+ * in parallel.<br />
+ * <br />
+ * Integer values are generated within the range including min and max, without any bias towards
+ * some of the values (see Lemire, "Fast Random Integer Generation in an Interval"). Floating point
+ * values are generated from min (inclusive) to max (exclusive), which have to be finite. The range
+ * may be wider than the largest value, e.g. from <code>-Double.MAX_VALUE</code> to
+ * <code>Double.MAX_VALUE</code>.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ */
+public class RandomNumbers {
+
+  /** The number of values generated by the same generator. */
+  public static final int CHUNK_SIZE = 1 << 13;
+
+  /** The seed increment of the splittable random generator. */
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private static final long INT_MASK = 0xFFFFFFFFL;
+
+
+  /**
+   * Generates random integer values from min to max (both inclusive), with a random seed.
+   *
+   * @param count The number of values
+   * @param min The minimum value
+   * @param max The maximum value
+   * @return The random values
+   */
+  public static int[] ints(int count, int min, int max) {
+    return ints(count, min, max, randomSeed());
+  }
+
+  /**
+   * Generates random integer values from min to max (both inclusive).
+   *
+   * @param count The number of values
+   * @param min The minimum value
+   * @param max The maximum value
+   * @param seed The seed. The same seed results in the same values
+   * @return The random values
+   */
+  public static int[] ints(int count, int min, int max, long seed) {
+    checkCount(count);
+    checkRange(min, max);
+
+    int[] values = new int[count];
+    long range = (long) max - min + 1;
+
+    forEachChunk(count, chunk -> {
+      SplittableRandom random = generator(seed, chunk);
+      int end = chunkEnd(chunk, count);
+      for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+        values[i] = nextIntInRange(random, min, range);
+      }
+    });
+
+    return values;
+  }
+
+  /**
+   * Generates random long values from min to max (both inclusive), with a random seed.
+   *
+   * @param count The number of values
+   * @param min The minimum value
+   * @param max The maximum value
+   * @return The random values
+   */
+  public static long[] longs(int count, long min, long max) {
+    return longs(count, min, max, randomSeed());
+  }
+
+  /**
+   * Generates random long values from min to max (both inclusive).
+   *
+   * @param count The number of values
+   * @param min The minimum value
+   * @param max The maximum value
+   * @param seed The seed. The same seed results in the same values
+   * @return The random values
+   */
+  public static long[] longs(int count, long min, long max, long seed) {
+    checkCount(count);
+    checkRange(min, max);
+
+    long[] values = new long[count];
+    long range = max - min + 1;
+
+    forEachChunk(count, chunk -> {
+      SplittableRandom random = generator(seed, chunk);
+      int end = chunkEnd(chunk, count);
+      for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+        values[i] = nextLongInRange(random, min, range);
+      }
+    });
+
+    return values;
+  }
+
+  /**
+   * Generates random float values from min (inclusive) to max (exclusive), with a random seed.
+   *
+   * @param count The number of values
+   * @param min The minimum value
+   * @param max The maximum value
+   * @return The random values
+   */
+  public static float[] floats(int count, float min, float max) {
+    return floats(count, min, max, randomSeed());
+  }
+
+  /**
+   * Generates random float values from min (inclusive) to max (exclusive).
+   *
+   * @param count The number of values
+   * @param min The minimum value
+   * @param max The maximum value
+   * @param seed The seed. The same seed results in the same values
+   * @return The random values
+   */
+  public static float[] floats(int count, float min, float max, long seed) {
+    checkCount(count);
+    checkRange(min, max);
+
+    float[] values = new float[count];
+
+    forEachChunk(count, chunk -> {
+      SplittableRandom random = generator(seed, chunk);
+      int end = chunkEnd(chunk, count);
+      for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+        values[i] = toRange(random.nextDouble(), min, max);
+      }
+    });
+
+    return values;
+  }
+
+  /**
+   * Generates random double values from min (inclusive) to max (exclusive), with a random seed.
+   *
+   * @param count The number of values
+   * @param min The minimum value
+   * @param max The maximum value
+   * @return The random values
+   */
+  public static double[] doubles(int count, double min, double max) {
+    return doubles(count, min, max, randomSeed());
+  }
+
+  /**
+   * Generates random double values from min (inclusive) to max (exclusive).
+   *
+   * @param count The number of values
+   * @param min The minimum value
+   * @param max The maximum value
+   * @param seed The seed. The same seed results in the same values
+   * @return The random values
+   */
+  public static double[] doubles(int count, double min, double max, long seed) {
+    checkCount(count);
+    checkRange(min, max);
+
+    double[] values = new double[count];
+
+    forEachChunk(count, chunk -> {
+      SplittableRandom random = generator(seed, chunk);
+      int end = chunkEnd(chunk, count);
+      for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+        values[i] = toRange(random.nextDouble(), min, max);
+      }
+    });
+
+    return values;
+  }
+
+  /**
+   * Returns a stream of random integer values from min to max (both inclusive). The stream
+   * contains the same values as {@link #ints(int, int, int, long)} with the same seed, also if it
+   * is used as parallel stream.
+   *
+   * @param count The number of values
+   * @param min The minimum value
+   * @param max The maximum value
+   * @param seed The seed. The same seed results in the same values
+   * @return The stream of random values
+   */
+  public static IntStream intStream(long count, int min, int max, long seed) {
+    checkCount(count);
+    checkRange(min, max);
+
+    long range = (long) max - min + 1;
+
+    return LongStream.range(0, chunkCount(count)).boxed().flatMapToInt(chunk -> {
+      SplittableRandom random = generator(seed, chunk);
+      return IntStream.range(0, chunkSize(chunk, count))
+          .map(i -> nextIntInRange(random, min, range));
+    });
+  }
+
+  /**
+   * Returns a stream of random long values from min to max (both inclusive). The stream contains
+   * the same values as {@link #longs(int, long, long, long)} with the same seed, also if it is used
+   * as parallel stream.
+   *
+   * @param count The number of values
+   * @param min The minimum value
+   * @param max The maximum value
+   * @param seed The seed. The same seed results in the same values
+   * @return The stream of random values
+   */
+  public static LongStream longStream(long count, long min, long max, long seed) {
+    checkCount(count);
+    checkRange(min, max);
+
+    long range = max - min + 1;
+
+    return LongStream.range(0, chunkCount(count)).flatMap(chunk -> {
+      SplittableRandom random = generator(seed, chunk);
+      return IntStream.range(0, chunkSize(chunk, count))
+          .mapToLong(i -> nextLongInRange(random, min, range));
+    });
+  }
+
+  /**
+   * Returns a stream of random double values from min (inclusive) to max (exclusive). The stream
+   * contains the same values as {@link #doubles(int, double, double, long)} with the same seed,
+   * also if it is used as parallel stream.
+   *
+   * @param count The number of values
+   * @param min The minimum value
+   * @param max The maximum value
+   * @param seed The seed. The same seed results in the same values
+   * @return The stream of random values
+   */
+  public static DoubleStream doubleStream(long count, double min, double max, long seed) {
+    checkCount(count);
+    checkRange(min, max);
+
+    return LongStream.range(0, chunkCount(count)).boxed().flatMapToDouble(chunk -> {
+      SplittableRandom random = generator(seed, chunk);
+      return IntStream.range(0, chunkSize(chunk, count))
+          .mapToDouble(i -> toRange(random.nextDouble(), min, max));
+    });
+  }
+
+  /**
+   * Generates a random integer value from min to max (both inclusive).
+   *
+   * @param random The generator
+   * @param min The minimum value
+   * @param max The maximum value
+   * @return The random value
+   */
+  public static int nextInt(SplittableRandom random, int min, int max) {
+    checkRange(min, max);
+    return nextIntInRange(random, min, (long) max - min + 1);
+  }
+
+  /**
+   * Generates a random long value from min to max (both inclusive).
+   *
+   * @param random The generator
+   * @param min The minimum value
+   * @param max The maximum value
+   * @return The random value
+   */
+  public static long nextLong(SplittableRandom random, long min, long max) {
+    checkRange(min, max);
+    return nextLongInRange(random, min, max - min + 1);
+  }
+
+  /**
+   * Generates a random double value from min (inclusive) to max (exclusive).
+   *
+   * @param random The generator
+   * @param min The minimum value
+   * @param max The maximum value
+   * @return The random value
+   */
+  public static double nextDouble(SplittableRandom random, double min, double max) {
+    checkRange(min, max);
+    return toRange(random.nextDouble(), min, max);
+  }
+
+  /**
+   * Generates a random integer from <code>min</code> to <code>min + range - 1</code>.
+   *
+   * @param random The generator
+   * @param min The minimum value
+   * @param range The number of possible values, from 1 to 2^32
+   * @return The random value
+   */
+  private static int nextIntInRange(SplittableRandom random, int min, long range) {
+    if (range > INT_MASK) {
+      return random.nextInt();
+    }
+
+    // The upper 32 bits of the product are uniform in the range, except for the products whose
+    // lower 32 bits are below 2^32 % range. Those are rejected.
+    long product = (random.nextInt() & INT_MASK) * range;
+
+    if ((product & INT_MASK) < range) {
+      long threshold = (INT_MASK + 1 - range) % range;
+      while ((product & INT_MASK) < threshold) {
+        product = (random.nextInt() & INT_MASK) * range;
+      }
+    }
+
+    return (int) (min + (product >>> 32));
+  }
+
+  /**
+   * Generates a random long from <code>min</code> to <code>min + range - 1</code>.
+   *
+   * @param random The generator
+   * @param min The minimum value
+   * @param range The number of possible values, unsigned. 0 stands for 2^64
+   * @return The random value
+   */
+  private static long nextLongInRange(SplittableRandom random, long min, long range) {
+    if (range == 0) {
+      return random.nextLong();
+    }
+
+    // Same as for int values, with the 128 bit product
+    long value = random.nextLong();
+    long low = value * range;
+
+    if (Long.compareUnsigned(low, range) < 0) {
+      long threshold = Long.remainderUnsigned(-range, range);
+      while (Long.compareUnsigned(low, threshold) < 0) {
+        value = random.nextLong();
+        low = value * range;
+      }
+    }
+
+    return min + MathOps.unsignedMultiplyHigh(value, range);
+  }
+
+  /**
+   * Scales a random value from 0 (inclusive) to 1 (exclusive) to the range from min (inclusive)
+   * to max (exclusive).
+   *
+   * @param unit The random value from 0 to 1
+   * @param min The minimum value
+   * @param max The maximum value
+   * @return The value in the range
+   */
+  static double toRange(double unit, double min, double max) {
+    double value;
+    if (Double.isInfinite(max - min)) {
+      // The width of the range overflows, scale the halves of the values
+      value = (min * 0.5 + unit * (max * 0.5 - min * 0.5)) * 2;
+    } else {
+      value = min + unit * (max - min);
+    }
+
+    // Rounding may result in max
+    return value < max ? value : Math.nextDown(max);
+  }
+
+  /**
+   * Scales a random value from 0 (inclusive) to 1 (exclusive) to the range from min (inclusive)
+   * to max (exclusive). The value is calculated with <code>double</code> values, in which the
+   * width of any <code>float</code> range fits.
+   *
+   * @param unit The random value from 0 to 1
+   * @param min The minimum value
+   * @param max The maximum value
+   * @return The value in the range
+   */
+  static float toRange(double unit, float min, float max) {
+    float value = (float) (min + unit * ((double) max - min));
+
+    // Rounding may result in max
+    return value < max ? value : Math.nextDown(max);
+  }
+
+  /**
+   * Creates the generator for a chunk. Its seed is the n-th value of a {@link SplittableRandom}
+   * with the given seed, which is calculated directly.
+   *
+   * @param seed The seed
+   * @param chunk The index of the chunk
+   * @return The generator
+   */
+  private static SplittableRandom generator(long seed, long chunk) {
+    return new SplittableRandom(new SplittableRandom(seed + chunk * GOLDEN_GAMMA).nextLong());
+  }
+
+  private static void forEachChunk(int count, IntConsumer action) {
+    IntStream chunks = IntStream.range(0, (int) chunkCount(count));
+
+    if (count >= NumberArrayUtil.getParallelThreshold()) {
+      chunks = chunks.parallel();
+    }
+
+    chunks.forEach(action);
+  }
+
+  private static long chunkCount(long count) {
+    return (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+  }
+
+  private static int chunkEnd(int chunk, int count) {
+    return (int) Math.min((long) (chunk + 1) * CHUNK_SIZE, count);
+  }
+
+  private static int chunkSize(long chunk, long count) {
+    return (int) Math.min(CHUNK_SIZE, count - chunk * CHUNK_SIZE);
+  }
+
+  private static long randomSeed() {
+    return ThreadLocalRandom.current().nextLong();
+  }
+
+  private static void checkCount(long count) {
+    if (count < 0) {
+      throw new NumberUtilError("Count has to be >= 0");
+    }
+  }
+
+  private static void checkRange(long min, long max) {
+    if (min > max) {
+      throw new NumberUtilError("Minimum "
+          + min
+          + " is larger than maximum "
+          + max);
+    }
+  }
+
+  /**
+   * Checks a floating point range: both values have to be finite, and min has to be smaller than
+   * max.
+   *
+   * @param min The minimum value
+   * @param max The maximum value
+   */
+  static void checkRange(double min, double max) {
+    if (!(min < max) || Double.isInfinite(min) || Double.isInfinite(max)) {
+      throw new NumberUtilError("Invalid range "
+          + min
+          + " to "
+          + max);
+    }
+  }
+
+}
@@ -0,0 +1,258 @@
+package ch.thn.util.number;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Calculates the count, sum, mean, variance, minimum and maximum of a stream of values, without
+ * keeping the values. The mean and the variance are updated with each value (Welford's
+ * algorithm), which is numerically stable also for long streams.<br />
+ * <br />
+ * An instance is not thread safe. Each thread records into its own instance, and the instances
+ * are then merged with {@link #merge(RunningStatistics)}, which gives the same result as recording
+ * all values into one instance (apart from rounding). This also works with streams:
+ *
+ * <pre>
+ * RunningStatistics stats =
+ *     values.parallel().collect(RunningStatistics::new, RunningStatistics::record,
+ *         RunningStatistics::merge);
+ * </pre>
+ *
+ * {@link #toBytes()} and {@link #fromBytes(byte[])} convert the statistics to a compact binary
+ * form and back, e.g. to merge the statistics of several nodes.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ */
+public final class RunningStatistics implements DoubleConsumer {
+
+  private static final byte VERSION = 1;
+  private static final int BYTES = 1 + Long.BYTES + 5 * Double.BYTES;
+
+  private long count = 0;
+  private double sum = 0;
+  private double mean = 0;
+  // The sum of the squared differences from the mean
+  private double m2 = 0;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+
+
+  /**
+   * Records a value.
+   *
+   * @param value The value
+   */
+  public void record(double value) {
+    count++;
+    sum += value;
+
+    double delta = value - mean;
+    mean += delta / count;
+    m2 += delta * (value - mean);
+
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  /**
+   * Records a value.
+   *
+   * @param value The value
+   */
+  public void record(long value) {
+    record((double) value);
+  }
+
+  @Override
+  public void accept(double value) {
+    record(value);
+  }
+
+  /**
+   * Adds the values recorded by the other statistics to these statistics. The other statistics
+   * are not changed.
+   *
+   * @param other The other statistics
+   * @return These statistics
+   */
+  public RunningStatistics merge(RunningStatistics other) {
+    if (other.count == 0) {
+      return this;
+    }
+
+    if (count == 0) {
+      count = other.count;
+      sum = other.sum;
+      mean = other.mean;
+      m2 = other.m2;
+      min = other.min;
+      max = other.max;
+      return this;
+    }
+
+    // Chan et al., the parallel variant of Welford's algorithm
+    long total = count + other.count;
+    double delta = other.mean - mean;
+    mean += delta * other.count / total;
+    m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+    count = total;
+    sum += other.sum;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+
+    return this;
+  }
+
+  /**
+   * Removes all recorded values.
+   *
+   */
+  public void reset() {
+    count = 0;
+    sum = 0;
+    mean = 0;
+    m2 = 0;
+    min = Double.POSITIVE_INFINITY;
+    max = Double.NEGATIVE_INFINITY;
+  }
+
+  /**
+   * Returns the number of recorded values.
+   *
+   * @return The count
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the sum of the recorded values.
+   *
+   * @return The sum, <code>0</code> if no value has been recorded
+   */
+  public double getSum() {
+    return sum;
+  }
+
+  /**
+   * Returns the mean of the recorded values.
+   *
+   * @return The mean, <code>NaN</code> if no value has been recorded
+   */
+  public double getMean() {
+    return count == 0 ? Double.NaN : mean;
+  }
+
+  /**
+   * Returns the population variance of the recorded values.
+   *
+   * @return The variance, <code>NaN</code> if no value has been recorded
+   */
+  public double getVariance() {
+    return count == 0 ? Double.NaN : m2 / count;
+  }
+
+  /**
+   * Returns the sample variance of the recorded values (divided by <code>count - 1</code>).
+   *
+   * @return The sample variance, <code>NaN</code> if less than two values have been recorded
+   */
+  public double getSampleVariance() {
+    return count < 2 ? Double.NaN : m2 / (count - 1);
+  }
+
+  /**
+   * Returns the population standard deviation of the recorded values.
+   *
+   * @return The standard deviation, <code>NaN</code> if no value has been recorded
+   */
+  public double getStandardDeviation() {
+    return Math.sqrt(getVariance());
+  }
+
+  /**
+   * Returns the smallest recorded value.
+   *
+   * @return The minimum, <code>NaN</code> if no value has been recorded
+   */
+  public double getMin() {
+    return count == 0 ? Double.NaN : min;
+  }
+
+  /**
+   * Returns the largest recorded value.
+   *
+   * @return The maximum, <code>NaN</code> if no value has been recorded
+   */
+  public double getMax() {
+    return count == 0 ? Double.NaN : max;
+  }
+
+  /**
+   * Converts the statistics to their binary form.
+   *
+   * @return The statistics as bytes
+   * @see #fromBytes(byte[])
+   */
+  public byte[] toBytes() {
+    ByteBuffer buffer = ByteBuffer.allocate(BYTES);
+    buffer.put(VERSION);
+    buffer.putLong(count);
+    buffer.putDouble(sum);
+    buffer.putDouble(mean);
+    buffer.putDouble(m2);
+    buffer.putDouble(min);
+    buffer.putDouble(max);
+    return buffer.array();
+  }
+
+  /**
+   * Creates statistics from their binary form.
+   *
+   * @param bytes The bytes created with {@link #toBytes()}
+   * @return The statistics
+   */
+  public static RunningStatistics fromBytes(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    RunningStatistics stats = new RunningStatistics();
+
+    try {
+      byte version = buffer.get();
+      if (version != VERSION) {
+        throw new NumberUtilError("Unknown statistics version "
+            + version);
+      }
+
+      stats.count = buffer.getLong();
+      stats.sum = buffer.getDouble();
+      stats.mean = buffer.getDouble();
+      stats.m2 = buffer.getDouble();
+      stats.min = buffer.getDouble();
+      stats.max = buffer.getDouble();
+    } catch (BufferUnderflowException e) {
+      throw new NumberUtilError("Incomplete statistics with "
+          + bytes.length
+          + " bytes");
+    }
+
+    return stats;
+  }
+
+  @Override
+  public String toString() {
+    return "RunningStatistics[count="
+        + count
+        + ", mean="
+        + getMean()
+        + ", stddev="
+        + getStandardDeviation()
+        + ", min="
+        + getMin()
+        + ", max="
+        + getMax()
+        + "]";
+  }
+
+}
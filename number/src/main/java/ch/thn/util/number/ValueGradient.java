@@ -0,0 +1,251 @@
+package ch.thn.util.number;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * A fixed number of values from a start value to an end value, e.g. the alpha values of a fading
+ * effect or the points of a numeric sweep. The values are linear, in fixed steps or follow an
+ * {@link Easing} function.<br />
+ * <br />
+ * A gradient does not store its values. Each value is calculated from its index
+ * ({@link #valueAt(int)}), so that the values can be accessed in any order, iterated lazily
+ * ({@link #iterator()}, {@link #stream()}) or calculated once into a lookup table
+ * ({@link #toArray()}, {@link #toFloatArray()}), all without boxing. A gradient is immutable.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ */
+public final class ValueGradient {
+
+  private final double start;
+  private final double end;
+  private final int count;
+  private final Easing easing;
+  // The distance between two linear values
+  private final double step;
+  private final boolean reversed;
+
+
+  private ValueGradient(double start, double end, int count, Easing easing, double step,
+      boolean reversed) {
+    this.start = start;
+    this.end = end;
+    this.count = count;
+    this.easing = easing;
+    this.step = step;
+    this.reversed = reversed;
+  }
+
+  /**
+   * Creates a gradient with evenly spaced values.
+   *
+   * @param start The first value
+   * @param end The last value
+   * @param count The number of values, including the first and the last value
+   * @return The gradient
+   */
+  public static ValueGradient linear(double start, double end, int count) {
+    return eased(start, end, count, Easing.LINEAR);
+  }
+
+  /**
+   * Creates a gradient whose values follow the easing function.
+   *
+   * @param start The first value
+   * @param end The last value
+   * @param count The number of values, including the first and the last value
+   * @param easing The easing function
+   * @return The gradient
+   */
+  public static ValueGradient eased(double start, double end, int count, Easing easing) {
+    checkFinite(start, end);
+
+    if (count < 1) {
+      throw new NumberUtilError("A gradient needs at least one value, got "
+          + count);
+    }
+
+    double step = count == 1 ? 0 : (end - start) / (count - 1);
+    return new ValueGradient(start, count == 1 ? start : end, count, easing, step, false);
+  }
+
+  /**
+   * Creates a gradient with values in fixed steps: <code>start</code>,
+   * <code>start + step</code>, <code>start + 2 * step</code> etc., as long as they do not go beyond
+   * <code>end</code>. The values are calculated as <code>start + i * step</code>, so that rounding
+   * errors do not add up.
+   *
+   * @param start The first value
+   * @param end The end value, which is the last value if it is reached exactly
+   * @param step The step, negative if end is smaller than start
+   * @return The gradient
+   */
+  public static ValueGradient stepped(double start, double end, double step) {
+    checkFinite(start, end);
+
+    if (!(step != 0 && Double.isFinite(step)) || (end - start) / step < 0) {
+      throw new NumberUtilError("Step "
+          + step
+          + " does not lead from "
+          + start
+          + " to "
+          + end);
+    }
+
+    // Tolerate a rounding error when the end value is reached exactly
+    double steps = Math.floor((end - start) / step * (1 + 1e-12));
+
+    if (steps >= Integer.MAX_VALUE) {
+      throw new NumberUtilError("Too many steps from "
+          + start
+          + " to "
+          + end);
+    }
+
+    int count = (int) steps + 1;
+    return new ValueGradient(start, start + (count - 1) * step, count, Easing.LINEAR, step,
+        false);
+  }
+
+  /**
+   * Returns the number of values.
+   *
+   * @return The number of values
+   */
+  public int size() {
+    return count;
+  }
+
+  public double getStart() {
+    return reversed ? end : start;
+  }
+
+  public double getEnd() {
+    return reversed ? start : end;
+  }
+
+  public Easing getEasing() {
+    return easing;
+  }
+
+  /**
+   * Returns the value with the given index.
+   *
+   * @param index The index, from 0 to {@link #size()} - 1
+   * @return The value
+   */
+  public double valueAt(int index) {
+    if (index < 0 || index >= count) {
+      throw new IndexOutOfBoundsException("Index "
+          + index
+          + " is not within 0 and "
+          + (count - 1));
+    }
+
+    int i = reversed ? count - 1 - index : index;
+
+    if (i == count - 1) {
+      return end;
+    } else if (easing == Easing.LINEAR) {
+      return start + i * step;
+    }
+
+    return start + (end - start) * easing.apply((double) i / (count - 1));
+  }
+
+  /**
+   * Returns an iterator which calculates the values one after the other.
+   *
+   * @return The iterator
+   */
+  public PrimitiveIterator.OfDouble iterator() {
+    return new PrimitiveIterator.OfDouble() {
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return index < count;
+      }
+
+      @Override
+      public double nextDouble() {
+        if (index >= count) {
+          throw new NoSuchElementException();
+        }
+        return valueAt(index++);
+      }
+    };
+  }
+
+  /**
+   * Returns a stream of the values.
+   *
+   * @return The stream
+   */
+  public DoubleStream stream() {
+    return IntStream.range(0, count).mapToDouble(this::valueAt);
+  }
+
+  /**
+   * Calculates all values into a new array.
+   *
+   * @return The values
+   */
+  public double[] toArray() {
+    double[] values = new double[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = valueAt(i);
+    }
+    return values;
+  }
+
+  /**
+   * Calculates all values into a new array, e.g. as lookup table for alpha values.
+   *
+   * @return The values
+   */
+  public float[] toFloatArray() {
+    float[] values = new float[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = (float) valueAt(i);
+    }
+    return values;
+  }
+
+  /**
+   * Returns a gradient with the same values in reverse order, e.g. to fade out with the values
+   * of a fade in.
+   *
+   * @return The reversed gradient
+   */
+  public ValueGradient reverse() {
+    return new ValueGradient(start, end, count, easing, step, !reversed);
+  }
+
+  private static void checkFinite(double start, double end) {
+    if (!Double.isFinite(start) || !Double.isFinite(end)) {
+      throw new NumberUtilError("Gradient from "
+          + start
+          + " to "
+          + end
+          + " is not finite");
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ValueGradient["
+        + getStart()
+        + " to "
+        + getEnd()
+        + ", "
+        + count
+        + " values, "
+        + easing
+        + "]";
+  }
+
+}
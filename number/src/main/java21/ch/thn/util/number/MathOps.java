@@ -0,0 +1,52 @@
+package ch.thn.util.number;
+
+/**
+ * Low level arithmetic helpers which have faster implementations in newer Java versions.<br />
+ * <br />
+ * Java 21 version of this class for the multi-release jar, using the intrinsics of {@link Math}.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+final class MathOps {
+
+  private MathOps() {}
+
+  /**
+   * Returns the upper 64 bits of the signed 128 bit product of the two values.
+   *
+   * @param x The first value
+   * @param y The second value
+   * @return The upper 64 bits of the product
+   */
+  static long multiplyHigh(long x, long y) {
+    return Math.multiplyHigh(x, y);
+  }
+
+  /**
+   * Returns the upper 64 bits of the unsigned 128 bit product of the two values.
+   *
+   * @param x The first value, interpreted as unsigned
+   * @param y The second value, interpreted as unsigned
+   * @return The upper 64 bits of the product
+   */
+  static long unsignedMultiplyHigh(long x, long y) {
+    return Math.unsignedMultiplyHigh(x, y);
+  }
+
+  /**
+   * Returns the rounding error of a floating point multiplication, which is
+   * <code>a * b - product</code> calculated exactly (with <code>product</code> being the rounded
+   * result of <code>a * b</code>). A fused multiply-add calculates it with a single rounding.
+   *
+   * @param a The first factor
+   * @param b The second factor
+   * @param product The rounded product <code>a * b</code>
+   * @return The exact error of the product
+   */
+  static double productError(double a, double b, double product) {
+    return Math.fma(a, b, -product);
+  }
+
+}
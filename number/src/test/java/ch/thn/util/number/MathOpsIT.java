@@ -0,0 +1,118 @@
+package ch.thn.util.number;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.SplittableRandom;
+import org.junit.Test;
+
+/**
+ * Checks {@link MathOps} in the packaged multi-release jar. The same checks run on Java 8, where
+ * the base version of the class is loaded, and on Java 21, where its Java 21 version is loaded
+ * (see the failsafe configuration in the master pom).
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public class MathOpsIT {
+
+  private static final long[] EDGE_VALUES = {0, 1, -1, 2, -2, Integer.MAX_VALUE,
+      Integer.MIN_VALUE, 1L << 32, (1L << 32) - 1, -(1L << 32), Long.MAX_VALUE, Long.MIN_VALUE,
+      Long.MAX_VALUE - 1, Long.MIN_VALUE + 1, 0x5555555555555555L, 0xAAAAAAAAAAAAAAAAL};
+
+  private static final BigInteger TWO_POW_64 = BigInteger.ONE.shiftLeft(64);
+
+  private final SplittableRandom random = new SplittableRandom(42);
+
+
+  @Test
+  public void loadsTheVersionOfTheRunningJava() throws IOException {
+    assertTrue("Not running against the packaged jar",
+        MathOps.class.getProtectionDomain().getCodeSource().getLocation().getPath()
+            .endsWith(".jar"));
+    assertEquals(expectedClassVersion(MathOps.class), classVersion(MathOps.class));
+  }
+
+  @Test
+  public void multiplyHigh() {
+    for (long x : EDGE_VALUES) {
+      for (long y : EDGE_VALUES) {
+        checkMultiplyHigh(x, y);
+      }
+    }
+
+    for (int i = 0; i < 100000; i++) {
+      checkMultiplyHigh(random.nextLong(), random.nextLong());
+      checkMultiplyHigh(random.nextLong() >> random.nextInt(64), random.nextInt());
+    }
+  }
+
+  @Test
+  public void productError() {
+    for (int i = 0; i < 100000; i++) {
+      double a = (random.nextDouble() - 0.5) * Math.pow(2, random.nextInt(-300, 300));
+      double b = (random.nextDouble() - 0.5) * Math.pow(2, random.nextInt(-300, 300));
+      double product = a * b;
+      double error = MathOps.productError(a, b, product);
+
+      BigDecimal exact = new BigDecimal(a).multiply(new BigDecimal(b));
+      assertEquals(a + " * " + b, 0,
+          exact.compareTo(new BigDecimal(product).add(new BigDecimal(error))));
+    }
+  }
+
+  private static void checkMultiplyHigh(long x, long y) {
+    BigInteger product = BigInteger.valueOf(x).multiply(BigInteger.valueOf(y));
+    assertEquals(x + " * " + y, product.shiftRight(64).longValue(), MathOps.multiplyHigh(x, y));
+
+    BigInteger unsignedProduct = unsigned(x).multiply(unsigned(y));
+    assertEquals(x + " * " + y + " unsigned", unsignedProduct.shiftRight(64).longValue(),
+        MathOps.unsignedMultiplyHigh(x, y));
+  }
+
+  private static BigInteger unsigned(long value) {
+    BigInteger big = BigInteger.valueOf(value);
+    return value < 0 ? big.add(TWO_POW_64) : big;
+  }
+
+  /**
+   * The class file version which has to be loaded: the Java 21 version if the class has one and
+   * the tests run on Java 21 or newer, otherwise the Java 8 version.
+   *
+   * @param type The class
+   * @return The expected major class file version
+   */
+  static int expectedClassVersion(Class<?> type) {
+    String spec = System.getProperty("java.specification.version");
+    int java = Integer.parseInt(spec.startsWith("1.") ? spec.substring(2) : spec);
+    String overlay = "META-INF/versions/21/"
+        + type.getName().replace('.', '/')
+        + ".class";
+
+    return java >= 21 && type.getClassLoader().getResource(overlay) != null ? 65 : 52;
+  }
+
+  /**
+   * Reads the major class file version of the loaded class.
+   *
+   * @param type The class
+   * @return The major class file version
+   * @throws IOException If reading the class file fails
+   */
+  static int classVersion(Class<?> type) throws IOException {
+    try (InputStream in = type.getResourceAsStream(type.getSimpleName()
+        + ".class")) {
+      DataInputStream data = new DataInputStream(in);
+      data.readInt();
+      data.readUnsignedShort();
+      return data.readUnsignedShort();
+    }
+  }
+
+}
@@ -0,0 +1,33 @@
+package ch.thn.util.number;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * A short run of the {@link NumberUtilFuzzer} with a fixed seed, against the packaged multi-release
+ * jar. It runs on Java 8 and on Java 21 (see the failsafe configuration in the master pom), so
+ * that the results of both versions of {@link MathOps} are checked.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public class NumberUtilFuzzIT {
+
+  private static final long SEED = 42;
+
+  private static final long ITERATIONS = 20000;
+
+
+  @Test
+  public void fuzz() {
+    assertTrue("Not running against the packaged jar",
+        NumberUtil.class.getProtectionDomain().getCodeSource().getLocation().getPath()
+            .endsWith(".jar"));
+    assertTrue("The fuzzer found failures with seed "
+        + SEED
+        + ", see the output", new NumberUtilFuzzer(SEED).run(ITERATIONS));
+  }
+
+}
@@ -0,0 +1,1020 @@
+package ch.thn.util.number;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Checks the results of {@link NumberUtil} and the related classes with random numbers against a
+ * reference implementation with {@link BigDecimal}, so that optimizations of the fast paths can
+ * not silently change any results. The reference has its own table of the type promotions, and
+ * calculates each operation exactly with the operands converted to the promoted type, rounded
+ * only once to the result type.<br />
+ * <br />
+ * The numbers are random values of all supported types, with a bias towards the edge cases
+ * (<code>MIN_VALUE</code>/<code>MAX_VALUE</code>, powers of two, values around 2^53, rounding
+ * ties, -0.0, large scales, ...). The parallel threshold of {@link NumberArrayUtil} is lowered
+ * while running, so that the parallel paths are checked as well.<br />
+ * <br />
+ * A short run with a fixed seed is part of the integration tests ({@link NumberUtilFuzzIT}). For
+ * longer runs, run it with <code>java -cp benchmarks.jar ch.thn.util.number.NumberUtilFuzzer
+ * [iterations] [seed]</code>. The seed is printed, so that a failure can be reproduced. The exit
+ * code is 1 if any check failed.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public class NumberUtilFuzzer {
+
+  private static final long DEFAULT_ITERATIONS = 100000;
+
+  // The number of failures printed with details
+  private static final int MAX_REPORTED = 20;
+
+  private static final RoundingMode[] ROUNDING_MODES =
+      {RoundingMode.UP, RoundingMode.DOWN, RoundingMode.CEILING, RoundingMode.FLOOR,
+          RoundingMode.HALF_UP, RoundingMode.HALF_DOWN, RoundingMode.HALF_EVEN};
+
+  // Exact enough to round a non terminating quotient of two doubles correctly
+  private static final MathContext QUOTIENT_CONTEXT = new MathContext(60, RoundingMode.HALF_EVEN);
+
+  private static final String[] OPERATIONS =
+      {"add", "subtract", "multiply", "divide", "remainder"};
+
+  private static final int PARALLEL_THRESHOLD = 64;
+
+  /**
+   * The operation types of the reference, in the order of their promotion.
+   */
+  private enum Type {
+    SHORT, INT, LONG, FLOAT, DOUBLE, DECIMAL, BIG_INTEGER, BIG_DECIMAL
+  }
+
+  private final long seed;
+  private final SplittableRandom random;
+
+  // The number of checks and failures of each property
+  private final Map<String, long[]> results = new TreeMap<>();
+  private int reported = 0;
+
+
+  /**
+   * Runs the checks.
+   *
+   * @param args The number of iterations and the seed, both optional
+   */
+  public static void main(String[] args) {
+    long iterations = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_ITERATIONS;
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+
+    if (!new NumberUtilFuzzer(seed).run(iterations)) {
+      System.exit(1);
+    }
+  }
+
+  /**
+   * A fuzzer with the given seed for the random numbers.
+   *
+   * @param seed The seed
+   */
+  public NumberUtilFuzzer(long seed) {
+    this.seed = seed;
+    this.random = new SplittableRandom(seed);
+  }
+
+  /**
+   * Runs the given number of iterations of all checks and prints the results.
+   *
+   * @param iterations The number of iterations
+   * @return True if all checks passed
+   */
+  public boolean run(long iterations) {
+    System.out.println("Seed "
+        + seed
+        + ", "
+        + iterations
+        + " iterations");
+
+    int threshold = NumberArrayUtil.getParallelThreshold();
+    NumberArrayUtil.setParallelThreshold(PARALLEL_THRESHOLD);
+
+    try {
+      for (long i = 0; i < iterations; i++) {
+        checkArithmetic();
+        checkExact();
+        checkComparison();
+        checkRounding();
+        checkDecimal();
+        checkFormat();
+
+        if (i % 64 == 0) {
+          checkArrays();
+        }
+        if (i % 256 == 0) {
+          checkSort();
+        }
+      }
+    } finally {
+      NumberArrayUtil.setParallelThreshold(threshold);
+    }
+
+    long failures = 0;
+    for (Map.Entry<String, long[]> entry : results.entrySet()) {
+      System.out.println(String.format("%-24s %12d checks %8d failures", entry.getKey(),
+          entry.getValue()[0], entry.getValue()[1]));
+      failures += entry.getValue()[1];
+    }
+
+    return failures == 0;
+  }
+
+  /**
+   * Counts the check, and prints the details if it failed.
+   *
+   * @param property The checked property
+   * @param passed Whether the check passed
+   * @param details The details of the check, only created if it failed
+   */
+  private void check(String property, boolean passed, Supplier<String> details) {
+    long[] counts = results.computeIfAbsent(property, key -> new long[2]);
+    counts[0]++;
+
+    if (!passed) {
+      counts[1]++;
+      if (reported++ < MAX_REPORTED) {
+        System.out.println("FAILED "
+            + property
+            + ": "
+            + details.get());
+      }
+    }
+  }
+
+  /**
+   * Checks the result type and value of the arithmetic operations of {@link NumberUtil}.
+   */
+  private void checkArithmetic() {
+    Number num1 = randomNumber(true);
+    Number num2 = randomNumber(true);
+    String operation = OPERATIONS[random.nextInt(OPERATIONS.length)];
+    Type type = promote(typeOf(num1), typeOf(num2));
+
+    Object expected;
+    try {
+      expected = expected(operation, num1, num2, type);
+    } catch (ArithmeticException e) {
+      expected = e;
+    }
+
+    Object actual;
+    try {
+      actual = apply(operation, num1, num2);
+    } catch (ArithmeticException e) {
+      actual = e;
+    }
+
+    Object expectedResult = expected;
+    Object actualResult = actual;
+    check(operation, sameResult(expected, actual, type),
+        () -> describe(num1)
+            + " "
+            + operation
+            + " "
+            + describe(num2)
+            + ": expected "
+            + describe(expectedResult)
+            + ", got "
+            + describe(actualResult));
+  }
+
+  /**
+   * Checks the value of the exact arithmetic operations, which only have to be numerically equal
+   * to the exact result. Floating point results are rounded like the normal operations, unless
+   * they overflow.
+   */
+  private void checkExact() {
+    Number num1 = randomNumber(true);
+    Number num2 = randomNumber(true);
+    String operation = OPERATIONS[random.nextInt(OPERATIONS.length - 1)];
+    Type type = promote(typeOf(num1), typeOf(num2));
+    BigDecimal value1 = operand(num1, type);
+    BigDecimal value2 = operand(num2, type);
+
+    if (value2.signum() == 0 && operation.equals("divide")) {
+      // Division by zero is checked with the normal operations
+      return;
+    }
+
+    BigDecimal expected;
+    if (type.compareTo(Type.LONG) <= 0 || type == Type.BIG_INTEGER) {
+      expected = new BigDecimal(integerOperation(operation, value1.toBigIntegerExact(),
+          value2.toBigIntegerExact()));
+    } else if (type == Type.FLOAT || type == Type.DOUBLE) {
+      Number rounded = expected(operation, num1, num2, type);
+      if (type == Type.FLOAT && Float.isInfinite(rounded.floatValue())) {
+        // The float results which overflow are calculated with doubles
+        rounded = decimalOperation(operation, value1, value2, QUOTIENT_CONTEXT).doubleValue();
+      }
+      expected = Double.isInfinite(rounded.doubleValue())
+          ? decimalOperation(operation, value1, value2, MathContext.DECIMAL128)
+          : exact(rounded);
+    } else {
+      expected = decimalOperation(operation, value1, value2, MathContext.DECIMAL128);
+    }
+
+    Number actual;
+    switch (operation) {
+      case "add":
+        actual = NumberUtil.addExact(num1, num2);
+        break;
+      case "subtract":
+        actual = NumberUtil.subtractExact(num1, num2);
+        break;
+      case "multiply":
+        actual = NumberUtil.multiplyExact(num1, num2);
+        break;
+      default:
+        actual = NumberUtil.divideExact(num1, num2);
+        break;
+    }
+
+    check(operation + "Exact", exact(actual).compareTo(expected) == 0,
+        () -> describe(num1)
+            + " "
+            + operation
+            + "Exact "
+            + describe(num2)
+            + ": expected "
+            + expected
+            + ", got "
+            + describe(actual));
+  }
+
+  /**
+   * Checks {@link NumberUtil#gt(Number, Number)} and {@link NumberUtil#lt(Number, Number)}, which
+   * compare the values converted to the promoted type, and
+   * {@link NumberUtil#compare(Number, Number)}, which compares the exact values.
+   */
+  private void checkComparison() {
+    Number num1 = randomNumber(true);
+    Number num2 = random.nextInt(8) == 0 ? num1 : randomNumber(true);
+    Type type = promote(typeOf(num1), typeOf(num2));
+    int promoted = operand(num1, type).compareTo(operand(num2, type));
+
+    check("gt", NumberUtil.gt(num1, num2) == promoted > 0,
+        () -> describe(num1)
+            + " gt "
+            + describe(num2));
+    check("lt", NumberUtil.lt(num1, num2) == promoted < 0,
+        () -> describe(num1)
+            + " lt "
+            + describe(num2));
+
+    Number special1 = randomNumber(false);
+    Number special2 = randomNumber(false);
+    int expected = compare(special1, special2);
+    int actual = Integer.signum(NumberUtil.compare(special1, special2));
+    check("compare", actual == expected,
+        () -> describe(special1)
+            + " compare "
+            + describe(special2)
+            + ": expected "
+            + expected
+            + ", got "
+            + actual);
+  }
+
+  /**
+   * Checks {@link NumberUtil#roundDecimals(double, int, RoundingMode)} and the <code>float</code>
+   * version against rounding the exact binary value.
+   */
+  private void checkRounding() {
+    double value = randomDouble();
+    int decimals = random.nextInt(16);
+    RoundingMode mode = ROUNDING_MODES[random.nextInt(ROUNDING_MODES.length)];
+
+    double expected = new BigDecimal(value).setScale(decimals, mode).doubleValue();
+    double actual = NumberUtil.roundDecimals(value, decimals, mode);
+    check("roundDecimals", actual == expected,
+        () -> value
+            + " to "
+            + decimals
+            + " "
+            + mode
+            + ": expected "
+            + expected
+            + ", got "
+            + actual);
+
+    float floatValue = (float) value;
+    if (Float.isInfinite(floatValue)) {
+      return;
+    }
+
+    int floatDecimals = random.nextInt(8);
+    float expectedFloat =
+        new BigDecimal(floatValue).setScale(floatDecimals, mode).floatValue();
+    float actualFloat = NumberUtil.roundDecimals(floatValue, floatDecimals, mode);
+    check("roundDecimalsFloat", actualFloat == expectedFloat,
+        () -> floatValue
+            + "f to "
+            + floatDecimals
+            + " "
+            + mode
+            + ": expected "
+            + expectedFloat
+            + ", got "
+            + actualFloat);
+  }
+
+  /**
+   * Checks the {@link Decimal} operations with an explicit scale and rounding mode.
+   */
+  private void checkDecimal() {
+    Decimal decimal1 = randomDecimal();
+    Decimal decimal2 = randomDecimal();
+    int scale = random.nextInt(Decimal.MAX_SCALE + 1);
+    RoundingMode mode = ROUNDING_MODES[random.nextInt(ROUNDING_MODES.length)];
+    BigDecimal value1 = decimal1.toBigDecimal();
+    BigDecimal value2 = decimal2.toBigDecimal();
+
+    checkDecimal("decimalMultiply", () -> decimal1.multiply(decimal2, scale, mode),
+        () -> value1.multiply(value2).setScale(scale, mode), decimal1, decimal2);
+    checkDecimal("decimalDivide", () -> decimal1.divide(decimal2, scale, mode),
+        () -> value1.divide(value2, scale, mode), decimal1, decimal2);
+    checkDecimal("decimalSetScale", () -> decimal1.setScale(scale, mode),
+        () -> value1.setScale(scale, mode), decimal1, decimal2);
+
+    Decimal.Accumulator accumulator = new Decimal.Accumulator(scale, mode);
+    checkDecimal("decimalAccumulator",
+        () -> accumulator.set(decimal1).addProduct(decimal1, decimal2).get(),
+        () -> checkFits(value1.setScale(scale, mode))
+            .add(value1.multiply(value2).setScale(scale, mode)),
+        decimal1, decimal2);
+  }
+
+  /**
+   * Checks one decimal operation, which has to throw an {@link ArithmeticException} if the
+   * expected result does not fit into a {@link Decimal}.
+   *
+   * @param property The checked property
+   * @param operation The decimal operation
+   * @param reference The reference operation
+   * @param decimal1 The first operand, for the details
+   * @param decimal2 The second operand, for the details
+   */
+  private void checkDecimal(String property, Supplier<Decimal> operation,
+      Supplier<BigDecimal> reference, Decimal decimal1, Decimal decimal2) {
+    String expected;
+    try {
+      BigDecimal result = reference.get();
+      expected = result.unscaledValue().bitLength() < 64 ? result.toPlainString() : "overflow";
+    } catch (ArithmeticException e) {
+      expected = "overflow";
+    }
+
+    String actual;
+    try {
+      actual = operation.get().toString();
+    } catch (ArithmeticException e) {
+      actual = "overflow";
+    }
+
+    String expectedResult = expected;
+    String actualResult = actual;
+    check(property, expected.equals(actual),
+        () -> decimal1
+            + ", "
+            + decimal2
+            + ": expected "
+            + expectedResult
+            + ", got "
+            + actualResult);
+  }
+
+  /**
+   * Checks that an intermediate value fits into a {@link Decimal}.
+   *
+   * @param value The value
+   * @return The value
+   */
+  private static BigDecimal checkFits(BigDecimal value) {
+    if (value.unscaledValue().bitLength() >= 64) {
+      throw new ArithmeticException("Overflow");
+    }
+    return value;
+  }
+
+  /**
+   * Checks {@link NumberFormatter} and {@link NumberUtil#formatNumber(Number, NumberFormatSpec)}
+   * against the {@link DecimalFormat} of the same spec.
+   */
+  private void checkFormat() {
+    NumberFormatSpec spec = new NumberFormatSpec(1 + random.nextInt(6), random.nextInt(8),
+        random.nextInt(8) == 0, random.nextBoolean(), random.nextInt(4) == 0,
+        random.nextInt(8) == 0, random.nextBoolean());
+    DecimalFormat format = new DecimalFormat(spec.toPattern());
+    NumberFormatter formatter = new NumberFormatter(spec);
+
+    Number num;
+    String expected;
+    switch (random.nextInt(3)) {
+      case 0:
+        num = random.nextInt(8) == 0 ? randomSpecialDouble() : randomDouble();
+        expected = format.format(num.doubleValue());
+        break;
+      case 1:
+        num = randomLong();
+        expected = format.format(num.longValue());
+        break;
+      default:
+        num = randomDecimal();
+        expected = format.format(((Decimal) num).toBigDecimal());
+        break;
+    }
+
+    String actual = formatter.format(num);
+    String cached = NumberUtil.formatNumber(num, spec);
+    check("format", expected.equals(actual) && expected.equals(cached),
+        () -> describe(num)
+            + " with "
+            + spec.toPattern()
+            + ": expected "
+            + expected
+            + ", got "
+            + actual
+            + " and "
+            + cached);
+  }
+
+  /**
+   * Checks the integer sums and dot products of {@link NumberArrayUtil}, sequential and parallel.
+   */
+  private void checkArrays() {
+    int length = random.nextInt(4 * PARALLEL_THRESHOLD);
+    long[] longs = new long[length];
+    int[] ints = new int[length];
+    Number[] numbers = new Number[length];
+    BigInteger longSum = BigInteger.ZERO;
+    BigInteger dot = BigInteger.ZERO;
+    long intSum = 0;
+
+    for (int i = 0; i < length; i++) {
+      longs[i] = randomLong();
+      ints[i] = (int) randomLong();
+      numbers[i] = random.nextBoolean() ? (Number) longs[i] : (Number) ints[i];
+      longSum = longSum.add(BigInteger.valueOf(longs[i]));
+      dot = dot.add(BigInteger.valueOf(longs[i]).multiply(BigInteger.valueOf(longs[i])));
+      intSum += ints[i];
+    }
+
+    long expectedIntSum = intSum;
+    BigInteger expectedSum = longSum;
+    BigInteger expectedDot = dot;
+    check("sumLongs", NumberArrayUtil.sum(longs) == expectedSum.longValue(),
+        () -> Arrays.toString(longs));
+    check("sumInts", NumberArrayUtil.sum(ints) == expectedIntSum, () -> Arrays.toString(ints));
+    check("dotLongs", NumberArrayUtil.dot(longs, longs) == expectedDot.longValue(),
+        () -> Arrays.toString(longs));
+
+    BigInteger numberSum = BigInteger.ZERO;
+    for (Number num : numbers) {
+      numberSum = numberSum.add(BigInteger.valueOf(num.longValue()));
+    }
+
+    BigDecimal expectedExact = new BigDecimal(numberSum);
+    check("sumExact", exact(NumberArrayUtil.sumExact(numbers)).compareTo(expectedExact) == 0,
+        () -> Arrays.toString(numbers));
+  }
+
+  /**
+   * Checks the order of {@link NumberSort} against a stable sort with the reference comparison.
+   */
+  private void checkSort() {
+    int length = random.nextInt(3 * NumberSort.RADIX_THRESHOLD);
+    Number[] numbers = new Number[length];
+    int kinds = random.nextInt(3);
+
+    for (int i = 0; i < length; i++) {
+      switch (kinds) {
+        case 0:
+          numbers[i] = randomLong();
+          break;
+        case 1:
+          numbers[i] = random.nextBoolean() ? (Number) random.nextInt(-1000, 1000)
+              : (Number) (random.nextInt(-2000, 2000) / 2.0);
+          break;
+        default:
+          numbers[i] = randomNumber(false);
+          break;
+      }
+    }
+
+    Number[] expected = numbers.clone();
+    Arrays.sort(expected, NumberUtilFuzzer::compare);
+    Number[] actual = numbers.clone();
+    NumberSort.sort(actual);
+
+    boolean same = true;
+    for (int i = 0; i < length; i++) {
+      same &= actual[i] == expected[i];
+    }
+    check("sortNumbers", same, () -> length
+        + " numbers of kind "
+        + kinds);
+
+    // Also all and mostly NaN values, which are moved to the end before the radix sort
+    int nans = random.nextInt(4);
+    long[] longs = new long[length];
+    double[] doubles = new double[length];
+    for (int i = 0; i < length; i++) {
+      longs[i] = randomLong();
+      if (nans == 0 || nans == 1 && random.nextInt(64) != 0) {
+        doubles[i] = Double.NaN;
+      } else {
+        doubles[i] = random.nextInt(16) == 0 ? randomSpecialDouble() : randomDouble();
+      }
+    }
+
+    long[] expectedLongs = longs.clone();
+    Arrays.sort(expectedLongs);
+    NumberSort.sort(longs);
+    check("sortLongs", Arrays.equals(longs, expectedLongs), () -> length
+        + " longs");
+
+    double[] expectedDoubles = doubles.clone();
+    Arrays.sort(expectedDoubles);
+    NumberSort.sort(doubles);
+    check("sortDoubles", Arrays.equals(doubles, expectedDoubles), () -> length
+        + " doubles, NaN kind "
+        + nans);
+  }
+
+  /**
+   * Applies the operation with {@link NumberUtil}.
+   *
+   * @param operation The operation
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return The result
+   */
+  private static Number apply(String operation, Number num1, Number num2) {
+    switch (operation) {
+      case "add":
+        return NumberUtil.add(num1, num2);
+      case "subtract":
+        return NumberUtil.subtract(num1, num2);
+      case "multiply":
+        return NumberUtil.multiply(num1, num2);
+      case "divide":
+        return NumberUtil.divide(num1, num2);
+      default:
+        return NumberUtil.remainder(num1, num2);
+    }
+  }
+
+  /**
+   * Calculates the expected result of the operation with the reference implementation.
+   *
+   * @param operation The operation
+   * @param num1 The first number
+   * @param num2 The second number
+   * @param type The promoted type
+   * @return The expected result
+   */
+  private static Number expected(String operation, Number num1, Number num2, Type type) {
+    BigDecimal value1 = operand(num1, type);
+    BigDecimal value2 = operand(num2, type);
+    boolean division = operation.equals("divide") || operation.equals("remainder");
+
+    switch (type) {
+      case SHORT:
+      case INT:
+        return integerOperation(operation, value1.toBigIntegerExact(), value2.toBigIntegerExact())
+            .intValue();
+      case LONG:
+        return integerOperation(operation, value1.toBigIntegerExact(), value2.toBigIntegerExact())
+            .longValue();
+      case BIG_INTEGER:
+        return integerOperation(operation, value1.toBigIntegerExact(),
+            value2.toBigIntegerExact());
+      case FLOAT:
+        if (division && value2.signum() == 0) {
+          // Not converted through BigDecimal, which has no -0.0
+          float float1 = num1.floatValue();
+          float float2 = num2.floatValue();
+          return operation.equals("divide") ? float1 / float2 : float1 % float2;
+        }
+        return decimalOperation(operation, value1, value2, QUOTIENT_CONTEXT).floatValue();
+      case DOUBLE:
+        if (division && value2.signum() == 0) {
+          // Not converted through BigDecimal, which has no -0.0
+          double double1 = num1.doubleValue();
+          double double2 = num2.doubleValue();
+          return operation.equals("divide") ? double1 / double2 : double1 % double2;
+        }
+        return decimalOperation(operation, value1, value2, QUOTIENT_CONTEXT).doubleValue();
+      case DECIMAL:
+        return expectedDecimal(operation, value1, value2);
+      default:
+        if (operation.equals("divide")) {
+          // Always rounded, also if the exact quotient has a terminating decimal expansion
+          return value1.divide(value2, MathContext.DECIMAL128);
+        }
+        return decimalOperation(operation, value1, value2, MathContext.DECIMAL128);
+    }
+  }
+
+  /**
+   * Calculates the expected {@link Decimal} result: exact, or rounded half-even to the larger
+   * scale for multiplications and divisions.
+   *
+   * @param operation The operation
+   * @param value1 The first value
+   * @param value2 The second value
+   * @return The expected result
+   */
+  private static Decimal expectedDecimal(String operation, BigDecimal value1,
+      BigDecimal value2) {
+    int scale = Math.max(value1.scale(), value2.scale());
+    BigDecimal result;
+
+    switch (operation) {
+      case "multiply":
+        result = value1.multiply(value2).setScale(scale, RoundingMode.HALF_EVEN);
+        break;
+      case "divide":
+        result = value1.divide(value2, scale, RoundingMode.HALF_EVEN);
+        break;
+      default:
+        result = decimalOperation(operation, value1, value2, null).setScale(scale);
+        break;
+    }
+
+    return Decimal.valueOf(result);
+  }
+
+  /**
+   * Applies the operation to integer values. The division is truncated.
+   *
+   * @param operation The operation
+   * @param value1 The first value
+   * @param value2 The second value
+   * @return The exact result
+   */
+  private static BigInteger integerOperation(String operation, BigInteger value1,
+      BigInteger value2) {
+    switch (operation) {
+      case "add":
+        return value1.add(value2);
+      case "subtract":
+        return value1.subtract(value2);
+      case "multiply":
+        return value1.multiply(value2);
+      case "divide":
+        return value1.divide(value2);
+      default:
+        return value1.remainder(value2);
+    }
+  }
+
+  /**
+   * Applies the operation to decimal values. The result is exact, except for quotients without a
+   * terminating decimal expansion.
+   *
+   * @param operation The operation
+   * @param value1 The first value
+   * @param value2 The second value
+   * @param context The precision of quotients without a terminating decimal expansion
+   * @return The result
+   */
+  private static BigDecimal decimalOperation(String operation, BigDecimal value1,
+      BigDecimal value2, MathContext context) {
+    switch (operation) {
+      case "add":
+        return value1.add(value2);
+      case "subtract":
+        return value1.subtract(value2);
+      case "multiply":
+        return value1.multiply(value2);
+      case "divide":
+        try {
+          return value1.divide(value2);
+        } catch (ArithmeticException e) {
+          if (value2.signum() == 0) {
+            throw e;
+          }
+          return value1.divide(value2, context);
+        }
+      default:
+        return value1.remainder(value2);
+    }
+  }
+
+  /**
+   * Checks if the actual result has the expected type and value. Zeroes of floating point
+   * results are equal regardless of their sign.
+   *
+   * @param expected The expected result or exception
+   * @param actual The actual result or exception
+   * @param type The promoted type
+   * @return True if the results are the same
+   */
+  private static boolean sameResult(Object expected, Object actual, Type type) {
+    if (expected instanceof ArithmeticException || actual instanceof ArithmeticException) {
+      return expected instanceof ArithmeticException && actual instanceof ArithmeticException;
+    }
+
+    Number expectedNum = (Number) expected;
+    Number actualNum = (Number) actual;
+
+    if (actualNum.getClass() != resultClass(type)) {
+      return false;
+    } else if (type == Type.FLOAT) {
+      float expectedValue = expectedNum.floatValue();
+      float actualValue = actualNum.floatValue();
+      return actualValue == expectedValue
+          || (Float.isNaN(actualValue) && Float.isNaN(expectedValue));
+    } else if (type == Type.DOUBLE) {
+      double expectedValue = expectedNum.doubleValue();
+      double actualValue = actualNum.doubleValue();
+      return actualValue == expectedValue
+          || (Double.isNaN(actualValue) && Double.isNaN(expectedValue));
+    }
+
+    return exact(actualNum).compareTo(exact(expectedNum)) == 0;
+  }
+
+  /**
+   * The reference order of numbers: NaN is larger than positive infinity, which is larger than
+   * all finite values, which are ordered by their exact value (with -0.0 below 0).
+   *
+   * @param num1 The first number
+   * @param num2 The second number
+   * @return -1, 0 or 1
+   */
+  private static int compare(Number num1, Number num2) {
+    int rank1 = rank(num1);
+    int rank2 = rank(num2);
+
+    if (rank1 != 0 || rank2 != 0) {
+      return Integer.compare(rank1, rank2);
+    }
+
+    int result = exact(num1).compareTo(exact(num2));
+    if (result != 0) {
+      return result;
+    }
+
+    return Boolean.compare(!isNegativeZero(num1), !isNegativeZero(num2));
+  }
+
+  private static int rank(Number num) {
+    if (!isFloatingPoint(num) || Double.isFinite(num.doubleValue())) {
+      return 0;
+    }
+    return Double.isNaN(num.doubleValue()) ? 3 : num.doubleValue() > 0 ? 2 : -2;
+  }
+
+  private static boolean isNegativeZero(Number num) {
+    return isFloatingPoint(num) && Double.doubleToRawLongBits(num.doubleValue()) == Long.MIN_VALUE;
+  }
+
+  private static boolean isFloatingPoint(Number num) {
+    return num instanceof Double || num instanceof Float;
+  }
+
+  /**
+   * Determines the reference type of the number.
+   *
+   * @param num The number
+   * @return The type
+   */
+  private static Type typeOf(Number num) {
+    if (num instanceof Byte || num instanceof Short) {
+      return Type.SHORT;
+    } else if (num instanceof Integer || num instanceof AtomicInteger) {
+      return Type.INT;
+    } else if (num instanceof Long || num instanceof AtomicLong) {
+      return Type.LONG;
+    } else if (num instanceof Float) {
+      return Type.FLOAT;
+    } else if (num instanceof Double) {
+      return Type.DOUBLE;
+    } else if (num instanceof Decimal) {
+      return Type.DECIMAL;
+    } else if (num instanceof BigInteger) {
+      return Type.BIG_INTEGER;
+    }
+    return Type.BIG_DECIMAL;
+  }
+
+  /**
+   * Determines the type of an operation on two types: the higher type, except that a combination
+   * which would lose the decimals or the binary fraction results in a <code>BigDecimal</code>.
+   *
+   * @param type1 The first type
+   * @param type2 The second type
+   * @return The promoted type
+   */
+  private static Type promote(Type type1, Type type2) {
+    Type type = type1.compareTo(type2) > 0 ? type1 : type2;
+    Type other = type == type1 ? type2 : type1;
+    boolean floating = other == Type.FLOAT || other == Type.DOUBLE;
+
+    if (type == Type.BIG_INTEGER && (floating || other == Type.DECIMAL)) {
+      return Type.BIG_DECIMAL;
+    } else if (type == Type.DECIMAL && floating) {
+      return Type.BIG_DECIMAL;
+    }
+    return type;
+  }
+
+  /**
+   * Returns the class of the results of the type.
+   *
+   * @param type The type
+   * @return The result class
+   */
+  private static Class<?> resultClass(Type type) {
+    switch (type) {
+      case SHORT:
+      case INT:
+        return Integer.class;
+      case LONG:
+        return Long.class;
+      case FLOAT:
+        return Float.class;
+      case DOUBLE:
+        return Double.class;
+      case DECIMAL:
+        return Decimal.class;
+      case BIG_INTEGER:
+        return BigInteger.class;
+      default:
+        return BigDecimal.class;
+    }
+  }
+
+  /**
+   * Converts the number to the given type, and returns the exact value of the converted number.
+   *
+   * @param num The number
+   * @param type The type to convert to
+   * @return The exact value
+   */
+  private static BigDecimal operand(Number num, Type type) {
+    switch (type) {
+      case SHORT:
+      case INT:
+        return BigDecimal.valueOf(num.intValue());
+      case LONG:
+        return BigDecimal.valueOf(num.longValue());
+      case FLOAT:
+        return new BigDecimal(num.floatValue());
+      case DOUBLE:
+        return new BigDecimal(num.doubleValue());
+      default:
+        return exact(num);
+    }
+  }
+
+  /**
+   * Returns the exact value of a finite number.
+   *
+   * @param num The number
+   * @return The exact value
+   */
+  private static BigDecimal exact(Number num) {
+    if (num instanceof BigDecimal) {
+      return (BigDecimal) num;
+    } else if (num instanceof BigInteger) {
+      return new BigDecimal((BigInteger) num);
+    } else if (num instanceof Decimal) {
+      return ((Decimal) num).toBigDecimal();
+    } else if (isFloatingPoint(num)) {
+      return new BigDecimal(num.doubleValue());
+    }
+    return BigDecimal.valueOf(num.longValue());
+  }
+
+  private static String describe(Object value) {
+    return value instanceof Number
+        ? value
+            + " ("
+            + value.getClass().getSimpleName()
+            + ")"
+        : String.valueOf(value);
+  }
+
+  /**
+   * Creates a random number of a random type.
+   *
+   * @param finite Whether the number has to be finite, otherwise it may also be NaN or infinite
+   * @return The number
+   */
+  private Number randomNumber(boolean finite) {
+    switch (random.nextInt(12)) {
+      case 0:
+        return (byte) randomLong();
+      case 1:
+        return (short) randomLong();
+      case 2:
+        return (int) randomLong();
+      case 3:
+        return randomLong();
+      case 4:
+        float value = (float) randomDouble();
+        return Float.isInfinite(value) ? Float.MAX_VALUE : value;
+      case 5:
+        return finite || random.nextInt(8) != 0 ? randomDouble() : randomSpecialDouble();
+      case 6:
+        return randomDecimal();
+      case 7:
+        return BigInteger.valueOf(randomLong()).shiftLeft(random.nextInt(70));
+      case 8:
+        return BigDecimal.valueOf(randomLong(), random.nextInt(-3, 24));
+      case 9:
+        return new AtomicInteger((int) randomLong());
+      case 10:
+        return new AtomicLong(randomLong());
+      default:
+        return (int) randomLong();
+    }
+  }
+
+  /**
+   * Creates a random <code>long</code> value, often one of the edge cases.
+   *
+   * @return The value
+   */
+  private long randomLong() {
+    switch (random.nextInt(8)) {
+      case 0:
+        return new long[] {0, 1, -1, Long.MIN_VALUE, Long.MAX_VALUE, Integer.MIN_VALUE,
+            Integer.MAX_VALUE, Short.MIN_VALUE, Byte.MAX_VALUE}[random.nextInt(9)];
+      case 1:
+        return (1L << random.nextInt(63)) + random.nextInt(-2, 3);
+      case 2:
+        return (random.nextBoolean() ? 1 : -1) * ((1L << 53) + random.nextInt(-4, 5));
+      case 3:
+      case 4:
+        return random.nextInt(-1000, 1001);
+      case 5:
+        return random.nextLong() >> random.nextInt(64);
+      default:
+        return random.nextLong();
+    }
+  }
+
+  /**
+   * Creates a random finite <code>double</code> value, often a rounding tie or an edge case.
+   *
+   * @return The value
+   */
+  private double randomDouble() {
+    switch (random.nextInt(8)) {
+      case 0:
+        return new double[] {0.0, -0.0, 1.0, -1.0, 0.1, 0.5, Double.MIN_VALUE, Double.MAX_VALUE,
+            -Double.MAX_VALUE, Double.MIN_NORMAL, 0x1p53, 0x1p63, -0x1p63}[random.nextInt(13)];
+      case 1:
+        // Ties with a few decimals
+        return random.nextInt(-100000, 100000) / (double) (1 << random.nextInt(8));
+      case 2:
+        return (double) randomLong();
+      case 3:
+        double bits = Double.longBitsToDouble(random.nextLong());
+        return Double.isFinite(bits) ? bits : random.nextDouble();
+      case 4:
+        return random.nextInt(-99999, 100000) / Math.pow(10, random.nextInt(8));
+      default:
+        return (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(-10, 20));
+    }
+  }
+
+  private Double randomSpecialDouble() {
+    return new double[] {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -0.0,
+        0.0}[random.nextInt(5)];
+  }
+
+  /**
+   * Creates a random {@link Decimal}, with a small or large unscaled value.
+   *
+   * @return The decimal
+   */
+  private Decimal randomDecimal() {
+    long unscaled = random.nextBoolean() ? random.nextLong(-100000, 100000) : randomLong();
+    return Decimal.of(unscaled, random.nextInt(Decimal.MAX_SCALE + 1));
+  }
+
+}
@@ -0,0 +1,44 @@
+package ch.thn.util.string;
+
+/**
+ * Reads multi-byte values out of byte arrays.<br />
+ * <br />
+ * This is the Java 8 version which assembles the values byte by byte. The multi-release jar
+ * contains a Java 21 version of this class (in <code>src/main/java21</code>) which reads the
+ * values with a single access through a byte array view.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+final class ByteArrayAccess {
+
+  private ByteArrayAccess() {}
+
+  /**
+   * Reads eight bytes as a little endian long.
+   *
+   * @param bytes The bytes
+   * @param index The index of the first byte
+   * @return The long value
+   */
+  static long getLongLE(byte[] bytes, int index) {
+    return (bytes[index] & 0xFFL) | (bytes[index + 1] & 0xFFL) << 8
+        | (bytes[index + 2] & 0xFFL) << 16 | (bytes[index + 3] & 0xFFL) << 24
+        | (bytes[index + 4] & 0xFFL) << 32 | (bytes[index + 5] & 0xFFL) << 40
+        | (bytes[index + 6] & 0xFFL) << 48 | (bytes[index + 7] & 0xFFL) << 56;
+  }
+
+  /**
+   * Reads four bytes as a little endian int.
+   *
+   * @param bytes The bytes
+   * @param index The index of the first byte
+   * @return The int value
+   */
+  static int getIntLE(byte[] bytes, int index) {
+    return (bytes[index] & 0xFF) | (bytes[index + 1] & 0xFF) << 8
+        | (bytes[index + 2] & 0xFF) << 16 | (bytes[index + 3] & 0xFF) << 24;
+  }
+
+}
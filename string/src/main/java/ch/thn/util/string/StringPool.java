@@ -0,0 +1,442 @@
+package ch.thn.util.string;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A dictionary which stores each distinct string only once and hands out an <code>int</code> id
+ * for it. This is useful for large tables whose string columns contain the same values over and
+ * over again (status values, paths, host names, ...): the table only needs to hold the ids.<br />
+ * <br />
+ * The characters are not kept as {@link String} objects but packed into large byte arrays. Strings
+ * which only contain Latin-1 characters (up to U+00FF) take one byte per character, all others two
+ * bytes per character. {@link #get(int)} returns a lightweight {@link CharSequence} view on the
+ * packed characters.<br />
+ * <br />
+ * The pool is split into stripes. Adding strings locks only the stripe the string belongs to, so
+ * that multiple threads can add strings at the same time. Looking up a string by its id does not
+ * lock at all. Strings can not be removed from the pool.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public class StringPool {
+
+  /** The default number of stripes. */
+  public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+  private static final int MAX_CONCURRENCY_LEVEL = 256;
+
+  /** Marks an entry which is stored with two bytes per character. */
+  private static final long UTF16_FLAG = 0x80000000L;
+
+  private final Stripe[] stripes;
+  private final int stripeBits;
+  private final int stripeMask;
+
+
+  /**
+   * A new string pool with {@link #DEFAULT_CONCURRENCY_LEVEL} stripes.
+   *
+   */
+  public StringPool() {
+    this(DEFAULT_CONCURRENCY_LEVEL);
+  }
+
+  /**
+   * A new string pool with the given number of stripes. The number of stripes is rounded up to the
+   * next power of two.
+   *
+   * @param concurrencyLevel The number of threads which are expected to add strings at the same
+   *        time
+   */
+  public StringPool(int concurrencyLevel) {
+    if (concurrencyLevel < 1 || concurrencyLevel > MAX_CONCURRENCY_LEVEL) {
+      throw new StringUtilError("Invalid concurrency level "
+          + concurrencyLevel
+          + ". Only values from 1 to "
+          + MAX_CONCURRENCY_LEVEL
+          + " allowed.");
+    }
+
+    int size = Integer.highestOneBit(concurrencyLevel);
+    if (size < concurrencyLevel) {
+      size <<= 1;
+    }
+
+    stripeBits = Integer.numberOfTrailingZeros(size);
+    stripeMask = size - 1;
+    stripes = new Stripe[size];
+
+    for (int i = 0; i < size; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  /**
+   * Adds the string to the pool if it is not in the pool yet and returns its id. Adding the same
+   * characters again returns the same id.
+   *
+   * @param str The string to add
+   * @return The id of the string
+   */
+  public int intern(CharSequence str) {
+    long hash = XxHash64.hash(str);
+    int stripeIndex = (int) (hash >>> 32) & stripeMask;
+    int local = stripes[stripeIndex].intern(str, (int) hash, stripeBits);
+
+    return local << stripeBits | stripeIndex;
+  }
+
+  /**
+   * Returns the id of the string, or <code>-1</code> if the string is not in the pool.
+   *
+   * @param str The string to look for
+   * @return The id of the string, or <code>-1</code>
+   */
+  public int find(CharSequence str) {
+    long hash = XxHash64.hash(str);
+    int stripeIndex = (int) (hash >>> 32) & stripeMask;
+    int local = stripes[stripeIndex].find(str, (int) hash);
+
+    if (local < 0) {
+      return -1;
+    }
+
+    return local << stripeBits | stripeIndex;
+  }
+
+  /**
+   * Returns a view on the characters of the string with the given id. The view is immutable and
+   * stays valid even if more strings are added to the pool afterwards.
+   *
+   * @param id The id returned by {@link #intern(CharSequence)}
+   * @return The characters of the string
+   */
+  public CharSequence get(int id) {
+    Stripe stripe = stripe(id);
+    int local = id >>> stripeBits;
+
+    // Read the count before the arrays, so that the arrays are at least as new as the count
+    if (local >= stripe.count) {
+      throw new StringUtilError("Unknown string id "
+          + id);
+    }
+
+    long entry = stripe.entries[local];
+    return new PooledString(stripe.data, (int) (entry >>> 32), (int) entry & Integer.MAX_VALUE,
+        (entry & UTF16_FLAG) != 0);
+  }
+
+  /**
+   * Returns the string with the given id as a new {@link String}.
+   *
+   * @param id The id returned by {@link #intern(CharSequence)}
+   * @return The string
+   */
+  public String getString(int id) {
+    return get(id).toString();
+  }
+
+  /**
+   * Returns the number of distinct strings in the pool.
+   *
+   * @return The number of strings
+   */
+  public int size() {
+    int size = 0;
+    for (Stripe stripe : stripes) {
+      size += stripe.count;
+    }
+    return size;
+  }
+
+  /**
+   * Returns the number of bytes used for the characters of all strings in the pool.
+   *
+   * @return The number of bytes
+   */
+  public long getDataSize() {
+    long size = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        size += stripe.dataSize;
+      }
+    }
+    return size;
+  }
+
+  private Stripe stripe(int id) {
+    if (id < 0) {
+      throw new StringUtilError("Unknown string id "
+          + id);
+    }
+
+    return stripes[id & stripeMask];
+  }
+
+  /**
+   * Checks if all characters fit into one byte.
+   *
+   * @param str The string to check
+   * @return <code>true</code> if all characters are Latin-1 characters
+   */
+  private static boolean isLatin1(CharSequence str) {
+    for (int i = 0; i < str.length(); i++) {
+      if (str.charAt(i) > 0xFF) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+  /************************************************************************************
+   * One stripe of the pool, with its own character data, entries and lookup table. All changes
+   * are made while holding the lock of the stripe. The data and entries are only appended to and
+   * published with the volatile count, so that reading by id does not need the lock.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static final class Stripe {
+
+    /** The packed characters of all strings in this stripe. */
+    private volatile byte[] data = new byte[256];
+    /** The offset (upper 32 bits), UTF-16 flag and length (lower 32 bits) of each string. */
+    private volatile long[] entries = new long[16];
+    /** The number of published entries. */
+    private volatile int count = 0;
+
+    private int dataSize = 0;
+    /** The lower 32 bits of the hash of each entry, to avoid most character comparisons. */
+    private int[] hashes = new int[16];
+    /** Open addressing table with the local index + 1 of the entries. 0 marks a free slot. */
+    private int[] table = new int[32];
+
+    private synchronized int find(CharSequence str, int hash) {
+      int mask = table.length - 1;
+      int slot = hash & mask;
+
+      while (table[slot] != 0) {
+        int local = table[slot] - 1;
+
+        if (hashes[local] == hash && contentEquals(local, str)) {
+          return local;
+        }
+
+        slot = (slot + 1) & mask;
+      }
+
+      return -1;
+    }
+
+    private synchronized int intern(CharSequence str, int hash, int stripeBits) {
+      int local = find(str, hash);
+
+      if (local >= 0) {
+        return local;
+      }
+
+      local = count;
+
+      if (local >= Integer.MAX_VALUE >>> stripeBits) {
+        throw new StringUtilError("String pool is full");
+      }
+
+      int length = str.length();
+      boolean latin1 = isLatin1(str);
+      long byteLength = latin1 ? length : 2L * length;
+
+      if (dataSize + byteLength > Integer.MAX_VALUE - 8) {
+        throw new StringUtilError("String pool stripe is full");
+      }
+
+      byte[] bytes = data;
+      if (dataSize + byteLength > bytes.length) {
+        long newLength = Math.max(dataSize + byteLength, 2L * bytes.length);
+        byte[] grown = new byte[(int) Math.min(newLength, Integer.MAX_VALUE - 8)];
+        System.arraycopy(bytes, 0, grown, 0, dataSize);
+        bytes = grown;
+      }
+
+      int offset = dataSize;
+      if (latin1) {
+        for (int i = 0; i < length; i++) {
+          bytes[offset + i] = (byte) str.charAt(i);
+        }
+      } else {
+        for (int i = 0; i < length; i++) {
+          char c = str.charAt(i);
+          bytes[offset + 2 * i] = (byte) (c >>> 8);
+          bytes[offset + 2 * i + 1] = (byte) c;
+        }
+      }
+
+      long[] entryArray = entries;
+      if (local == entryArray.length) {
+        long[] grown = new long[2 * entryArray.length];
+        System.arraycopy(entryArray, 0, grown, 0, local);
+        entryArray = grown;
+
+        int[] grownHashes = new int[grown.length];
+        System.arraycopy(hashes, 0, grownHashes, 0, local);
+        hashes = grownHashes;
+      }
+
+      entryArray[local] = (long) offset << 32 | (latin1 ? 0 : UTF16_FLAG) | length;
+      hashes[local] = hash;
+      dataSize += (int) byteLength;
+
+      // Publish: the arrays first, then the count
+      data = bytes;
+      entries = entryArray;
+      count = local + 1;
+
+      if (2 * count > table.length) {
+        rehash();
+      }
+
+      insert(table, local, hash);
+
+      return local;
+    }
+
+    private void rehash() {
+      int[] grown = new int[2 * table.length];
+
+      for (int i = 0; i < table.length; i++) {
+        if (table[i] != 0) {
+          insert(grown, table[i] - 1, hashes[table[i] - 1]);
+        }
+      }
+
+      table = grown;
+    }
+
+    private static void insert(int[] table, int local, int hash) {
+      int mask = table.length - 1;
+      int slot = hash & mask;
+
+      while (table[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+
+      table[slot] = local + 1;
+    }
+
+    private boolean contentEquals(int local, CharSequence str) {
+      long entry = entries[local];
+      return new PooledString(data, (int) (entry >>> 32), (int) entry & Integer.MAX_VALUE,
+          (entry & UTF16_FLAG) != 0).contentEquals(str);
+    }
+
+  }
+
+
+  /************************************************************************************
+   * An immutable view on the packed characters of one string in the pool.
+   *
+   *
+   * @author Thomas Naeff (github.com/thnaeff)
+   *
+   */
+  private static final class PooledString implements CharSequence {
+
+    private final byte[] data;
+    private final int offset;
+    private final int length;
+    private final boolean utf16;
+
+    private PooledString(byte[] data, int offset, int length, boolean utf16) {
+      this.data = data;
+      this.offset = offset;
+      this.length = length;
+      this.utf16 = utf16;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (index < 0 || index >= length) {
+        throw new IndexOutOfBoundsException("Index "
+            + index
+            + " out of range for length "
+            + length);
+      }
+
+      if (utf16) {
+        int i = offset + 2 * index;
+        return (char) ((data[i] & 0xFF) << 8 | (data[i + 1] & 0xFF));
+      }
+
+      return (char) (data[offset + index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      if (start < 0 || end > length || start > end) {
+        throw new IndexOutOfBoundsException("Range "
+            + start
+            + "-"
+            + end
+            + " out of range for length "
+            + length);
+      }
+
+      return new PooledString(data, offset + (utf16 ? 2 * start : start), end - start, utf16);
+    }
+
+    private boolean contentEquals(CharSequence str) {
+      if (str.length() != length) {
+        return false;
+      }
+
+      for (int i = 0; i < length; i++) {
+        if (charAt(i) != str.charAt(i)) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof PooledString && contentEquals((PooledString) obj);
+    }
+
+    /**
+     * The same hash code as {@link String#hashCode()} for the same characters.
+     *
+     */
+    @Override
+    public int hashCode() {
+      int h = 0;
+      for (int i = 0; i < length; i++) {
+        h = 31 * h + charAt(i);
+      }
+      return h;
+    }
+
+    @Override
+    public String toString() {
+      if (!utf16) {
+        return new String(data, offset, length, StandardCharsets.ISO_8859_1);
+      }
+
+      char[] chars = new char[length];
+      for (int i = 0; i < length; i++) {
+        chars[i] = charAt(i);
+      }
+      return new String(chars);
+    }
+
+  }
+
+}
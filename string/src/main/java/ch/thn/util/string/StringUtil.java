@@ -24,14 +24,14 @@ public class StringUtil {
    * Determines on which side the string should be clipped.
    *
    */
-  private enum ClippingMode {
+  public enum ClippingMode {
     /** Clipped on the left side of the string. */
     LEFT,
     /** Clipped on the right side of the string. */
     RIGHT,
   }
 
-  private enum ClippingModeCenter {
+  public enum ClippingModeCenter {
     /** Clips in the middle of the string, more towards the beginning of the string. */
     LEFT,
     /** Clips in the middle of the string, more towards the end of the string. */
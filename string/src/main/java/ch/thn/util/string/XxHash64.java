@@ -0,0 +1,542 @@
+package ch.thn.util.string;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A fast, non-cryptographic 64 bit hash function, following the XXH64 algorithm
+ * (github.com/Cyan4973/xxHash).<br />
+ * <br />
+ * The static methods hash a complete input in one go. For data which arrives in pieces, a new
+ * instance can be created which is fed with {@link #update(byte[], int, int)} etc. and finally
+ * queried with {@link #getValue()}. Both ways produce the same hash for the same bytes.<br />
+ * <br />
+ * A {@link CharSequence} is hashed without encoding it into a byte array first. Each character is
+ * hashed as its two UTF-16 bytes in little endian order, which means that
+ * <code>hash(str)</code> is the same as hashing <code>str.getBytes(UTF_16LE)</code> (as long as
+ * the string has no unpaired surrogates, which the encoder would replace).<br />
+ * <br />
+ * Published XXH64 test vectors (seed 0):<br />
+ * "" -&gt; 0xEF46DB3751D8E999<br />
+ * "a" -&gt; 0xD24EC4F1A98C6E5B<br />
+ * "abc" -&gt; 0x44BC2CF5AD770999<br />
+ * "Nobody inspects the spammish repetition" -&gt; 0xFBCEA83C8A378BF1<br />
+ * <br />
+ * Instances are not thread safe.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public class XxHash64 {
+
+  private static final long PRIME1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long PRIME3 = 0x165667B19E3779F9L;
+  private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+  private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+  /** The number of bytes processed in one round of the four accumulators. */
+  private static final int STRIPE = 32;
+
+  private final long seed;
+
+  private long v1;
+  private long v2;
+  private long v3;
+  private long v4;
+
+  /** Bytes which did not fill up a complete stripe yet. */
+  private final byte[] buffer = new byte[STRIPE];
+  private int bufferSize = 0;
+  private long totalLength = 0;
+
+  /**
+   * A new incremental hash with seed 0.
+   *
+   */
+  public XxHash64() {
+    this(0);
+  }
+
+  /**
+   * A new incremental hash with the given seed.
+   *
+   * @param seed The seed of the hash
+   */
+  public XxHash64(long seed) {
+    this.seed = seed;
+    reset();
+  }
+
+  /**
+   * Resets this hash to its initial state, so that it can be reused for new data.
+   *
+   */
+  public void reset() {
+    v1 = seed + PRIME1 + PRIME2;
+    v2 = seed + PRIME2;
+    v3 = seed;
+    v4 = seed - PRIME1;
+    bufferSize = 0;
+    totalLength = 0;
+  }
+
+  /**
+   * Adds all the given bytes to the hash.
+   *
+   * @param bytes The bytes to add
+   * @return This hash instance
+   */
+  public XxHash64 update(byte[] bytes) {
+    return update(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Adds <code>len</code> bytes, starting at <code>off</code>, to the hash.
+   *
+   * @param bytes The bytes to add
+   * @param off The index of the first byte to add
+   * @param len The number of bytes to add
+   * @return This hash instance
+   */
+  public XxHash64 update(byte[] bytes, int off, int len) {
+    checkRange(bytes.length, off, len);
+
+    int end = off + len;
+    totalLength += len;
+
+    if (bufferSize > 0) {
+      int fill = Math.min(STRIPE - bufferSize, len);
+      System.arraycopy(bytes, off, buffer, bufferSize, fill);
+      bufferSize += fill;
+      off += fill;
+
+      if (bufferSize < STRIPE) {
+        return this;
+      }
+
+      processBuffer();
+    }
+
+    while (end - off >= STRIPE) {
+      v1 = round(v1, ByteArrayAccess.getLongLE(bytes, off));
+      v2 = round(v2, ByteArrayAccess.getLongLE(bytes, off + 8));
+      v3 = round(v3, ByteArrayAccess.getLongLE(bytes, off + 16));
+      v4 = round(v4, ByteArrayAccess.getLongLE(bytes, off + 24));
+      off += STRIPE;
+    }
+
+    System.arraycopy(bytes, off, buffer, 0, end - off);
+    bufferSize = end - off;
+
+    return this;
+  }
+
+  /**
+   * Adds the remaining bytes of the given buffer (from its position to its limit) to the hash. The
+   * position of the buffer is not changed. Heap, direct and memory mapped buffers are supported.
+   *
+   * @param bytes The buffer with the bytes to add
+   * @return This hash instance
+   */
+  public XxHash64 update(ByteBuffer bytes) {
+    ByteBuffer in = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+    totalLength += in.remaining();
+
+    while (bufferSize > 0 && in.hasRemaining()) {
+      buffer[bufferSize++] = in.get();
+
+      if (bufferSize == STRIPE) {
+        processBuffer();
+      }
+    }
+
+    while (in.remaining() >= STRIPE) {
+      int pos = in.position();
+      v1 = round(v1, in.getLong(pos));
+      v2 = round(v2, in.getLong(pos + 8));
+      v3 = round(v3, in.getLong(pos + 16));
+      v4 = round(v4, in.getLong(pos + 24));
+      in.position(pos + STRIPE);
+    }
+
+    int remaining = in.remaining();
+    in.get(buffer, bufferSize, remaining);
+    bufferSize += remaining;
+
+    return this;
+  }
+
+  /**
+   * Adds all characters of the given sequence to the hash, each of them as two bytes in little
+   * endian order.
+   *
+   * @param chars The characters to add
+   * @return This hash instance
+   */
+  public XxHash64 update(CharSequence chars) {
+    return update(chars, 0, chars.length());
+  }
+
+  /**
+   * Adds the characters from <code>start</code> (inclusive) to <code>end</code> (exclusive) to the
+   * hash, each of them as two bytes in little endian order.
+   *
+   * @param chars The characters to add
+   * @param start The index of the first character
+   * @param end The index after the last character
+   * @return This hash instance
+   */
+  public XxHash64 update(CharSequence chars, int start, int end) {
+    checkRange(chars.length(), start, end - start);
+
+    totalLength += 2L * (end - start);
+
+    // Fill up the buffer if there is something in it already (possibly an odd number of bytes left
+    // by a previous byte update), so that the characters have to go through the buffer one by one.
+    while (start < end && bufferSize > 0) {
+      char c = chars.charAt(start++);
+      buffer[bufferSize++] = (byte) c;
+
+      if (bufferSize == STRIPE) {
+        processBuffer();
+      }
+
+      buffer[bufferSize++] = (byte) (c >>> 8);
+
+      if (bufferSize == STRIPE) {
+        processBuffer();
+      }
+    }
+
+    while (end - start >= STRIPE / 2) {
+      v1 = round(v1, getLongLE(chars, start));
+      v2 = round(v2, getLongLE(chars, start + 4));
+      v3 = round(v3, getLongLE(chars, start + 8));
+      v4 = round(v4, getLongLE(chars, start + 12));
+      start += STRIPE / 2;
+    }
+
+    while (start < end) {
+      char c = chars.charAt(start++);
+      buffer[bufferSize++] = (byte) c;
+      buffer[bufferSize++] = (byte) (c >>> 8);
+    }
+
+    return this;
+  }
+
+  /**
+   * Returns the hash of all the data added so far. More data can be added after calling this
+   * method.
+   *
+   * @return The hash value
+   */
+  public long getValue() {
+    long h;
+
+    if (totalLength >= STRIPE) {
+      h = mergeAccumulators(v1, v2, v3, v4);
+    } else {
+      h = seed + PRIME5;
+    }
+
+    h += totalLength;
+
+    return finish(h, buffer, 0, bufferSize);
+  }
+
+  /**
+   * Processes the full stripe in the buffer.
+   *
+   */
+  private void processBuffer() {
+    v1 = round(v1, ByteArrayAccess.getLongLE(buffer, 0));
+    v2 = round(v2, ByteArrayAccess.getLongLE(buffer, 8));
+    v3 = round(v3, ByteArrayAccess.getLongLE(buffer, 16));
+    v4 = round(v4, ByteArrayAccess.getLongLE(buffer, 24));
+    bufferSize = 0;
+  }
+
+
+  /**
+   * Hashes all the given bytes with seed 0.
+   *
+   * @param bytes The bytes to hash
+   * @return The hash value
+   */
+  public static long hash(byte[] bytes) {
+    return hash(bytes, 0, bytes.length, 0);
+  }
+
+  /**
+   * Hashes <code>len</code> bytes, starting at <code>off</code>.
+   *
+   * @param bytes The bytes to hash
+   * @param off The index of the first byte
+   * @param len The number of bytes to hash
+   * @param seed The seed of the hash
+   * @return The hash value
+   */
+  public static long hash(byte[] bytes, int off, int len, long seed) {
+    checkRange(bytes.length, off, len);
+
+    int end = off + len;
+    long h;
+
+    if (len >= STRIPE) {
+      long acc1 = seed + PRIME1 + PRIME2;
+      long acc2 = seed + PRIME2;
+      long acc3 = seed;
+      long acc4 = seed - PRIME1;
+      int limit = end - STRIPE;
+
+      do {
+        acc1 = round(acc1, ByteArrayAccess.getLongLE(bytes, off));
+        acc2 = round(acc2, ByteArrayAccess.getLongLE(bytes, off + 8));
+        acc3 = round(acc3, ByteArrayAccess.getLongLE(bytes, off + 16));
+        acc4 = round(acc4, ByteArrayAccess.getLongLE(bytes, off + 24));
+        off += STRIPE;
+      } while (off <= limit);
+
+      h = mergeAccumulators(acc1, acc2, acc3, acc4);
+    } else {
+      h = seed + PRIME5;
+    }
+
+    h += len;
+
+    return finish(h, bytes, off, end - off);
+  }
+
+  /**
+   * Hashes the remaining bytes of the given buffer (from its position to its limit) with seed 0.
+   * The position of the buffer is not changed.
+   *
+   * @param bytes The buffer with the bytes to hash
+   * @return The hash value
+   */
+  public static long hash(ByteBuffer bytes) {
+    return hash(bytes, 0);
+  }
+
+  /**
+   * Hashes the remaining bytes of the given buffer (from its position to its limit). The position
+   * of the buffer is not changed. Heap, direct and memory mapped buffers are supported.
+   *
+   * @param bytes The buffer with the bytes to hash
+   * @param seed The seed of the hash
+   * @return The hash value
+   */
+  public static long hash(ByteBuffer bytes, long seed) {
+    if (bytes.hasArray()) {
+      return hash(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining(), seed);
+    }
+
+    ByteBuffer in = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    int off = in.position();
+    int end = in.limit();
+    long h;
+
+    if (end - off >= STRIPE) {
+      long acc1 = seed + PRIME1 + PRIME2;
+      long acc2 = seed + PRIME2;
+      long acc3 = seed;
+      long acc4 = seed - PRIME1;
+      int limit = end - STRIPE;
+
+      do {
+        acc1 = round(acc1, in.getLong(off));
+        acc2 = round(acc2, in.getLong(off + 8));
+        acc3 = round(acc3, in.getLong(off + 16));
+        acc4 = round(acc4, in.getLong(off + 24));
+        off += STRIPE;
+      } while (off <= limit);
+
+      h = mergeAccumulators(acc1, acc2, acc3, acc4);
+    } else {
+      h = seed + PRIME5;
+    }
+
+    h += end - in.position();
+
+    while (end - off >= 8) {
+      h ^= round(0, in.getLong(off));
+      h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+      off += 8;
+    }
+
+    if (end - off >= 4) {
+      h ^= (in.getInt(off) & 0xFFFFFFFFL) * PRIME1;
+      h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+      off += 4;
+    }
+
+    while (off < end) {
+      h ^= (in.get(off) & 0xFF) * PRIME5;
+      h = Long.rotateLeft(h, 11) * PRIME1;
+      off++;
+    }
+
+    return avalanche(h);
+  }
+
+  /**
+   * Hashes all characters of the given sequence with seed 0, without encoding them first.
+   *
+   * @param chars The characters to hash
+   * @return The hash value
+   */
+  public static long hash(CharSequence chars) {
+    return hash(chars, 0);
+  }
+
+  /**
+   * Hashes all characters of the given sequence, each of them as two bytes in little endian order.
+   * The sequence is not encoded into a byte array first.
+   *
+   * @param chars The characters to hash
+   * @param seed The seed of the hash
+   * @return The hash value
+   */
+  public static long hash(CharSequence chars, long seed) {
+    int off = 0;
+    int end = chars.length();
+    long h;
+
+    // One stripe covers 16 characters
+    if (end >= STRIPE / 2) {
+      long acc1 = seed + PRIME1 + PRIME2;
+      long acc2 = seed + PRIME2;
+      long acc3 = seed;
+      long acc4 = seed - PRIME1;
+      int limit = end - STRIPE / 2;
+
+      do {
+        acc1 = round(acc1, getLongLE(chars, off));
+        acc2 = round(acc2, getLongLE(chars, off + 4));
+        acc3 = round(acc3, getLongLE(chars, off + 8));
+        acc4 = round(acc4, getLongLE(chars, off + 12));
+        off += STRIPE / 2;
+      } while (off <= limit);
+
+      h = mergeAccumulators(acc1, acc2, acc3, acc4);
+    } else {
+      h = seed + PRIME5;
+    }
+
+    h += 2L * end;
+
+    while (end - off >= 4) {
+      h ^= round(0, getLongLE(chars, off));
+      h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+      off += 4;
+    }
+
+    if (end - off >= 2) {
+      long k = chars.charAt(off) | (long) chars.charAt(off + 1) << 16;
+      h ^= k * PRIME1;
+      h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+      off += 2;
+    }
+
+    if (off < end) {
+      char c = chars.charAt(off);
+      h ^= (c & 0xFF) * PRIME5;
+      h = Long.rotateLeft(h, 11) * PRIME1;
+      h ^= (c >>> 8) * PRIME5;
+      h = Long.rotateLeft(h, 11) * PRIME1;
+    }
+
+    return avalanche(h);
+  }
+
+  /**
+   * Mixes the remaining bytes (less than one stripe) into the hash and applies the final
+   * avalanche.
+   *
+   * @param h The hash so far
+   * @param bytes The remaining bytes
+   * @param off The index of the first remaining byte
+   * @param len The number of remaining bytes
+   * @return The final hash value
+   */
+  private static long finish(long h, byte[] bytes, int off, int len) {
+    int end = off + len;
+
+    while (end - off >= 8) {
+      h ^= round(0, ByteArrayAccess.getLongLE(bytes, off));
+      h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+      off += 8;
+    }
+
+    if (end - off >= 4) {
+      h ^= (ByteArrayAccess.getIntLE(bytes, off) & 0xFFFFFFFFL) * PRIME1;
+      h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+      off += 4;
+    }
+
+    while (off < end) {
+      h ^= (bytes[off] & 0xFF) * PRIME5;
+      h = Long.rotateLeft(h, 11) * PRIME1;
+      off++;
+    }
+
+    return avalanche(h);
+  }
+
+  private static long round(long acc, long input) {
+    acc += input * PRIME2;
+    acc = Long.rotateLeft(acc, 31);
+    return acc * PRIME1;
+  }
+
+  private static long mergeRound(long acc, long value) {
+    acc ^= round(0, value);
+    return acc * PRIME1 + PRIME4;
+  }
+
+  private static long mergeAccumulators(long acc1, long acc2, long acc3, long acc4) {
+    long h = Long.rotateLeft(acc1, 1) + Long.rotateLeft(acc2, 7) + Long.rotateLeft(acc3, 12)
+        + Long.rotateLeft(acc4, 18);
+    h = mergeRound(h, acc1);
+    h = mergeRound(h, acc2);
+    h = mergeRound(h, acc3);
+    return mergeRound(h, acc4);
+  }
+
+  private static long avalanche(long h) {
+    h ^= h >>> 33;
+    h *= PRIME2;
+    h ^= h >>> 29;
+    h *= PRIME3;
+    return h ^ (h >>> 32);
+  }
+
+  /**
+   * Reads four characters as one little endian long (the same value as reading their UTF-16LE
+   * bytes).
+   *
+   * @param chars The characters
+   * @param index The index of the first character
+   * @return The long value
+   */
+  private static long getLongLE(CharSequence chars, int index) {
+    return chars.charAt(index) | (long) chars.charAt(index + 1) << 16
+        | (long) chars.charAt(index + 2) << 32 | (long) chars.charAt(index + 3) << 48;
+  }
+
+  private static void checkRange(int length, int off, int len) {
+    if (off < 0 || len < 0 || off > length - len) {
+      throw new StringUtilError("Invalid range: offset "
+          + off
+          + ", length "
+          + len
+          + " for input length "
+          + length);
+    }
+  }
+
+}
@@ -0,0 +1,48 @@
+package ch.thn.util.string;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Reads multi-byte values out of byte arrays.<br />
+ * <br />
+ * Java 21 version of this class for the multi-release jar. The values are read through byte
+ * array view handles, which the JIT compiles to single (unaligned) loads.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+final class ByteArrayAccess {
+
+  private static final VarHandle LONG_LE =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle INT_LE =
+      MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private ByteArrayAccess() {}
+
+  /**
+   * Reads eight bytes as a little endian long.
+   *
+   * @param bytes The bytes
+   * @param index The index of the first byte
+   * @return The long value
+   */
+  static long getLongLE(byte[] bytes, int index) {
+    return (long) LONG_LE.get(bytes, index);
+  }
+
+  /**
+   * Reads four bytes as a little endian int.
+   *
+   * @param bytes The bytes
+   * @param index The index of the first byte
+   * @return The int value
+   */
+  static int getIntLE(byte[] bytes, int index) {
+    return (int) INT_LE.get(bytes, index);
+  }
+
+}
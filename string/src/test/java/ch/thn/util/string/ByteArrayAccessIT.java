@@ -0,0 +1,113 @@
+package ch.thn.util.string;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.SplittableRandom;
+import org.junit.Test;
+
+/**
+ * Checks {@link ByteArrayAccess} in the packaged multi-release jar. The same checks run on Java 8,
+ * where the base version of the class is loaded, and on Java 21, where its Java 21 version is
+ * loaded (see the failsafe configuration in the master pom).
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public class ByteArrayAccessIT {
+
+  private final SplittableRandom random = new SplittableRandom(42);
+
+
+  @Test
+  public void loadsTheVersionOfTheRunningJava() throws IOException {
+    assertTrue("Not running against the packaged jar",
+        ByteArrayAccess.class.getProtectionDomain().getCodeSource().getLocation().getPath()
+            .endsWith(".jar"));
+    assertEquals(expectedClassVersion(ByteArrayAccess.class),
+        classVersion(ByteArrayAccess.class));
+  }
+
+  @Test
+  public void readsLittleEndianValues() {
+    for (int length = 8; length < 64; length++) {
+      byte[] bytes = new byte[length];
+      for (int i = 0; i < length; i++) {
+        bytes[i] = (byte) random.nextInt(256);
+      }
+
+      ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+      for (int i = 0; i + 8 <= length; i++) {
+        assertEquals(buffer.getLong(i), ByteArrayAccess.getLongLE(bytes, i));
+      }
+      for (int i = 0; i + 4 <= length; i++) {
+        assertEquals(buffer.getInt(i), ByteArrayAccess.getIntLE(bytes, i));
+      }
+    }
+  }
+
+  @Test
+  public void rejectsIndicesOutOfBounds() {
+    byte[] bytes = new byte[16];
+
+    for (int index : new int[] {-1, 9, 16}) {
+      try {
+        ByteArrayAccess.getLongLE(bytes, index);
+        fail("Long at index " + index);
+      } catch (IndexOutOfBoundsException e) {
+        // Expected
+      }
+    }
+
+    for (int index : new int[] {-1, 13, 16}) {
+      try {
+        ByteArrayAccess.getIntLE(bytes, index);
+        fail("Int at index " + index);
+      } catch (IndexOutOfBoundsException e) {
+        // Expected
+      }
+    }
+  }
+
+  /**
+   * The class file version which has to be loaded: the Java 21 version if the class has one and
+   * the tests run on Java 21 or newer, otherwise the Java 8 version.
+   *
+   * @param type The class
+   * @return The expected major class file version
+   */
+  static int expectedClassVersion(Class<?> type) {
+    String spec = System.getProperty("java.specification.version");
+    int java = Integer.parseInt(spec.startsWith("1.") ? spec.substring(2) : spec);
+    String overlay = "META-INF/versions/21/"
+        + type.getName().replace('.', '/')
+        + ".class";
+
+    return java >= 21 && type.getClassLoader().getResource(overlay) != null ? 65 : 52;
+  }
+
+  /**
+   * Reads the major class file version of the loaded class.
+   *
+   * @param type The class
+   * @return The major class file version
+   * @throws IOException If reading the class file fails
+   */
+  static int classVersion(Class<?> type) throws IOException {
+    try (InputStream in = type.getResourceAsStream(type.getSimpleName()
+        + ".class")) {
+      DataInputStream data = new DataInputStream(in);
+      data.readInt();
+      data.readUnsignedShort();
+      return data.readUnsignedShort();
+    }
+  }
+
+}
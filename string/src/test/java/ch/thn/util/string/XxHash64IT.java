@@ -0,0 +1,102 @@
+package ch.thn.util.string;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import org.junit.Test;
+
+/**
+ * Checks {@link XxHash64} in the packaged jar against the published XXH64 test vectors, on Java 8
+ * and on Java 21 (see the failsafe configuration in the master pom). All the inputs are hashed as
+ * byte arrays, heap and direct buffers, and in pieces with the instance methods.
+ *
+ *
+ * @author Thomas Naeff (github.com/thnaeff)
+ *
+ */
+public class XxHash64IT {
+
+  private static final String[] INPUTS =
+      {"", "a", "abc", "Nobody inspects the spammish repetition"};
+
+  private static final long[] HASHES =
+      {0xEF46DB3751D8E999L, 0xD24EC4F1A98C6E5BL, 0x44BC2CF5AD770999L, 0xFBCEA83C8A378BF1L};
+
+  private final SplittableRandom random = new SplittableRandom(42);
+
+
+  @Test
+  public void hashesTheTestVectors() {
+    for (int i = 0; i < INPUTS.length; i++) {
+      byte[] bytes = INPUTS[i].getBytes(StandardCharsets.US_ASCII);
+      String input = "\"" + INPUTS[i] + "\"";
+
+      assertEquals(input, HASHES[i], XxHash64.hash(bytes));
+      assertEquals(input, HASHES[i], XxHash64.hash(ByteBuffer.wrap(bytes)));
+      assertEquals(input + " direct", HASHES[i], XxHash64.hash(direct(bytes)));
+
+      XxHash64 byteHash = new XxHash64();
+      XxHash64 bufferHash = new XxHash64();
+      for (int off = 0; off < bytes.length; off += 3) {
+        int len = Math.min(3, bytes.length - off);
+        byteHash.update(bytes, off, len);
+        bufferHash.update(slice(direct(bytes), off, len));
+      }
+      assertEquals(input + " in pieces", HASHES[i], byteHash.getValue());
+      assertEquals(input + " direct in pieces", HASHES[i], bufferHash.getValue());
+    }
+  }
+
+  @Test
+  public void hashesCharactersAsUtf16le() {
+    for (int length = 0; length < 100; length++) {
+      StringBuilder chars = new StringBuilder();
+      for (int i = 0; i < length; i++) {
+        chars.append((char) random.nextInt(0xD800));
+      }
+      String str = chars.toString();
+      long expected = XxHash64.hash(str.getBytes(StandardCharsets.UTF_16LE));
+
+      assertEquals(str, expected, XxHash64.hash(str));
+
+      int split = random.nextInt(length + 1);
+      assertEquals(str, expected,
+          new XxHash64().update(str, 0, split).update(str, split, length).getValue());
+    }
+  }
+
+  @Test
+  public void keepsTheBufferPosition() {
+    byte[] bytes = new byte[100];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) random.nextInt(256);
+    }
+    long expected = XxHash64.hash(bytes, 5, 90, 7);
+
+    for (ByteBuffer buffer : new ByteBuffer[] {ByteBuffer.wrap(bytes), direct(bytes)}) {
+      buffer.position(5);
+      buffer.limit(95);
+
+      assertEquals(expected, XxHash64.hash(buffer, 7));
+      assertEquals(expected, new XxHash64(7).update(buffer).getValue());
+      assertEquals(5, buffer.position());
+      assertEquals(95, buffer.limit());
+    }
+  }
+
+  private static ByteBuffer direct(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+    buffer.put(bytes);
+    buffer.flip();
+    return buffer;
+  }
+
+  private static ByteBuffer slice(ByteBuffer buffer, int off, int len) {
+    buffer.position(off);
+    buffer.limit(off + len);
+    return buffer;
+  }
+
+}